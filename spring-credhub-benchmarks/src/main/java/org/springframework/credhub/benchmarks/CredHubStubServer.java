@@ -0,0 +1,264 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.springframework.credhub.support.CredentialType;
+
+/**
+ * An in-process HTTP server that answers CredHub API requests with canned responses,
+ * so that benchmarks measure the overhead of the client rather than the latency of a
+ * CredHub server.
+ *
+ * @author Scott Frederick
+ */
+public class CredHubStubServer {
+	private static final int HISTORY_SIZE = 5;
+	private static final int SEARCH_RESULTS_SIZE = 10;
+	private static final int PERMISSIONS_SIZE = 3;
+
+	static {
+		// without TCP_NODELAY, delayed ACKs add tens of milliseconds to each response
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ScheduledExecutorService delayedResponseExecutor;
+	private final long responseDelay;
+
+	private final byte[] credentialDetails;
+	private final byte[] credentialDetailsData;
+	private final byte[] credentialSummaryData;
+	private final byte[] credentialPermissions;
+	private final byte[] servicesData;
+
+	/**
+	 * Create a stub server listening on an ephemeral port of the loopback interface.
+	 *
+	 * @throws IOException if the server socket could not be opened
+	 */
+	public CredHubStubServer() throws IOException {
+		this(0, 0);
+	}
+
+	/**
+	 * Create a stub server listening on an ephemeral port of the loopback interface,
+	 * that delays each response to simulate the latency of a remote CredHub server.
+	 * Delayed responses are sent from a scheduler, so waiting requests do not hold
+	 * server threads.
+	 *
+	 * @param backlog the maximum number of connections waiting to be accepted, or
+	 * {@literal 0} for the system default
+	 * @param responseDelay the delay of each response in {@link TimeUnit#MILLISECONDS}
+	 * @throws IOException if the server socket could not be opened
+	 */
+	public CredHubStubServer(int backlog, long responseDelay) throws IOException {
+		this.credentialDetails = bytes(BenchmarkFixtures.credentialDetailsJson(CredentialType.PASSWORD));
+		this.credentialDetailsData = bytes(
+				BenchmarkFixtures.credentialDetailsDataJson(CredentialType.PASSWORD, HISTORY_SIZE));
+		this.credentialSummaryData = bytes(BenchmarkFixtures.credentialSummaryDataJson(SEARCH_RESULTS_SIZE));
+		this.credentialPermissions = bytes(BenchmarkFixtures.credentialPermissionsJson(PERMISSIONS_SIZE));
+		this.servicesData = bytes(BenchmarkFixtures.servicesDataJson(true));
+
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), backlog);
+		this.server.createContext("/api/v1/data", new DataHandler());
+		this.server.createContext("/api/v1/permissions", new PermissionsHandler());
+		this.server.createContext("/api/v1/interpolate", new InterpolateHandler());
+
+		this.executor = Executors.newCachedThreadPool(new DaemonThreadFactory());
+		this.server.setExecutor(executor);
+
+		this.responseDelay = responseDelay;
+		this.delayedResponseExecutor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+	}
+
+	/**
+	 * Start accepting requests.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stop accepting requests and release the server socket.
+	 */
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+		delayedResponseExecutor.shutdownNow();
+	}
+
+	/**
+	 * Get the base URI of the server, suitable for use as the CredHub API base URI.
+	 *
+	 * @return the base URI
+	 */
+	public String getApiUriBase() {
+		InetSocketAddress address = server.getAddress();
+		return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort();
+	}
+
+	/**
+	 * Run a stub server in its own process, for benchmarks whose client and server
+	 * sockets would not fit within the open file limit of a single process. The base
+	 * URI of the server is printed when it has started, and the server runs until
+	 * standard input is closed.
+	 *
+	 * @param args the backlog and the response delay in {@link TimeUnit#MILLISECONDS}
+	 * @throws IOException if the server socket could not be opened
+	 */
+	public static void main(String[] args) throws IOException {
+		CredHubStubServer server = new CredHubStubServer(Integer.parseInt(args[0]), Long.parseLong(args[1]));
+		server.start();
+
+		System.out.println(server.getApiUriBase());
+		System.out.flush();
+
+		while (System.in.read() != -1) {
+			// run until the parent process closes standard input
+		}
+		server.stop();
+	}
+
+	private static byte[] bytes(String json) throws IOException {
+		return json.getBytes("UTF-8");
+	}
+
+	private void respond(final HttpExchange exchange, final byte[] body) throws IOException {
+		drainRequestBody(exchange);
+
+		if (responseDelay == 0) {
+			sendResponse(exchange, body);
+			return;
+		}
+
+		delayedResponseExecutor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					sendResponse(exchange, body);
+				}
+				catch (IOException e) {
+					exchange.close();
+				}
+			}
+		}, responseDelay, TimeUnit.MILLISECONDS);
+	}
+
+	private static void sendResponse(HttpExchange exchange, byte[] body) throws IOException {
+
+		if (body == null) {
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+			return;
+		}
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+		exchange.sendResponseHeaders(200, body.length);
+		OutputStream out = exchange.getResponseBody();
+		try {
+			out.write(body);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private static void drainRequestBody(HttpExchange exchange) throws IOException {
+		InputStream in = exchange.getRequestBody();
+		try {
+			byte[] buffer = new byte[4096];
+			while (in.read(buffer) != -1) {
+				// discard the request body so the connection can be reused
+			}
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private class DataHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			String method = exchange.getRequestMethod();
+			String query = exchange.getRequestURI().getRawQuery();
+
+			if ("DELETE".equals(method)) {
+				respond(exchange, null);
+			}
+			else if (!"GET".equals(method) || query == null) {
+				respond(exchange, credentialDetails);
+			}
+			else if (query.contains("name-like=") || query.contains("path=")) {
+				respond(exchange, credentialSummaryData);
+			}
+			else if (query.contains("current=true")) {
+				respond(exchange, credentialDetails);
+			}
+			else {
+				respond(exchange, credentialDetailsData);
+			}
+		}
+	}
+
+	private class PermissionsHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			if ("DELETE".equals(exchange.getRequestMethod())) {
+				respond(exchange, null);
+			}
+			else {
+				respond(exchange, credentialPermissions);
+			}
+		}
+	}
+
+	private class InterpolateHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			respond(exchange, servicesData);
+		}
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "credhub-stub-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.credhub.configuration.ClientHttpRequestFactoryBackend;
+import org.springframework.credhub.core.CredHubTemplate;
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.ClientOptions;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialSummary;
+import org.springframework.credhub.support.ServicesData;
+import org.springframework.credhub.support.SimpleCredentialName;
+import org.springframework.credhub.support.password.PasswordCredential;
+import org.springframework.credhub.support.password.PasswordCredentialRequest;
+import org.springframework.credhub.support.password.PasswordParameters;
+import org.springframework.credhub.support.password.PasswordParametersRequest;
+import org.springframework.credhub.support.permissions.Actor;
+import org.springframework.credhub.support.permissions.CredentialPermission;
+import org.springframework.credhub.support.permissions.Operation;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * Measures the client overhead of each {@link CredHubTemplate} operation against an
+ * in-process {@link CredHubStubServer}, using each supported HTTP client library. The
+ * operations are run at several levels of concurrency by the nested subclasses.
+ *
+ * @author Scott Frederick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class CredHubTemplateBenchmark {
+	private static final int BULK_SIZE = 10;
+
+	@Param({"JDK", "HTTP_COMPONENTS", "OKHTTP", "OKHTTP3", "NETTY"})
+	public ClientHttpRequestFactoryBackend backend;
+
+	private CredHubStubServer server;
+	private ClientHttpRequestFactory clientHttpRequestFactory;
+	private CredHubTemplate credHubTemplate;
+
+	private PasswordCredentialRequest writeRequest;
+	private PasswordParametersRequest generateRequest;
+	private List<SimpleCredentialName> bulkNames;
+	private CredentialPermission permission;
+	private ServicesData servicesData;
+
+	@Setup
+	public void setUp() throws Exception {
+		server = new CredHubStubServer();
+		server.start();
+
+		clientHttpRequestFactory = backend.create(ClientOptions.builder()
+				.maxConnectionsTotal(128)
+				.maxConnectionsPerRoute(128)
+				.build());
+		credHubTemplate = new CredHubTemplate(server.getApiUriBase(), clientHttpRequestFactory);
+
+		writeRequest = PasswordCredentialRequest.builder()
+				.name(BenchmarkFixtures.NAME)
+				.value(new PasswordCredential("secret"))
+				.build();
+		generateRequest = PasswordParametersRequest.builder()
+				.name(BenchmarkFixtures.NAME)
+				.parameters(new PasswordParameters(32, false, false, false, true))
+				.build();
+
+		bulkNames = new ArrayList<SimpleCredentialName>();
+		for (int i = 0; i < BULK_SIZE; i++) {
+			bulkNames.add(new SimpleCredentialName("benchmark", "credential-" + i));
+		}
+
+		permission = CredentialPermission.builder()
+				.app("app-id")
+				.operation(Operation.READ)
+				.build();
+		servicesData = BenchmarkFixtures.servicesData();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		if (clientHttpRequestFactory instanceof DisposableBean) {
+			((DisposableBean) clientHttpRequestFactory).destroy();
+		}
+		server.stop();
+	}
+
+	@Benchmark
+	public CredentialDetails<PasswordCredential> write() {
+		return credHubTemplate.write(writeRequest);
+	}
+
+	@Benchmark
+	public CredentialDetails<PasswordCredential> generate() {
+		return credHubTemplate.generate(generateRequest);
+	}
+
+	@Benchmark
+	public CredentialDetails<PasswordCredential> getById() {
+		return credHubTemplate.getById("1111-1111-1111-1111", PasswordCredential.class);
+	}
+
+	@Benchmark
+	public CredentialDetails<PasswordCredential> getByName() {
+		return credHubTemplate.getByName(BenchmarkFixtures.NAME, PasswordCredential.class);
+	}
+
+	@Benchmark
+	public BulkCredentialDetails<PasswordCredential> getByNames() {
+		return credHubTemplate.getByNames(bulkNames, PasswordCredential.class);
+	}
+
+	@Benchmark
+	public List<CredentialDetails<PasswordCredential>> getByNameWithHistory() {
+		return credHubTemplate.getByNameWithHistory(BenchmarkFixtures.NAME, PasswordCredential.class);
+	}
+
+	@Benchmark
+	public List<CredentialSummary> findByName() {
+		return credHubTemplate.findByName(BenchmarkFixtures.NAME);
+	}
+
+	@Benchmark
+	public List<CredentialSummary> findByPath() {
+		return credHubTemplate.findByPath("/benchmark");
+	}
+
+	@Benchmark
+	public void deleteByName() {
+		credHubTemplate.deleteByName(BenchmarkFixtures.NAME);
+	}
+
+	@Benchmark
+	public List<CredentialPermission> getPermissions() {
+		return credHubTemplate.getPermissions(BenchmarkFixtures.NAME);
+	}
+
+	@Benchmark
+	public List<CredentialPermission> addPermissions() {
+		return credHubTemplate.addPermissions(BenchmarkFixtures.NAME, permission);
+	}
+
+	@Benchmark
+	public void deletePermission() {
+		credHubTemplate.deletePermission(BenchmarkFixtures.NAME, Actor.app("app-id"));
+	}
+
+	@Benchmark
+	public ServicesData interpolateServiceData() {
+		return credHubTemplate.interpolateServiceData(servicesData);
+	}
+
+	@Threads(1)
+	public static class SingleThread extends CredHubTemplateBenchmark {
+	}
+
+	@Threads(8)
+	public static class EightThreads extends CredHubTemplateBenchmark {
+	}
+
+	@Threads(64)
+	public static class SixtyFourThreads extends CredHubTemplateBenchmark {
+	}
+}
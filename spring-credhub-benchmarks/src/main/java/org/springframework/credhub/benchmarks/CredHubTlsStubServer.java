@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.benchmarks;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.net.ssl.SSLContext;
+
+import okhttp3.Protocol;
+import okhttp3.internal.tls.HeldCertificate;
+import okhttp3.internal.tls.SslClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import org.springframework.credhub.support.CredentialType;
+
+/**
+ * An in-process HTTPS server that answers every request with a canned CredHub
+ * credential, so that benchmarks can compare HTTP/1.1 and HTTP/2 transports. The
+ * protocols offered during ALPN negotiation are configurable, and the server counts
+ * the connections that clients open.
+ *
+ * @author Scott Frederick
+ */
+public class CredHubTlsStubServer {
+	// MockWebServer logs every connection; the logger is held so the level is not lost
+	private static final Logger SERVER_LOGGER = Logger.getLogger(MockWebServer.class.getName());
+
+	static {
+		SERVER_LOGGER.setLevel(Level.WARNING);
+	}
+
+	private final MockWebServer server = new MockWebServer();
+	private final AtomicInteger connections = new AtomicInteger();
+
+	private final SSLContext clientSslContext;
+	private final String credentialDetails;
+
+	/**
+	 * Create a stub server that uses a certificate for {@literal localhost}, issued by
+	 * a generated certificate authority, and offers the given protocols.
+	 *
+	 * @param protocols the protocols offered to clients; must include
+	 * {@link Protocol#HTTP_1_1}
+	 * @throws GeneralSecurityException if the certificates could not be generated
+	 */
+	public CredHubTlsStubServer(List<Protocol> protocols) throws GeneralSecurityException {
+		HeldCertificate authority = new HeldCertificate.Builder()
+				.serialNumber("1")
+				.commonName("credhub-stub-ca")
+				.ca(1)
+				.build();
+		HeldCertificate certificate = new HeldCertificate.Builder()
+				.serialNumber("2")
+				.commonName("localhost")
+				.subjectAlternativeName("localhost")
+				.issuedBy(authority)
+				.build();
+
+		this.clientSslContext = new SslClient.Builder()
+				.addTrustedCertificate(authority.certificate)
+				.build()
+				.sslContext;
+		this.credentialDetails = BenchmarkFixtures.credentialDetailsJson(CredentialType.PASSWORD);
+
+		server.useHttps(new SslClient.Builder()
+				.certificateChain(certificate, authority)
+				.build()
+				.socketFactory, false);
+		server.setProtocols(protocols);
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				if (request.getSequenceNumber() == 0) {
+					connections.incrementAndGet();
+				}
+				return new MockResponse()
+						.setHeader("Content-Type", "application/json;charset=UTF-8")
+						.setBody(credentialDetails);
+			}
+		});
+	}
+
+	/**
+	 * Get an {@link SSLContext} that trusts the certificate of the server. Clients must
+	 * use this context, for example by making it the JVM default.
+	 *
+	 * @return the {@link SSLContext}
+	 */
+	public SSLContext getClientSslContext() {
+		return clientSslContext;
+	}
+
+	/**
+	 * Start accepting requests on an ephemeral port.
+	 *
+	 * @throws IOException if the server socket could not be opened
+	 */
+	public void start() throws IOException {
+		server.start();
+	}
+
+	/**
+	 * Stop accepting requests and release the server socket.
+	 *
+	 * @throws IOException if the server could not be stopped
+	 */
+	public void stop() throws IOException {
+		server.shutdown();
+	}
+
+	/**
+	 * Get the base URI of the server, suitable for use as the CredHub API base URI.
+	 *
+	 * @return the base URI
+	 */
+	public String getApiUriBase() {
+		return "https://" + server.getHostName() + ":" + server.getPort();
+	}
+
+	/**
+	 * Get the number of connections that clients have opened to the server.
+	 *
+	 * @return the number of connections
+	 */
+	public int getConnectionCount() {
+		return connections.get();
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.credhub.core.HttpMessageConverterBackend;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialType;
+import org.springframework.credhub.support.utils.JsonUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+
+/**
+ * Measures deserialization of the {@link CredentialDetails} returned by CredHub for
+ * each {@link CredentialType}, with Jackson directly and through the default Spring
+ * message converter and the CredHub message converter.
+ *
+ * @author Scott Frederick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CredentialDetailsDeserializationBenchmark {
+	@Param({"PASSWORD", "VALUE", "USER", "RSA", "SSH", "CERTIFICATE", "JSON"})
+	public CredentialType credentialType;
+
+	private ObjectMapper objectMapper;
+	private JavaType javaType;
+	private ObjectReader objectReader;
+	private byte[] json;
+	private Type credentialDetailsType;
+	private GenericHttpMessageConverter<Object> jacksonConverter;
+	private GenericHttpMessageConverter<Object> credHubConverter;
+
+	@Setup
+	public void setUp() throws Exception {
+		objectMapper = JsonUtils.buildObjectMapper();
+		javaType = objectMapper.getTypeFactory().constructParametricType(CredentialDetails.class, Object.class);
+		objectReader = objectMapper.readerFor(javaType);
+		json = BenchmarkFixtures.credentialDetailsJson(credentialType).getBytes("UTF-8");
+
+		credentialDetailsType = HttpMessageConverterBackend.credentialDetailsType();
+		jacksonConverter = HttpMessageConverterBackend.JACKSON.create();
+		credHubConverter = HttpMessageConverterBackend.CREDHUB.create();
+	}
+
+	@Benchmark
+	public Object deserializeWithObjectMapper() throws Exception {
+		return objectMapper.readValue(json, javaType);
+	}
+
+	@Benchmark
+	public Object deserializeWithObjectReader() throws Exception {
+		return objectReader.readValue(json);
+	}
+
+	@Benchmark
+	public Object deserializeWithJacksonConverter() throws Exception {
+		return jacksonConverter.read(credentialDetailsType, null, inputMessage());
+	}
+
+	@Benchmark
+	public Object deserializeWithCredHubConverter() throws Exception {
+		return credHubConverter.read(credentialDetailsType, null, inputMessage());
+	}
+
+	private HttpInputMessage inputMessage() {
+		return new HttpInputMessage() {
+			@Override
+			public InputStream getBody() {
+				return new ByteArrayInputStream(json);
+			}
+
+			@Override
+			public HttpHeaders getHeaders() {
+				HttpHeaders headers = new HttpHeaders();
+				headers.setContentType(MediaType.APPLICATION_JSON);
+				return headers;
+			}
+		};
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.credhub.support.CredentialPermissions;
+import org.springframework.credhub.support.CredentialSummaryData;
+import org.springframework.credhub.support.utils.JsonUtils;
+
+/**
+ * Measures deserialization of CredHub responses that contain lists of entries, at
+ * increasing list sizes.
+ *
+ * @author Scott Frederick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CredentialListDeserializationBenchmark {
+	@Param({"10", "1000", "100000"})
+	public int size;
+
+	private ObjectReader summaryReader;
+	private ObjectReader permissionsReader;
+	private byte[] summaryJson;
+	private byte[] permissionsJson;
+
+	@Setup
+	public void setUp() throws Exception {
+		ObjectMapper objectMapper = JsonUtils.buildObjectMapper();
+
+		summaryReader = objectMapper.readerFor(CredentialSummaryData.class);
+		permissionsReader = objectMapper.readerFor(CredentialPermissions.class);
+
+		summaryJson = BenchmarkFixtures.credentialSummaryDataJson(size).getBytes("UTF-8");
+		permissionsJson = BenchmarkFixtures.credentialPermissionsJson(size).getBytes("UTF-8");
+	}
+
+	@Benchmark
+	public CredentialSummaryData deserializeCredentialSummaryData() throws Exception {
+		return summaryReader.readValue(summaryJson);
+	}
+
+	@Benchmark
+	public CredentialPermissions deserializeCredentialPermissions() throws Exception {
+		return permissionsReader.readValue(permissionsJson);
+	}
+}
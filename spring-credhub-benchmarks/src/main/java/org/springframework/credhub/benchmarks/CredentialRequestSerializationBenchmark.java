@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.credhub.support.CredHubRequest;
+import org.springframework.credhub.support.utils.JsonUtils;
+
+/**
+ * Measures serialization of each type of request sent to CredHub.
+ *
+ * @author Scott Frederick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CredentialRequestSerializationBenchmark {
+	@Param({
+			"PasswordCredentialRequest", "ValueCredentialRequest", "UserCredentialRequest",
+			"RsaCredentialRequest", "SshCredentialRequest", "CertificateCredentialRequest",
+			"JsonCredentialRequest", "PasswordParametersRequest", "UserParametersRequest",
+			"RsaParametersRequest", "SshParametersRequest", "CertificateParametersRequest"
+	})
+	public String requestType;
+
+	private ObjectMapper objectMapper;
+	private ObjectWriter objectWriter;
+	private CredHubRequest<?> request;
+
+	@Setup
+	public void setUp() {
+		request = BenchmarkFixtures.requests().get(requestType);
+		if (request == null) {
+			throw new IllegalArgumentException("Unknown request type " + requestType);
+		}
+
+		objectMapper = JsonUtils.buildObjectMapper();
+		objectWriter = objectMapper.writerFor(request.getClass());
+	}
+
+	@Benchmark
+	public byte[] serializeWithObjectMapper() throws Exception {
+		return objectMapper.writeValueAsBytes(request);
+	}
+
+	@Benchmark
+	public byte[] serializeWithObjectWriter() throws Exception {
+		return objectWriter.writeValueAsBytes(request);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.benchmarks;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import okhttp3.Protocol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.credhub.configuration.ClientHttpRequestFactoryBackend;
+import org.springframework.credhub.core.CredHubTemplate;
+import org.springframework.credhub.support.ClientOptions;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.password.PasswordCredential;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * Compares HTTP/1.1 and HTTP/2 transports for many concurrent {@link CredHubTemplate}
+ * callers, using OkHttp3 against an in-process {@link CredHubTlsStubServer}. The
+ * sampled latency percentiles show the effect on tail latency; the number of
+ * connections opened to the server is printed when each trial ends.
+ *
+ * With HTTP/1.1 each concurrent caller needs its own connection, while with HTTP/2 the
+ * callers share a multiplexed connection. In the HTTP/1.1 trial the server only offers
+ * HTTP/1.1, so the trial also exercises the fallback from HTTP/2 during ALPN.
+ *
+ * @author Scott Frederick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Http2Benchmark.CALLERS)
+@Fork(1)
+public class Http2Benchmark {
+	static final int CALLERS = 256;
+	private static final int HANDSHAKE_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * The transports compared by this benchmark.
+	 */
+	public enum Transport {
+		HTTP_1_1,
+		HTTP_2
+	}
+
+	@Param({"HTTP_1_1", "HTTP_2"})
+	public Transport transport;
+
+	private CredHubTlsStubServer server;
+	private ClientHttpRequestFactory clientHttpRequestFactory;
+	private CredHubTemplate credHubTemplate;
+
+	@Setup
+	public void setUp() throws Exception {
+		boolean http2 = transport == Transport.HTTP_2;
+
+		server = new CredHubTlsStubServer(http2
+				? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+				: Collections.singletonList(Protocol.HTTP_1_1));
+		server.start();
+
+		SSLContext.setDefault(server.getClientSslContext());
+
+		// keep a connection per caller idle in the pool, so that HTTP/1.1 is not
+		// penalized by reconnecting, and allow for all callers opening a TLS connection
+		// at once during the first warmup iteration
+		clientHttpRequestFactory = ClientHttpRequestFactoryBackend.OKHTTP3.create(ClientOptions.builder()
+				.connectionTimeout(HANDSHAKE_TIMEOUT)
+				.readTimeout(HANDSHAKE_TIMEOUT)
+				.maxConnectionsTotal(CALLERS)
+				.maxConnectionsPerRoute(CALLERS)
+				.http2(http2)
+				.build());
+		credHubTemplate = new CredHubTemplate(server.getApiUriBase(), clientHttpRequestFactory);
+
+		// open the first connection before the callers start, so that with HTTP/2 they
+		// find a connection to share instead of racing to open their own
+		getByName();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		System.out.println("Connections opened with " + transport + ": " + server.getConnectionCount());
+
+		if (clientHttpRequestFactory instanceof DisposableBean) {
+			((DisposableBean) clientHttpRequestFactory).destroy();
+		}
+		server.stop();
+	}
+
+	@Benchmark
+	public CredentialDetails<PasswordCredential> getByName() {
+		return credHubTemplate.getByName(BenchmarkFixtures.NAME, PasswordCredential.class);
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.credhub.configuration.ClientHttpRequestFactoryBackend;
+import org.springframework.credhub.configuration.TaskExecutorFactory;
+import org.springframework.credhub.core.CredHubTemplate;
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.BulkRequestOptions;
+import org.springframework.credhub.support.ClientOptions;
+import org.springframework.credhub.support.SimpleCredentialName;
+import org.springframework.credhub.support.password.PasswordCredential;
+
+/**
+ * Compares platform threads and virtual threads for many concurrent blocking
+ * {@link CredHubTemplate} lookups, using the JDK HTTP client against an in-process
+ * {@link CredHubStubServer}. Each operation retrieves {@link #LOOKUPS} credentials with
+ * {@link CredHubTemplate#getByNames(java.util.Collection, Class)}, with every lookup in
+ * flight at the same time on its own thread.
+ *
+ * The stub server delays each response to stand in for the latency of a remote CredHub
+ * server, so that the callers spend their time blocked on the network. It runs in a
+ * separate process, because the client and server ends of all the connections do not
+ * fit within a typical open file limit of one process. Virtual threads require Java 21
+ * or later; on earlier JDKs both trials use platform threads.
+ *
+ * @author Scott Frederick
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xss256k")
+public class VirtualThreadBenchmark {
+	static final int LOOKUPS = 10000;
+	private static final int RESPONSE_DELAY = 20;
+
+	static {
+		// keep a connection per lookup alive between operations, instead of the default
+		// of five per server, so that each operation does not open thousands of sockets
+		System.setProperty("http.maxConnections", String.valueOf(LOOKUPS));
+	}
+
+	/**
+	 * The kinds of threads compared by this benchmark.
+	 */
+	public enum ThreadMode {
+		PLATFORM,
+		VIRTUAL
+	}
+
+	@Param({"PLATFORM", "VIRTUAL"})
+	public ThreadMode threadMode;
+
+	private Process server;
+	private CredHubTemplate credHubTemplate;
+	private List<SimpleCredentialName> names;
+
+	@Setup
+	public void setUp() throws Exception {
+		server = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+				"-cp", System.getProperty("java.class.path"), CredHubStubServer.class.getName(),
+				String.valueOf(LOOKUPS), String.valueOf(RESPONSE_DELAY))
+				.redirectErrorStream(true)
+				.start();
+		String apiUriBase = new BufferedReader(new InputStreamReader(server.getInputStream(), "UTF-8")).readLine();
+
+		credHubTemplate = new CredHubTemplate(apiUriBase,
+				ClientHttpRequestFactoryBackend.JDK.create(new ClientOptions()));
+		credHubTemplate.setBulkRequestOptions(BulkRequestOptions.builder()
+				.concurrency(LOOKUPS)
+				.timeout(5, TimeUnit.MINUTES)
+				.build());
+		credHubTemplate.setBulkRequestExecutor(
+				TaskExecutorFactory.create("credhub-bulk-", threadMode == ThreadMode.VIRTUAL));
+
+		names = new ArrayList<SimpleCredentialName>();
+		for (int i = 0; i < LOOKUPS; i++) {
+			names.add(new SimpleCredentialName("benchmark", "credential-" + i));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		server.getOutputStream().close();
+		server.waitFor();
+	}
+
+	@Benchmark
+	public BulkCredentialDetails<PasswordCredential> getByNames() {
+		BulkCredentialDetails<PasswordCredential> details =
+				credHubTemplate.getByNames(names, PasswordCredential.class);
+		if (details.hasFailures()) {
+			throw new IllegalStateException(details.getFailures().size() + " of " + LOOKUPS
+					+ " lookups failed, for example: " + details.getFailures().values().iterator().next());
+		}
+		return details;
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.configuration;
+
+import org.springframework.credhub.support.ClientOptions;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * The HTTP client libraries supported by {@link ClientHttpRequestFactoryFactory},
+ * allowing benchmarks to select a specific library rather than the one detected on
+ * the classpath.
+ *
+ * @author Scott Frederick
+ */
+public enum ClientHttpRequestFactoryBackend {
+	JDK {
+		@Override
+		public ClientHttpRequestFactory create(ClientOptions options) {
+			return ClientHttpRequestFactoryFactory.HttpURLConnection.usingJdk(options);
+		}
+	},
+
+	HTTP_COMPONENTS {
+		@Override
+		public ClientHttpRequestFactory create(ClientOptions options) throws Exception {
+			return ClientHttpRequestFactoryFactory.HttpComponents.usingHttpComponents(options);
+		}
+	},
+
+	OKHTTP {
+		@Override
+		public ClientHttpRequestFactory create(ClientOptions options) throws Exception {
+			return ClientHttpRequestFactoryFactory.OkHttp.usingOkHttp(options);
+		}
+	},
+
+	OKHTTP3 {
+		@Override
+		public ClientHttpRequestFactory create(ClientOptions options) throws Exception {
+			return ClientHttpRequestFactoryFactory.OkHttp3.usingOkHttp3(options);
+		}
+	},
+
+	NETTY {
+		@Override
+		public ClientHttpRequestFactory create(ClientOptions options) throws Exception {
+			return ClientHttpRequestFactoryFactory.Netty.usingNetty(options);
+		}
+	};
+
+	/**
+	 * Create a {@link ClientHttpRequestFactory} using this HTTP client library.
+	 *
+	 * @param options the {@link ClientOptions} to apply
+	 * @return the {@link ClientHttpRequestFactory}
+	 * @throws Exception if the client library could not be initialized
+	 */
+	public abstract ClientHttpRequestFactory create(ClientOptions options) throws Exception;
+}
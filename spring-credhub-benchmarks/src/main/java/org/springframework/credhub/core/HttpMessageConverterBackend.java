@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.lang.reflect.Type;
+
+import org.springframework.credhub.support.utils.JsonUtils;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * The JSON message converters that {@link CredHubTemplate} can use, allowing benchmarks
+ * to compare the default Spring converter with {@link CredHubMessageConverter}.
+ *
+ * @author Scott Frederick
+ */
+public enum HttpMessageConverterBackend {
+	JACKSON {
+		@Override
+		public GenericHttpMessageConverter<Object> create() {
+			return new MappingJackson2HttpMessageConverter(JsonUtils.buildObjectMapper());
+		}
+	},
+
+	CREDHUB {
+		@Override
+		public GenericHttpMessageConverter<Object> create() {
+			return new CredHubMessageConverter(JsonUtils.buildObjectMapper());
+		}
+	};
+
+	/**
+	 * Create a message converter of this kind.
+	 *
+	 * @return the message converter
+	 */
+	public abstract GenericHttpMessageConverter<Object> create();
+
+	/**
+	 * Get the type that {@link CredHubTemplate} reads a single credential as.
+	 *
+	 * @return the {@literal CredentialDetails} response type
+	 */
+	public static Type credentialDetailsType() {
+		return CredHubTemplate.CREDENTIAL_DETAILS_TYPE.getType();
+	}
+}
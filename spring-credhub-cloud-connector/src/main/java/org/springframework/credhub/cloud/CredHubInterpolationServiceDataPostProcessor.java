@@ -16,40 +16,104 @@
 
 package org.springframework.credhub.cloud;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.springframework.cloud.cloudfoundry.CloudFoundryRawServiceData;
 import org.springframework.cloud.cloudfoundry.ServiceDataPostProcessor;
 import org.springframework.credhub.configuration.CredHubConfiguration;
+import org.springframework.credhub.core.CachingCredHubOperations;
+import org.springframework.credhub.core.CoalescingCredHubOperations;
 import org.springframework.credhub.core.CredHubOperations;
+import org.springframework.credhub.core.ServicesDataInterpolator;
 import org.springframework.credhub.support.ServicesData;
 
 /**
  * A Spring Cloud Connectors {@link ServiceDataPostProcessor} that post-processes service
  * data from {@literal VCAP_SERVICES} using the CredHub interpolation API.
  *
+ * If the {@literal CREDHUB_CLIENT_INTERPOLATION} environment variable is set to
+ * {@literal true}, CredHub references are instead resolved on the client by a
+ * {@link ServicesDataInterpolator}. Only the referenced credentials are retrieved from
+ * CredHub, and they are cached so that repeated processing of the same references does
+ * not call CredHub.
+ *
+ * Because Spring Cloud Connectors can process the same service data several times, the
+ * result of an interpolation can be reused while the service data is unchanged and the
+ * result is not older than the number of seconds in the
+ * {@literal CREDHUB_INTERPOLATION_CACHE_TTL} environment variable. Reuse is disabled
+ * unless the variable is set to a value greater than {@literal 0}, because a reused
+ * result does not reflect credentials changed in CredHub during the time-to-live.
+ *
+ * Service data that does not contain any CredHub references is returned unchanged
+ * without calling CredHub.
+ *
+ * The connection to CredHub is not initialized until service data containing a CredHub
+ * reference is processed, so applications without CredHub references do not pay for it
+ * at startup. Setting the {@literal CREDHUB_BACKGROUND_INITIALIZATION} environment
+ * variable to {@literal true} initializes the connection on a background thread instead.
+ *
  * @author Scott Frederick
  */
 public class CredHubInterpolationServiceDataPostProcessor implements ServiceDataPostProcessor {
-	private Logger logger = Logger
+	static final String CLIENT_INTERPOLATION_ENV = "CREDHUB_CLIENT_INTERPOLATION";
+	static final String INTERPOLATION_CACHE_TTL_ENV = "CREDHUB_INTERPOLATION_CACHE_TTL";
+	static final String BACKGROUND_INITIALIZATION_ENV = "CREDHUB_BACKGROUND_INITIALIZATION";
+
+	private static final long DEFAULT_INTERPOLATION_CACHE_TTL_SECONDS = 0;
+
+	private final Logger logger = Logger
 			.getLogger(CredHubInterpolationServiceDataPostProcessor.class.getName());
 
-	private CredHubOperations credHubOperations;
+	private CredHubOperationsInitializer credHubOperationsInitializer;
+
+	private boolean clientInterpolation;
+
+	private volatile CredHubOperations credHubOperations;
+
+	private ServicesDataInterpolator servicesDataInterpolator;
+
+	private InterpolatedServicesDataCache interpolationCache;
 
 	/**
-	 * Initialize the service data post-processor.
+	 * Initialize the service data post-processor. The {@link CredHubOperations} is not
+	 * created until service data containing a CredHub reference is processed, or on a
+	 * background thread if the {@literal CREDHUB_BACKGROUND_INITIALIZATION} environment
+	 * variable is set to {@literal true}.
 	 */
 	public CredHubInterpolationServiceDataPostProcessor() {
-		try {
-			credHubOperations = new CredHubConfiguration().credHubTemplate();
+		this(new CredHubOperationsInitializer(new Callable<CredHubOperations>() {
+			@Override
+			public CredHubOperations call() {
+				return new CredHubConfiguration().credHubTemplate();
+			}
+		}), Boolean.parseBoolean(System.getenv(CLIENT_INTERPOLATION_ENV)));
+
+		long cacheTimeToLive = getInterpolationCacheTimeToLive();
+		if (cacheTimeToLive > 0) {
+			interpolationCache = new InterpolatedServicesDataCache(cacheTimeToLive);
 		}
-		catch (Exception e) {
-			logger.log(Level.WARNING, "CredHubOperations cannot be initialized, " +
-							"disabling processing of service data", e);
+
+		if (Boolean.parseBoolean(System.getenv(BACKGROUND_INITIALIZATION_ENV))) {
+			credHubOperationsInitializer.startInBackground();
 		}
 	}
 
+	/**
+	 * Initialize the service data post-processor using the provided
+	 * {@link CredHubOperationsInitializer}. Intended for internal use.
+	 *
+	 * @param credHubOperationsInitializer creates the CredHubOperations on first use
+	 * @param clientInterpolation {@literal true} to resolve CredHub references on the client
+	 */
+	CredHubInterpolationServiceDataPostProcessor(CredHubOperationsInitializer credHubOperationsInitializer,
+			boolean clientInterpolation) {
+		this.credHubOperationsInitializer = credHubOperationsInitializer;
+		this.clientInterpolation = clientInterpolation;
+	}
+
 	/**
 	 * Initialize the service data post-processor using the provided {@link CredHubOperations}.
 	 * Intended for internal use.
@@ -60,23 +124,62 @@ public class CredHubInterpolationServiceDataPostProcessor implements ServiceData
 		this.credHubOperations = credHubOperations;
 	}
 
+	/**
+	 * Initialize the service data post-processor using the provided {@link CredHubOperations},
+	 * resolving CredHub references on the client. Intended for internal use.
+	 *
+	 * @param credHubOperations the CredHubOperations to use
+	 * @param servicesDataInterpolator the ServicesDataInterpolator to use
+	 */
+	CredHubInterpolationServiceDataPostProcessor(CredHubOperations credHubOperations,
+			ServicesDataInterpolator servicesDataInterpolator) {
+		this.credHubOperations = credHubOperations;
+		this.servicesDataInterpolator = servicesDataInterpolator;
+	}
+
+	/**
+	 * Initialize the service data post-processor using the provided {@link CredHubOperations},
+	 * reusing interpolation results from the provided cache. Intended for internal use.
+	 *
+	 * @param credHubOperations the CredHubOperations to use
+	 * @param interpolationCache the cache of interpolation results
+	 */
+	CredHubInterpolationServiceDataPostProcessor(CredHubOperations credHubOperations,
+			InterpolatedServicesDataCache interpolationCache) {
+		this.credHubOperations = credHubOperations;
+		this.interpolationCache = interpolationCache;
+	}
+
 	/**
 	 * Process the provided {@literal serviceData} parsed from {@literal VCAP_SERVICES} by
 	 * Spring Cloud Connectors using the
-	 * {@link CredHubOperations#interpolateServiceData(ServicesData)} API.
+	 * {@link CredHubOperations#interpolateServiceData(ServicesData)} API, or a
+	 * {@link ServicesDataInterpolator} if client-side interpolation is enabled.
 	 *
 	 * @param serviceData raw service data parsed from {@literal VCAP_SERVICES}
 	 * @return serviceData with CredHub references replaced by stored credentials
 	 */
 	@Override
 	public CloudFoundryRawServiceData process(CloudFoundryRawServiceData serviceData) {
-		if (credHubOperations == null) {
+		if (!ServicesData.containsCredHubReferences(serviceData) || !initialize()) {
 			return serviceData;
 		}
 
 		try {
-			ServicesData interpolatedData = credHubOperations
-					.interpolateServiceData(connectorsToCredHub(serviceData));
+			ServicesData servicesData = connectorsToCredHub(serviceData);
+
+			if (interpolationCache == null) {
+				return credHubToConnectors(interpolate(servicesData));
+			}
+
+			ServicesData cachedData = interpolationCache.get(servicesData);
+			if (cachedData != null) {
+				return credHubToConnectors(cachedData);
+			}
+
+			ServicesData originalData = InterpolatedServicesDataCache.copy(servicesData);
+			ServicesData interpolatedData = interpolate(servicesData);
+			interpolationCache.put(originalData, interpolatedData);
 
 			return credHubToConnectors(interpolatedData);
 		} catch (Exception e) {
@@ -85,6 +188,58 @@ public class CredHubInterpolationServiceDataPostProcessor implements ServiceData
 		}
 	}
 
+	/**
+	 * Create the {@link CredHubOperations} if it has not been created.
+	 *
+	 * @return {@literal true} if the {@link CredHubOperations} is available
+	 */
+	private boolean initialize() {
+		if (credHubOperations != null) {
+			return true;
+		}
+
+		synchronized (this) {
+			if (credHubOperationsInitializer == null) {
+				return credHubOperations != null;
+			}
+
+			CredHubOperations operations = credHubOperationsInitializer.get();
+			credHubOperationsInitializer = null;
+
+			if (operations != null) {
+				if (clientInterpolation) {
+					servicesDataInterpolator = new ServicesDataInterpolator(
+							new CachingCredHubOperations(new CoalescingCredHubOperations(operations)));
+				}
+				credHubOperations = operations;
+			}
+
+			return credHubOperations != null;
+		}
+	}
+
+	private ServicesData interpolate(ServicesData servicesData) {
+		if (servicesDataInterpolator != null) {
+			return servicesDataInterpolator.interpolate(servicesData);
+		}
+		return credHubOperations.interpolateServiceData(servicesData);
+	}
+
+	private long getInterpolationCacheTimeToLive() {
+		String value = System.getenv(INTERPOLATION_CACHE_TTL_ENV);
+		long seconds = DEFAULT_INTERPOLATION_CACHE_TTL_SECONDS;
+		if (value != null) {
+			try {
+				seconds = Long.parseLong(value.trim());
+			}
+			catch (NumberFormatException e) {
+				logger.log(Level.WARNING, "Invalid value for " + INTERPOLATION_CACHE_TTL_ENV + ": " + value
+						+ ", using default of " + DEFAULT_INTERPOLATION_CACHE_TTL_SECONDS + " seconds");
+			}
+		}
+		return TimeUnit.SECONDS.toMillis(seconds);
+	}
+
 	/**
 	 * Convert from the Spring Cloud Connectors service data structure to the Spring Credhub
 	 * data structure.
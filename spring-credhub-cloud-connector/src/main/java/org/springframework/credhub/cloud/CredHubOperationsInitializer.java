@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.cloud;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.credhub.core.CredHubOperations;
+
+/**
+ * Creates a {@link CredHubOperations} at most once, on first use or on a background
+ * thread. Creating a {@link org.springframework.credhub.core.CredHubTemplate} probes
+ * the classpath for an HTTP client library and sets up TLS, so this work is deferred
+ * until service data that needs CredHub is processed.
+ *
+ * @author Scott Frederick
+ */
+class CredHubOperationsInitializer {
+	private static final String THREAD_NAME = "credhub-initializer";
+
+	private final Logger logger = Logger.getLogger(CredHubOperationsInitializer.class.getName());
+
+	private final FutureTask<CredHubOperations> task;
+
+	/**
+	 * Create a new {@link CredHubOperationsInitializer}.
+	 *
+	 * @param factory creates the {@link CredHubOperations}
+	 */
+	CredHubOperationsInitializer(Callable<CredHubOperations> factory) {
+		this.task = new FutureTask<CredHubOperations>(factory);
+	}
+
+	/**
+	 * Start creating the {@link CredHubOperations} on a daemon thread, so that a later
+	 * call to {@link #get()} does not have to wait for it.
+	 */
+	void startInBackground() {
+		Thread thread = new Thread(task, THREAD_NAME);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Get the {@link CredHubOperations}, creating it on the calling thread if it has not
+	 * been created already, or waiting for a background initialization to complete.
+	 *
+	 * @return the {@link CredHubOperations}, or {@literal null} if it could not be created
+	 */
+	CredHubOperations get() {
+		task.run();
+
+		try {
+			return task.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch (ExecutionException e) {
+			logger.log(Level.WARNING, "CredHubOperations cannot be initialized, " +
+					"disabling processing of service data", e.getCause());
+			return null;
+		}
+	}
+}
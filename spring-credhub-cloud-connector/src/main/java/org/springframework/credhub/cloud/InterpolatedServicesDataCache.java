@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.cloud;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.credhub.support.ServicesData;
+
+/**
+ * Remembers the most recent interpolation of service data, so that processing an
+ * identical {@literal VCAP_SERVICES} payload again within a time-to-live does not call
+ * CredHub.
+ *
+ * Service data is matched by a structural hash first, and then by comparing it with a
+ * copy of the previously interpolated service data. The cache takes ownership of the
+ * service data passed to {@link #put(ServicesData, ServicesData)}, and copies of the
+ * interpolated service data are stored and returned so that later changes by callers do
+ * not affect the cache.
+ *
+ * @author Scott Frederick
+ */
+class InterpolatedServicesDataCache {
+	private final long timeToLive;
+
+	private volatile Entry entry;
+
+	/**
+	 * Create a new cache.
+	 *
+	 * @param timeToLive the time to keep an interpolation result, in milliseconds
+	 */
+	InterpolatedServicesDataCache(long timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Get the interpolated form of the provided service data, if it was interpolated
+	 * within the time-to-live.
+	 *
+	 * @param servicesData the service data to be interpolated
+	 * @return a copy of the interpolated service data, or {@literal null}
+	 */
+	ServicesData get(ServicesData servicesData) {
+		Entry current = this.entry;
+		if (current == null || System.currentTimeMillis() >= current.expiresAt) {
+			return null;
+		}
+
+		if (current.hash != servicesData.hashCode() || !current.servicesData.equals(servicesData)) {
+			return null;
+		}
+
+		return copy(current.interpolatedData);
+	}
+
+	/**
+	 * Remember the result of an interpolation.
+	 *
+	 * @param servicesData a copy of the service data before interpolation, which must not
+	 * be changed after it is passed to the cache
+	 * @param interpolatedData the service data after interpolation
+	 */
+	void put(ServicesData servicesData, ServicesData interpolatedData) {
+		this.entry = new Entry(servicesData.hashCode(), servicesData, copy(interpolatedData),
+				System.currentTimeMillis() + timeToLive);
+	}
+
+	/**
+	 * Create a copy of service data that shares no mutable maps or lists with the
+	 * original.
+	 *
+	 * @param servicesData the service data to copy
+	 * @return the copy
+	 */
+	@SuppressWarnings("unchecked")
+	static ServicesData copy(ServicesData servicesData) {
+		ServicesData copy = new ServicesData();
+		for (Map.Entry<String, List<Map<String, Object>>> services : servicesData.entrySet()) {
+			copy.put(services.getKey(), (List<Map<String, Object>>) copyValue(services.getValue()));
+		}
+		return copy;
+	}
+
+	private static Object copyValue(Object value) {
+		if (value instanceof Map) {
+			Map<Object, Object> copy = new LinkedHashMap<Object, Object>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				copy.put(entry.getKey(), copyValue(entry.getValue()));
+			}
+			return copy;
+		}
+		if (value instanceof List) {
+			List<Object> copy = new ArrayList<Object>();
+			for (Object element : (List<?>) value) {
+				copy.add(copyValue(element));
+			}
+			return copy;
+		}
+		return value;
+	}
+
+	private static class Entry {
+		private final int hash;
+		private final ServicesData servicesData;
+		private final ServicesData interpolatedData;
+		private final long expiresAt;
+
+		Entry(int hash, ServicesData servicesData, ServicesData interpolatedData, long expiresAt) {
+			this.hash = hash;
+			this.servicesData = servicesData;
+			this.interpolatedData = interpolatedData;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -33,12 +34,17 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.cloud.cloudfoundry.CloudFoundryRawServiceData;
 import org.springframework.credhub.core.CredHubException;
 import org.springframework.credhub.core.CredHubOperations;
+import org.springframework.credhub.core.ServicesDataInterpolator;
 import org.springframework.credhub.support.ServicesData;
 import org.springframework.http.HttpStatus;
 
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -47,6 +53,12 @@ public class CredHubInterpolationServiceDataPostProcessorTests {
 	@Mock
 	private CredHubOperations credHubOperations;
 
+	@Mock
+	private ServicesDataInterpolator servicesDataInterpolator;
+
+	@Mock
+	private Callable<CredHubOperations> credHubOperationsFactory;
+
 	@Test
 	public void processServiceData() {
 		CloudFoundryRawServiceData rawServiceData = buildRawServiceData();
@@ -86,6 +98,151 @@ public class CredHubInterpolationServiceDataPostProcessorTests {
 		verifyZeroInteractions(credHubOperations);
 	}
 
+	@Test
+	public void processServiceDataWithoutReferences() {
+		CredHubInterpolationServiceDataPostProcessor processor =
+				new CredHubInterpolationServiceDataPostProcessor(credHubOperations);
+
+		CloudFoundryRawServiceData rawServiceData =
+				new CloudFoundryRawServiceData(buildRawServiceData(new HashMap<String, String>()));
+
+		assertThat(processor.process(rawServiceData), sameInstance(rawServiceData));
+		verifyZeroInteractions(credHubOperations);
+	}
+
+	@Test
+	public void processServiceDataWithoutReferencesDoesNotInitialize() throws Exception {
+		CredHubInterpolationServiceDataPostProcessor processor =
+				new CredHubInterpolationServiceDataPostProcessor(
+						new CredHubOperationsInitializer(credHubOperationsFactory), false);
+
+		CloudFoundryRawServiceData rawServiceData =
+				new CloudFoundryRawServiceData(buildRawServiceData(new HashMap<String, String>()));
+
+		assertThat(processor.process(rawServiceData), sameInstance(rawServiceData));
+		verifyZeroInteractions(credHubOperationsFactory);
+	}
+
+	@Test
+	public void processServiceDataInitializesOnce() throws Exception {
+		when(credHubOperationsFactory.call()).thenReturn(credHubOperations);
+		when(credHubOperations.interpolateServiceData(any(ServicesData.class)))
+				.thenReturn(buildInterpolatedServiceData());
+
+		CredHubInterpolationServiceDataPostProcessor processor =
+				new CredHubInterpolationServiceDataPostProcessor(
+						new CredHubOperationsInitializer(credHubOperationsFactory), false);
+
+		processor.process(buildRawServiceData());
+		processor.process(buildRawServiceData());
+
+		verify(credHubOperationsFactory, times(1)).call();
+		verify(credHubOperations, times(2)).interpolateServiceData(any(ServicesData.class));
+	}
+
+	@Test
+	public void processServiceDataInitializedInBackground() throws Exception {
+		when(credHubOperationsFactory.call()).thenReturn(credHubOperations);
+		when(credHubOperations.interpolateServiceData(any(ServicesData.class)))
+				.thenReturn(buildInterpolatedServiceData());
+
+		CredHubOperationsInitializer initializer = new CredHubOperationsInitializer(credHubOperationsFactory);
+		initializer.startInBackground();
+
+		CredHubInterpolationServiceDataPostProcessor processor =
+				new CredHubInterpolationServiceDataPostProcessor(initializer, false);
+
+		CloudFoundryRawServiceData actual = processor.process(buildRawServiceData());
+
+		assertThat(actual, matchesContent(buildInterpolatedServiceData()));
+		verify(credHubOperationsFactory, times(1)).call();
+	}
+
+	@Test
+	public void processServiceDataWithLazyInitializationError() throws Exception {
+		when(credHubOperationsFactory.call()).thenThrow(new IllegalStateException("no HTTP client"));
+
+		CredHubInterpolationServiceDataPostProcessor processor =
+				new CredHubInterpolationServiceDataPostProcessor(
+						new CredHubOperationsInitializer(credHubOperationsFactory), false);
+
+		CloudFoundryRawServiceData rawServiceData = buildRawServiceData();
+
+		assertThat(processor.process(rawServiceData), sameInstance(rawServiceData));
+		assertThat(processor.process(rawServiceData), sameInstance(rawServiceData));
+		verify(credHubOperationsFactory, times(1)).call();
+	}
+
+	@Test
+	public void processServiceDataWithClientInterpolation() {
+		CloudFoundryRawServiceData rawServiceData = buildRawServiceData();
+		ServicesData interpolatedServiceData = buildInterpolatedServiceData();
+
+		when(servicesDataInterpolator.interpolate(argThat(matchesContent(rawServiceData))))
+				.thenReturn(interpolatedServiceData);
+
+		CredHubInterpolationServiceDataPostProcessor processor =
+				new CredHubInterpolationServiceDataPostProcessor(credHubOperations, servicesDataInterpolator);
+
+		CloudFoundryRawServiceData actual = processor.process(rawServiceData);
+		assertThat(actual, matchesContent(interpolatedServiceData));
+		verifyZeroInteractions(credHubOperations);
+	}
+
+	@Test
+	public void processServiceDataWithCachedResult() {
+		CloudFoundryRawServiceData rawServiceData = buildRawServiceData();
+		ServicesData interpolatedServiceData = buildInterpolatedServiceData();
+
+		when(credHubOperations.interpolateServiceData(argThat(matchesContent(rawServiceData))))
+				.thenReturn(interpolatedServiceData);
+
+		CredHubInterpolationServiceDataPostProcessor processor =
+				new CredHubInterpolationServiceDataPostProcessor(credHubOperations,
+						new InterpolatedServicesDataCache(60000));
+
+		processor.process(rawServiceData);
+		CloudFoundryRawServiceData actual = processor.process(buildRawServiceData());
+
+		assertThat(actual, matchesContent(interpolatedServiceData));
+		verify(credHubOperations, times(1)).interpolateServiceData(any(ServicesData.class));
+	}
+
+	@Test
+	public void processServiceDataWithExpiredCachedResult() {
+		CloudFoundryRawServiceData rawServiceData = buildRawServiceData();
+
+		when(credHubOperations.interpolateServiceData(argThat(matchesContent(rawServiceData))))
+				.thenReturn(buildInterpolatedServiceData());
+
+		CredHubInterpolationServiceDataPostProcessor processor =
+				new CredHubInterpolationServiceDataPostProcessor(credHubOperations,
+						new InterpolatedServicesDataCache(0));
+
+		processor.process(rawServiceData);
+		processor.process(buildRawServiceData());
+
+		verify(credHubOperations, times(2)).interpolateServiceData(any(ServicesData.class));
+	}
+
+	@Test
+	public void processChangedServiceDataWithCachedResult() {
+		when(credHubOperations.interpolateServiceData(any(ServicesData.class)))
+				.thenReturn(buildInterpolatedServiceData());
+
+		CredHubInterpolationServiceDataPostProcessor processor =
+				new CredHubInterpolationServiceDataPostProcessor(credHubOperations,
+						new InterpolatedServicesDataCache(60000));
+
+		processor.process(buildRawServiceData());
+
+		CloudFoundryRawServiceData changedServiceData = buildRawServiceData();
+		changedServiceData.get("service-offering").get(0).put("plan", "premium");
+		processor.process(changedServiceData);
+
+		verify(credHubOperations, times(2)).interpolateServiceData(any(ServicesData.class));
+	}
+
 	private ArgumentMatcher<ServicesData> matchesContent(final CloudFoundryRawServiceData expected) {
 		return new ArgumentMatcher<ServicesData>() {
 			@Override
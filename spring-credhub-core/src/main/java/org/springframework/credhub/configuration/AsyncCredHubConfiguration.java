@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.configuration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.credhub.core.AsyncCredHubTemplate;
+import org.springframework.credhub.core.CredHubProperties;
+import org.springframework.credhub.metrics.CredHubMetricsRecorder;
+import org.springframework.credhub.support.ClientOptions;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+
+/**
+ * Configuration for the {@link AsyncCredHubTemplate} used to communicate with CredHub
+ * asynchronously. This class is typically imported along with
+ * {@link CredHubConfiguration}, which provides the {@link CredHubProperties}:
+ *
+ * <pre>
+ * {@code
+ * &#64;Configuration
+ * &#64;Import({CredHubConfiguration.class, AsyncCredHubConfiguration.class})
+ * public class MyConfiguration {
+ * }
+ * }
+ * </pre>
+ *
+ * @author Scott Frederick
+ */
+@Configuration
+public class AsyncCredHubConfiguration {
+
+	/**
+	 * Create the {@link AsyncCredHubTemplate} that the application will use to interact
+	 * with CredHub asynchronously.
+	 *
+	 * @param credHubProperties the {@link CredHubProperties} containing information
+	 * about the CredHub server
+	 * @return the {@link AsyncCredHubTemplate} bean
+	 */
+	@Bean
+	public AsyncCredHubTemplate asyncCredHubTemplate(CredHubProperties credHubProperties) {
+		AsyncCredHubTemplate asyncCredHubTemplate = new AsyncCredHubTemplate(credHubProperties.getApiUriBase(),
+				asyncClientHttpRequestFactoryWrapper().getAsyncClientHttpRequestFactory());
+
+		CredHubMetricsRecorder metricsRecorder = credHubMetricsRecorder();
+		if (metricsRecorder != null) {
+			asyncCredHubTemplate.setMetricsRecorder(metricsRecorder);
+		}
+
+		return asyncCredHubTemplate;
+	}
+
+	/**
+	 * Create an {@link AsyncClientFactoryWrapper} containing an
+	 * {@link AsyncClientHttpRequestFactory}.
+	 *
+	 * @return the {@link AsyncClientFactoryWrapper} to wrap an
+	 * {@link AsyncClientHttpRequestFactory} instance.
+	 * @see #clientOptions()
+	 * @see #sharedClientHttpResources()
+	 */
+	@Bean
+	public AsyncClientFactoryWrapper asyncClientHttpRequestFactoryWrapper() {
+		AsyncClientHttpRequestFactory asyncClientHttpRequestFactory =
+				ClientHttpRequestFactoryFactory.createAsync(clientOptions(), sharedClientHttpResources());
+		return new AsyncClientFactoryWrapper(asyncClientHttpRequestFactory);
+	}
+
+	/**
+	 * Create the {@link ClientOptions} to configure communication parameters. Subclasses
+	 * can override this method to customize timeouts and connection pool settings.
+	 *
+	 * @return the default {@link ClientOptions}
+	 */
+	protected ClientOptions clientOptions() {
+		return new ClientOptions();
+	}
+
+	/**
+	 * Create the {@link SharedClientHttpResources} used to share connection pools and
+	 * threads with the request factories of other CredHub templates. Subclasses can
+	 * override this method to return the same instance in several configurations; by
+	 * default each request factory has its own resources.
+	 *
+	 * @return the {@link SharedClientHttpResources}, or {@literal null} to not share
+	 * resources
+	 */
+	protected SharedClientHttpResources sharedClientHttpResources() {
+		return null;
+	}
+
+	/**
+	 * Create the {@link CredHubMetricsRecorder} that receives client-side metrics.
+	 * Subclasses can override this method to opt in to metrics; by default no metrics
+	 * are recorded.
+	 *
+	 * @return the {@link CredHubMetricsRecorder}, or {@literal null} to disable metrics
+	 */
+	protected CredHubMetricsRecorder credHubMetricsRecorder() {
+		return null;
+	}
+
+	/**
+	 * Wrapper for {@link AsyncClientHttpRequestFactory} to not expose the bean globally.
+	 */
+	public static class AsyncClientFactoryWrapper implements InitializingBean, DisposableBean {
+
+		private final AsyncClientHttpRequestFactory asyncClientHttpRequestFactory;
+
+		public AsyncClientFactoryWrapper(AsyncClientHttpRequestFactory asyncClientHttpRequestFactory) {
+			this.asyncClientHttpRequestFactory = asyncClientHttpRequestFactory;
+		}
+
+		@Override
+		public void destroy() throws Exception {
+			if (asyncClientHttpRequestFactory instanceof DisposableBean) {
+				((DisposableBean) asyncClientHttpRequestFactory).destroy();
+			}
+		}
+
+		@Override
+		public void afterPropertiesSet() throws Exception {
+			if (asyncClientHttpRequestFactory instanceof InitializingBean) {
+				((InitializingBean) asyncClientHttpRequestFactory).afterPropertiesSet();
+			}
+		}
+
+		public AsyncClientHttpRequestFactory getAsyncClientHttpRequestFactory() {
+			return asyncClientHttpRequestFactory;
+		}
+	}
+}
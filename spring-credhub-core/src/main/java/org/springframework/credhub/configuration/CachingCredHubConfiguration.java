@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.credhub.core.CachingCredHubOperations;
+import org.springframework.credhub.core.CoalescingCredHubOperations;
+import org.springframework.credhub.core.CredHubOperations;
+import org.springframework.credhub.core.CredHubTemplate;
+import org.springframework.credhub.support.CredentialCacheOptions;
+
+/**
+ * Configuration that adds client-side caching of credentials to
+ * {@link CredHubConfiguration}. This class can be imported in place of
+ * {@link CredHubConfiguration} to opt in to caching:
+ *
+ * <pre>
+ * {@code
+ * &#64;Configuration
+ * &#64;Import(CachingCredHubConfiguration.class)
+ * public class MyConfiguration {
+ * }
+ * }
+ * </pre>
+ *
+ * The {@link CachingCredHubOperations} bean is marked as primary, so it will be injected
+ * wherever a {@link CredHubOperations} is required. The underlying
+ * {@link CredHubTemplate} remains available for injection by its concrete type.
+ *
+ * Requests for credentials that are not cached are passed through a
+ * {@link CoalescingCredHubOperations}, so that concurrent cache misses for the same
+ * credential share a single request to CredHub.
+ *
+ * @author Scott Frederick
+ */
+@Configuration
+public class CachingCredHubConfiguration extends CredHubConfiguration {
+
+	/**
+	 * Create the {@link CachingCredHubOperations} that the application will use to
+	 * interact with CredHub.
+	 *
+	 * @return the {@link CachingCredHubOperations} bean
+	 */
+	@Bean
+	@Primary
+	public CachingCredHubOperations cachingCredHubOperations() {
+		return new CachingCredHubOperations(new CoalescingCredHubOperations(credHubTemplate()),
+				credentialCacheOptions());
+	}
+
+	/**
+	 * Create the {@link CredentialCacheOptions} used to configure the cache. Subclasses
+	 * can override this method to customize the cache size and time to live.
+	 *
+	 * @return the default {@link CredentialCacheOptions}
+	 */
+	protected CredentialCacheOptions credentialCacheOptions() {
+		return CredentialCacheOptions.builder().build();
+	}
+}
@@ -17,29 +17,55 @@
 package org.springframework.credhub.configuration;
 
 import java.io.IOException;
+import java.net.URI;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
 
+import com.squareup.okhttp.ConnectionPool;
 import com.squareup.okhttp.OkHttpClient;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.handler.ssl.ClientAuth;
 import io.netty.handler.ssl.JdkSslContext;
 import io.netty.handler.ssl.SslContext;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient.Builder;
+import okhttp3.Protocol;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.util.PublicSuffixMatcherLoader;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.credhub.core.HedgedAttempt;
 import org.springframework.credhub.support.ClientOptions;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.Netty4ClientHttpRequestFactory;
@@ -48,12 +74,29 @@ import org.springframework.http.client.OkHttpClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * Factory for {@link ClientHttpRequestFactory} that supports Apache HTTP Components,
  * OkHttp, Netty and the JDK HTTP client (in that order). This factory configures a
  * {@link ClientHttpRequestFactory} depending on the available dependencies.
  *
+ * {@link AsyncClientHttpRequestFactory} instances are also supported, preferring the
+ * non-blocking Netty client, followed by OkHttp3, OkHttp and the JDK HTTP client.
+ *
+ * Connection pool settings in {@link ClientOptions} are applied as far as each client
+ * library supports them. OkHttp and OkHttp3 have no connection time to live, and the
+ * Netty client opens a new channel for each request so it has no pool to configure.
+ *
+ * When {@link ClientOptions#isHttp2()} is set, OkHttp3 is preferred over the other
+ * libraries because it is the only one that supports HTTP/2. Concurrent requests are
+ * then multiplexed over a shared connection, with HTTP/1.1 used when ALPN does not
+ * negotiate HTTP/2.
+ *
+ * When {@link ClientOptions#isVirtualThreads()} is set, the asynchronous JDK HTTP
+ * client runs each blocking exchange on a virtual thread. The JDK client holds no
+ * monitor while it waits on the network, so it does not pin the carrier threads.
+ *
  * @author Mark Paluch
  * @author Scott Frederick
  */
@@ -84,18 +127,42 @@ public class ClientHttpRequestFactoryFactory {
 	 * after obtaining.
 	 */
 	public static ClientHttpRequestFactory create(ClientOptions options) {
+		return create(options, null);
+	}
+
+	/**
+	 * Create a {@link ClientHttpRequestFactory} for the given {@link ClientOptions} that
+	 * uses connection pools and threads from the given {@link SharedClientHttpResources}.
+	 * Destroying the request factory releases the shared resources instead of shutting
+	 * them down.
+	 *
+	 * @param options must not be {@literal null}
+	 * @param resources the shared resources; can be {@literal null} to create resources
+	 * that are used only by the new request factory
+	 * @return a new {@link ClientHttpRequestFactory}. Lifecycle beans must be initialized
+	 * after obtaining.
+	 */
+	public static ClientHttpRequestFactory create(ClientOptions options, SharedClientHttpResources resources) {
 
 		Assert.notNull(options, "ClientOptions must not be null");
 
 		try {
+			if (options.isHttp2()) {
+				if (OKHTTP3_PRESENT) {
+					logger.info("Using OkHttp3 with HTTP/2 for HTTP connections");
+					return OkHttp3.usingOkHttp3(options, resources);
+				}
+				logger.warn("HTTP/2 requires OkHttp3; falling back to HTTP/1.1 for HTTP connections");
+			}
+
 			if (HTTP_COMPONENTS_PRESENT) {
 				logger.info("Using Apache HttpComponents HttpClient for HTTP connections");
-				return HttpComponents.usingHttpComponents(options);
+				return HttpComponents.usingHttpComponents(options, resources);
 			}
 
 			if (OKHTTP3_PRESENT) {
 				logger.info("Using OkHttp3 for HTTP connections");
-				return OkHttp3.usingOkHttp3(options);
+				return OkHttp3.usingOkHttp3(options, resources);
 			}
 
 			if (OKHTTP_PRESENT) {
@@ -105,7 +172,7 @@ public class ClientHttpRequestFactoryFactory {
 
 			if (NETTY_PRESENT) {
 				logger.info("Using Netty for HTTP connections");
-				return Netty.usingNetty(options);
+				return Netty.usingNetty(options, resources);
 			}
 		}
 		catch (Exception e) {
@@ -116,13 +183,84 @@ public class ClientHttpRequestFactoryFactory {
 		return HttpURLConnection.usingJdk(options);
 	}
 
+	/**
+	 * Create an {@link AsyncClientHttpRequestFactory} for the given {@link ClientOptions}.
+	 *
+	 * @param options must not be {@literal null}
+	 * @return a new {@link AsyncClientHttpRequestFactory}. Lifecycle beans must be
+	 * initialized after obtaining.
+	 */
+	public static AsyncClientHttpRequestFactory createAsync(ClientOptions options) {
+		return createAsync(options, null);
+	}
+
+	/**
+	 * Create an {@link AsyncClientHttpRequestFactory} for the given {@link ClientOptions}
+	 * that uses connection pools and threads from the given
+	 * {@link SharedClientHttpResources}. Destroying the request factory releases the
+	 * shared resources instead of shutting them down.
+	 *
+	 * @param options must not be {@literal null}
+	 * @param resources the shared resources; can be {@literal null} to create resources
+	 * that are used only by the new request factory
+	 * @return a new {@link AsyncClientHttpRequestFactory}. Lifecycle beans must be
+	 * initialized after obtaining.
+	 */
+	public static AsyncClientHttpRequestFactory createAsync(ClientOptions options,
+			SharedClientHttpResources resources) {
+
+		Assert.notNull(options, "ClientOptions must not be null");
+
+		try {
+			if (options.isHttp2()) {
+				if (OKHTTP3_PRESENT) {
+					logger.info("Using OkHttp3 with HTTP/2 for asynchronous HTTP connections");
+					return OkHttp3.usingOkHttp3(options, resources);
+				}
+				logger.warn("HTTP/2 requires OkHttp3; falling back to HTTP/1.1 for asynchronous HTTP connections");
+			}
+
+			if (NETTY_PRESENT) {
+				logger.info("Using Netty for asynchronous HTTP connections");
+				return Netty.usingNetty(options, resources);
+			}
+
+			if (OKHTTP3_PRESENT) {
+				logger.info("Using OkHttp3 for asynchronous HTTP connections");
+				return OkHttp3.usingOkHttp3(options, resources);
+			}
+
+			if (OKHTTP_PRESENT) {
+				logger.info("Using OkHttp for asynchronous HTTP connections");
+				return OkHttp.usingOkHttp(options);
+			}
+		}
+		catch (Exception e) {
+			logger.warn("Exception caught while configuring asynchronous HTTP connections", e);
+		}
+
+		logger.info("Defaulting to java.net.HttpUrlConnection for asynchronous HTTP connections");
+		return HttpURLConnection.usingJdkAsync(options);
+	}
+
 	/**
 	 * {@link ClientHttpRequestFactory} using {@link java.net.HttpURLConnection}.
 	 */
 	static class HttpURLConnection {
-		static ClientHttpRequestFactory usingJdk(ClientOptions options) {
+		static SimpleClientHttpRequestFactory usingJdk(ClientOptions options) {
 			SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-			
+
+			// HttpsURLConnection uses the default SSLContext, so only the session cache
+			// settings need to be applied to it
+			if (isSslSessionCacheConfigured(options)) {
+				try {
+					getSslContext(options);
+				}
+				catch (GeneralSecurityException e) {
+					logger.warn("Unable to configure the TLS session cache", e);
+				}
+			}
+
 			if (options.getConnectionTimeout() != null) {
 				factory.setConnectTimeout(options.getConnectionTimeout());
 			}
@@ -132,6 +270,17 @@ public class ClientHttpRequestFactoryFactory {
 
 			return factory;
 		}
+
+		static AsyncClientHttpRequestFactory usingJdkAsync(ClientOptions options) {
+			SimpleClientHttpRequestFactory factory = usingJdk(options);
+			if (options.isVirtualThreads()) {
+				factory.setTaskExecutor(TaskExecutorFactory.create("credhub-", true));
+			}
+			else {
+				factory.setTaskExecutor(new SimpleAsyncTaskExecutor("credhub-"));
+			}
+			return factory;
+		}
 	}
 
 	/**
@@ -141,11 +290,58 @@ public class ClientHttpRequestFactoryFactory {
 	 * @author Scott Frederick
 	 */
 	static class HttpComponents {
+		static final String SHARED_CONNECTION_MANAGER = "httpcomponents-connection-manager";
+
+		/**
+		 * An {@link HttpComponentsClientHttpRequestFactory} that registers each request
+		 * with the current {@link HedgedAttempt}, so that the request of a hedged
+		 * attempt that lost is aborted instead of waiting for a response. Shared
+		 * resources, if any, are released when the request factory is destroyed.
+		 */
+		static class HedgingAwareHttpComponentsClientHttpRequestFactory
+				extends HttpComponentsClientHttpRequestFactory {
+			private final SharedClientHttpResources resources;
+
+			HedgingAwareHttpComponentsClientHttpRequestFactory(HttpClient httpClient,
+					SharedClientHttpResources resources) {
+				super(httpClient);
+				this.resources = resources;
+			}
+
+			@Override
+			protected HttpUriRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+				final HttpUriRequest request = super.createHttpUriRequest(httpMethod, uri);
+				HedgedAttempt.onAbort(new Runnable() {
+					@Override
+					public void run() {
+						request.abort();
+					}
+				});
+				return request;
+			}
+
+			@Override
+			public void destroy() throws Exception {
+				try {
+					super.destroy();
+				}
+				finally {
+					if (resources != null) {
+						resources.release(SHARED_CONNECTION_MANAGER);
+					}
+				}
+			}
+		}
+
 		static ClientHttpRequestFactory usingHttpComponents(ClientOptions options)
 				throws GeneralSecurityException, IOException {
+			return usingHttpComponents(options, null);
+		}
+
+		static ClientHttpRequestFactory usingHttpComponents(ClientOptions options,
+				final SharedClientHttpResources resources) throws GeneralSecurityException, IOException {
 
 			HttpClientBuilder httpClientBuilder = HttpClients.custom()
-					.setSSLContext(SSLContext.getDefault())
 					.useSystemProperties();
 
 			RequestConfig.Builder requestConfigBuilder = RequestConfig.custom()
@@ -158,9 +354,160 @@ public class ClientHttpRequestFactoryFactory {
 				requestConfigBuilder.setSocketTimeout(options.getReadTimeout());
 			}
 
+			// bound the wait for a pooled connection, so that pre-warming can not block
+			// startup when the pool is exhausted
+			Integer connectionRequestTimeout = getConnectionRequestTimeout(options);
+			if (connectionRequestTimeout != null) {
+				requestConfigBuilder.setConnectionRequestTimeout(connectionRequestTimeout);
+			}
+
 			httpClientBuilder.setDefaultRequestConfig(requestConfigBuilder.build());
 
-			return new HttpComponentsClientHttpRequestFactory(httpClientBuilder.build());
+			if (resources == null) {
+				httpClientBuilder.setSSLContext(getSslContext(options));
+				configureConnectionPool(httpClientBuilder, options);
+
+				return new HedgingAwareHttpComponentsClientHttpRequestFactory(httpClientBuilder.build(), null);
+			}
+
+			if (resources.getOptions().getKeepAliveDuration() != null) {
+				httpClientBuilder.setKeepAliveStrategy(
+						new MaximumKeepAliveStrategy(resources.getOptions().getKeepAliveDuration()));
+			}
+
+			SharedConnectionManager connectionManager =
+					resources.retain(SHARED_CONNECTION_MANAGER, new SharedConnectionManagerLifecycle());
+			httpClientBuilder.setConnectionManager(connectionManager.manager)
+					.setConnectionManagerShared(true);
+
+			return new HedgingAwareHttpComponentsClientHttpRequestFactory(httpClientBuilder.build(), resources);
+		}
+
+		/**
+		 * Get the time to wait for a pooled connection: the connection timeout, or when
+		 * pre-warming without a connection timeout, a default that bounds startup.
+		 */
+		private static Integer getConnectionRequestTimeout(ClientOptions options) {
+			if (options.getConnectionTimeout() != null) {
+				return options.getConnectionTimeout();
+			}
+			if (options.getPrewarmConnections() != null) {
+				return ConnectionPrewarmer.DEFAULT_CONNECTION_REQUEST_TIMEOUT;
+			}
+			return null;
+		}
+
+		private static void configureConnectionPool(HttpClientBuilder httpClientBuilder, ClientOptions options) {
+			if (options.getMaxConnectionsTotal() != null) {
+				httpClientBuilder.setMaxConnTotal(options.getMaxConnectionsTotal());
+			}
+			if (options.getMaxConnectionsPerRoute() != null) {
+				httpClientBuilder.setMaxConnPerRoute(options.getMaxConnectionsPerRoute());
+			}
+			if (options.getIdleConnectionEvictionInterval() != null) {
+				httpClientBuilder.evictIdleConnections(options.getIdleConnectionEvictionInterval().longValue(),
+						TimeUnit.MILLISECONDS);
+			}
+			if (options.getConnectionTimeToLive() != null) {
+				httpClientBuilder.evictExpiredConnections();
+				httpClientBuilder.setConnectionTimeToLive(options.getConnectionTimeToLive(),
+						TimeUnit.MILLISECONDS);
+			}
+			if (options.getKeepAliveDuration() != null) {
+				httpClientBuilder.setKeepAliveStrategy(
+						new MaximumKeepAliveStrategy(options.getKeepAliveDuration()));
+			}
+		}
+	}
+
+	/**
+	 * A {@link ConnectionKeepAliveStrategy} that honors a {@literal Keep-Alive} timeout
+	 * sent by the server, up to a configured maximum.
+	 */
+	static class MaximumKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+		private final long maxKeepAlive;
+
+		MaximumKeepAliveStrategy(long maxKeepAlive) {
+			this.maxKeepAlive = maxKeepAlive;
+		}
+
+		@Override
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+			long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return keepAlive > 0 ? Math.min(keepAlive, maxKeepAlive) : maxKeepAlive;
+		}
+	}
+
+	/**
+	 * A connection pool of Apache HttpComponents shared by several clients, with the
+	 * thread that evicts its idle and expired connections.
+	 */
+	static class SharedConnectionManager {
+		private final PoolingHttpClientConnectionManager manager;
+		private final IdleConnectionEvictor evictor;
+
+		SharedConnectionManager(PoolingHttpClientConnectionManager manager, IdleConnectionEvictor evictor) {
+			this.manager = manager;
+			this.evictor = evictor;
+		}
+	}
+
+	/**
+	 * Creates the shared connection manager with the same socket factories and default
+	 * limits that {@link HttpClientBuilder#useSystemProperties()} gives an unshared
+	 * client, so that sharing does not change TLS protocols or cipher suites.
+	 */
+	static class SharedConnectionManagerLifecycle
+			implements SharedClientHttpResources.Lifecycle<SharedConnectionManager> {
+		@Override
+		public SharedConnectionManager create(ClientOptions options) throws GeneralSecurityException {
+			SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(getSslContext(options),
+					splitSystemProperty("https.protocols"), splitSystemProperty("https.cipherSuites"),
+					new DefaultHostnameVerifier(PublicSuffixMatcherLoader.getDefault()));
+
+			Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+					.register("http", PlainConnectionSocketFactory.getSocketFactory())
+					.register("https", sslSocketFactory)
+					.build();
+
+			long timeToLive = options.getConnectionTimeToLive() != null ? options.getConnectionTimeToLive() : -1;
+			PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(registry,
+					null, null, null, timeToLive, TimeUnit.MILLISECONDS);
+
+			if ("true".equalsIgnoreCase(System.getProperty("http.keepAlive", "true"))) {
+				int maxConnections = Integer.parseInt(System.getProperty("http.maxConnections", "5"));
+				manager.setDefaultMaxPerRoute(maxConnections);
+				manager.setMaxTotal(2 * maxConnections);
+			}
+			if (options.getMaxConnectionsTotal() != null) {
+				manager.setMaxTotal(options.getMaxConnectionsTotal());
+			}
+			if (options.getMaxConnectionsPerRoute() != null) {
+				manager.setDefaultMaxPerRoute(options.getMaxConnectionsPerRoute());
+			}
+
+			IdleConnectionEvictor evictor = null;
+			if (options.getIdleConnectionEvictionInterval() != null || options.getConnectionTimeToLive() != null) {
+				long maxIdleTime = options.getIdleConnectionEvictionInterval() != null
+						? options.getIdleConnectionEvictionInterval() : 0;
+				evictor = new IdleConnectionEvictor(manager, maxIdleTime, TimeUnit.MILLISECONDS);
+				evictor.start();
+			}
+
+			return new SharedConnectionManager(manager, evictor);
+		}
+
+		private static String[] splitSystemProperty(String name) {
+			String value = System.getProperty(name);
+			return StringUtils.hasText(value) ? value.split(" *, *") : null;
+		}
+
+		@Override
+		public void shutdown(SharedConnectionManager connectionManager) {
+			if (connectionManager.evictor != null) {
+				connectionManager.evictor.shutdown();
+			}
+			connectionManager.manager.shutdown();
 		}
 	}
 
@@ -171,12 +518,23 @@ public class ClientHttpRequestFactoryFactory {
 	 * @author Scott Frederick
 	 */
 	static class OkHttp {
-		static ClientHttpRequestFactory usingOkHttp(ClientOptions options)
+		static OkHttpClientHttpRequestFactory usingOkHttp(ClientOptions options)
 				throws IOException, GeneralSecurityException {
 
 			final OkHttpClient okHttpClient = new OkHttpClient();
 
-			okHttpClient.setSslSocketFactory(SSLContext.getDefault().getSocketFactory());
+			okHttpClient.setSslSocketFactory(getSslContext(options).getSocketFactory());
+
+			if (isConnectionPoolConfigured(options)) {
+				okHttpClient.setConnectionPool(new ConnectionPool(getMaxIdleConnections(options),
+						getKeepAliveDuration(options)));
+			}
+			if (options.getMaxConnectionsTotal() != null) {
+				okHttpClient.getDispatcher().setMaxRequests(options.getMaxConnectionsTotal());
+			}
+			if (options.getMaxConnectionsPerRoute() != null) {
+				okHttpClient.getDispatcher().setMaxRequestsPerHost(options.getMaxConnectionsPerRoute());
+			}
 
 			OkHttpClientHttpRequestFactory requestFactory =
 					new OkHttpClientHttpRequestFactory(okHttpClient) {
@@ -208,13 +566,40 @@ public class ClientHttpRequestFactoryFactory {
 	 * @author Scott Frederick
 	 */
 	static class OkHttp3 {
-		static ClientHttpRequestFactory usingOkHttp3(ClientOptions options)
+		static final String SHARED_CLIENT = "okhttp3-client";
+
+		static OkHttp3ClientHttpRequestFactory usingOkHttp3(ClientOptions options)
 				throws IOException, GeneralSecurityException {
+			return usingOkHttp3(options, null);
+		}
+
+		static OkHttp3ClientHttpRequestFactory usingOkHttp3(ClientOptions options,
+				final SharedClientHttpResources resources) throws IOException, GeneralSecurityException {
 
-			SSLSocketFactory socketFactory = SSLContext.getDefault().getSocketFactory();
+			SSLSocketFactory socketFactory = getSslContext(options).getSocketFactory();
 			X509TrustManager trustManager = getTrustManager();
 
-			Builder builder = new Builder().sslSocketFactory(socketFactory, trustManager);
+			// clients built from a shared client share its dispatcher and connection pool
+			okhttp3.OkHttpClient sharedClient = resources == null
+					? null
+					: resources.retain(SHARED_CLIENT, new SharedClientLifecycle());
+			Builder builder = sharedClient == null ? new Builder() : sharedClient.newBuilder();
+
+			builder.sslSocketFactory(socketFactory, trustManager);
+
+			if (options.isHttp2()) {
+				builder.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+
+				// a shared dispatcher limits requests for HTTP/1.1 clients too, so an
+				// HTTP/2 client gets its own dispatcher on the shared threads
+				if (sharedClient != null) {
+					Dispatcher sharedDispatcher = sharedClient.dispatcher();
+					Dispatcher dispatcher = new Dispatcher(sharedDispatcher.executorService());
+					dispatcher.setMaxRequests(sharedDispatcher.getMaxRequests());
+					dispatcher.setMaxRequestsPerHost(sharedDispatcher.getMaxRequests());
+					builder.dispatcher(dispatcher);
+				}
+			}
 
 			if (options.getConnectionTimeout() != null) {
 				builder.connectTimeout(options.getConnectionTimeout(), TimeUnit.MILLISECONDS);
@@ -223,7 +608,57 @@ public class ClientHttpRequestFactoryFactory {
 				builder.readTimeout(options.getReadTimeout(), TimeUnit.MILLISECONDS);
 			}
 
-			return new OkHttp3ClientHttpRequestFactory(builder.build());
+			if (resources == null) {
+				configureConnectionPool(builder, options);
+
+				return new OkHttp3ClientHttpRequestFactory(builder.build());
+			}
+
+			return new OkHttp3ClientHttpRequestFactory(builder.build()) {
+				@Override
+				public void destroy() {
+					resources.release(SHARED_CLIENT);
+				}
+			};
+		}
+
+		private static void configureConnectionPool(Builder builder, ClientOptions options) {
+			if (isConnectionPoolConfigured(options)) {
+				builder.connectionPool(new okhttp3.ConnectionPool(getMaxIdleConnections(options),
+						getKeepAliveDuration(options), TimeUnit.MILLISECONDS));
+			}
+			if (options.getMaxConnectionsTotal() != null || options.getMaxConnectionsPerRoute() != null
+					|| options.isHttp2()) {
+				Dispatcher dispatcher = new Dispatcher();
+				if (options.getMaxConnectionsTotal() != null) {
+					dispatcher.setMaxRequests(options.getMaxConnectionsTotal());
+				}
+
+				// HTTP/2 multiplexes requests to CredHub over one connection, so the
+				// per-route connection limit does not limit concurrent requests
+				if (options.isHttp2()) {
+					dispatcher.setMaxRequestsPerHost(dispatcher.getMaxRequests());
+				}
+				else if (options.getMaxConnectionsPerRoute() != null) {
+					dispatcher.setMaxRequestsPerHost(options.getMaxConnectionsPerRoute());
+				}
+				builder.dispatcher(dispatcher);
+			}
+		}
+
+		static class SharedClientLifecycle implements SharedClientHttpResources.Lifecycle<okhttp3.OkHttpClient> {
+			@Override
+			public okhttp3.OkHttpClient create(ClientOptions options) {
+				Builder builder = new Builder();
+				configureConnectionPool(builder, options);
+				return builder.build();
+			}
+
+			@Override
+			public void shutdown(okhttp3.OkHttpClient client) {
+				client.dispatcher().executorService().shutdown();
+				client.connectionPool().evictAll();
+			}
 		}
 
 		private static X509TrustManager getTrustManager() {
@@ -250,19 +685,110 @@ public class ClientHttpRequestFactoryFactory {
 	}
 
 	/**
-	 * {@link ClientHttpRequestFactory} using Netty.
+	 * Get the {@link SSLContext} for a client, which is the JVM default context, so that
+	 * the client uses the key and trust material of the default context, including a
+	 * context installed with {@link SSLContext#setDefault(SSLContext)}. If the
+	 * {@link ClientOptions} configure the TLS session cache, the settings are applied to
+	 * the client session context of the default context, so they affect every TLS client
+	 * in the JVM that uses the default context.
+	 */
+	static SSLContext getSslContext(ClientOptions options) throws GeneralSecurityException {
+		SSLContext sslContext = SSLContext.getDefault();
+		if (!isSslSessionCacheConfigured(options)) {
+			return sslContext;
+		}
+
+		SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+		if (sessionContext != null) {
+			if (options.getSslSessionCacheSize() != null) {
+				sessionContext.setSessionCacheSize(options.getSslSessionCacheSize());
+			}
+			if (options.getSslSessionTimeout() != null) {
+				sessionContext.setSessionTimeout(
+						(int) TimeUnit.MILLISECONDS.toSeconds(options.getSslSessionTimeout()));
+			}
+		}
+
+		return sslContext;
+	}
+
+	private static boolean isSslSessionCacheConfigured(ClientOptions options) {
+		return options.getSslSessionCacheSize() != null || options.getSslSessionTimeout() != null;
+	}
+
+	private static final int OKHTTP_DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+	private static final long OKHTTP_DEFAULT_KEEP_ALIVE = TimeUnit.MINUTES.toMillis(5);
+
+	private static boolean isConnectionPoolConfigured(ClientOptions options) {
+		return options.getMaxConnectionsTotal() != null
+				|| options.getKeepAliveDuration() != null
+				|| options.getIdleConnectionEvictionInterval() != null;
+	}
+
+	/**
+	 * OkHttp pools only idle connections, so the total connection limit bounds the
+	 * number of idle connections kept.
+	 */
+	private static int getMaxIdleConnections(ClientOptions options) {
+		return options.getMaxConnectionsTotal() != null
+				? options.getMaxConnectionsTotal()
+				: OKHTTP_DEFAULT_MAX_IDLE_CONNECTIONS;
+	}
+
+	/**
+	 * OkHttp evicts connections that have been idle for longer than the keep-alive
+	 * duration, so the idle eviction interval is used when no keep-alive is set.
+	 */
+	private static long getKeepAliveDuration(ClientOptions options) {
+		if (options.getKeepAliveDuration() != null) {
+			return options.getKeepAliveDuration();
+		}
+		if (options.getIdleConnectionEvictionInterval() != null) {
+			return options.getIdleConnectionEvictionInterval();
+		}
+		return OKHTTP_DEFAULT_KEEP_ALIVE;
+	}
+
+	/**
+	 * {@link ClientHttpRequestFactory} using Netty. The Netty client opens a new channel
+	 * for each request, so connection pool settings do not apply.
 	 *
 	 * @author Mark Paluch
 	 * @author Scott Frederick
 	 */
 	static class Netty {
 
-		static ClientHttpRequestFactory usingNetty(ClientOptions options)
+		static final String SHARED_EVENT_LOOP_GROUP = "netty-event-loop-group";
+
+		static Netty4ClientHttpRequestFactory usingNetty(ClientOptions options)
 				throws IOException, GeneralSecurityException {
+			return usingNetty(options, null);
+		}
+
+		static Netty4ClientHttpRequestFactory usingNetty(ClientOptions options,
+				final SharedClientHttpResources resources) throws IOException, GeneralSecurityException {
 
-			SslContext sslContext = new JdkSslContext(SSLContext.getDefault(), true, ClientAuth.REQUIRE);
+			SslContext sslContext = new JdkSslContext(getSslContext(options), true, ClientAuth.REQUIRE);
 
-			final Netty4ClientHttpRequestFactory requestFactory = new Netty4ClientHttpRequestFactory();
+			final Netty4ClientHttpRequestFactory requestFactory;
+			if (resources == null) {
+				requestFactory = new Netty4ClientHttpRequestFactory();
+			}
+			else {
+				EventLoopGroup eventLoopGroup =
+						resources.retain(SHARED_EVENT_LOOP_GROUP, new SharedEventLoopGroupLifecycle());
+				requestFactory = new Netty4ClientHttpRequestFactory(eventLoopGroup) {
+					@Override
+					public void destroy() throws InterruptedException {
+						try {
+							super.destroy();
+						}
+						finally {
+							resources.release(SHARED_EVENT_LOOP_GROUP);
+						}
+					}
+				};
+			}
 			requestFactory.setSslContext(sslContext);
 
 			if (options.getConnectionTimeout() != null) {
@@ -274,5 +800,17 @@ public class ClientHttpRequestFactoryFactory {
 
 			return requestFactory;
 		}
+
+		static class SharedEventLoopGroupLifecycle implements SharedClientHttpResources.Lifecycle<EventLoopGroup> {
+			@Override
+			public EventLoopGroup create(ClientOptions options) {
+				return new NioEventLoopGroup();
+			}
+
+			@Override
+			public void shutdown(EventLoopGroup eventLoopGroup) {
+				eventLoopGroup.shutdownGracefully();
+			}
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.configuration;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.credhub.support.ClientOptions;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Opens connections to CredHub ahead of the first requests, so that the connect and
+ * TLS handshake are not paid on the application's readiness path. Each connection
+ * sends a request to the unauthenticated {@literal /info} endpoint. No response is
+ * read until every request has been sent, which makes a pooling client open a separate
+ * connection for each request. The responses are then read and closed, returning the
+ * connections to the pool.
+ *
+ * Because every connection is held until all have been opened, the number of connections
+ * is capped at the connection pool limits (see {@link #getMaxConnections(ClientOptions)}),
+ * so that opening a connection never waits for one of the others to be returned.
+ *
+ * Pre-warming is best effort; failures are logged and do not prevent startup.
+ *
+ * @author Scott Frederick
+ */
+class ConnectionPrewarmer {
+	private static final Log logger = LogFactory.getLog(ConnectionPrewarmer.class);
+
+	static final String INFO_URL_PATH = "/info";
+
+	/**
+	 * Connections per route of a pooling HttpComponents client that has no limit set;
+	 */
+	static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;
+
+	/**
+	 * Time in {@link java.util.concurrent.TimeUnit#MILLISECONDS} that a pooling client
+	 * waits for a connection when pre-warming without a connection timeout;
+	 */
+	static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 10000;
+
+	private final ClientHttpRequestFactory clientHttpRequestFactory;
+
+	private final String apiUriBase;
+
+	/**
+	 * Create a new {@link ConnectionPrewarmer}.
+	 *
+	 * @param clientHttpRequestFactory the {@link ClientHttpRequestFactory} whose
+	 * connections are opened; must not be {@literal null}
+	 * @param apiUriBase the base URI for the CredHub server; must not be {@literal null}
+	 */
+	ConnectionPrewarmer(ClientHttpRequestFactory clientHttpRequestFactory, String apiUriBase) {
+		Assert.notNull(clientHttpRequestFactory, "clientHttpRequestFactory must not be null");
+		Assert.notNull(apiUriBase, "apiUriBase must not be null");
+
+		this.clientHttpRequestFactory = clientHttpRequestFactory;
+		this.apiUriBase = apiUriBase;
+	}
+
+	/**
+	 * Open connections to CredHub.
+	 *
+	 * @param connections the number of connections to open
+	 * @return the number of connections that were opened
+	 */
+	int prewarm(int connections) {
+		URI uri = URI.create(apiUriBase + INFO_URL_PATH);
+		List<ClientHttpResponse> responses = new ArrayList<ClientHttpResponse>(connections);
+		try {
+			for (int i = 0; i < connections; i++) {
+				responses.add(clientHttpRequestFactory.createRequest(uri, HttpMethod.GET).execute());
+			}
+		}
+		catch (IOException e) {
+			logger.warn("Unable to pre-warm connections to CredHub at " + apiUriBase, e);
+		}
+		catch (RuntimeException e) {
+			logger.warn("Unable to pre-warm connections to CredHub at " + apiUriBase, e);
+		}
+		finally {
+			for (ClientHttpResponse response : responses) {
+				release(response);
+			}
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-warmed " + responses.size() + " connections to CredHub at " + apiUriBase);
+		}
+		return responses.size();
+	}
+
+	/**
+	 * Get the maximum number of connections that can be held open at the same time
+	 * without waiting for a connection from the pool. This is the strictest limit of the
+	 * supported client libraries: the per-route and total limits in the provided
+	 * {@link ClientOptions}, or the HttpComponents default per-route limit (the
+	 * {@literal http.maxConnections} system property, or
+	 * {@value #DEFAULT_MAX_CONNECTIONS_PER_ROUTE}) when no per-route limit is set.
+	 *
+	 * @param options the {@link ClientOptions} of the client; must not be {@literal null}
+	 * @return the maximum number of connections to pre-warm
+	 */
+	static int getMaxConnections(ClientOptions options) {
+		Assert.notNull(options, "options must not be null");
+
+		int maxConnections = options.getMaxConnectionsPerRoute() != null
+				? options.getMaxConnectionsPerRoute()
+				: getDefaultMaxConnectionsPerRoute();
+		if (options.getMaxConnectionsTotal() != null) {
+			maxConnections = Math.min(maxConnections, options.getMaxConnectionsTotal());
+		}
+		return maxConnections;
+	}
+
+	private static int getDefaultMaxConnectionsPerRoute() {
+		try {
+			int maxConnections = Integer.parseInt(System.getProperty("http.maxConnections",
+					String.valueOf(DEFAULT_MAX_CONNECTIONS_PER_ROUTE)));
+			return maxConnections > 0 ? maxConnections : DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+		}
+		catch (NumberFormatException e) {
+			return DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+		}
+	}
+
+	/**
+	 * Read the response fully before closing it, so that the connection can be re-used.
+	 */
+	private void release(ClientHttpResponse response) {
+		try {
+			StreamUtils.drain(response.getBody());
+		}
+		catch (IOException e) {
+			logger.debug("Unable to read pre-warming response from CredHub", e);
+		}
+		finally {
+			response.close();
+		}
+	}
+}
@@ -16,13 +16,24 @@
 
 package org.springframework.credhub.configuration;
 
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.credhub.core.CredHubProperties;
 import org.springframework.credhub.core.CredHubTemplate;
+import org.springframework.credhub.core.LoadBalancingClientHttpRequestFactory;
+import org.springframework.credhub.metrics.CredHubMetricsRecorder;
+import org.springframework.credhub.support.CircuitBreakerOptions;
 import org.springframework.credhub.support.ClientOptions;
+import org.springframework.credhub.support.HedgingOptions;
+import org.springframework.credhub.support.LoadBalancingOptions;
+import org.springframework.credhub.support.RetryOptions;
 import org.springframework.http.client.ClientHttpRequestFactory;
 
 /**
@@ -43,6 +54,7 @@ import org.springframework.http.client.ClientHttpRequestFactory;
  */
 @Configuration
 public class CredHubConfiguration {
+	private static final Log logger = LogFactory.getLog(CredHubConfiguration.class);
 
 	/**
 	 * Create the {@link CredHubProperties} that contains information about the
@@ -57,14 +69,46 @@ public class CredHubConfiguration {
 
 	/**
 	 * Create the {@link CredHubTemplate} that the application will use to interact
-	 * with CredHub.
+	 * with CredHub. When {@link ClientOptions#isVirtualThreads()} is set and the JDK
+	 * supports virtual threads, bulk and hedged requests run on virtual threads, with
+	 * hedged attempts limited to {@link CredHubTemplate#HEDGING_EXECUTOR_MAX_THREADS}.
 	 *
 	 * @return the {@link CredHubTemplate} bean
 	 */
 	@Bean
 	public CredHubTemplate credHubTemplate() {
-		return new CredHubTemplate(credHubProperties().getApiUriBase(),
+		CredHubTemplate credHubTemplate = new CredHubTemplate(credHubProperties().getApiUriBase(),
 				clientHttpRequestFactoryWrapper().getClientHttpRequestFactory());
+
+		CredHubMetricsRecorder metricsRecorder = credHubMetricsRecorder();
+		if (metricsRecorder != null) {
+			credHubTemplate.setMetricsRecorder(metricsRecorder);
+		}
+
+		RetryOptions retryOptions = retryOptions();
+		if (retryOptions != null) {
+			credHubTemplate.setRetryOptions(retryOptions);
+		}
+
+		HedgingOptions hedgingOptions = hedgingOptions();
+		if (hedgingOptions != null) {
+			credHubTemplate.setHedgingOptions(hedgingOptions);
+		}
+
+		CircuitBreakerOptions circuitBreakerOptions = circuitBreakerOptions();
+		if (circuitBreakerOptions != null) {
+			credHubTemplate.setCircuitBreakerOptions(circuitBreakerOptions);
+		}
+
+		// without virtual threads, the template's default executors are kept, including
+		// the bounded hedging pool
+		if (clientOptions().isVirtualThreads() && TaskExecutorFactory.isVirtualThreadsSupported()) {
+			credHubTemplate.setBulkRequestExecutor(TaskExecutorFactory.create("credhub-bulk-", true));
+			credHubTemplate.setHedgingExecutor(TaskExecutorFactory.createBounded("credhub-hedge-", true,
+					CredHubTemplate.HEDGING_EXECUTOR_MAX_THREADS));
+		}
+
+		return credHubTemplate;
 	}
 
 	/**
@@ -74,26 +118,127 @@ public class CredHubConfiguration {
 	 * {@link ClientOptions} which are not necessarily
 	 * applicable for the whole application.
 	 *
+	 * When several CredHub servers are configured, requests are balanced across them
+	 * with a {@link LoadBalancingClientHttpRequestFactory}. When
+	 * {@link ClientOptions#getPrewarmConnections()} is set, the connections are opened
+	 * when the wrapper is initialized.
+	 *
 	 * @return the {@link ClientFactoryWrapper} to wrap a {@link ClientHttpRequestFactory}
 	 * instance.
 	 * @see #clientOptions()
+	 * @see #sharedClientHttpResources()
+	 * @see #loadBalancingOptions()
 	 */
 	@Bean
 	public ClientFactoryWrapper clientHttpRequestFactoryWrapper() {
+		ClientOptions clientOptions = clientOptions();
 		ClientHttpRequestFactory clientHttpRequestFactory =
-				ClientHttpRequestFactoryFactory.create(clientOptions());
-		return new ClientFactoryWrapper(clientHttpRequestFactory);
+				ClientHttpRequestFactoryFactory.create(clientOptions, sharedClientHttpResources());
+
+		List<String> apiUriBases = credHubProperties().getApiUriBases();
+		if (apiUriBases.size() > 1) {
+			clientHttpRequestFactory = new LoadBalancingClientHttpRequestFactory(apiUriBases,
+					clientHttpRequestFactory, loadBalancingOptions());
+		}
+
+		return new ClientFactoryWrapper(clientHttpRequestFactory, credHubProperties().getApiUriBase(),
+				getPrewarmConnections(clientOptions));
+	}
+
+	private static Integer getPrewarmConnections(ClientOptions clientOptions) {
+		Integer prewarmConnections = clientOptions.getPrewarmConnections();
+		if (prewarmConnections == null) {
+			return null;
+		}
+
+		int maxConnections = ConnectionPrewarmer.getMaxConnections(clientOptions);
+		if (prewarmConnections > maxConnections) {
+			logger.warn("Pre-warming " + maxConnections + " connections instead of " + prewarmConnections
+					+ ", the connection pool limit");
+			return maxConnections;
+		}
+		return prewarmConnections;
 	}
 
 	/**
-	 * Create the default {@link ClientOptions} to configure communication parameters.
+	 * Create the {@link ClientOptions} to configure communication parameters. Subclasses
+	 * can override this method to customize timeouts, connection pool settings, and the
+	 * use of virtual threads.
 	 *
 	 * @return the default {@link ClientOptions}
 	 */
-	private ClientOptions clientOptions() {
+	protected ClientOptions clientOptions() {
 		return new ClientOptions();
 	}
 
+	/**
+	 * Create the {@link SharedClientHttpResources} used to share connection pools and
+	 * threads with the request factories of other CredHub templates. Subclasses can
+	 * override this method to return the same instance in several configurations; by
+	 * default each request factory has its own resources.
+	 *
+	 * @return the {@link SharedClientHttpResources}, or {@literal null} to not share
+	 * resources
+	 */
+	protected SharedClientHttpResources sharedClientHttpResources() {
+		return null;
+	}
+
+	/**
+	 * Create the {@link CredHubMetricsRecorder} that receives client-side metrics.
+	 * Subclasses can override this method to opt in to metrics; by default no metrics
+	 * are recorded.
+	 *
+	 * @return the {@link CredHubMetricsRecorder}, or {@literal null} to disable metrics
+	 */
+	protected CredHubMetricsRecorder credHubMetricsRecorder() {
+		return null;
+	}
+
+	/**
+	 * Create the {@link RetryOptions} used to retry idempotent operations that fail with
+	 * a transient error. Subclasses can override this method to opt in to retries; by
+	 * default operations are not retried.
+	 *
+	 * @return the {@link RetryOptions}, or {@literal null} to disable retries
+	 */
+	protected RetryOptions retryOptions() {
+		return null;
+	}
+
+	/**
+	 * Create the {@link HedgingOptions} used to hedge slow reads. Subclasses can override
+	 * this method to opt in to hedging; by default requests are not hedged.
+	 *
+	 * @return the {@link HedgingOptions}, or {@literal null} to disable hedging
+	 */
+	protected HedgingOptions hedgingOptions() {
+		return null;
+	}
+
+	/**
+	 * Create the {@link CircuitBreakerOptions} used to fail calls to CredHub fast while
+	 * CredHub is degraded. Subclasses can override this method to opt in to the circuit
+	 * breaker; by default calls are not guarded.
+	 *
+	 * @return the {@link CircuitBreakerOptions}, or {@literal null} to disable the
+	 * circuit breaker
+	 */
+	protected CircuitBreakerOptions circuitBreakerOptions() {
+		return null;
+	}
+
+	/**
+	 * Create the {@link LoadBalancingOptions} used to balance requests when several
+	 * CredHub servers are configured. Subclasses can override this method to customize
+	 * the load balancing strategy and the ejection of failing servers.
+	 *
+	 * @return the default {@link LoadBalancingOptions}
+	 */
+	protected LoadBalancingOptions loadBalancingOptions() {
+		return LoadBalancingOptions.builder().build();
+	}
+
 	/**
 	 * Wrapper for {@link ClientHttpRequestFactory} to not expose the bean globally.
 	 */
@@ -101,8 +246,27 @@ public class CredHubConfiguration {
 
 		private final ClientHttpRequestFactory clientHttpRequestFactory;
 
+		private final String apiUriBase;
+
+		private final Integer prewarmConnections;
+
 		public ClientFactoryWrapper(ClientHttpRequestFactory clientHttpRequestFactory) {
+			this(clientHttpRequestFactory, null, null);
+		}
+
+		/**
+		 * Create a wrapper that opens connections to CredHub when it is initialized.
+		 *
+		 * @param clientHttpRequestFactory the wrapped {@link ClientHttpRequestFactory}
+		 * @param apiUriBase the base URI for the CredHub server
+		 * @param prewarmConnections the number of connections to open; {@literal null}
+		 * to open none
+		 */
+		public ClientFactoryWrapper(ClientHttpRequestFactory clientHttpRequestFactory,
+				String apiUriBase, Integer prewarmConnections) {
 			this.clientHttpRequestFactory = clientHttpRequestFactory;
+			this.apiUriBase = apiUriBase;
+			this.prewarmConnections = prewarmConnections;
 		}
 
 		@Override
@@ -117,6 +281,10 @@ public class CredHubConfiguration {
 			if (clientHttpRequestFactory instanceof InitializingBean) {
 				((InitializingBean) clientHttpRequestFactory).afterPropertiesSet();
 			}
+
+			if (prewarmConnections != null && apiUriBase != null) {
+				new ConnectionPrewarmer(clientHttpRequestFactory, apiUriBase).prewarm(prewarmConnections);
+			}
 		}
 
 		public ClientHttpRequestFactory getClientHttpRequestFactory() {
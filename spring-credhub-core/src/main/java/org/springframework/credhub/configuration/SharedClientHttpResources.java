@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.configuration;
+
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.credhub.support.ClientOptions;
+import org.springframework.util.Assert;
+
+/**
+ * HTTP client resources that are shared by the {@link
+ * org.springframework.http.client.ClientHttpRequestFactory} instances of several
+ * CredHub templates, such as one template per tenant. Sharing avoids multiplying
+ * threads and sockets with the number of templates. The shared resources are:
+ *
+ * <ul>
+ * <li>the connection pool of Apache HttpComponents</li>
+ * <li>the dispatcher and connection pool of OkHttp3</li>
+ * <li>the Netty event loop group</li>
+ * </ul>
+ *
+ * Each resource is created when the first request factory that uses it is created, and
+ * is shut down when the last of those request factories is destroyed, for example by
+ * {@link CredHubConfiguration.ClientFactoryWrapper#destroy()}. A resource that was shut
+ * down is created again if another request factory needs it.
+ *
+ * Connection pool settings are taken from the {@link ClientOptions} provided to this
+ * class. Timeouts and protocols are taken from the {@link ClientOptions} of each
+ * request factory.
+ *
+ * @author Scott Frederick
+ * @see ClientHttpRequestFactoryFactory#create(ClientOptions, SharedClientHttpResources)
+ */
+public class SharedClientHttpResources {
+	private final ClientOptions options;
+
+	private final Map<String, SharedResource> resources = new HashMap<String, SharedResource>();
+
+	/**
+	 * Create shared resources with default connection pool settings.
+	 */
+	public SharedClientHttpResources() {
+		this(new ClientOptions());
+	}
+
+	/**
+	 * Create shared resources with the connection pool settings of the provided
+	 * {@link ClientOptions}.
+	 *
+	 * @param options the {@link ClientOptions} for connection pools; must not be
+	 * {@literal null}
+	 */
+	public SharedClientHttpResources(ClientOptions options) {
+		Assert.notNull(options, "options must not be null");
+		this.options = options;
+	}
+
+	/**
+	 * Get the {@link ClientOptions} used for connection pools.
+	 *
+	 * @return the {@link ClientOptions}
+	 */
+	public ClientOptions getOptions() {
+		return options;
+	}
+
+	/**
+	 * Get the number of request factories that currently use a shared resource.
+	 *
+	 * @param name the name of the resource
+	 * @return the number of references to the resource
+	 */
+	synchronized int getReferenceCount(String name) {
+		SharedResource resource = resources.get(name);
+		return resource == null ? 0 : resource.references;
+	}
+
+	/**
+	 * Get a shared resource, creating it if it does not exist, and count a reference to
+	 * it. Each call must be matched by a call to {@link #release(String)}.
+	 *
+	 * @param name the name of the resource
+	 * @param lifecycle creates and shuts down the resource
+	 * @param <T> the type of the resource
+	 * @return the shared resource
+	 * @throws GeneralSecurityException if the resource could not be created
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized <T> T retain(String name, Lifecycle<T> lifecycle) throws GeneralSecurityException {
+		SharedResource resource = resources.get(name);
+		if (resource == null) {
+			resource = new SharedResource(lifecycle.create(options), (Lifecycle<Object>) lifecycle);
+			resources.put(name, resource);
+		}
+		resource.references++;
+		return (T) resource.value;
+	}
+
+	/**
+	 * Remove a reference to a shared resource, shutting it down when no references are
+	 * left.
+	 *
+	 * @param name the name of the resource
+	 */
+	synchronized void release(String name) {
+		SharedResource resource = resources.get(name);
+		if (resource == null) {
+			return;
+		}
+
+		if (--resource.references == 0) {
+			resources.remove(name);
+			resource.lifecycle.shutdown(resource.value);
+		}
+	}
+
+	/**
+	 * Creates and shuts down a shared resource.
+	 *
+	 * @param <T> the type of the resource
+	 */
+	interface Lifecycle<T> {
+		T create(ClientOptions options) throws GeneralSecurityException;
+
+		void shutdown(T resource);
+	}
+
+	private static class SharedResource {
+		private final Object value;
+
+		private final Lifecycle<Object> lifecycle;
+
+		private int references;
+
+		SharedResource(Object value, Lifecycle<Object> lifecycle) {
+			this.value = value;
+			this.lifecycle = lifecycle;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Factory for the {@link SimpleAsyncTaskExecutor} instances that run blocking CredHub
+ * requests. Each task runs on a new thread, which is a virtual thread when requested and
+ * supported by the JDK (Java 21 or later), and a daemon platform thread otherwise.
+ *
+ * Virtual threads are created through reflection so that this class can be compiled
+ * and run on earlier JDKs. The executors created by
+ * {@link #create(String, boolean)} never limit concurrency, because the concurrency
+ * throttle of {@link SimpleAsyncTaskExecutor} waits on a monitor, which would pin
+ * virtual threads to their carrier threads. The executors created by
+ * {@link #createBounded(String, boolean, int)} limit concurrency by rejecting tasks
+ * instead of waiting.
+ *
+ * @author Scott Frederick
+ */
+public class TaskExecutorFactory {
+	private static final Log logger = LogFactory.getLog(TaskExecutorFactory.class);
+
+	private static final Method OF_VIRTUAL = findOfVirtual();
+
+	/**
+	 * Get whether the JDK supports virtual threads.
+	 *
+	 * @return {@literal true} if virtual threads can be created
+	 */
+	public static boolean isVirtualThreadsSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Create a {@link SimpleAsyncTaskExecutor} that runs each task on a new thread.
+	 *
+	 * @param threadNamePrefix the prefix for the names of the threads; must not be
+	 * {@literal null}
+	 * @param virtualThreads {@literal true} to use virtual threads if supported
+	 * @return a new {@link SimpleAsyncTaskExecutor}
+	 */
+	public static SimpleAsyncTaskExecutor create(String threadNamePrefix, boolean virtualThreads) {
+		Assert.notNull(threadNamePrefix, "threadNamePrefix must not be null");
+
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+		executor.setDaemon(true);
+
+		if (virtualThreads) {
+			if (isVirtualThreadsSupported()) {
+				executor.setThreadFactory(createVirtualThreadFactory(threadNamePrefix));
+			}
+			else {
+				logger.warn("Virtual threads require Java 21 or later; falling back to platform threads for "
+						+ threadNamePrefix + " tasks");
+			}
+		}
+
+		return executor;
+	}
+
+	/**
+	 * Create a {@link TaskExecutor} that runs each task on a new thread, and rejects a
+	 * task with a {@link TaskRejectedException} when the concurrency limit is reached.
+	 *
+	 * @param threadNamePrefix the prefix for the names of the threads; must not be
+	 * {@literal null}
+	 * @param virtualThreads {@literal true} to use virtual threads if supported
+	 * @param concurrencyLimit the maximum number of tasks running at once; must be
+	 * greater than {@literal 0}
+	 * @return a new {@link TaskExecutor}
+	 */
+	public static TaskExecutor createBounded(String threadNamePrefix, boolean virtualThreads,
+			int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "concurrencyLimit must be greater than 0");
+		return new BoundedTaskExecutor(create(threadNamePrefix, virtualThreads), concurrencyLimit);
+	}
+
+	private static ThreadFactory createVirtualThreadFactory(String threadNamePrefix) {
+		try {
+			Class<?> builderType = ClassUtils.forName("java.lang.Thread$Builder",
+					TaskExecutorFactory.class.getClassLoader());
+			Object builder = OF_VIRTUAL.invoke(null);
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 1L);
+			return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+		}
+		catch (Exception e) {
+			ReflectionUtils.handleReflectionException(e);
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Method findOfVirtual() {
+		Method ofVirtual = ClassUtils.getMethodIfAvailable(Thread.class, "ofVirtual");
+		if (ofVirtual == null) {
+			return null;
+		}
+
+		// virtual threads are a preview feature before Java 21
+		try {
+			ofVirtual.invoke(null);
+			return ofVirtual;
+		}
+		catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A {@link TaskExecutor} that limits the number of running tasks with a
+	 * {@link Semaphore}. A permit is never waited for, so virtual threads are not pinned.
+	 */
+	private static class BoundedTaskExecutor implements TaskExecutor {
+		private final TaskExecutor delegate;
+
+		private final Semaphore permits;
+
+		BoundedTaskExecutor(TaskExecutor delegate, int concurrencyLimit) {
+			this.delegate = delegate;
+			this.permits = new Semaphore(concurrencyLimit);
+		}
+
+		@Override
+		public void execute(final Runnable task) {
+			if (!permits.tryAcquire()) {
+				throw new TaskRejectedException("Concurrency limit reached; task " + task + " rejected");
+			}
+
+			try {
+				delegate.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							task.run();
+						}
+						finally {
+							permits.release();
+						}
+					}
+				});
+			}
+			catch (RuntimeException e) {
+				permits.release();
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.util.List;
+
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialName;
+import org.springframework.credhub.support.CredentialRequest;
+import org.springframework.credhub.support.CredentialSummary;
+import org.springframework.credhub.support.ParametersRequest;
+import org.springframework.credhub.support.ServicesData;
+import org.springframework.credhub.support.permissions.Actor;
+import org.springframework.credhub.support.permissions.CredentialPermission;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.AsyncRestTemplate;
+
+/**
+ * Specifies the asynchronous interaction with CredHub to save, generate, retrieve,
+ * and delete credentials. Each operation returns immediately with a
+ * {@link ListenableFuture} that is completed when the response from CredHub has been
+ * received.
+ *
+ * Errors returned by CredHub complete the future exceptionally with a
+ * {@link CredHubException}.
+ *
+ * @author Scott Frederick
+ * @see CredHubOperations
+ */
+public interface AsyncCredHubOperations {
+	/**
+	 * Write a new credential to CredHub, or overwrite an existing credential with a new
+	 * value.
+	 *
+	 * @param credentialRequest the credential to write to CredHub; must not be {@literal null}
+	 * @param <T> the credential implementation type
+	 * @return a future completed with the details of the written credential
+	 */
+	<T> ListenableFuture<CredentialDetails<T>> write(CredentialRequest<T> credentialRequest);
+
+	/**
+	 * Generate a new credential in CredHub, or overwrite an existing credential with a new
+	 * generated value.
+	 *
+	 * @param parametersRequest the parameters of the new credential to generate in CredHub;
+	 *                                must not be {@literal null}
+	 * @param <T> the credential implementation type
+	 * @param <P> the credential parameter implementation type
+	 * @return a future completed with the details of the generated credential
+	 */
+	<T, P> ListenableFuture<CredentialDetails<T>> generate(ParametersRequest<P> parametersRequest);
+
+	/**
+	 * Retrieve a credential using its ID, as returned in a write request.
+	 *
+	 * @param id the ID of the credential; must not be {@literal null}
+	 * @param credentialType the type of the credential to be retrieved; must not be {@literal null}
+	 * @param <T> the credential implementation type
+	 * @return a future completed with the details of the retrieved credential
+	 */
+	<T> ListenableFuture<CredentialDetails<T>> getById(String id, Class<T> credentialType);
+
+	/**
+	 * Retrieve a credential using its name, as passed to a write request.
+	 * Only the current credential value will be returned.
+	 *
+	 * @param name the name of the credential; must not be {@literal null}
+	 * @param credentialType the type of credential expected to be returned
+	 * @param <T> the credential implementation type
+	 * @return a future completed with the details of the retrieved credential
+	 */
+	<T> ListenableFuture<CredentialDetails<T>> getByName(CredentialName name, Class<T> credentialType);
+
+	/**
+	 * Retrieve a credential using its name, as passed to a write request.
+	 * A collection of all stored values for the named credential will be returned,
+	 * including historical values.
+	 *
+	 * @param name the name of the credential; must not be {@literal null}
+	 * @param credentialType the type of credential expected to be returned
+	 * @param <T> the credential implementation type
+	 * @return a future completed with the details of the retrieved credential, including
+	 * history
+	 */
+	<T> ListenableFuture<List<CredentialDetails<T>>> getByNameWithHistory(CredentialName name,
+			Class<T> credentialType);
+
+	/**
+	 * Retrieve a credential using its name, as passed to a write request, including
+	 * historical values. Each value is passed to the provided
+	 * {@link CredentialCallbackHandler} as it is read from the CredHub response, rather
+	 * than being collected into a list. The Netty transport buffers the whole response
+	 * body before it is read, as described in {@link AsyncCredHubTemplate}.
+	 *
+	 * @param name the name of the credential; must not be {@literal null}
+	 * @param credentialType the type of credential expected to be returned
+	 * @param callbackHandler the handler for each credential value; must not be
+	 * {@literal null}
+	 * @param <T> the credential implementation type
+	 * @return a future completed when all values have been processed
+	 */
+	<T> ListenableFuture<Void> getByNameWithHistory(CredentialName name, Class<T> credentialType,
+			CredentialCallbackHandler<CredentialDetails<T>> callbackHandler);
+
+	/**
+	 * Find a credential using a full or partial name.
+	 *
+	 * @param name the name of the credential; must not be {@literal null}
+	 * @return a future completed with a summary of the credential search results
+	 */
+	ListenableFuture<List<CredentialSummary>> findByName(CredentialName name);
+
+	/**
+	 * Find a credential using a path.
+	 *
+	 * @param path the path to the credential; must not be {@literal null}
+	 * @return a future completed with a summary of the credential search results
+	 */
+	ListenableFuture<List<CredentialSummary>> findByPath(String path);
+
+	/**
+	 * Find a credential using a path. Each search result is passed to the provided
+	 * {@link CredentialCallbackHandler} as it is read from the CredHub response, rather
+	 * than being collected into a list. The Netty transport buffers the whole response
+	 * body before it is read, as described in {@link AsyncCredHubTemplate}.
+	 *
+	 * @param path the path to the credential; must not be {@literal null}
+	 * @param callbackHandler the handler for each search result; must not be
+	 * {@literal null}
+	 * @return a future completed when all search results have been processed
+	 */
+	ListenableFuture<Void> findByPath(String path, CredentialCallbackHandler<CredentialSummary> callbackHandler);
+
+	/**
+	 * Delete a credential by its full name.
+	 *
+	 * @param name the name of the credential; must not be {@literal null}
+	 * @return a future completed when the credential has been deleted
+	 */
+	ListenableFuture<Void> deleteByName(CredentialName name);
+
+	/**
+	 * Get the permissions associated with a credential.
+	 *
+	 * @param name the name of the credential; must not be {@literal null}
+	 * @return a future completed with the collection of permissions associated with the
+	 * credential
+	 */
+	ListenableFuture<List<CredentialPermission>> getPermissions(CredentialName name);
+
+	/**
+	 * Add permissions to an existing credential.
+	 *
+	 * @param name the name of the credential; must not be {@literal null}
+	 * @param permissions a collection of permissions to add
+	 * @return a future completed with the collection of permissions associated with the
+	 * credential
+	 */
+	ListenableFuture<List<CredentialPermission>> addPermissions(CredentialName name,
+			CredentialPermission... permissions);
+
+	/**
+	 * Delete a permission associated with a credential.
+	 *
+	 * @param name the name of the credential; must not be {@literal null}
+	 * @param actor the actor of the permission; must not be {@literal null}
+	 * @return a future completed when the permission has been deleted
+	 */
+	ListenableFuture<Void> deletePermission(CredentialName name, Actor actor);
+
+	/**
+	 * Search the provided data structure of bound service credentials, looking for
+	 * references to CredHub credentials, and replace them with the credential values
+	 * stored in CredHub.
+	 *
+	 * @param serviceData a data structure of bound service credentials, as would be
+	 * parsed from the {@literal VCAP_SERVICES} environment variable provided to
+	 * applications running on Cloud Foundry
+	 * @return a future completed with the serviceData structure with CredHub references
+	 * replaced by stored credential values
+	 * @see CredHubOperations#interpolateServiceData(ServicesData)
+	 */
+	ListenableFuture<ServicesData> interpolateServiceData(ServicesData serviceData);
+
+	/**
+	 * Allow interaction with the configured {@link AsyncRestTemplate} not provided
+	 * by other methods.
+	 *
+	 * @param callback wrapper for the callback method
+	 * @param <T> the return type of the callback
+	 * @return the return value from the callback method
+	 */
+	<T> T doWithRest(AsyncRestOperationsCallback<T> callback);
+}
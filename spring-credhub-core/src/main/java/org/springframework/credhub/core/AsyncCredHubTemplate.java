@@ -0,0 +1,515 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.credhub.metrics.CredHubMetricsInterceptor;
+import org.springframework.credhub.metrics.CredHubMetricsRecorder;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialDetailsData;
+import org.springframework.credhub.support.CredentialName;
+import org.springframework.credhub.support.CredentialPermissions;
+import org.springframework.credhub.support.CredentialRequest;
+import org.springframework.credhub.support.CredentialSummary;
+import org.springframework.credhub.support.CredentialSummaryData;
+import org.springframework.credhub.support.ParametersRequest;
+import org.springframework.credhub.support.ServicesData;
+import org.springframework.credhub.support.permissions.Actor;
+import org.springframework.credhub.support.permissions.CredentialPermission;
+import org.springframework.credhub.support.utils.JsonUtils;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.client.AsyncRestOperations;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import static org.springframework.credhub.core.CredHubTemplate.BASE_URL_PATH;
+import static org.springframework.credhub.core.CredHubTemplate.ID_URL_PATH;
+import static org.springframework.credhub.core.CredHubTemplate.INTERPOLATE_URL_PATH;
+import static org.springframework.credhub.core.CredHubTemplate.NAME_LIKE_URL_QUERY;
+import static org.springframework.credhub.core.CredHubTemplate.NAME_URL_QUERY;
+import static org.springframework.credhub.core.CredHubTemplate.NAME_URL_QUERY_CURRENT;
+import static org.springframework.credhub.core.CredHubTemplate.PATH_URL_QUERY;
+import static org.springframework.credhub.core.CredHubTemplate.PERMISSIONS_ACTOR_URL_QUERY;
+import static org.springframework.credhub.core.CredHubTemplate.PERMISSIONS_URL_PATH;
+import static org.springframework.credhub.core.CredHubTemplate.PERMISSIONS_URL_QUERY;
+import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.HttpMethod.PUT;
+
+/**
+ * Implements the asynchronous interaction with CredHub to save, retrieve,
+ * and delete credentials.
+ *
+ * Requests are executed by an {@link AsyncClientHttpRequestFactory}. With a non-blocking
+ * transport such as Netty, no thread is held while a request to CredHub is in flight.
+ *
+ * Operations that accept a {@link CredentialCallbackHandler} read the response body with
+ * a streaming JSON parser and hand each element to the handler as soon as it is parsed.
+ * How much of the body is held in memory depends on the transport. The Netty transport
+ * aggregates the whole response with an {@literal HttpObjectAggregator}, up to the
+ * maximum response size of the request factory, before it is parsed. With Netty, these
+ * operations avoid building a list of results but not buffering the raw response body.
+ *
+ * @author Scott Frederick
+ */
+public class AsyncCredHubTemplate implements AsyncCredHubOperations {
+	private static final ObjectMapper OBJECT_MAPPER = JsonUtils.buildObjectMapper();
+
+	private static final ResponseAdapter<CredentialSummaryData, List<CredentialSummary>> SUMMARY_ADAPTER =
+			new ResponseAdapter<CredentialSummaryData, List<CredentialSummary>>() {
+				@Override
+				public List<CredentialSummary> adapt(CredentialSummaryData body) {
+					return body.getCredentials();
+				}
+			};
+
+	private static final ResponseAdapter<CredentialPermissions, List<CredentialPermission>> PERMISSIONS_ADAPTER =
+			new ResponseAdapter<CredentialPermissions, List<CredentialPermission>>() {
+				@Override
+				public List<CredentialPermission> adapt(CredentialPermissions body) {
+					return body.getPermissions();
+				}
+			};
+
+	private final AsyncRestTemplate asyncRestTemplate;
+
+	private CredHubMetricsInterceptor metricsInterceptor;
+
+	private final ObjectReader summaryReader = OBJECT_MAPPER.readerFor(CredentialSummary.class);
+	private final ObjectReader detailsReader = OBJECT_MAPPER.readerFor(OBJECT_MAPPER.getTypeFactory()
+			.constructParametricType(CredentialDetails.class, Object.class));
+
+	/**
+	 * Create a new {@link AsyncCredHubTemplate} using the provided {@link AsyncRestTemplate}.
+	 * Intended for internal testing only.
+	 *
+	 * @param asyncRestTemplate the {@link AsyncRestTemplate} to use for interactions with
+	 * CredHub
+	 */
+	AsyncCredHubTemplate(AsyncRestTemplate asyncRestTemplate) {
+		Assert.notNull(asyncRestTemplate, "asyncRestTemplate must not be null");
+
+		this.asyncRestTemplate = asyncRestTemplate;
+	}
+
+	/**
+	 * Create a new {@link AsyncCredHubTemplate} using the provided base URI and
+	 * {@link AsyncClientHttpRequestFactory}.
+	 *
+	 * @param apiUriBase the base URI for the CredHub server (scheme, host, and port);
+	 * must not be {@literal null}
+	 * @param asyncClientHttpRequestFactory the {@link AsyncClientHttpRequestFactory} to
+	 * use when creating new connections
+	 */
+	public AsyncCredHubTemplate(String apiUriBase,
+			AsyncClientHttpRequestFactory asyncClientHttpRequestFactory) {
+		Assert.notNull(apiUriBase, "apiUriBase must not be null");
+		Assert.notNull(asyncClientHttpRequestFactory, "asyncClientHttpRequestFactory must not be null");
+
+		this.asyncRestTemplate = CredHubClient.createAsyncRestTemplate(apiUriBase,
+				asyncClientHttpRequestFactory);
+	}
+
+	@Override
+	public <T> ListenableFuture<CredentialDetails<T>> write(final CredentialRequest<T> credentialRequest) {
+		Assert.notNull(credentialRequest, "credentialRequest must not be null");
+
+		final ParameterizedTypeReference<CredentialDetails<T>> ref = CredHubTemplate.credentialDetailsType();
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<CredentialDetails<T>>>() {
+			@Override
+			public ListenableFuture<CredentialDetails<T>> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return toBody(asyncRestOperations.exchange(BASE_URL_PATH, PUT,
+						new HttpEntity<CredentialRequest<T>>(credentialRequest), ref));
+			}
+		});
+	}
+
+	@Override
+	public <T, P> ListenableFuture<CredentialDetails<T>> generate(final ParametersRequest<P> parametersRequest) {
+		Assert.notNull(parametersRequest, "generateRequest must not be null");
+
+		final ParameterizedTypeReference<CredentialDetails<T>> ref = CredHubTemplate.credentialDetailsType();
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<CredentialDetails<T>>>() {
+			@Override
+			public ListenableFuture<CredentialDetails<T>> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return toBody(asyncRestOperations.exchange(BASE_URL_PATH, POST,
+						new HttpEntity<ParametersRequest<P>>(parametersRequest), ref));
+			}
+		});
+	}
+
+	@Override
+	public <T> ListenableFuture<CredentialDetails<T>> getById(final String id, Class<T> credentialType) {
+		Assert.notNull(id, "credential id must not be null");
+		Assert.notNull(credentialType, "credential type must not be null");
+
+		final ParameterizedTypeReference<CredentialDetails<T>> ref = CredHubTemplate.credentialDetailsType();
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<CredentialDetails<T>>>() {
+			@Override
+			public ListenableFuture<CredentialDetails<T>> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return toBody(asyncRestOperations.exchange(ID_URL_PATH, GET, null, ref, id));
+			}
+		});
+	}
+
+	@Override
+	public <T> ListenableFuture<CredentialDetails<T>> getByName(final CredentialName name,
+			Class<T> credentialType) {
+		Assert.notNull(name, "credential name must not be null");
+		Assert.notNull(credentialType, "credential type must not be null");
+
+		final ParameterizedTypeReference<CredentialDetails<T>> ref = CredHubTemplate.credentialDetailsType();
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<CredentialDetails<T>>>() {
+			@Override
+			public ListenableFuture<CredentialDetails<T>> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return toBody(asyncRestOperations.exchange(NAME_URL_QUERY_CURRENT, GET, null, ref,
+						name.getName()));
+			}
+		});
+	}
+
+	@Override
+	public <T> ListenableFuture<List<CredentialDetails<T>>> getByNameWithHistory(final CredentialName name,
+			Class<T> credentialType) {
+		Assert.notNull(name, "credential name must not be null");
+		Assert.notNull(credentialType, "credential type must not be null");
+
+		final ParameterizedTypeReference<CredentialDetailsData<T>> ref = CredHubTemplate.credentialDetailsDataType();
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<List<CredentialDetails<T>>>>() {
+			@Override
+			public ListenableFuture<List<CredentialDetails<T>>> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return adapt(asyncRestOperations.exchange(NAME_URL_QUERY, GET, null, ref, name.getName()),
+						new ResponseAdapter<CredentialDetailsData<T>, List<CredentialDetails<T>>>() {
+							@Override
+							public List<CredentialDetails<T>> adapt(CredentialDetailsData<T> body) {
+								return body.getData();
+							}
+						});
+			}
+		});
+	}
+
+	@Override
+	public <T> ListenableFuture<Void> getByNameWithHistory(final CredentialName name, Class<T> credentialType,
+			CredentialCallbackHandler<CredentialDetails<T>> callbackHandler) {
+		Assert.notNull(name, "credential name must not be null");
+		Assert.notNull(credentialType, "credential type must not be null");
+		Assert.notNull(callbackHandler, "callbackHandler must not be null");
+
+		final StreamingCredentialResponseExtractor<CredentialDetails<T>> extractor =
+				new StreamingCredentialResponseExtractor<CredentialDetails<T>>(detailsReader, "data",
+						callbackHandler);
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<Void>>() {
+			@Override
+			public ListenableFuture<Void> doWithAsyncRestOperations(AsyncRestOperations asyncRestOperations) {
+				return translateExceptions(asyncRestOperations.execute(NAME_URL_QUERY, GET, null,
+						extractor, name.getName()));
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<CredentialSummary>> findByName(final CredentialName name) {
+		Assert.notNull(name, "credential name must not be null");
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<List<CredentialSummary>>>() {
+			@Override
+			public ListenableFuture<List<CredentialSummary>> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return adapt(asyncRestOperations.getForEntity(NAME_LIKE_URL_QUERY,
+						CredentialSummaryData.class, name.getName()), SUMMARY_ADAPTER);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<CredentialSummary>> findByPath(final String path) {
+		Assert.notNull(path, "credential path must not be null");
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<List<CredentialSummary>>>() {
+			@Override
+			public ListenableFuture<List<CredentialSummary>> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return adapt(asyncRestOperations.getForEntity(PATH_URL_QUERY,
+						CredentialSummaryData.class, path), SUMMARY_ADAPTER);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Void> findByPath(final String path,
+			CredentialCallbackHandler<CredentialSummary> callbackHandler) {
+		Assert.notNull(path, "credential path must not be null");
+		Assert.notNull(callbackHandler, "callbackHandler must not be null");
+
+		final StreamingCredentialResponseExtractor<CredentialSummary> extractor =
+				new StreamingCredentialResponseExtractor<CredentialSummary>(summaryReader, "credentials",
+						callbackHandler);
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<Void>>() {
+			@Override
+			public ListenableFuture<Void> doWithAsyncRestOperations(AsyncRestOperations asyncRestOperations) {
+				return translateExceptions(asyncRestOperations.execute(PATH_URL_QUERY, GET, null,
+						extractor, path));
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Void> deleteByName(final CredentialName name) {
+		Assert.notNull(name, "credential name must not be null");
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<Void>>() {
+			@Override
+			public ListenableFuture<Void> doWithAsyncRestOperations(AsyncRestOperations asyncRestOperations) {
+				return toVoid(asyncRestOperations.exchange(NAME_URL_QUERY, DELETE, null,
+						Void.class, name.getName()));
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<CredentialPermission>> getPermissions(final CredentialName name) {
+		Assert.notNull(name, "credential name must not be null");
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<List<CredentialPermission>>>() {
+			@Override
+			public ListenableFuture<List<CredentialPermission>> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return adapt(asyncRestOperations.getForEntity(PERMISSIONS_URL_QUERY,
+						CredentialPermissions.class, name.getName()), PERMISSIONS_ADAPTER);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<List<CredentialPermission>> addPermissions(final CredentialName name,
+			CredentialPermission... permissions) {
+		Assert.notNull(name, "credential name must not be null");
+
+		final CredentialPermissions credentialPermissions = new CredentialPermissions(name, permissions);
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<List<CredentialPermission>>>() {
+			@Override
+			public ListenableFuture<List<CredentialPermission>> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return adapt(asyncRestOperations.exchange(PERMISSIONS_URL_PATH, POST,
+						new HttpEntity<CredentialPermissions>(credentialPermissions),
+						CredentialPermissions.class), PERMISSIONS_ADAPTER);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<Void> deletePermission(final CredentialName name, final Actor actor) {
+		Assert.notNull(name, "credential name must not be null");
+		Assert.notNull(actor, "actor must not be null");
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<Void>>() {
+			@Override
+			public ListenableFuture<Void> doWithAsyncRestOperations(AsyncRestOperations asyncRestOperations) {
+				return toVoid(asyncRestOperations.exchange(PERMISSIONS_ACTOR_URL_QUERY, DELETE, null,
+						Void.class, name.getName(), actor.getIdentity()));
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<ServicesData> interpolateServiceData(final ServicesData serviceData) {
+		Assert.notNull(serviceData, "serviceData must not be null");
+
+		return doWithRest(new AsyncRestOperationsCallback<ListenableFuture<ServicesData>>() {
+			@Override
+			public ListenableFuture<ServicesData> doWithAsyncRestOperations(
+					AsyncRestOperations asyncRestOperations) {
+				return toBody(asyncRestOperations.exchange(INTERPOLATE_URL_PATH, POST,
+						new HttpEntity<ServicesData>(serviceData), ServicesData.class));
+			}
+		});
+	}
+
+	@Override
+	public <T> T doWithRest(AsyncRestOperationsCallback<T> callback) {
+		Assert.notNull(callback, "callback must not be null");
+
+		try {
+			return callback.doWithAsyncRestOperations(asyncRestTemplate);
+		}
+		catch (HttpStatusCodeException e) {
+			throw new CredHubException(e);
+		}
+	}
+
+	/**
+	 * Set the {@link CredHubMetricsRecorder} that receives the duration and outcome of
+	 * each HTTP request. Metrics are not recorded unless a recorder is set.
+	 *
+	 * @param metricsRecorder the {@link CredHubMetricsRecorder}; must not be
+	 * {@literal null}
+	 */
+	public void setMetricsRecorder(CredHubMetricsRecorder metricsRecorder) {
+		Assert.notNull(metricsRecorder, "metricsRecorder must not be null");
+
+		List<AsyncClientHttpRequestInterceptor> interceptors = asyncRestTemplate.getInterceptors();
+		if (metricsInterceptor != null) {
+			interceptors.remove(metricsInterceptor);
+		}
+		metricsInterceptor = new CredHubMetricsInterceptor(metricsRecorder);
+		interceptors.add(metricsInterceptor);
+	}
+
+	private static <T> ListenableFuture<T> toBody(ListenableFuture<ResponseEntity<T>> response) {
+		return adapt(response, new ResponseAdapter<T, T>() {
+			@Override
+			public T adapt(T body) {
+				return body;
+			}
+		});
+	}
+
+	private static ListenableFuture<Void> toVoid(ListenableFuture<ResponseEntity<Void>> response) {
+		return adapt(response, new ResponseAdapter<Void, Void>() {
+			@Override
+			public Void adapt(Void body) {
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Adapt a future {@link ResponseEntity} returned from {@link AsyncRestTemplate} to a
+	 * future result, translating error responses to {@link CredHubException}s.
+	 * Cancelling the result cancels the request.
+	 *
+	 * @param response the future response from {@link AsyncRestTemplate}
+	 * @param adapter the adapter to apply to the body of a successful response
+	 * @return the adapted future result
+	 */
+	private static <S, T> ListenableFuture<T> adapt(ListenableFuture<ResponseEntity<S>> response,
+			final ResponseAdapter<S, T> adapter) {
+		final SettableListenableFuture<T> result = new CancellingListenableFuture<T>(response);
+
+		response.addCallback(new ListenableFutureCallback<ResponseEntity<S>>() {
+			@Override
+			public void onSuccess(ResponseEntity<S> entity) {
+				if (!entity.getStatusCode().is2xxSuccessful()) {
+					result.setException(new CredHubException(entity.getStatusCode()));
+					return;
+				}
+
+				try {
+					result.set(adapter.adapt(entity.getBody()));
+				}
+				catch (RuntimeException e) {
+					result.setException(e);
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable ex) {
+				result.setException(translateException(ex));
+			}
+		});
+
+		return result;
+	}
+
+	/**
+	 * Translate errors from a future returned from {@link AsyncRestTemplate} to
+	 * {@link CredHubException}s. Cancelling the result cancels the request.
+	 *
+	 * @param future the future result from {@link AsyncRestTemplate}
+	 * @return the future result with translated errors
+	 */
+	private static <T> ListenableFuture<T> translateExceptions(ListenableFuture<T> future) {
+		final SettableListenableFuture<T> result = new CancellingListenableFuture<T>(future);
+
+		future.addCallback(new ListenableFutureCallback<T>() {
+			@Override
+			public void onSuccess(T value) {
+				result.set(value);
+			}
+
+			@Override
+			public void onFailure(Throwable ex) {
+				result.setException(translateException(ex));
+			}
+		});
+
+		return result;
+	}
+
+	private static Throwable translateException(Throwable ex) {
+		if (ex instanceof HttpStatusCodeException) {
+			return new CredHubException((HttpStatusCodeException) ex);
+		}
+		return ex;
+	}
+
+	/**
+	 * A {@link SettableListenableFuture} that also cancels the future it is completed
+	 * from, so that cancelling an operation cancels the request to CredHub.
+	 */
+	private static class CancellingListenableFuture<T> extends SettableListenableFuture<T> {
+		private final Future<?> source;
+
+		CancellingListenableFuture(Future<?> source) {
+			this.source = source;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				source.cancel(mayInterruptIfRunning);
+			}
+			return cancelled;
+		}
+	}
+
+	/**
+	 * Converts the body of a successful CredHub response to the result of an operation.
+	 */
+	private interface ResponseAdapter<S, T> {
+		T adapt(S body);
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import org.springframework.web.client.AsyncRestOperations;
+
+/**
+ * A callback for executing arbitrary operations on {@link AsyncRestOperations}.
+ *
+ * @author Scott Frederick
+ */
+public interface AsyncRestOperationsCallback<T> {
+
+	/**
+	 * Callback method providing an {@link AsyncRestOperations} that is configured to
+	 * interact with the CredHub server.
+	 *
+	 * @param asyncRestOperations asyncRestOperations to use, must not be {@literal null}.
+	 * @return a result object or null if none.
+	 */
+	T doWithAsyncRestOperations(AsyncRestOperations asyncRestOperations);
+}
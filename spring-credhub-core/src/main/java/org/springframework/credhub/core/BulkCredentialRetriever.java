@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.BulkRequestOptions;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialName;
+
+/**
+ * Retrieves many credentials by name using a bounded number of concurrent requests
+ * to CredHub.
+ *
+ * At most {@link BulkRequestOptions#getConcurrency()} worker tasks are submitted to the
+ * {@link Executor}, and each worker retrieves credentials one at a time from a shared
+ * queue of names until the queue is empty or the overall timeout has elapsed. Workers
+ * rejected by the {@link Executor} are skipped, and if none can be submitted every
+ * name is reported as a failure.
+ *
+ * @author Scott Frederick
+ */
+class BulkCredentialRetriever {
+	private final CredHubOperations credHubOperations;
+	private final Executor executor;
+	private final BulkRequestOptions options;
+
+	/**
+	 * Create a new {@link BulkCredentialRetriever}.
+	 *
+	 * @param credHubOperations the {@link CredHubOperations} used to retrieve each
+	 * credential
+	 * @param executor the {@link Executor} used to run the worker tasks
+	 * @param options the concurrency and timeout options
+	 */
+	BulkCredentialRetriever(CredHubOperations credHubOperations, Executor executor,
+			BulkRequestOptions options) {
+		this.credHubOperations = credHubOperations;
+		this.executor = executor;
+		this.options = options;
+	}
+
+	/**
+	 * Retrieve the current value of each named credential.
+	 *
+	 * @param names the names of the credentials
+	 * @param credentialType the type of credential expected to be returned
+	 * @param <T> the credential implementation type
+	 * @return the retrieved credentials and any failures, in the order of the
+	 * provided names
+	 */
+	<T> BulkCredentialDetails<T> getByNames(Collection<? extends CredentialName> names,
+			final Class<T> credentialType) {
+		Set<CredentialName> uniqueNames = new LinkedHashSet<CredentialName>(names);
+		if (uniqueNames.isEmpty()) {
+			return new BulkCredentialDetails<T>(Collections.<CredentialName, CredentialDetails<T>>emptyMap(),
+					Collections.<CredentialName, Exception>emptyMap());
+		}
+
+		final Queue<CredentialName> pending = new ConcurrentLinkedQueue<CredentialName>(uniqueNames);
+		final Map<CredentialName, CredentialDetails<T>> results =
+				Collections.synchronizedMap(new HashMap<CredentialName, CredentialDetails<T>>());
+		final Map<CredentialName, Exception> errors =
+				Collections.synchronizedMap(new HashMap<CredentialName, Exception>());
+
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getTimeout());
+		int workers = Math.min(options.getConcurrency(), uniqueNames.size());
+		final CountDownLatch completed = new CountDownLatch(workers);
+
+		Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					CredentialName name;
+					while (deadline - System.nanoTime() > 0 && (name = pending.poll()) != null) {
+						try {
+							results.put(name, credHubOperations.getByName(name, credentialType));
+						}
+						catch (RuntimeException e) {
+							errors.put(name, e);
+						}
+					}
+				}
+				finally {
+					completed.countDown();
+				}
+			}
+		};
+
+		int submitted = 0;
+		RejectedExecutionException rejected = null;
+		for (int i = 0; i < workers; i++) {
+			try {
+				executor.execute(worker);
+				submitted++;
+			}
+			catch (RejectedExecutionException e) {
+				rejected = e;
+				completed.countDown();
+			}
+		}
+
+		if (submitted == 0) {
+			failPending(pending, errors, rejected);
+		}
+
+		awaitCompletion(completed, deadline);
+
+		return collectResults(uniqueNames, results, errors);
+	}
+
+	/**
+	 * Report every name still waiting to be retrieved as failed when no worker could be
+	 * submitted to the {@link Executor}. Names left over after some workers were accepted
+	 * are retrieved by those workers.
+	 */
+	private void failPending(Queue<CredentialName> pending, Map<CredentialName, Exception> errors,
+			RejectedExecutionException rejected) {
+		CredentialName name;
+		while ((name = pending.poll()) != null) {
+			errors.put(name, rejected);
+		}
+	}
+
+	private void awaitCompletion(CountDownLatch completed, long deadline) {
+		try {
+			completed.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private <T> BulkCredentialDetails<T> collectResults(Set<CredentialName> names,
+			Map<CredentialName, CredentialDetails<T>> results, Map<CredentialName, Exception> errors) {
+		Map<CredentialName, CredentialDetails<T>> credentials =
+				new LinkedHashMap<CredentialName, CredentialDetails<T>>();
+		Map<CredentialName, Exception> failures = new LinkedHashMap<CredentialName, Exception>();
+
+		synchronized (results) {
+			synchronized (errors) {
+				for (CredentialName name : names) {
+					if (results.containsKey(name)) {
+						credentials.put(name, results.get(name));
+					}
+					else if (errors.containsKey(name)) {
+						failures.put(name, errors.get(name));
+					}
+					else {
+						failures.put(name, new TimeoutException("Credential " + name.getName()
+								+ " was not retrieved within " + options.getTimeout() + "ms"));
+					}
+				}
+			}
+		}
+
+		return new BulkCredentialDetails<T>(credentials, failures);
+	}
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.credhub.core.CredentialDetailsCache.CachedCredential;
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.CredentialCacheOptions;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialName;
+import org.springframework.credhub.support.CredentialRequest;
+import org.springframework.credhub.support.CredentialSummary;
+import org.springframework.credhub.support.ParametersRequest;
+import org.springframework.credhub.support.ServicesData;
+import org.springframework.credhub.support.permissions.Actor;
+import org.springframework.credhub.support.permissions.CredentialPermission;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link CredHubOperations} decorator that caches credentials retrieved with
+ * {@link #getByName(CredentialName, Class)}, {@link #getByNames(Collection, Class)},
+ * and {@link #getById(String, Class)}.
+ *
+ * Cached credentials expire after the time to live configured in the
+ * {@link CredentialCacheOptions}, and the least recently used credential is evicted when
+ * the cache is full. Credentials are removed from the cache when they are written,
+ * generated, or deleted through this instance. Changes made by other clients, or through
+ * {@link #doWithRest(RestOperationsCallback)}, are visible once the cached entry expires.
+ *
+ * If {@link CredentialCacheOptions#getStaleTimeToLive()} is set, an expired credential
+ * continues to be returned for that long while a single background request to CredHub
+ * refreshes it, so that callers do not wait for CredHub each time an entry expires. If
+ * the refreshed credential has the same ID and version creation time as the cached
+ * credential, the cached instance is kept. Refreshes run on the
+ * {@link #setRefreshExecutor(Executor) refresh executor}.
+ *
+ * If {@link CredentialCacheOptions#getNotFoundTimeToLive()} is set, a credential name
+ * that CredHub reports as not found is remembered for that long, and retrieving it by
+ * name fails with a {@link CredHubException} with status
+ * {@link HttpStatus#NOT_FOUND} without calling CredHub. Writing, generating, or
+ * deleting the credential through this instance forgets the name.
+ *
+ * All other operations are passed through to the delegate {@link CredHubOperations}.
+ *
+ * @author Scott Frederick
+ */
+public class CachingCredHubOperations implements CredHubOperations {
+	private final CredHubOperations delegate;
+
+	private final CredentialDetailsCache cache;
+
+	private Executor refreshExecutor = createRefreshExecutor();
+
+	/**
+	 * Create a new {@link CachingCredHubOperations} using default
+	 * {@link CredentialCacheOptions}.
+	 *
+	 * @param delegate the {@link CredHubOperations} to delegate to; must not be
+	 * {@literal null}
+	 */
+	public CachingCredHubOperations(CredHubOperations delegate) {
+		this(delegate, CredentialCacheOptions.builder().build());
+	}
+
+	/**
+	 * Create a new {@link CachingCredHubOperations}.
+	 *
+	 * @param delegate the {@link CredHubOperations} to delegate to; must not be
+	 * {@literal null}
+	 * @param options the cache options; must not be {@literal null}
+	 */
+	public CachingCredHubOperations(CredHubOperations delegate, CredentialCacheOptions options) {
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.notNull(options, "options must not be null");
+
+		this.delegate = delegate;
+		this.cache = new CredentialDetailsCache(options);
+	}
+
+	@Override
+	public <T> CredentialDetails<T> write(CredentialRequest<T> credentialRequest) {
+		Assert.notNull(credentialRequest, "credentialRequest must not be null");
+
+		try {
+			return delegate.write(credentialRequest);
+		}
+		finally {
+			cache.invalidate(credentialRequest.getName());
+		}
+	}
+
+	@Override
+	public <T, P> CredentialDetails<T> generate(ParametersRequest<P> parametersRequest) {
+		Assert.notNull(parametersRequest, "parametersRequest must not be null");
+
+		try {
+			return delegate.generate(parametersRequest);
+		}
+		finally {
+			cache.invalidate(parametersRequest.getName());
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> CredentialDetails<T> getById(final String id, final Class<T> credentialType) {
+		Assert.notNull(id, "credential id must not be null");
+
+		final CachedCredential cached = cache.getById(id);
+		if (cached == null) {
+			long generation = cache.getGeneration();
+			CredentialDetails<T> details = delegate.getById(id, credentialType);
+			cache.putById(id, details, generation);
+			return details;
+		}
+
+		if (cached.isRefreshRequired()) {
+			refresh(cached, new Runnable() {
+				@Override
+				public void run() {
+					cache.refreshById(id, cached, delegate.getById(id, credentialType));
+				}
+			});
+		}
+		return (CredentialDetails<T>) cached.getDetails();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> CredentialDetails<T> getByName(final CredentialName name, final Class<T> credentialType) {
+		Assert.notNull(name, "credential name must not be null");
+
+		final CachedCredential cached = cache.getByName(name);
+		if (cached == null) {
+			if (cache.isNotFound(name)) {
+				throw new CredHubException(HttpStatus.NOT_FOUND);
+			}
+
+			long generation = cache.getGeneration();
+			CredentialDetails<T> details;
+			try {
+				details = delegate.getByName(name, credentialType);
+			}
+			catch (CredHubException e) {
+				if (isNotFound(e)) {
+					cache.putNotFound(name, generation);
+				}
+				throw e;
+			}
+			cache.putByName(name, details, generation);
+			return details;
+		}
+
+		if (cached.isRefreshRequired()) {
+			refresh(cached, new Runnable() {
+				@Override
+				public void run() {
+					cache.refreshByName(name, cached, delegate.getByName(name, credentialType));
+				}
+			});
+		}
+		return (CredentialDetails<T>) cached.getDetails();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> BulkCredentialDetails<T> getByNames(Collection<? extends CredentialName> names,
+			Class<T> credentialType) {
+		Assert.notNull(names, "credential names must not be null");
+
+		Set<CredentialName> uniqueNames = new LinkedHashSet<CredentialName>(names);
+		Map<CredentialName, CredentialDetails<T>> cached = new LinkedHashMap<CredentialName, CredentialDetails<T>>();
+		Map<CredentialName, CachedCredential> stale = new LinkedHashMap<CredentialName, CachedCredential>();
+		Map<CredentialName, Exception> failures = new LinkedHashMap<CredentialName, Exception>();
+		List<CredentialName> misses = new ArrayList<CredentialName>();
+
+		for (CredentialName name : uniqueNames) {
+			CachedCredential details = cache.getByName(name);
+			if (details == null) {
+				if (cache.isNotFound(name)) {
+					failures.put(name, new CredHubException(HttpStatus.NOT_FOUND));
+				}
+				else {
+					misses.add(name);
+				}
+			}
+			else {
+				cached.put(name, (CredentialDetails<T>) details.getDetails());
+				if (details.isRefreshRequired()) {
+					stale.put(name, details);
+				}
+			}
+		}
+
+		if (!stale.isEmpty()) {
+			refreshByNames(stale, credentialType);
+		}
+
+		if (misses.isEmpty()) {
+			return new BulkCredentialDetails<T>(cached, failures);
+		}
+
+		long generation = cache.getGeneration();
+		BulkCredentialDetails<T> retrieved = delegate.getByNames(misses, credentialType);
+
+		Map<CredentialName, CredentialDetails<T>> credentials =
+				new LinkedHashMap<CredentialName, CredentialDetails<T>>();
+		for (CredentialName name : uniqueNames) {
+			if (cached.containsKey(name)) {
+				credentials.put(name, cached.get(name));
+			}
+			else if (retrieved.getCredentials().containsKey(name)) {
+				CredentialDetails<T> details = retrieved.getCredentials().get(name);
+				cache.putByName(name, details, generation);
+				credentials.put(name, details);
+			}
+			else if (retrieved.getFailures().containsKey(name)) {
+				Exception failure = retrieved.getFailures().get(name);
+				if (isNotFound(failure)) {
+					cache.putNotFound(name, generation);
+				}
+				failures.put(name, failure);
+			}
+		}
+
+		return new BulkCredentialDetails<T>(credentials, failures);
+	}
+
+	@Override
+	public <T> List<CredentialDetails<T>> getByNameWithHistory(CredentialName name, Class<T> credentialType) {
+		return delegate.getByNameWithHistory(name, credentialType);
+	}
+
+	@Override
+	public List<CredentialSummary> findByName(CredentialName name) {
+		return delegate.findByName(name);
+	}
+
+	@Override
+	public List<CredentialSummary> findByPath(String path) {
+		return delegate.findByPath(path);
+	}
+
+	@Override
+	public void deleteByName(CredentialName name) {
+		Assert.notNull(name, "credential name must not be null");
+
+		try {
+			delegate.deleteByName(name);
+		}
+		finally {
+			cache.invalidate(name.getName());
+		}
+	}
+
+	@Override
+	public List<CredentialPermission> getPermissions(CredentialName name) {
+		return delegate.getPermissions(name);
+	}
+
+	@Override
+	public List<CredentialPermission> addPermissions(CredentialName name, CredentialPermission... permissions) {
+		return delegate.addPermissions(name, permissions);
+	}
+
+	@Override
+	public void deletePermission(CredentialName name, Actor actor) {
+		delegate.deletePermission(name, actor);
+	}
+
+	@Override
+	public ServicesData interpolateServiceData(ServicesData serviceData) {
+		return delegate.interpolateServiceData(serviceData);
+	}
+
+	@Override
+	public <T> T doWithRest(RestOperationsCallback<T> callback) {
+		return delegate.doWithRest(callback);
+	}
+
+	/**
+	 * Remove all cached values for the credential with the provided name.
+	 *
+	 * @param name the name of the credential; must not be {@literal null}
+	 */
+	public void invalidate(CredentialName name) {
+		Assert.notNull(name, "credential name must not be null");
+		cache.invalidate(name.getName());
+	}
+
+	/**
+	 * Remove all cached credentials.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Set the {@link Executor} used to refresh expired credentials in the background
+	 * when a stale time to live is configured. Defaults to an executor that creates a
+	 * daemon thread for each refresh.
+	 *
+	 * @param refreshExecutor the {@link Executor}; must not be {@literal null}
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		Assert.notNull(refreshExecutor, "refreshExecutor must not be null");
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	private <T> void refreshByNames(final Map<CredentialName, CachedCredential> stale,
+			final Class<T> credentialType) {
+		refresh(stale.values(), new Runnable() {
+			@Override
+			public void run() {
+				BulkCredentialDetails<T> refreshed = delegate.getByNames(stale.keySet(), credentialType);
+				for (Map.Entry<CredentialName, CachedCredential> entry : stale.entrySet()) {
+					CredentialDetails<T> details = refreshed.getCredentials().get(entry.getKey());
+					if (details == null) {
+						cache.refreshFailed(entry.getValue());
+					}
+					else {
+						cache.refreshByName(entry.getKey(), entry.getValue(), details);
+					}
+				}
+			}
+		});
+	}
+
+	private void refresh(CachedCredential cached, Runnable refresh) {
+		refresh(Collections.singletonList(cached), refresh);
+	}
+
+	/**
+	 * Run a refresh of stale cached credentials on the refresh executor. If the refresh
+	 * fails or cannot be scheduled, the credentials can be refreshed again by a later
+	 * lookup.
+	 */
+	private void refresh(final Collection<CachedCredential> cached, final Runnable refresh) {
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					refresh.run();
+				}
+				catch (RuntimeException e) {
+					refreshFailed(cached);
+				}
+			}
+		};
+
+		try {
+			refreshExecutor.execute(task);
+		}
+		catch (RuntimeException e) {
+			refreshFailed(cached);
+		}
+	}
+
+	private void refreshFailed(Collection<CachedCredential> cached) {
+		for (CachedCredential credential : cached) {
+			cache.refreshFailed(credential);
+		}
+	}
+
+	private static boolean isNotFound(Exception e) {
+		return e instanceof CredHubException
+				&& HttpStatus.NOT_FOUND.equals(((CredHubException) e).getStatusCode());
+	}
+
+	private static Executor createRefreshExecutor() {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("credhub-refresh-");
+		executor.setDaemon(true);
+		return executor;
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.credhub.support.CircuitBreakerOptions;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Guards calls to CredHub, failing them immediately with a
+ * {@link CredHubCircuitOpenException} while recent calls have been failing or slow.
+ * The outcome of each call is recorded in a count-based sliding window. A hedged
+ * attempt that fails because it was aborted is not recorded at all, and gives back
+ * the half-open permit it took.
+ *
+ * @author Scott Frederick
+ * @see CircuitBreakerOptions
+ */
+class CircuitBreaker {
+	private static final long NOT_PERMITTED = -1;
+
+	private static final long CLOSED_PERMIT = 0;
+
+	private final CircuitBreakerOptions options;
+
+	private final CircuitBreakerListener listener;
+
+	private final long slowCallDurationNanos;
+
+	private final boolean[] failures;
+
+	private final boolean[] slowCalls;
+
+	private int next;
+
+	private int calls;
+
+	private int failureCount;
+
+	private int slowCallCount;
+
+	private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+
+	private long openedAt;
+
+	private int halfOpenPermits;
+
+	private int halfOpenSuccesses;
+
+	private long halfOpenPeriod;
+
+	/**
+	 * Create a new {@link CircuitBreaker}.
+	 *
+	 * @param options the circuit breaker options
+	 * @param listener the listener to notify of state changes
+	 */
+	CircuitBreaker(CircuitBreakerOptions options, CircuitBreakerListener listener) {
+		this.options = options;
+		this.listener = listener;
+		this.slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(options.getSlowCallDurationThreshold());
+		this.failures = new boolean[options.getSlidingWindowSize()];
+		this.slowCalls = new boolean[options.getSlidingWindowSize()];
+	}
+
+	/**
+	 * Run the callback if the circuit breaker allows it, and record its outcome.
+	 *
+	 * @param callback the callback to run
+	 * @param restOperations the {@link RestOperations} passed to the callback
+	 * @param <T> the return type of the callback
+	 * @return the return value of the callback
+	 * @throws CredHubCircuitOpenException if the circuit breaker is open
+	 */
+	<T> T execute(RestOperationsCallback<T> callback, RestOperations restOperations) {
+		long permit = acquirePermission();
+		if (permit == NOT_PERMITTED) {
+			throw new CredHubCircuitOpenException();
+		}
+
+		long startTime = System.nanoTime();
+		boolean succeeded = false;
+		boolean failed = true;
+		try {
+			T result = callback.doWithRestOperations(restOperations);
+			succeeded = true;
+			failed = false;
+			return result;
+		}
+		catch (RuntimeException e) {
+			failed = isFailure(e);
+			throw e;
+		}
+		finally {
+			if (!succeeded && HedgedAttempt.isCurrentAborted()) {
+				releasePermission(permit);
+			}
+			else {
+				onResult(System.nanoTime() - startTime, failed);
+			}
+		}
+	}
+
+	/**
+	 * Get the current state of the circuit breaker.
+	 *
+	 * @return the circuit breaker state
+	 */
+	CircuitBreakerState getState() {
+		CircuitBreakerState previous;
+		CircuitBreakerState current;
+		synchronized (this) {
+			previous = state;
+			if (state == CircuitBreakerState.OPEN && isWaitElapsed()) {
+				transitionTo(CircuitBreakerState.HALF_OPEN);
+			}
+			current = state;
+		}
+		notifyListener(previous, current);
+		return current;
+	}
+
+	/**
+	 * Acquire permission to make a call.
+	 *
+	 * @return {@link #NOT_PERMITTED} if the call is not permitted,
+	 * {@link #CLOSED_PERMIT} if the circuit breaker is closed, or the current half-open
+	 * period if a half-open permit was taken
+	 */
+	private long acquirePermission() {
+		CircuitBreakerState previous;
+		CircuitBreakerState current;
+		long permit;
+		synchronized (this) {
+			previous = state;
+			if (state == CircuitBreakerState.OPEN && isWaitElapsed()) {
+				transitionTo(CircuitBreakerState.HALF_OPEN);
+			}
+
+			if (state == CircuitBreakerState.CLOSED) {
+				permit = CLOSED_PERMIT;
+			}
+			else if (state == CircuitBreakerState.HALF_OPEN && halfOpenPermits > 0) {
+				halfOpenPermits--;
+				permit = halfOpenPeriod;
+			}
+			else {
+				permit = NOT_PERMITTED;
+			}
+			current = state;
+		}
+		notifyListener(previous, current);
+		return permit;
+	}
+
+	/**
+	 * Give back a half-open permit taken by a call whose outcome is not recorded, as
+	 * long as the circuit breaker is still in the half-open period the permit was
+	 * taken in.
+	 */
+	private synchronized void releasePermission(long permit) {
+		if (permit != CLOSED_PERMIT && state == CircuitBreakerState.HALF_OPEN && permit == halfOpenPeriod) {
+			halfOpenPermits++;
+		}
+	}
+
+	private void onResult(long durationNanos, boolean failed) {
+		boolean slow = durationNanos > slowCallDurationNanos;
+
+		CircuitBreakerState previous;
+		CircuitBreakerState current;
+		synchronized (this) {
+			previous = state;
+			if (state == CircuitBreakerState.CLOSED) {
+				record(failed, slow);
+				if (calls >= options.getMinimumNumberOfCalls()
+						&& (isAboveThreshold(failureCount, options.getFailureRateThreshold())
+						|| isAboveThreshold(slowCallCount, options.getSlowCallRateThreshold()))) {
+					transitionTo(CircuitBreakerState.OPEN);
+				}
+			}
+			else if (state == CircuitBreakerState.HALF_OPEN) {
+				if (failed || slow) {
+					transitionTo(CircuitBreakerState.OPEN);
+				}
+				else if (++halfOpenSuccesses >= options.getPermittedCallsInHalfOpenState()) {
+					transitionTo(CircuitBreakerState.CLOSED);
+				}
+			}
+			current = state;
+		}
+		notifyListener(previous, current);
+	}
+
+	private void record(boolean failed, boolean slow) {
+		if (calls == failures.length) {
+			failureCount -= failures[next] ? 1 : 0;
+			slowCallCount -= slowCalls[next] ? 1 : 0;
+		}
+		else {
+			calls++;
+		}
+
+		failures[next] = failed;
+		slowCalls[next] = slow;
+		failureCount += failed ? 1 : 0;
+		slowCallCount += slow ? 1 : 0;
+		next = (next + 1) % failures.length;
+	}
+
+	private boolean isAboveThreshold(int count, float threshold) {
+		return count * 100f / calls >= threshold;
+	}
+
+	private boolean isWaitElapsed() {
+		return System.nanoTime() - openedAt
+				>= TimeUnit.MILLISECONDS.toNanos(options.getWaitDurationInOpenState());
+	}
+
+	private void transitionTo(CircuitBreakerState newState) {
+		state = newState;
+		if (newState == CircuitBreakerState.OPEN) {
+			openedAt = System.nanoTime();
+		}
+		else if (newState == CircuitBreakerState.HALF_OPEN) {
+			halfOpenPermits = options.getPermittedCallsInHalfOpenState();
+			halfOpenSuccesses = 0;
+			halfOpenPeriod++;
+		}
+		else {
+			next = 0;
+			calls = 0;
+			failureCount = 0;
+			slowCallCount = 0;
+		}
+	}
+
+	private void notifyListener(CircuitBreakerState previous, CircuitBreakerState current) {
+		if (previous != current) {
+			listener.stateChanged(previous, current);
+		}
+	}
+
+	private static boolean isFailure(RuntimeException e) {
+		return e instanceof HttpServerErrorException || e instanceof ResourceAccessException;
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+/**
+ * Receives notifications when the circuit breaker that guards calls to CredHub changes
+ * state. Listeners are called on the thread whose call caused the transition, so should
+ * return quickly.
+ *
+ * @author Scott Frederick
+ * @see CredHubTemplate#addCircuitBreakerListener(CircuitBreakerListener)
+ */
+public interface CircuitBreakerListener {
+	/**
+	 * Notification that the circuit breaker changed state.
+	 *
+	 * @param fromState the previous state
+	 * @param toState the new state
+	 */
+	void stateChanged(CircuitBreakerState fromState, CircuitBreakerState toState);
+}
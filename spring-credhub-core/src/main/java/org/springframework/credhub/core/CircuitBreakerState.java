@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+/**
+ * The states of the circuit breaker that guards calls to CredHub.
+ *
+ * @author Scott Frederick
+ * @see org.springframework.credhub.support.CircuitBreakerOptions
+ */
+public enum CircuitBreakerState {
+	/**
+	 * Calls to CredHub are allowed, and their outcomes are recorded.
+	 */
+	CLOSED,
+
+	/**
+	 * Calls to CredHub fail immediately with a {@link CredHubCircuitOpenException}.
+	 */
+	OPEN,
+
+	/**
+	 * A limited number of trial calls to CredHub are allowed to determine whether
+	 * CredHub has recovered.
+	 */
+	HALF_OPEN
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialName;
+import org.springframework.credhub.support.CredentialRequest;
+import org.springframework.credhub.support.CredentialSummary;
+import org.springframework.credhub.support.ParametersRequest;
+import org.springframework.credhub.support.ServicesData;
+import org.springframework.credhub.support.permissions.Actor;
+import org.springframework.credhub.support.permissions.CredentialPermission;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link CredHubOperations} decorator that de-duplicates concurrent identical read
+ * requests. When a request for a credential is already in flight, other threads asking
+ * for the same credential wait for that request and receive its result, instead of
+ * sending their own request to CredHub.
+ *
+ * Requests are coalesced for {@link #getByName(CredentialName, Class)},
+ * {@link #getById(String, Class)}, {@link #findByName(CredentialName)},
+ * {@link #findByPath(String)}, and {@link #getPermissions(CredentialName)}. Only requests
+ * that overlap in time are coalesced; no results are retained once a request completes.
+ *
+ * Callers that join a request receive their own copy of a list result, so they can not
+ * affect each other's results.
+ *
+ * Writing, generating, or deleting a credential detaches the requests in flight that
+ * could return the credential's previous state, so that reads started after the write
+ * returns send a new request to CredHub.
+ *
+ * All other operations are passed through to the delegate {@link CredHubOperations}.
+ *
+ * @author Scott Frederick
+ */
+public class CoalescingCredHubOperations implements CredHubOperations {
+	private final CredHubOperations delegate;
+
+	private final ConcurrentMap<List<Object>, FutureTask<?>> inFlight =
+			new ConcurrentHashMap<List<Object>, FutureTask<?>>();
+
+	/**
+	 * Create a new {@link CoalescingCredHubOperations}.
+	 *
+	 * @param delegate the {@link CredHubOperations} to delegate to; must not be
+	 * {@literal null}
+	 */
+	public CoalescingCredHubOperations(CredHubOperations delegate) {
+		Assert.notNull(delegate, "delegate must not be null");
+
+		this.delegate = delegate;
+	}
+
+	@Override
+	public <T> CredentialDetails<T> write(CredentialRequest<T> credentialRequest) {
+		Assert.notNull(credentialRequest, "credentialRequest must not be null");
+
+		try {
+			return delegate.write(credentialRequest);
+		}
+		finally {
+			detach(credentialRequest.getName());
+		}
+	}
+
+	@Override
+	public <T, P> CredentialDetails<T> generate(ParametersRequest<P> parametersRequest) {
+		Assert.notNull(parametersRequest, "parametersRequest must not be null");
+
+		try {
+			return delegate.generate(parametersRequest);
+		}
+		finally {
+			detach(parametersRequest.getName());
+		}
+	}
+
+	@Override
+	public <T> CredentialDetails<T> getById(final String id, final Class<T> credentialType) {
+		Assert.notNull(id, "credential id must not be null");
+
+		return coalesce(key("getById", id, credentialType), new Callable<CredentialDetails<T>>() {
+			@Override
+			public CredentialDetails<T> call() {
+				return delegate.getById(id, credentialType);
+			}
+		});
+	}
+
+	@Override
+	public <T> CredentialDetails<T> getByName(final CredentialName name, final Class<T> credentialType) {
+		Assert.notNull(name, "credential name must not be null");
+
+		return coalesce(key("getByName", name, credentialType), new Callable<CredentialDetails<T>>() {
+			@Override
+			public CredentialDetails<T> call() {
+				return delegate.getByName(name, credentialType);
+			}
+		});
+	}
+
+	@Override
+	public <T> BulkCredentialDetails<T> getByNames(Collection<? extends CredentialName> names,
+			Class<T> credentialType) {
+		return delegate.getByNames(names, credentialType);
+	}
+
+	@Override
+	public <T> List<CredentialDetails<T>> getByNameWithHistory(CredentialName name, Class<T> credentialType) {
+		return delegate.getByNameWithHistory(name, credentialType);
+	}
+
+	@Override
+	public List<CredentialSummary> findByName(final CredentialName name) {
+		Assert.notNull(name, "credential name must not be null");
+
+		return coalesce(key("findByName", name), new Callable<List<CredentialSummary>>() {
+			@Override
+			public List<CredentialSummary> call() {
+				return delegate.findByName(name);
+			}
+		});
+	}
+
+	@Override
+	public List<CredentialSummary> findByPath(final String path) {
+		Assert.notNull(path, "credential path must not be null");
+
+		return coalesce(key("findByPath", path), new Callable<List<CredentialSummary>>() {
+			@Override
+			public List<CredentialSummary> call() {
+				return delegate.findByPath(path);
+			}
+		});
+	}
+
+	@Override
+	public void deleteByName(CredentialName name) {
+		Assert.notNull(name, "credential name must not be null");
+
+		try {
+			delegate.deleteByName(name);
+		}
+		finally {
+			detach(name.getName());
+		}
+	}
+
+	@Override
+	public List<CredentialPermission> getPermissions(final CredentialName name) {
+		Assert.notNull(name, "credential name must not be null");
+
+		return coalesce(key("getPermissions", name), new Callable<List<CredentialPermission>>() {
+			@Override
+			public List<CredentialPermission> call() {
+				return delegate.getPermissions(name);
+			}
+		});
+	}
+
+	@Override
+	public List<CredentialPermission> addPermissions(CredentialName name, CredentialPermission... permissions) {
+		return delegate.addPermissions(name, permissions);
+	}
+
+	@Override
+	public void deletePermission(CredentialName name, Actor actor) {
+		delegate.deletePermission(name, actor);
+	}
+
+	@Override
+	public ServicesData interpolateServiceData(ServicesData serviceData) {
+		return delegate.interpolateServiceData(serviceData);
+	}
+
+	@Override
+	public <T> T doWithRest(RestOperationsCallback<T> callback) {
+		return delegate.doWithRest(callback);
+	}
+
+	private static List<Object> key(Object... parts) {
+		return Arrays.asList(parts);
+	}
+
+	/**
+	 * Stop new requests from joining the requests in flight that could return the
+	 * previous state of a credential: reads of the credential by name, and reads by ID
+	 * and searches, which can not be matched to a single name.
+	 *
+	 * @param name the full name of the credential that was changed
+	 */
+	private void detach(String name) {
+		for (List<Object> key : inFlight.keySet()) {
+			String operation = (String) key.get(0);
+			Object target = key.get(1);
+			if ("getById".equals(operation) || operation.startsWith("find")
+					|| (target instanceof CredentialName && name != null && name.equals(((CredentialName) target).getName()))) {
+				inFlight.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Run the request on the calling thread, unless an identical request is already in
+	 * flight, in which case wait for that request to complete and return its result.
+	 *
+	 * @param key the key identifying the request
+	 * @param request the request to run
+	 * @param <T> the type of the result
+	 * @return the result of the request
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T coalesce(List<Object> key, Callable<T> request) {
+		FutureTask<T> task = new FutureTask<T>(request);
+
+		FutureTask<T> existing = (FutureTask<T>) inFlight.putIfAbsent(key, task);
+		if (existing != null) {
+			return copy(getResult(existing));
+		}
+
+		try {
+			task.run();
+		}
+		finally {
+			inFlight.remove(key, task);
+		}
+
+		return getResult(task);
+	}
+
+	/**
+	 * Copy a list result for a caller that joined a request, so that changes made by one
+	 * caller are not seen by the others.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T copy(T result) {
+		if (result instanceof List) {
+			return (T) new ArrayList<Object>((List<?>) result);
+		}
+		return result;
+	}
+
+	private static <T> T getResult(FutureTask<T> task) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+				catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new UndeclaredThrowableException(cause);
+				}
+			}
+		}
+		finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown without calling CredHub when the circuit breaker is open because
+ * recent requests to CredHub have failed or been slow. The status code is
+ * {@link HttpStatus#SERVICE_UNAVAILABLE}.
+ *
+ * @author Scott Frederick
+ * @see CircuitBreakerState
+ */
+public class CredHubCircuitOpenException extends CredHubException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Create a new exception.
+	 */
+	public CredHubCircuitOpenException() {
+		super("Error calling CredHub: circuit breaker is open", HttpStatus.SERVICE_UNAVAILABLE);
+	}
+}
@@ -26,6 +26,9 @@ import org.springframework.credhub.support.utils.JsonUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
@@ -34,7 +37,8 @@ import org.springframework.http.client.support.HttpRequestWrapper;
 import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriTemplateHandler;
 import org.springframework.web.util.UriTemplateHandler;
@@ -42,8 +46,8 @@ import org.springframework.web.util.UriTemplateHandler;
 import static java.util.Collections.singletonList;
 
 /**
- * Factory for creating a {@link RestTemplate} configured for communication with
- * a CredHub server.
+ * Factory for creating a {@link RestTemplate} or {@link AsyncRestTemplate} configured
+ * for communication with a CredHub server.
  *
  * @author Scott Frederick
  */
@@ -66,6 +70,25 @@ public class CredHubClient {
 		return restTemplate;
 	}
 
+	/**
+	 * Create an {@link AsyncRestTemplate} configured for communication with a CredHub
+	 * server.
+	 *
+	 * @param baseUri the base URI for the CredHub server
+	 * @param asyncClientHttpRequestFactory the {@link AsyncClientHttpRequestFactory} to
+	 * use when creating new connections
+	 * @return a configured {@link AsyncRestTemplate}
+	 */
+	public static AsyncRestTemplate createAsyncRestTemplate(String baseUri,
+			AsyncClientHttpRequestFactory asyncClientHttpRequestFactory) {
+		AsyncRestTemplate asyncRestTemplate =
+				new AsyncRestTemplate(asyncClientHttpRequestFactory, new RestTemplate());
+		asyncRestTemplate.setUriTemplateHandler(createUriTemplateHandler(baseUri));
+		asyncRestTemplate.setMessageConverters(createMessageConverters());
+		asyncRestTemplate.setInterceptors(createAsyncInterceptors());
+		return asyncRestTemplate;
+	}
+
 	/**
 	 * Create a {@link UriTemplateHandler} that prefixes all {@link RestTemplate} calls
 	 * with the configured {@literal baseUri}.
@@ -89,7 +112,7 @@ public class CredHubClient {
 		List<HttpMessageConverter<?>> messageConverters = new ArrayList<HttpMessageConverter<?>>(3);
 		messageConverters.add(new ByteArrayHttpMessageConverter());
 		messageConverters.add(new StringHttpMessageConverter());
-		messageConverters.add(new MappingJackson2HttpMessageConverter(JsonUtils.buildObjectMapper()));
+		messageConverters.add(new CredHubMessageConverter(JsonUtils.buildObjectMapper()));
 
 		return messageConverters;
 	}
@@ -105,20 +128,43 @@ public class CredHubClient {
 		return interceptors;
 	}
 
+	/**
+	 * Create the {@link AsyncClientHttpRequestInterceptor} necessary to configure
+	 * asynchronous requests and responses.
+	 *
+	 * @return the list of {@link AsyncClientHttpRequestInterceptor}s
+	 */
+	private static List<AsyncClientHttpRequestInterceptor> createAsyncInterceptors() {
+		List<AsyncClientHttpRequestInterceptor> interceptors = new ArrayList<AsyncClientHttpRequestInterceptor>(1);
+		interceptors.add(new CredHubRequestInterceptor());
+		return interceptors;
+	}
+
 	/**
 	 * A request interceptor that sets headers common to all CredHub requests.
 	 */
-	private static class CredHubRequestInterceptor implements ClientHttpRequestInterceptor {
+	private static class CredHubRequestInterceptor
+			implements ClientHttpRequestInterceptor, AsyncClientHttpRequestInterceptor {
 		@Override
 		public ClientHttpResponse intercept(HttpRequest request, byte[] body,
 											ClientHttpRequestExecution execution) throws IOException {
+			return execution.execute(wrapRequest(request), body);
+		}
+
+		@Override
+		public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request, byte[] body,
+											AsyncClientHttpRequestExecution execution) throws IOException {
+			return execution.executeAsync(wrapRequest(request), body);
+		}
+
+		private HttpRequest wrapRequest(HttpRequest request) {
 			HttpRequestWrapper requestWrapper = new HttpRequestWrapper(request);
 
 			HttpHeaders headers = requestWrapper.getHeaders();
 			headers.setAccept(singletonList(MediaType.APPLICATION_JSON));
 			headers.setContentType(MediaType.APPLICATION_JSON);
 
-			return execution.execute(requestWrapper, body);
+			return requestWrapper;
 		}
 	}
 }
@@ -26,6 +26,8 @@ import org.springframework.web.client.HttpStatusCodeException;
  * @author Scott Frederick
  */
 public class CredHubException extends NestedRuntimeException {
+	private final HttpStatus statusCode;
+
 	/**
 	 * Create a new exception with the provided root cause.
 	 *
@@ -35,6 +37,7 @@ public class CredHubException extends NestedRuntimeException {
 	public CredHubException(HttpStatusCodeException e) {
 		super("Error calling CredHub: " + e.getStatusCode() + ": "
 				+ e.getResponseBodyAsString());
+		this.statusCode = e.getStatusCode();
 	}
 
 	/**
@@ -45,5 +48,26 @@ public class CredHubException extends NestedRuntimeException {
 	 */
 	public CredHubException(HttpStatus statusCode) {
 		super("Error calling CredHub: " + statusCode);
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * Create a new exception with the provided message and status code.
+	 *
+	 * @param message the detail message
+	 * @param statusCode an {@link HttpStatus} describing the error
+	 */
+	protected CredHubException(String message, HttpStatus statusCode) {
+		super(message);
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * Get the HTTP status code returned by CredHub.
+	 *
+	 * @return the {@link HttpStatus}
+	 */
+	public HttpStatus getStatusCode() {
+		return statusCode;
 	}
 }
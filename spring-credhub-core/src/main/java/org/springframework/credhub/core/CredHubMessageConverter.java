@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.springframework.credhub.support.CredentialPermissions;
+import org.springframework.credhub.support.CredentialSummaryData;
+import org.springframework.credhub.support.ServicesData;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+/**
+ * A {@link MappingJackson2HttpMessageConverter} that keeps a prebuilt
+ * {@link ObjectReader} for each type read from CredHub and a prebuilt
+ * {@link ObjectWriter} for each type written to CredHub, so that Jackson type
+ * resolution and serializer lookup are done once per type instead of on every request.
+ *
+ * Readers for the response types used by {@link CredHubTemplate} are built when the
+ * converter is created. Other types are added the first time they are used.
+ *
+ * Only plain objects are written with a prebuilt {@link ObjectWriter}. A
+ * {@link MappingJacksonValue}, a value with a generic declared type, or any value
+ * written when a JSON prefix is configured is written by the parent converter, so that
+ * serialization views, filters, and prefixes are applied.
+ *
+ * @author Scott Frederick
+ */
+class CredHubMessageConverter extends MappingJackson2HttpMessageConverter {
+	private final ConcurrentMap<Type, JavaType> javaTypes = new ConcurrentHashMap<Type, JavaType>();
+	private final ConcurrentMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<JavaType, ObjectReader>();
+	private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+	private final ConcurrentMap<Type, Boolean> readable = new ConcurrentHashMap<Type, Boolean>();
+	private final ConcurrentMap<Class<?>, Boolean> writable = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	private boolean prefixed;
+
+	/**
+	 * Create a new {@link CredHubMessageConverter} using the provided {@link ObjectMapper}.
+	 *
+	 * @param objectMapper the {@link ObjectMapper} to use
+	 */
+	CredHubMessageConverter(ObjectMapper objectMapper) {
+		super(objectMapper);
+
+		getReader(CredHubTemplate.CREDENTIAL_DETAILS_TYPE.getType());
+		getReader(CredHubTemplate.CREDENTIAL_DETAILS_DATA_TYPE.getType());
+		getReader(CredentialSummaryData.class);
+		getReader(CredentialPermissions.class);
+		getReader(ServicesData.class);
+	}
+
+	@Override
+	public void setJsonPrefix(String jsonPrefix) {
+		super.setJsonPrefix(jsonPrefix);
+		this.prefixed = jsonPrefix != null;
+	}
+
+	@Override
+	public void setPrefixJson(boolean prefixJson) {
+		super.setPrefixJson(prefixJson);
+		this.prefixed = prefixJson;
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		if (!canRead(mediaType)) {
+			return false;
+		}
+		if (contextClass != null) {
+			return super.canRead(type, contextClass, mediaType);
+		}
+
+		Boolean result = readable.get(type);
+		if (result == null) {
+			result = super.canRead(type, null, mediaType);
+			readable.putIfAbsent(type, result);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+		if (!canWrite(mediaType)) {
+			return false;
+		}
+
+		Boolean result = writable.get(clazz);
+		if (result == null) {
+			result = super.canWrite(clazz, mediaType);
+			writable.putIfAbsent(clazz, result);
+		}
+		return result;
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+			throws IOException, HttpMessageNotReadableException {
+		if (contextClass != null) {
+			return super.read(type, contextClass, inputMessage);
+		}
+		return readValue(getReader(type), inputMessage);
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+			throws IOException, HttpMessageNotReadableException {
+		return readValue(getReader(clazz), inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		if (!isPlainValue(object, type)) {
+			super.writeInternal(object, type, outputMessage);
+			return;
+		}
+
+		JsonEncoding encoding = getJsonEncoding(outputMessage.getHeaders().getContentType());
+		JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputMessage.getBody(), encoding);
+
+		try {
+			getWriter(object.getClass()).writeValue(generator, object);
+			generator.flush();
+		}
+		catch (JsonProcessingException ex) {
+			throw new HttpMessageNotWritableException("Could not write JSON: " + ex.getOriginalMessage(), ex);
+		}
+	}
+
+	private boolean isPlainValue(Object object, Type type) {
+		return !prefixed && !(object instanceof MappingJacksonValue) && (type == null || type instanceof Class);
+	}
+
+	private Object readValue(ObjectReader reader, HttpInputMessage inputMessage) throws IOException {
+		try {
+			return reader.readValue(inputMessage.getBody());
+		}
+		catch (JsonProcessingException ex) {
+			throw new HttpMessageNotReadableException("JSON parse error: " + ex.getOriginalMessage(), ex);
+		}
+	}
+
+	private ObjectReader getReader(Type type) {
+		JavaType javaType = javaTypes.get(type);
+		if (javaType == null) {
+			javaType = getJavaType(type, null);
+			javaTypes.putIfAbsent(type, javaType);
+		}
+
+		ObjectReader reader = readers.get(javaType);
+		if (reader == null) {
+			reader = this.objectMapper.readerFor(javaType);
+			readers.putIfAbsent(javaType, reader);
+		}
+		return reader;
+	}
+
+	private ObjectWriter getWriter(Class<?> clazz) {
+		ObjectWriter writer = writers.get(clazz);
+		if (writer == null) {
+			writer = this.objectMapper.writerFor(clazz);
+			writers.putIfAbsent(clazz, writer);
+		}
+		return writer;
+	}
+}
@@ -16,10 +16,12 @@
 
 package org.springframework.credhub.core;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.credhub.support.permissions.Actor;
 import org.springframework.credhub.support.permissions.CredentialPermission;
+import org.springframework.credhub.support.BulkCredentialDetails;
 import org.springframework.credhub.support.CredentialDetails;
 import org.springframework.credhub.support.CredentialName;
 import org.springframework.credhub.support.CredentialSummary;
@@ -78,6 +80,22 @@ public interface CredHubOperations {
 	 */
 	<T> CredentialDetails<T> getByName(final CredentialName name, Class<T> credentialType);
 
+	/**
+	 * Retrieve many credentials using their names, as passed to write requests.
+	 * Only the current value of each credential will be returned.
+	 *
+	 * The credentials are retrieved using a bounded number of concurrent requests to
+	 * CredHub, within a single overall timeout. A credential that can not be retrieved
+	 * is reported in {@link BulkCredentialDetails#getFailures()} and does not prevent
+	 * the other credentials from being returned.
+	 *
+	 * @param names the names of the credentials; must not be {@literal null}
+	 * @param credentialType the type of credential expected to be returned
+	 * @param <T> the credential implementation type
+	 * @return the details of the retrieved credentials and any failures
+	 */
+	<T> BulkCredentialDetails<T> getByNames(Collection<? extends CredentialName> names, Class<T> credentialType);
+
 	/**
 	 * Retrieve a credential using its name, as passed to a write request.
 	 * A collection of all stored values for the named credential will be returned,
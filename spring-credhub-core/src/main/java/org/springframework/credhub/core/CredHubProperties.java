@@ -18,7 +18,11 @@
 
 package org.springframework.credhub.core;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.StringUtils;
 
 /**
  * Properties containing information about a CredHub server.
@@ -42,7 +46,8 @@ public class CredHubProperties {
 	 * Create a new instance with the provided properties. Intended to be used
 	 * internally for testing.
 	 *
-	 * @param apiUriBase the base URI for the CredHub server
+	 * @param apiUriBase the base URI for the CredHub server, or a comma-separated list
+	 * of base URIs for several CredHub servers
 	 */
 	CredHubProperties(String apiUriBase) {
 		this.apiUriBase = apiUriBase;
@@ -50,11 +55,29 @@ public class CredHubProperties {
 
 	/**
 	 * Get the base URI for the CredHub server (scheme, host, and port). This value
-	 * will be prepended to all requests to CredHub.
+	 * will be prepended to all requests to CredHub. When several CredHub servers are
+	 * configured, this is the base URI of the first server.
 	 *
 	 * @return the base URI
 	 */
 	public String getApiUriBase() {
-		return apiUriBase;
+		List<String> apiUriBases = getApiUriBases();
+		return apiUriBases.isEmpty() ? apiUriBase : apiUriBases.get(0);
+	}
+
+	/**
+	 * Get the base URIs of all configured CredHub servers. Several servers can be
+	 * configured as a comma-separated list of base URIs.
+	 *
+	 * @return the base URIs; empty if no CredHub server is configured
+	 */
+	public List<String> getApiUriBases() {
+		List<String> apiUriBases = new ArrayList<String>();
+		for (String uri : StringUtils.commaDelimitedListToStringArray(apiUriBase)) {
+			if (StringUtils.hasText(uri)) {
+				apiUriBases.add(uri.trim());
+			}
+		}
+		return apiUriBases;
 	}
 }
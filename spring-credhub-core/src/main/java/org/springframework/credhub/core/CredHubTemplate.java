@@ -16,9 +16,22 @@
 
 package org.springframework.credhub.core;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.credhub.metrics.CredHubMetricsInterceptor;
+import org.springframework.credhub.metrics.CredHubMetricsRecorder;
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.BulkRequestOptions;
+import org.springframework.credhub.support.CircuitBreakerOptions;
 import org.springframework.credhub.support.CredentialDetails;
 import org.springframework.credhub.support.CredentialDetailsData;
 import org.springframework.credhub.support.CredentialName;
@@ -26,7 +39,9 @@ import org.springframework.credhub.support.CredentialPermissions;
 import org.springframework.credhub.support.CredentialRequest;
 import org.springframework.credhub.support.CredentialSummary;
 import org.springframework.credhub.support.CredentialSummaryData;
+import org.springframework.credhub.support.HedgingOptions;
 import org.springframework.credhub.support.ParametersRequest;
+import org.springframework.credhub.support.RetryOptions;
 import org.springframework.credhub.support.ServicesData;
 import org.springframework.credhub.support.permissions.Actor;
 import org.springframework.credhub.support.permissions.CredentialPermission;
@@ -34,7 +49,9 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.util.Assert;
+import org.springframework.util.CustomizableThreadCreator;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
@@ -63,8 +80,40 @@ public class CredHubTemplate implements CredHubOperations {
 
 	static final String INTERPOLATE_URL_PATH = "/api/v1/interpolate";
 
+	/**
+	 * The maximum number of hedged read attempts that run at once on the default
+	 * hedging executor.
+	 */
+	public static final int HEDGING_EXECUTOR_MAX_THREADS = 32;
+
+	static final ParameterizedTypeReference<CredentialDetails<Object>> CREDENTIAL_DETAILS_TYPE =
+			new ParameterizedTypeReference<CredentialDetails<Object>>() {};
+	static final ParameterizedTypeReference<CredentialDetailsData<Object>> CREDENTIAL_DETAILS_DATA_TYPE =
+			new ParameterizedTypeReference<CredentialDetailsData<Object>>() {};
+
 	private final RestTemplate restTemplate;
 
+	private BulkRequestOptions bulkRequestOptions = BulkRequestOptions.builder().build();
+
+	private Executor bulkRequestExecutor = createBulkRequestExecutor();
+
+	private CredHubMetricsRecorder metricsRecorder;
+
+	private CredHubMetricsInterceptor metricsInterceptor;
+
+	private RetryHandler retryHandler;
+
+	private HedgingOptions hedgingOptions;
+
+	private Executor hedgingExecutor;
+
+	private HedgingHandler hedgingHandler;
+
+	private CircuitBreaker circuitBreaker;
+
+	private final List<CircuitBreakerListener> circuitBreakerListeners =
+			new CopyOnWriteArrayList<CircuitBreakerListener>();
+
 	/**
 	 * Create a new {@link CredHubTemplate} using the provided {@link RestTemplate}.
 	 * Intended for internal testing only.
@@ -99,10 +148,9 @@ public class CredHubTemplate implements CredHubOperations {
 	public <T> CredentialDetails<T> write(final CredentialRequest<T> credentialRequest) {
 		Assert.notNull(credentialRequest, "credentialRequest must not be null");
 
-		final ParameterizedTypeReference<CredentialDetails<T>> ref =
-				new ParameterizedTypeReference<CredentialDetails<T>>() {};
+		final ParameterizedTypeReference<CredentialDetails<T>> ref = credentialDetailsType();
 
-		return doWithRest(new RestOperationsCallback<CredentialDetails<T>>() {
+		return doWithRest("write", new RestOperationsCallback<CredentialDetails<T>>() {
 			@Override
 			public CredentialDetails<T> doWithRestOperations(RestOperations restOperations) {
 				ResponseEntity<CredentialDetails<T>> response =
@@ -121,10 +169,9 @@ public class CredHubTemplate implements CredHubOperations {
 	public <T, P> CredentialDetails<T> generate(final ParametersRequest<P> parametersRequest) {
 		Assert.notNull(parametersRequest, "generateRequest must not be null");
 
-		final ParameterizedTypeReference<CredentialDetails<T>> ref =
-				new ParameterizedTypeReference<CredentialDetails<T>>() {};
+		final ParameterizedTypeReference<CredentialDetails<T>> ref = credentialDetailsType();
 
-		return doWithRest(new RestOperationsCallback<CredentialDetails<T>>() {
+		return doWithRest("generate", new RestOperationsCallback<CredentialDetails<T>>() {
 			@Override
 			public CredentialDetails<T> doWithRestOperations(RestOperations restOperations) {
 				ResponseEntity<CredentialDetails<T>> response =
@@ -143,10 +190,9 @@ public class CredHubTemplate implements CredHubOperations {
 		Assert.notNull(id, "credential id must not be null");
 		Assert.notNull(credentialType, "credential type must not be null");
 
-		final ParameterizedTypeReference<CredentialDetails<T>> ref =
-				new ParameterizedTypeReference<CredentialDetails<T>>() {};
+		final ParameterizedTypeReference<CredentialDetails<T>> ref = credentialDetailsType();
 
-		return doWithRest(new RestOperationsCallback<CredentialDetails<T>>() {
+		return doWithReadRest("getById", new RestOperationsCallback<CredentialDetails<T>>() {
 			@Override
 			public CredentialDetails<T> doWithRestOperations(RestOperations restOperations) {
 				ResponseEntity<CredentialDetails<T>> response =
@@ -164,10 +210,9 @@ public class CredHubTemplate implements CredHubOperations {
 		Assert.notNull(name, "credential name must not be null");
 		Assert.notNull(credentialType, "credential type must not be null");
 
-		final ParameterizedTypeReference<CredentialDetails<T>> ref =
-				new ParameterizedTypeReference<CredentialDetails<T>>() {};
+		final ParameterizedTypeReference<CredentialDetails<T>> ref = credentialDetailsType();
 
-		return doWithRest(new RestOperationsCallback<CredentialDetails<T>>() {
+		return doWithReadRest("getByName", new RestOperationsCallback<CredentialDetails<T>>() {
 			@Override
 			public CredentialDetails<T> doWithRestOperations(RestOperations restOperations) {
 				ResponseEntity<CredentialDetails<T>> response =
@@ -180,15 +225,24 @@ public class CredHubTemplate implements CredHubOperations {
 		});
 	}
 
+	@Override
+	public <T> BulkCredentialDetails<T> getByNames(Collection<? extends CredentialName> names,
+			Class<T> credentialType) {
+		Assert.notNull(names, "credential names must not be null");
+		Assert.noNullElements(names.toArray(), "credential names must not contain null elements");
+
+		return new BulkCredentialRetriever(this, bulkRequestExecutor, bulkRequestOptions)
+				.getByNames(names, credentialType);
+	}
+
 	@Override
 	public <T> List<CredentialDetails<T>> getByNameWithHistory(final CredentialName name, Class<T> credentialType) {
 		Assert.notNull(name, "credential name must not be null");
 		Assert.notNull(credentialType, "credential type must not be null");
 
-		final ParameterizedTypeReference<CredentialDetailsData<T>> ref =
-				new ParameterizedTypeReference<CredentialDetailsData<T>>() {};
+		final ParameterizedTypeReference<CredentialDetailsData<T>> ref = credentialDetailsDataType();
 
-		return doWithRest(new RestOperationsCallback<List<CredentialDetails<T>>>() {
+		return doWithReadRest("getByNameWithHistory", new RestOperationsCallback<List<CredentialDetails<T>>>() {
 			@Override
 			public List<CredentialDetails<T>> doWithRestOperations(RestOperations restOperations) {
 				ResponseEntity<CredentialDetailsData<T>> response =
@@ -205,7 +259,7 @@ public class CredHubTemplate implements CredHubOperations {
 	public List<CredentialSummary> findByName(final CredentialName name) {
 		Assert.notNull(name, "credential name must not be null");
 
-		return doWithRest(new RestOperationsCallback<List<CredentialSummary>>() {
+		return doWithReadRest("findByName", new RestOperationsCallback<List<CredentialSummary>>() {
 			@Override
 			public List<CredentialSummary> doWithRestOperations(
 					RestOperations restOperations) {
@@ -224,7 +278,7 @@ public class CredHubTemplate implements CredHubOperations {
 	public List<CredentialSummary> findByPath(final String path) {
 		Assert.notNull(path, "credential path must not be null");
 
-		return doWithRest(new RestOperationsCallback<List<CredentialSummary>>() {
+		return doWithReadRest("findByPath", new RestOperationsCallback<List<CredentialSummary>>() {
 			@Override
 			public List<CredentialSummary> doWithRestOperations(
 					RestOperations restOperations) {
@@ -246,7 +300,7 @@ public class CredHubTemplate implements CredHubOperations {
 		final String name1 = name.getName();
 		Assert.notNull(name1, "credential name must not be null");
 
-		doWithRest(new RestOperationsCallback<Void>() {
+		doWithIdempotentRest("deleteByName", new RestOperationsCallback<Void>() {
 			@Override
 			public Void doWithRestOperations(RestOperations restOperations) {
 				restOperations.delete(NAME_URL_QUERY, name1);
@@ -259,7 +313,7 @@ public class CredHubTemplate implements CredHubOperations {
 	public List<CredentialPermission> getPermissions(final CredentialName name) {
 		Assert.notNull(name, "credential name must not be null");
 
-		return doWithRest(new RestOperationsCallback<List<CredentialPermission>>() {
+		return doWithReadRest("getPermissions", new RestOperationsCallback<List<CredentialPermission>>() {
 			@Override
 			public List<CredentialPermission> doWithRestOperations(RestOperations restOperations) {
 				ResponseEntity<CredentialPermissions> response =
@@ -276,7 +330,7 @@ public class CredHubTemplate implements CredHubOperations {
 
 		final CredentialPermissions credentialPermissions = new CredentialPermissions(name, permissions);
 
-		return doWithRest(new RestOperationsCallback<List<CredentialPermission>>() {
+		return doWithRest("addPermissions", new RestOperationsCallback<List<CredentialPermission>>() {
 			@Override
 			public List<CredentialPermission> doWithRestOperations(RestOperations restOperations) {
 				ResponseEntity<CredentialPermissions> response =
@@ -294,7 +348,7 @@ public class CredHubTemplate implements CredHubOperations {
 		Assert.notNull(name, "credential name must not be null");
 		Assert.notNull(actor, "actor must not be null");
 
-		doWithRest(new RestOperationsCallback<Void>() {
+		doWithIdempotentRest("deletePermission", new RestOperationsCallback<Void>() {
 			@Override
 			public Void doWithRestOperations(RestOperations restOperations) {
 				restOperations.delete(PERMISSIONS_ACTOR_URL_QUERY, name.getName(), actor.getIdentity());
@@ -307,7 +361,7 @@ public class CredHubTemplate implements CredHubOperations {
 	public ServicesData interpolateServiceData(final ServicesData serviceData) {
 		Assert.notNull(serviceData, "serviceData must not be null");
 
-		return doWithRest(new RestOperationsCallback<ServicesData>() {
+		return doWithRest("interpolateServiceData", new RestOperationsCallback<ServicesData>() {
 			@Override
 			public ServicesData doWithRestOperations(RestOperations restOperations) {
 				ResponseEntity<ServicesData> response = restOperations
@@ -323,14 +377,272 @@ public class CredHubTemplate implements CredHubOperations {
 
 	@Override
 	public <T> T doWithRest(RestOperationsCallback<T> callback) {
+		return doWithRest("doWithRest", callback);
+	}
+
+	/**
+	 * Run the callback for an operation that reads from CredHub, hedging slow requests
+	 * if {@link HedgingOptions} have been set, and retrying transient failures if
+	 * {@link RetryOptions} have been set.
+	 */
+	private <T> T doWithReadRest(String operation, RestOperationsCallback<T> callback) {
+		return doWithRetry(operation, withHedging(withCircuitBreaker(callback)));
+	}
+
+	/**
+	 * Run the callback for an operation that can safely be repeated, retrying transient
+	 * failures if {@link RetryOptions} have been set.
+	 */
+	private <T> T doWithIdempotentRest(String operation, RestOperationsCallback<T> callback) {
+		return doWithRetry(operation, withCircuitBreaker(callback));
+	}
+
+	private <T> T doWithRest(String operation, RestOperationsCallback<T> callback) {
+		return execute(operation, withCircuitBreaker(callback));
+	}
+
+	private <T> T doWithRetry(final String operation, final RestOperationsCallback<T> callback) {
+		final RetryHandler retryHandler = this.retryHandler;
+		if (retryHandler == null) {
+			return execute(operation, callback);
+		}
+
+		return execute(operation, new RestOperationsCallback<T>() {
+			@Override
+			public T doWithRestOperations(RestOperations restOperations) {
+				return retryHandler.execute(operation, callback, restOperations, metricsRecorder);
+			}
+		});
+	}
+
+	private <T> RestOperationsCallback<T> withHedging(final RestOperationsCallback<T> callback) {
+		final HedgingHandler hedgingHandler = this.hedgingHandler;
+		if (hedgingHandler == null) {
+			return callback;
+		}
+
+		return new RestOperationsCallback<T>() {
+			@Override
+			public T doWithRestOperations(RestOperations restOperations) {
+				return hedgingHandler.execute(callback, restOperations);
+			}
+		};
+	}
+
+	/**
+	 * Guard each individual attempt of an operation with the circuit breaker, if
+	 * {@link CircuitBreakerOptions} have been set, so that retries and hedged requests
+	 * are also recorded and rejected while the circuit breaker is open.
+	 */
+	private <T> RestOperationsCallback<T> withCircuitBreaker(final RestOperationsCallback<T> callback) {
 		Assert.notNull(callback, "callback must not be null");
 
+		final CircuitBreaker circuitBreaker = this.circuitBreaker;
+		if (circuitBreaker == null) {
+			return callback;
+		}
+
+		return new RestOperationsCallback<T>() {
+			@Override
+			public T doWithRestOperations(RestOperations restOperations) {
+				return circuitBreaker.execute(callback, restOperations);
+			}
+		};
+	}
+
+	private <T> T execute(String operation, RestOperationsCallback<T> callback) {
+		CredHubMetricsRecorder recorder = this.metricsRecorder;
+		long startTime = recorder == null ? 0 : System.nanoTime();
+		boolean successful = false;
+
 		try {
-			return callback.doWithRestOperations(restTemplate);
+			T result = callback.doWithRestOperations(restTemplate);
+			successful = true;
+			return result;
 		}
 		catch (HttpStatusCodeException e) {
 			throw new CredHubException(e);
 		}
+		finally {
+			if (recorder != null) {
+				recorder.operationCompleted(operation, System.nanoTime() - startTime, successful);
+			}
+		}
+	}
+
+	/**
+	 * Set the options that control the concurrency and timeout of
+	 * {@link #getByNames(Collection, Class)}.
+	 *
+	 * @param bulkRequestOptions the bulk request options; must not be {@literal null}
+	 */
+	public void setBulkRequestOptions(BulkRequestOptions bulkRequestOptions) {
+		Assert.notNull(bulkRequestOptions, "bulkRequestOptions must not be null");
+		this.bulkRequestOptions = bulkRequestOptions;
+	}
+
+	/**
+	 * Set the {@link Executor} used to run concurrent requests for
+	 * {@link #getByNames(Collection, Class)}. By default a new daemon thread is started
+	 * for each concurrent request.
+	 *
+	 * @param bulkRequestExecutor the {@link Executor}; must not be {@literal null}
+	 */
+	public void setBulkRequestExecutor(Executor bulkRequestExecutor) {
+		Assert.notNull(bulkRequestExecutor, "bulkRequestExecutor must not be null");
+		this.bulkRequestExecutor = bulkRequestExecutor;
+	}
+
+	/**
+	 * Set the {@link CredHubMetricsRecorder} that receives the duration and outcome of
+	 * each operation and HTTP request. Metrics are not recorded unless a recorder is set.
+	 *
+	 * @param metricsRecorder the {@link CredHubMetricsRecorder}; must not be
+	 * {@literal null}
+	 */
+	public void setMetricsRecorder(CredHubMetricsRecorder metricsRecorder) {
+		Assert.notNull(metricsRecorder, "metricsRecorder must not be null");
+
+		List<ClientHttpRequestInterceptor> interceptors = restTemplate.getInterceptors();
+		if (metricsInterceptor != null) {
+			interceptors.remove(metricsInterceptor);
+		}
+		metricsInterceptor = new CredHubMetricsInterceptor(metricsRecorder);
+		interceptors.add(metricsInterceptor);
+
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	/**
+	 * Set the {@link RetryOptions} used to retry operations that fail with a transient
+	 * error. Only operations that can safely be repeated are retried: retrieving,
+	 * finding, and deleting credentials, and retrieving and deleting permissions.
+	 * Operations are not retried unless retry options are set.
+	 *
+	 * @param retryOptions the retry options; must not be {@literal null}
+	 */
+	public void setRetryOptions(RetryOptions retryOptions) {
+		Assert.notNull(retryOptions, "retryOptions must not be null");
+		this.retryHandler = new RetryHandler(retryOptions);
+	}
+
+	/**
+	 * Set the {@link HedgingOptions} used to send a second request for reads that have
+	 * not received a response within the hedging delay. Reads are retrieving and finding
+	 * credentials and retrieving permissions. Requests are not hedged unless hedging
+	 * options are set.
+	 *
+	 * @param hedgingOptions the hedging options; must not be {@literal null}
+	 */
+	public void setHedgingOptions(HedgingOptions hedgingOptions) {
+		Assert.notNull(hedgingOptions, "hedgingOptions must not be null");
+		if (this.hedgingExecutor == null) {
+			this.hedgingExecutor = createHedgingExecutor();
+		}
+		this.hedgingOptions = hedgingOptions;
+		this.hedgingHandler = new HedgingHandler(hedgingOptions, hedgingExecutor);
+	}
+
+	/**
+	 * Set the {@link Executor} used to run hedged reads. Each hedged read runs its
+	 * requests on this executor while the calling thread waits. By default a pool of at
+	 * most {@literal 32} daemon threads is used, and reads are not hedged while all of
+	 * its threads are busy.
+	 *
+	 * @param hedgingExecutor the {@link Executor}; must not be {@literal null}
+	 */
+	public void setHedgingExecutor(Executor hedgingExecutor) {
+		Assert.notNull(hedgingExecutor, "hedgingExecutor must not be null");
+		this.hedgingExecutor = hedgingExecutor;
+		if (this.hedgingOptions != null) {
+			this.hedgingHandler = new HedgingHandler(hedgingOptions, hedgingExecutor);
+		}
+	}
+
+	/**
+	 * Set the {@link CircuitBreakerOptions} used to fail calls to CredHub immediately
+	 * with a {@link CredHubCircuitOpenException} while recent calls have been failing or
+	 * slow. All operations are guarded. Calls are not guarded unless circuit breaker
+	 * options are set.
+	 *
+	 * @param circuitBreakerOptions the circuit breaker options; must not be
+	 * {@literal null}
+	 */
+	public void setCircuitBreakerOptions(CircuitBreakerOptions circuitBreakerOptions) {
+		Assert.notNull(circuitBreakerOptions, "circuitBreakerOptions must not be null");
+		this.circuitBreaker = new CircuitBreaker(circuitBreakerOptions, new CircuitBreakerEvents());
+	}
+
+	/**
+	 * Add a listener to be notified when the circuit breaker changes state.
+	 *
+	 * @param listener the {@link CircuitBreakerListener}; must not be {@literal null}
+	 */
+	public void addCircuitBreakerListener(CircuitBreakerListener listener) {
+		Assert.notNull(listener, "listener must not be null");
+		circuitBreakerListeners.add(listener);
+	}
+
+	/**
+	 * Get the current state of the circuit breaker.
+	 *
+	 * @return the {@link CircuitBreakerState}, or {@literal null} if no
+	 * {@link CircuitBreakerOptions} have been set
+	 */
+	public CircuitBreakerState getCircuitBreakerState() {
+		CircuitBreaker circuitBreaker = this.circuitBreaker;
+		return circuitBreaker == null ? null : circuitBreaker.getState();
+	}
+
+	/**
+	 * Create the default executor for hedged reads. The number of threads is bounded,
+	 * and no attempts are queued: when all threads are busy the first attempt runs on
+	 * the calling thread and the read is not hedged.
+	 */
+	static ThreadPoolExecutor createHedgingExecutor() {
+		final CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("credhub-hedge-");
+		threadCreator.setDaemon(true);
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(HEDGING_EXECUTOR_MAX_THREADS,
+				HEDGING_EXECUTOR_MAX_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						return threadCreator.createThread(runnable);
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static Executor createBulkRequestExecutor() {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("credhub-bulk-");
+		executor.setDaemon(true);
+		return executor;
+	}
+
+	/**
+	 * Get the shared type reference for a {@link CredentialDetails} response. The
+	 * credential value type is resolved from the {@literal type} field of the response,
+	 * so a single type reference serves all credential types.
+	 *
+	 * @param <T> the credential implementation type
+	 * @return the type reference
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> ParameterizedTypeReference<CredentialDetails<T>> credentialDetailsType() {
+		return (ParameterizedTypeReference) CREDENTIAL_DETAILS_TYPE;
+	}
+
+	/**
+	 * Get the shared type reference for a {@link CredentialDetailsData} response.
+	 *
+	 * @param <T> the credential implementation type
+	 * @return the type reference
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> ParameterizedTypeReference<CredentialDetailsData<T>> credentialDetailsDataType() {
+		return (ParameterizedTypeReference) CREDENTIAL_DETAILS_DATA_TYPE;
 	}
 
 	/**
@@ -344,4 +656,22 @@ public class CredHubTemplate implements CredHubOperations {
 			throw new CredHubException(response.getStatusCode());
 		}
 	}
+
+	/**
+	 * Publishes circuit breaker state changes to the registered listeners and to the
+	 * metrics recorder.
+	 */
+	private class CircuitBreakerEvents implements CircuitBreakerListener {
+		@Override
+		public void stateChanged(CircuitBreakerState fromState, CircuitBreakerState toState) {
+			CredHubMetricsRecorder recorder = metricsRecorder;
+			if (recorder != null) {
+				recorder.circuitBreakerStateChanged(fromState.name(), toState.name());
+			}
+
+			for (CircuitBreakerListener listener : circuitBreakerListeners) {
+				listener.stateChanged(fromState, toState);
+			}
+		}
+	}
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+/**
+ * A callback for processing the credentials in a CredHub response one at a time, as
+ * they are read from the response body.
+ *
+ * @param <T> the type of the credential elements in the response
+ * @author Scott Frederick
+ */
+public interface CredentialCallbackHandler<T> {
+
+	/**
+	 * Process a single credential read from a CredHub response. Implementations
+	 * should not block, as this method may be called on an I/O thread.
+	 *
+	 * @param credential the credential; will not be {@literal null}
+	 */
+	void processCredential(T credential);
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.credhub.support.CredentialCacheOptions;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialName;
+
+/**
+ * A bounded cache of {@link CredentialDetails} indexed by credential name and by
+ * credential ID. Entries expire after a fixed time to live, and the least recently
+ * used entry is evicted when the cache is full.
+ *
+ * If a stale time to live is configured, an expired entry is still returned for that
+ * long after it expires, and the first lookup of the expired entry is told to refresh
+ * it. Only one refresh of an entry is requested at a time.
+ *
+ * Credential names that CredHub reported as not found are held separately, with their
+ * own time to live and maximum size.
+ *
+ * Values retrieved from CredHub are stored with the {@link #getGeneration() generation}
+ * read before the retrieval started, and are discarded if any entry was invalidated in
+ * the meantime, so that a retrieval that races with a write can not cache the value
+ * from before the write.
+ *
+ * @author Scott Frederick
+ */
+class CredentialDetailsCache {
+	private final long timeToLiveNanos;
+	private final long staleTimeToLiveNanos;
+	private final long notFoundTimeToLiveNanos;
+
+	private final Map<CredentialName, CacheEntry> byName;
+	private final Map<String, CacheEntry> byId;
+	private final Map<CredentialName, Long> notFound;
+
+	private long generation;
+
+	/**
+	 * Create a cache using the provided {@link CredentialCacheOptions}.
+	 *
+	 * @param options the cache options
+	 */
+	CredentialDetailsCache(CredentialCacheOptions options) {
+		this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(options.getTimeToLive());
+		this.staleTimeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(options.getStaleTimeToLive());
+		this.notFoundTimeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(options.getNotFoundTimeToLive());
+		this.byName = new LruMap<CredentialName, CacheEntry>(options.getMaximumSize());
+		this.byId = new LruMap<String, CacheEntry>(options.getMaximumSize());
+		this.notFound = new LruMap<CredentialName, Long>(options.getNotFoundMaximumSize());
+	}
+
+	synchronized CachedCredential getByName(CredentialName name) {
+		return getValue(byName, name);
+	}
+
+	/**
+	 * Get the number of invalidations so far, to be passed to the methods that store
+	 * retrieved values.
+	 *
+	 * @return the current generation
+	 */
+	synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Store a credential retrieved by name, unless an entry was invalidated since the
+	 * provided generation was read.
+	 *
+	 * @param name the credential name
+	 * @param details the retrieved credential
+	 * @param generation the generation read before the credential was retrieved
+	 */
+	synchronized void putByName(CredentialName name, CredentialDetails<?> details, long generation) {
+		if (this.generation == generation) {
+			byName.put(name, newEntry(details));
+		}
+	}
+
+	/**
+	 * Store the result of refreshing an entry returned by {@link #getByName}. The result
+	 * is discarded if the entry has been invalidated or replaced since it was returned.
+	 *
+	 * @param name the credential name
+	 * @param refreshed the entry that was refreshed
+	 * @param details the refreshed credential
+	 */
+	synchronized void refreshByName(CredentialName name, CachedCredential refreshed,
+			CredentialDetails<?> details) {
+		refreshValue(byName, name, refreshed, details);
+	}
+
+	synchronized CachedCredential getById(String id) {
+		return getValue(byId, id);
+	}
+
+	/**
+	 * Store a credential retrieved by ID, unless an entry was invalidated since the
+	 * provided generation was read.
+	 *
+	 * @param id the credential ID
+	 * @param details the retrieved credential
+	 * @param generation the generation read before the credential was retrieved
+	 */
+	synchronized void putById(String id, CredentialDetails<?> details, long generation) {
+		if (this.generation == generation) {
+			byId.put(id, newEntry(details));
+		}
+	}
+
+	/**
+	 * Store the result of refreshing an entry returned by {@link #getById}. The result
+	 * is discarded if the entry has been invalidated or replaced since it was returned.
+	 *
+	 * @param id the credential ID
+	 * @param refreshed the entry that was refreshed
+	 * @param details the refreshed credential
+	 */
+	synchronized void refreshById(String id, CachedCredential refreshed, CredentialDetails<?> details) {
+		refreshValue(byId, id, refreshed, details);
+	}
+
+	/**
+	 * Determine whether CredHub recently reported that the credential with the provided
+	 * name was not found.
+	 *
+	 * @param name the credential name
+	 * @return {@literal true} if the credential is known not to exist
+	 */
+	synchronized boolean isNotFound(CredentialName name) {
+		Long expiresAt = notFound.get(name);
+		if (expiresAt == null) {
+			return false;
+		}
+
+		if (System.nanoTime() - expiresAt >= 0) {
+			notFound.remove(name);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Remember that CredHub reported that the credential with the provided name was not
+	 * found. Does nothing if caching of names that were not found is disabled, or if an
+	 * entry was invalidated since the provided generation was read.
+	 *
+	 * @param name the credential name
+	 * @param generation the generation read before the credential was retrieved
+	 */
+	synchronized void putNotFound(CredentialName name, long generation) {
+		if (notFoundTimeToLiveNanos > 0 && this.generation == generation) {
+			notFound.put(name, System.nanoTime() + notFoundTimeToLiveNanos);
+		}
+	}
+
+	/**
+	 * Allow another refresh of an entry after a refresh failed. The entry continues to be
+	 * returned until its stale time to live has passed.
+	 *
+	 * @param refreshed the entry that could not be refreshed
+	 */
+	synchronized void refreshFailed(CachedCredential refreshed) {
+		refreshed.entry.refreshing = false;
+	}
+
+	/**
+	 * Remove all entries for the credential with the provided name, including
+	 * entries cached by ID and entries recording that the name was not found.
+	 *
+	 * @param name the full name of the credential
+	 */
+	synchronized void invalidate(String name) {
+		generation++;
+
+		for (Iterator<CredentialName> keys = byName.keySet().iterator(); keys.hasNext();) {
+			if (name.equals(keys.next().getName())) {
+				keys.remove();
+			}
+		}
+
+		for (Iterator<CacheEntry> entries = byId.values().iterator(); entries.hasNext();) {
+			CredentialName entryName = entries.next().details.getName();
+			if (entryName != null && name.equals(entryName.getName())) {
+				entries.remove();
+			}
+		}
+
+		for (Iterator<CredentialName> keys = notFound.keySet().iterator(); keys.hasNext();) {
+			if (name.equals(keys.next().getName())) {
+				keys.remove();
+			}
+		}
+	}
+
+	synchronized void invalidateAll() {
+		generation++;
+
+		byName.clear();
+		byId.clear();
+		notFound.clear();
+	}
+
+	synchronized int size() {
+		return byName.size() + byId.size();
+	}
+
+	private CacheEntry newEntry(CredentialDetails<?> details) {
+		long expiresAt = System.nanoTime() + timeToLiveNanos;
+		return new CacheEntry(details, expiresAt, expiresAt + staleTimeToLiveNanos);
+	}
+
+	private <K> CachedCredential getValue(Map<K, CacheEntry> entries, K key) {
+		CacheEntry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+
+		long now = System.nanoTime();
+		if (entry.isExpired(now)) {
+			entries.remove(key);
+			return null;
+		}
+
+		if (entry.isStale(now) && !entry.refreshing) {
+			entry.refreshing = true;
+			return new CachedCredential(entry, true);
+		}
+
+		return entry.cached;
+	}
+
+	private <K> void refreshValue(Map<K, CacheEntry> entries, K key, CachedCredential refreshed,
+			CredentialDetails<?> details) {
+		if (entries.get(key) != refreshed.entry) {
+			return;
+		}
+
+		CredentialDetails<?> current = refreshed.entry.details;
+		entries.put(key, newEntry(isSameVersion(current, details) ? current : details));
+	}
+
+	/**
+	 * Determine whether a refreshed credential is the same version as the cached
+	 * credential, so that the cached instance can be kept.
+	 */
+	private static boolean isSameVersion(CredentialDetails<?> current, CredentialDetails<?> refreshed) {
+		if (current == null || refreshed == null
+				|| current.getId() == null || current.getVersionCreatedAt() == null) {
+			return false;
+		}
+		return current.getId().equals(refreshed.getId())
+				&& current.getVersionCreatedAt().equals(refreshed.getVersionCreatedAt());
+	}
+
+	/**
+	 * A cached credential returned from a lookup.
+	 */
+	static final class CachedCredential {
+		private final CacheEntry entry;
+		private final boolean refreshRequired;
+
+		private CachedCredential(CacheEntry entry, boolean refreshRequired) {
+			this.entry = entry;
+			this.refreshRequired = refreshRequired;
+		}
+
+		CredentialDetails<?> getDetails() {
+			return entry.details;
+		}
+
+		/**
+		 * Whether the caller is responsible for refreshing the stale credential.
+		 *
+		 * @return {@literal true} if the credential should be refreshed
+		 */
+		boolean isRefreshRequired() {
+			return refreshRequired;
+		}
+	}
+
+	private static class CacheEntry {
+		private final CredentialDetails<?> details;
+		private final long staleAt;
+		private final long expiresAt;
+		private final CachedCredential cached;
+		private boolean refreshing;
+
+		private CacheEntry(CredentialDetails<?> details, long staleAt, long expiresAt) {
+			this.details = details;
+			this.staleAt = staleAt;
+			this.expiresAt = expiresAt;
+			this.cached = new CachedCredential(this, false);
+		}
+
+		private boolean isStale(long now) {
+			return now - staleAt >= 0;
+		}
+
+		private boolean isExpired(long now) {
+			return now - expiresAt >= 0;
+		}
+	}
+
+	/**
+	 * A {@link LinkedHashMap} in access order that evicts the least recently used entry
+	 * when the maximum size is exceeded.
+	 */
+	private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+		private static final long serialVersionUID = 1L;
+
+		private final int maximumSize;
+
+		private LruMap(int maximumSize) {
+			super(16, 0.75f, true);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > maximumSize;
+		}
+	}
+}
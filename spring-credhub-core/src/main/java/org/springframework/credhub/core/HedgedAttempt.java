@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An attempt of a hedged read, which can be aborted when another attempt has returned
+ * first. Cancelling the thread running an attempt does not stop a blocking socket read,
+ * so {@link org.springframework.http.client.ClientHttpRequestFactory} implementations
+ * register an action with {@link #onAbort(Runnable)} that aborts each request they send.
+ * Actions registered on a thread that is not running a hedged attempt are ignored.
+ *
+ * @author Scott Frederick
+ * @see HedgingHandler
+ */
+public final class HedgedAttempt {
+	private static final ThreadLocal<HedgedAttempt> CURRENT = new ThreadLocal<HedgedAttempt>();
+
+	private final List<Runnable> abortActions = new ArrayList<Runnable>();
+
+	private boolean finished;
+
+	private boolean aborted;
+
+	HedgedAttempt() {
+	}
+
+	/**
+	 * Register an action that aborts a request sent by the current thread, if the
+	 * current thread is running a hedged attempt. If the attempt has already been
+	 * aborted, the action is run immediately. Intended for internal use.
+	 *
+	 * @param abortAction the action that aborts the request
+	 */
+	public static void onAbort(Runnable abortAction) {
+		HedgedAttempt attempt = CURRENT.get();
+		if (attempt != null && attempt.register(abortAction)) {
+			abortAction.run();
+		}
+	}
+
+	/**
+	 * Determine whether the current thread is running a hedged attempt that has been
+	 * aborted, so that the failure of its request is not the fault of the server.
+	 *
+	 * @return {@literal true} if the current attempt has been aborted
+	 */
+	static boolean isCurrentAborted() {
+		HedgedAttempt attempt = CURRENT.get();
+		return attempt != null && attempt.isAborted();
+	}
+
+	/**
+	 * Mark the current thread as running this attempt.
+	 */
+	void begin() {
+		CURRENT.set(this);
+	}
+
+	/**
+	 * Mark the attempt as finished, so that its requests are no longer aborted.
+	 */
+	void end() {
+		CURRENT.remove();
+		synchronized (this) {
+			finished = true;
+			abortActions.clear();
+		}
+	}
+
+	/**
+	 * Abort the requests of this attempt, if it has not finished.
+	 */
+	void abort() {
+		List<Runnable> actions;
+		synchronized (this) {
+			if (finished || aborted) {
+				return;
+			}
+			aborted = true;
+			actions = new ArrayList<Runnable>(abortActions);
+			abortActions.clear();
+		}
+
+		for (Runnable action : actions) {
+			action.run();
+		}
+	}
+
+	private synchronized boolean isAborted() {
+		return aborted;
+	}
+
+	/**
+	 * Register an abort action.
+	 *
+	 * @return {@literal true} if the attempt has already been aborted and the action
+	 * must be run by the caller
+	 */
+	private synchronized boolean register(Runnable abortAction) {
+		if (finished) {
+			return false;
+		}
+		if (aborted) {
+			return true;
+		}
+		abortActions.add(abortAction);
+		return false;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.credhub.support.HedgingOptions;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Runs a {@link RestOperationsCallback} on an {@link Executor}, and runs it a second
+ * time if it has not completed within the hedging delay. The first successful result is
+ * returned and the other attempt is cancelled. The request of a cancelled attempt is
+ * aborted if the HTTP client library supports it, as described in
+ * {@link HedgedAttempt}. Only callbacks for read operations should be run with a
+ * {@link HedgingHandler}.
+ *
+ * Hedged attempts are limited by a token bucket. Each operation adds the maximum hedge
+ * ratio to the bucket, up to a small burst capacity, and each hedged attempt removes one
+ * token, so that over time at most that fraction of operations are hedged.
+ *
+ * @author Scott Frederick
+ */
+class HedgingHandler {
+	private static final double BURST_CAPACITY = 10;
+
+	private final HedgingOptions options;
+
+	private final Executor executor;
+
+	private double tokens = BURST_CAPACITY;
+
+	/**
+	 * Create a new {@link HedgingHandler}.
+	 *
+	 * @param options the hedging options
+	 * @param executor the {@link Executor} used to run attempts
+	 */
+	HedgingHandler(HedgingOptions options, Executor executor) {
+		this.options = options;
+		this.executor = executor;
+	}
+
+	/**
+	 * Run the callback, hedging it if it is slow and the hedging budget allows.
+	 *
+	 * @param callback the callback to run
+	 * @param restOperations the {@link RestOperations} passed to the callback
+	 * @param <T> the return type of the callback
+	 * @return the return value of the first attempt to succeed
+	 */
+	<T> T execute(final RestOperationsCallback<T> callback, final RestOperations restOperations) {
+		addToken();
+
+		CompletionService<T> completionService = new ExecutorCompletionService<T>(executor);
+
+		HedgedAttempt primaryAttempt = new HedgedAttempt();
+		HedgedAttempt hedgeAttempt = new HedgedAttempt();
+
+		Future<T> primary;
+		try {
+			primary = completionService.submit(attempt(primaryAttempt, callback, restOperations));
+		}
+		catch (RejectedExecutionException e) {
+			return callback.doWithRestOperations(restOperations);
+		}
+
+		Future<T> hedge = null;
+		try {
+			Future<T> completed = completionService.poll(options.getDelay(), TimeUnit.MILLISECONDS);
+			if (completed != null) {
+				return getResult(completed);
+			}
+
+			if (tryAcquireToken()) {
+				try {
+					hedge = completionService.submit(attempt(hedgeAttempt, callback, restOperations));
+				}
+				catch (RejectedExecutionException e) {
+					hedge = null;
+				}
+			}
+
+			if (hedge == null) {
+				return getResult(primary);
+			}
+
+			completed = completionService.take();
+			try {
+				return getResult(completed);
+			}
+			catch (RuntimeException e) {
+				return getResult(completionService.take());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceAccessException("Interrupted while waiting for a response from CredHub");
+		}
+		finally {
+			primaryAttempt.abort();
+			primary.cancel(true);
+			if (hedge != null) {
+				hedgeAttempt.abort();
+				hedge.cancel(true);
+			}
+		}
+	}
+
+	private static <T> Callable<T> attempt(final HedgedAttempt attempt, final RestOperationsCallback<T> callback,
+			final RestOperations restOperations) {
+		return new Callable<T>() {
+			@Override
+			public T call() {
+				attempt.begin();
+				try {
+					return callback.doWithRestOperations(restOperations);
+				}
+				finally {
+					attempt.end();
+				}
+			}
+		};
+	}
+
+	private synchronized void addToken() {
+		tokens = Math.min(BURST_CAPACITY, tokens + options.getMaxHedgeRatio());
+	}
+
+	private synchronized boolean tryAcquireToken() {
+		if (tokens < 1) {
+			return false;
+		}
+		tokens -= 1;
+		return true;
+	}
+
+	private static <T> T getResult(Future<T> future) throws InterruptedException {
+		try {
+			return future.get();
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.credhub.support.LoadBalancingOptions;
+import org.springframework.credhub.support.LoadBalancingStrategy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ClientHttpRequestFactory} that balances requests across several CredHub
+ * servers. Requests are built by the {@link org.springframework.web.client.RestTemplate}
+ * against the first server; this factory replaces that base URI with the base URI of
+ * the server chosen for each request, and delegates to another
+ * {@link ClientHttpRequestFactory} to create the request. Requests to other URIs are
+ * passed to the delegate unchanged.
+ *
+ * Servers that fail several requests in a row are ejected for a while, as described in
+ * {@link LoadBalancingOptions}. A server that is admitted again after an ejection is
+ * ejected again by its next failure, until it handles a request successfully.
+ *
+ * @author Scott Frederick
+ * @see LoadBalancingOptions
+ */
+public class LoadBalancingClientHttpRequestFactory
+		implements ClientHttpRequestFactory, InitializingBean, DisposableBean {
+	private final ClientHttpRequestFactory delegate;
+
+	private final LoadBalancingOptions options;
+
+	private final Endpoint[] endpoints;
+
+	private final AtomicInteger nextIndex = new AtomicInteger();
+
+	/**
+	 * Create a new {@link LoadBalancingClientHttpRequestFactory}.
+	 *
+	 * @param apiUriBases the base URIs of the CredHub servers; must not be empty. The
+	 * {@link org.springframework.web.client.RestTemplate} using this factory must be
+	 * configured with the first base URI.
+	 * @param delegate the {@link ClientHttpRequestFactory} that creates requests; must
+	 * not be {@literal null}
+	 * @param options the load balancing options; must not be {@literal null}
+	 */
+	public LoadBalancingClientHttpRequestFactory(List<String> apiUriBases,
+			ClientHttpRequestFactory delegate, LoadBalancingOptions options) {
+		Assert.notEmpty(apiUriBases, "apiUriBases must not be empty");
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.notNull(options, "options must not be null");
+
+		this.delegate = delegate;
+		this.options = options;
+		this.endpoints = new Endpoint[apiUriBases.size()];
+		for (int i = 0; i < endpoints.length; i++) {
+			Assert.hasText(apiUriBases.get(i), "apiUriBases must not contain empty values");
+			endpoints[i] = new Endpoint(apiUriBases.get(i));
+		}
+	}
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		String target = uri.toString();
+		if (!target.startsWith(endpoints[0].baseUri)) {
+			return delegate.createRequest(uri, httpMethod);
+		}
+
+		Endpoint endpoint = choose(System.nanoTime());
+		URI endpointUri = URI.create(endpoint.baseUri + target.substring(endpoints[0].baseUri.length()));
+		return new BalancedClientHttpRequest(delegate.createRequest(endpointUri, httpMethod), endpoint);
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (delegate instanceof InitializingBean) {
+			((InitializingBean) delegate).afterPropertiesSet();
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (delegate instanceof DisposableBean) {
+			((DisposableBean) delegate).destroy();
+		}
+	}
+
+	/**
+	 * Choose the server for a request. Servers are visited starting at a rotating
+	 * offset, so that ties are spread across servers.
+	 */
+	private Endpoint choose(long now) {
+		int start = nextIndex.getAndIncrement() & Integer.MAX_VALUE;
+
+		Endpoint chosen = null;
+		double chosenCost = 0;
+		for (int i = 0; i < endpoints.length; i++) {
+			Endpoint endpoint = endpoints[(start + i) % endpoints.length];
+			if (!endpoint.isAvailable(now)) {
+				continue;
+			}
+
+			double cost = cost(endpoint);
+			if (chosen == null || cost < chosenCost) {
+				chosen = endpoint;
+				chosenCost = cost;
+			}
+		}
+
+		return chosen != null ? chosen : firstReadmitted();
+	}
+
+	private double cost(Endpoint endpoint) {
+		LoadBalancingStrategy strategy = options.getStrategy();
+		if (strategy == LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS) {
+			return endpoint.outstanding.get();
+		}
+		if (strategy == LoadBalancingStrategy.LATENCY_WEIGHTED) {
+			return endpoint.getLatency() * (endpoint.outstanding.get() + 1);
+		}
+		return 0;
+	}
+
+	private Endpoint firstReadmitted() {
+		Endpoint chosen = endpoints[0];
+		for (int i = 1; i < endpoints.length; i++) {
+			if (endpoints[i].getEjectedUntil() - chosen.getEjectedUntil() < 0) {
+				chosen = endpoints[i];
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * The load and health of a single CredHub server.
+	 */
+	private class Endpoint {
+		private final String baseUri;
+
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		private int consecutiveFailures;
+
+		private boolean ejected;
+
+		private boolean probation;
+
+		private long ejectedUntil;
+
+		private double latency;
+
+		Endpoint(String baseUri) {
+			this.baseUri = baseUri;
+		}
+
+		synchronized boolean isAvailable(long now) {
+			if (ejected && now - ejectedUntil >= 0) {
+				ejected = false;
+				probation = true;
+			}
+			return !ejected;
+		}
+
+		synchronized long getEjectedUntil() {
+			return ejectedUntil;
+		}
+
+		synchronized double getLatency() {
+			return latency;
+		}
+
+		synchronized void succeeded(long durationNanos) {
+			consecutiveFailures = 0;
+			probation = false;
+			latency = latency == 0 ? durationNanos
+					: latency + options.getLatencyDecay() * (durationNanos - latency);
+		}
+
+		synchronized void failed(long now) {
+			consecutiveFailures++;
+			if (probation || consecutiveFailures >= options.getConsecutiveFailures()) {
+				ejected = true;
+				probation = false;
+				consecutiveFailures = 0;
+				ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(options.getEjectionDuration());
+			}
+		}
+	}
+
+	/**
+	 * A request to the chosen server that reports its outcome to the server's
+	 * {@link Endpoint}.
+	 */
+	private static class BalancedClientHttpRequest implements ClientHttpRequest {
+		private final ClientHttpRequest request;
+
+		private final Endpoint endpoint;
+
+		BalancedClientHttpRequest(ClientHttpRequest request, Endpoint endpoint) {
+			this.request = request;
+			this.endpoint = endpoint;
+		}
+
+		@Override
+		public ClientHttpResponse execute() throws IOException {
+			endpoint.outstanding.incrementAndGet();
+			long startTime = System.nanoTime();
+
+			ClientHttpResponse response;
+			try {
+				response = request.execute();
+			}
+			catch (IOException e) {
+				endpoint.outstanding.decrementAndGet();
+				endpoint.failed(System.nanoTime());
+				throw e;
+			}
+			catch (RuntimeException e) {
+				endpoint.outstanding.decrementAndGet();
+				endpoint.failed(System.nanoTime());
+				throw e;
+			}
+
+			long now = System.nanoTime();
+			if (isServerError(response)) {
+				endpoint.failed(now);
+			}
+			else {
+				endpoint.succeeded(now - startTime);
+			}
+
+			return new BalancedClientHttpResponse(response, endpoint);
+		}
+
+		private static boolean isServerError(ClientHttpResponse response) {
+			try {
+				return response.getRawStatusCode() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+			}
+			catch (IOException e) {
+				return true;
+			}
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			return request.getBody();
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return request.getMethod();
+		}
+
+		@Override
+		public URI getURI() {
+			return request.getURI();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return request.getHeaders();
+		}
+	}
+
+	/**
+	 * A response that ends the request in progress on its server when it is closed.
+	 */
+	private static class BalancedClientHttpResponse implements ClientHttpResponse {
+		private final ClientHttpResponse response;
+
+		private final Endpoint endpoint;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		BalancedClientHttpResponse(ClientHttpResponse response, Endpoint endpoint) {
+			this.response = response;
+			this.endpoint = endpoint;
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return response.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return response.getBody();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		@Override
+		public void close() {
+			try {
+				response.close();
+			}
+			finally {
+				if (closed.compareAndSet(false, true)) {
+					endpoint.outstanding.decrementAndGet();
+				}
+			}
+		}
+	}
+}
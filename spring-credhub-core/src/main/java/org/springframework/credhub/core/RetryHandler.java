@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.credhub.metrics.CredHubMetricsRecorder;
+import org.springframework.credhub.support.RetryOptions;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Runs a {@link RestOperationsCallback}, retrying it with exponential backoff and
+ * jitter when it fails with an error that {@link RetryOptions} identifies as transient.
+ * Only callbacks for idempotent operations should be run with a {@link RetryHandler}.
+ *
+ * @author Scott Frederick
+ */
+class RetryHandler {
+	private static final Random RANDOM = new Random();
+
+	private final RetryOptions options;
+
+	/**
+	 * Create a new {@link RetryHandler}.
+	 *
+	 * @param options the retry options
+	 */
+	RetryHandler(RetryOptions options) {
+		this.options = options;
+	}
+
+	/**
+	 * Run the callback until it succeeds, fails with an error that is not retryable, or
+	 * the maximum number of attempts or the time budget is exhausted. The error from the
+	 * last attempt is thrown.
+	 *
+	 * @param operation the name of the operation, for metrics
+	 * @param callback the callback to run
+	 * @param restOperations the {@link RestOperations} passed to the callback
+	 * @param recorder the {@link CredHubMetricsRecorder} to notify of retries; may be
+	 * {@literal null}
+	 * @param <T> the return type of the callback
+	 * @return the return value of the callback
+	 */
+	<T> T execute(String operation, RestOperationsCallback<T> callback, RestOperations restOperations,
+			CredHubMetricsRecorder recorder) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getTimeBudget());
+		long backoff = options.getInitialBackoff();
+
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return callback.doWithRestOperations(restOperations);
+			}
+			catch (RuntimeException e) {
+				if (attempt >= options.getMaxAttempts() || !isRetryable(e)) {
+					throw e;
+				}
+
+				long delay = withJitter(backoff);
+				if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) - deadline >= 0) {
+					throw e;
+				}
+
+				if (recorder != null) {
+					recorder.operationRetried(operation, attempt);
+				}
+
+				if (!sleep(delay)) {
+					throw e;
+				}
+
+				backoff = Math.min(options.getMaxBackoff(), (long) (backoff * options.getMultiplier()));
+			}
+		}
+	}
+
+	private boolean isRetryable(RuntimeException e) {
+		if (e instanceof CredHubCircuitOpenException) {
+			return false;
+		}
+		if (e instanceof HttpStatusCodeException) {
+			return options.getRetryOn().contains(((HttpStatusCodeException) e).getStatusCode());
+		}
+		if (e instanceof CredHubException) {
+			return options.getRetryOn().contains(((CredHubException) e).getStatusCode());
+		}
+		return e instanceof ResourceAccessException && options.isRetryOnIoErrors();
+	}
+
+	private long withJitter(long backoff) {
+		return backoff - (long) (backoff * options.getJitter() * RANDOM.nextDouble());
+	}
+
+	private static boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialName;
+import org.springframework.credhub.support.ServicesData;
+import org.springframework.credhub.support.SimpleCredentialName;
+import org.springframework.credhub.support.json.JsonCredential;
+import org.springframework.util.Assert;
+
+/**
+ * Replaces references to CredHub credentials in service data with the credential values
+ * stored in CredHub, without sending the service data to the CredHub interpolation API.
+ *
+ * The service data is scanned once for {@literal credentials} blocks of the form
+ * <pre>
+ * {@code
+ * "credentials": {
+ *   "credhub-ref": "((/c/service-broker/service-instance/binding/credentials-json))"
+ * }
+ * }
+ * </pre>
+ * and each distinct referenced credential is retrieved with
+ * {@link CredHubOperations#getByNames(java.util.Collection, Class)}. When the provided
+ * {@link CredHubOperations} is a {@link CachingCredHubOperations}, repeated
+ * interpolations of the same references are served from the cache.
+ *
+ * @author Scott Frederick
+ * @see CredHubOperations#interpolateServiceData(ServicesData)
+ */
+public class ServicesDataInterpolator {
+	static final String CREDENTIALS_KEY = "credentials";
+
+	private final CredHubOperations credHubOperations;
+
+	/**
+	 * Create a new {@link ServicesDataInterpolator}.
+	 *
+	 * @param credHubOperations the {@link CredHubOperations} used to retrieve
+	 * credentials; must not be {@literal null}
+	 */
+	public ServicesDataInterpolator(CredHubOperations credHubOperations) {
+		Assert.notNull(credHubOperations, "credHubOperations must not be null");
+		this.credHubOperations = credHubOperations;
+	}
+
+	/**
+	 * Replace CredHub references in the provided service data with the referenced
+	 * credential values. The service data is modified in place. If any referenced
+	 * credential cannot be retrieved, an exception is thrown and the service data is
+	 * not modified.
+	 *
+	 * @param servicesData the service data; must not be {@literal null}
+	 * @return the provided service data, with CredHub references replaced
+	 */
+	public ServicesData interpolate(ServicesData servicesData) {
+		Assert.notNull(servicesData, "servicesData must not be null");
+
+		List<Map<String, Object>> references = new ArrayList<Map<String, Object>>();
+		Set<CredentialName> names = new LinkedHashSet<CredentialName>();
+
+		for (List<Map<String, Object>> services : servicesData.values()) {
+			if (services == null) {
+				continue;
+			}
+			for (Map<String, Object> service : services) {
+				String reference = ServicesData.getCredHubReference(service);
+				if (reference != null) {
+					references.add(service);
+					names.add(toCredentialName(reference));
+				}
+			}
+		}
+
+		if (names.isEmpty()) {
+			return servicesData;
+		}
+
+		BulkCredentialDetails<JsonCredential> credentials =
+				credHubOperations.getByNames(names, JsonCredential.class);
+		throwExceptionOnFailure(credentials);
+
+		Map<CredentialName, Map<?, ?>> values = new LinkedHashMap<CredentialName, Map<?, ?>>();
+		for (CredentialName name : names) {
+			CredentialDetails<JsonCredential> details = credentials.getCredentials().get(name);
+			Object value = details == null ? null : details.getValue();
+			if (!(value instanceof Map)) {
+				throw new IllegalStateException("Credential " + name.getName()
+						+ " referenced in service data is not a JSON credential");
+			}
+			values.put(name, (Map<?, ?>) value);
+		}
+
+		for (Map<String, Object> service : references) {
+			Map<?, ?> value = values.get(toCredentialName(ServicesData.getCredHubReference(service)));
+			service.put(CREDENTIALS_KEY, new LinkedHashMap<Object, Object>(value));
+		}
+
+		return servicesData;
+	}
+
+	private static CredentialName toCredentialName(String reference) {
+		String name = reference.startsWith("/") ? reference.substring(1) : reference;
+		return new SimpleCredentialName(name.split("/"));
+	}
+
+	private static void throwExceptionOnFailure(BulkCredentialDetails<?> credentials) {
+		if (!credentials.hasFailures()) {
+			return;
+		}
+
+		Map.Entry<CredentialName, Exception> failure =
+				credentials.getFailures().entrySet().iterator().next();
+		if (failure.getValue() instanceof RuntimeException) {
+			throw (RuntimeException) failure.getValue();
+		}
+		throw new IllegalStateException("Error retrieving credential "
+				+ failure.getKey().getName() + " from CredHub", failure.getValue());
+	}
+}
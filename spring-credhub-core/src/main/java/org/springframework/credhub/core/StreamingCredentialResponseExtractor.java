@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.client.ResponseExtractor;
+
+/**
+ * A {@link ResponseExtractor} that reads the elements of a JSON array field in a CredHub
+ * response one at a time and passes each to a {@link CredentialCallbackHandler}, without
+ * collecting the elements into a list.
+ *
+ * @param <T> the type of the array elements
+ * @author Scott Frederick
+ */
+class StreamingCredentialResponseExtractor<T> implements ResponseExtractor<Void> {
+	private final ObjectReader elementReader;
+	private final String arrayFieldName;
+	private final CredentialCallbackHandler<T> callbackHandler;
+
+	/**
+	 * Create a new extractor.
+	 *
+	 * @param elementReader the {@link ObjectReader} used to read each array element
+	 * @param arrayFieldName the name of the top-level field holding the array
+	 * @param callbackHandler the handler to pass each element to
+	 */
+	StreamingCredentialResponseExtractor(ObjectReader elementReader, String arrayFieldName,
+			CredentialCallbackHandler<T> callbackHandler) {
+		this.elementReader = elementReader;
+		this.arrayFieldName = arrayFieldName;
+		this.callbackHandler = callbackHandler;
+	}
+
+	@Override
+	public Void extractData(ClientHttpResponse response) throws IOException {
+		JsonParser parser = elementReader.getFactory().createParser(response.getBody());
+
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new HttpMessageNotReadableException("Expected a JSON object in CredHub response");
+			}
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+
+				if (arrayFieldName.equals(fieldName) && token == JsonToken.START_ARRAY) {
+					readElements(parser);
+				}
+				else {
+					parser.skipChildren();
+				}
+			}
+		}
+		finally {
+			parser.close();
+		}
+
+		return null;
+	}
+
+	private void readElements(JsonParser parser) throws IOException {
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			T element = elementReader.readValue(parser);
+			callbackHandler.processCredential(element);
+		}
+	}
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.FailureCallback;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
+import org.springframework.util.concurrent.SuccessCallback;
+
+/**
+ * A request interceptor that reports each HTTP request to CredHub to a
+ * {@link CredHubMetricsRecorder}. A request is considered complete when its response
+ * is closed, so the recorded duration and response size include reading the
+ * response body.
+ *
+ * @author Scott Frederick
+ */
+public class CredHubMetricsInterceptor
+		implements ClientHttpRequestInterceptor, AsyncClientHttpRequestInterceptor {
+	private final CredHubMetricsRecorder recorder;
+
+	/**
+	 * Create a new {@link CredHubMetricsInterceptor}.
+	 *
+	 * @param recorder the {@link CredHubMetricsRecorder} to report requests to; must not
+	 * be {@literal null}
+	 */
+	public CredHubMetricsInterceptor(CredHubMetricsRecorder recorder) {
+		Assert.notNull(recorder, "recorder must not be null");
+		this.recorder = recorder;
+	}
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+			ClientHttpRequestExecution execution) throws IOException {
+		RequestMetrics metrics = start(request, body);
+		try {
+			return new MeteredClientHttpResponse(execution.execute(request, body), metrics);
+		}
+		catch (IOException e) {
+			metrics.completed(CredHubMetricsRecorder.NO_RESPONSE, 0);
+			throw e;
+		}
+		catch (RuntimeException e) {
+			metrics.completed(CredHubMetricsRecorder.NO_RESPONSE, 0);
+			throw e;
+		}
+	}
+
+	@Override
+	public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request, byte[] body,
+			AsyncClientHttpRequestExecution execution) throws IOException {
+		final RequestMetrics metrics = start(request, body);
+
+		ListenableFuture<ClientHttpResponse> future;
+		try {
+			future = execution.executeAsync(request, body);
+		}
+		catch (IOException e) {
+			metrics.completed(CredHubMetricsRecorder.NO_RESPONSE, 0);
+			throw e;
+		}
+		catch (RuntimeException e) {
+			metrics.completed(CredHubMetricsRecorder.NO_RESPONSE, 0);
+			throw e;
+		}
+
+		future.addCallback(new SuccessCallback<ClientHttpResponse>() {
+			@Override
+			public void onSuccess(ClientHttpResponse result) {
+			}
+		}, new FailureCallback() {
+			@Override
+			public void onFailure(Throwable ex) {
+				metrics.completed(CredHubMetricsRecorder.NO_RESPONSE, 0);
+			}
+		});
+
+		return new ListenableFutureAdapter<ClientHttpResponse, ClientHttpResponse>(future) {
+			@Override
+			protected ClientHttpResponse adapt(ClientHttpResponse response) throws ExecutionException {
+				return new MeteredClientHttpResponse(response, metrics);
+			}
+		};
+	}
+
+	private RequestMetrics start(HttpRequest request, byte[] body) {
+		recorder.requestStarted(request);
+		return new RequestMetrics(request, body == null ? 0 : body.length);
+	}
+
+	/**
+	 * The state of a single request, reported to the recorder exactly once.
+	 */
+	private class RequestMetrics {
+		private final HttpRequest request;
+		private final long requestBytes;
+		private final long startTime = System.nanoTime();
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		RequestMetrics(HttpRequest request, long requestBytes) {
+			this.request = request;
+			this.requestBytes = requestBytes;
+		}
+
+		void completed(int statusCode, long responseBytes) {
+			if (completed.compareAndSet(false, true)) {
+				recorder.requestCompleted(request, statusCode, System.nanoTime() - startTime,
+						requestBytes, responseBytes);
+			}
+		}
+	}
+
+	/**
+	 * A {@link ClientHttpResponse} that counts the bytes read from the response body and
+	 * completes the request metrics when closed.
+	 */
+	private static class MeteredClientHttpResponse implements ClientHttpResponse {
+		private final ClientHttpResponse response;
+		private final RequestMetrics metrics;
+		private CountingInputStream body;
+
+		MeteredClientHttpResponse(ClientHttpResponse response, RequestMetrics metrics) {
+			this.response = response;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return response.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			if (body == null) {
+				InputStream responseBody = response.getBody();
+				if (responseBody == null) {
+					return null;
+				}
+				body = new CountingInputStream(responseBody);
+			}
+			return body;
+		}
+
+		@Override
+		public void close() {
+			int statusCode;
+			try {
+				statusCode = response.getRawStatusCode();
+			}
+			catch (IOException e) {
+				statusCode = CredHubMetricsRecorder.NO_RESPONSE;
+			}
+
+			try {
+				response.close();
+			}
+			finally {
+				metrics.completed(statusCode, body == null ? 0 : body.count);
+			}
+		}
+	}
+
+	/**
+	 * An {@link InputStream} that counts the bytes read through it. Marking is not
+	 * supported, so that bytes read again after a reset are not counted twice.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		@Override
+		public void mark(int readlimit) {
+		}
+
+		@Override
+		public void reset() throws IOException {
+			throw new IOException("mark/reset not supported");
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+}
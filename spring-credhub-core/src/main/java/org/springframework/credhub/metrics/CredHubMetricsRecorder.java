@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.metrics;
+
+import org.springframework.http.HttpRequest;
+
+/**
+ * Receives client-side measurements of interactions with CredHub. Implementations can
+ * bridge the measurements to a metrics library or monitoring system.
+ *
+ * Two levels of measurement are reported. Operations correspond to the methods of
+ * {@link org.springframework.credhub.core.CredHubOperations} such as {@literal write}
+ * or {@literal getByName}, and include response parsing and error handling.
+ * Requests correspond to individual HTTP exchanges with the CredHub server.
+ *
+ * Implementations are called on the threads making requests, so must be thread-safe
+ * and should return quickly.
+ *
+ * @author Scott Frederick
+ * @see InMemoryCredHubMetricsRecorder
+ */
+public interface CredHubMetricsRecorder {
+	/**
+	 * The status code reported for requests that did not receive a response.
+	 */
+	int NO_RESPONSE = 0;
+
+	/**
+	 * Record the completion of an operation.
+	 *
+	 * @param operation the name of the operation, such as {@literal getByName}
+	 * @param durationNanos the elapsed time of the operation in nanoseconds
+	 * @param successful {@literal true} if the operation completed without an error
+	 */
+	void operationCompleted(String operation, long durationNanos, boolean successful);
+
+	/**
+	 * Record that an attempt of an operation failed with a transient error and the
+	 * operation will be retried.
+	 *
+	 * @param operation the name of the operation, such as {@literal getByName}
+	 * @param attempt the number of the attempt that failed, starting at {@literal 1}
+	 */
+	void operationRetried(String operation, int attempt);
+
+	/**
+	 * Record a change of state of the circuit breaker that guards calls to CredHub.
+	 *
+	 * @param fromState the name of the previous state, such as {@literal CLOSED}
+	 * @param toState the name of the new state, such as {@literal OPEN}
+	 * @see org.springframework.credhub.core.CircuitBreakerState
+	 */
+	void circuitBreakerStateChanged(String fromState, String toState);
+
+	/**
+	 * Record the start of an HTTP request to CredHub. Each call is followed by a call to
+	 * {@link #requestCompleted} for the same request.
+	 *
+	 * @param request the request; the URI may contain credential names
+	 */
+	void requestStarted(HttpRequest request);
+
+	/**
+	 * Record the completion of an HTTP request to CredHub, after the response body has
+	 * been read.
+	 *
+	 * @param request the request; the URI may contain credential names
+	 * @param statusCode the HTTP status code of the response, or {@link #NO_RESPONSE}
+	 * if no response was received
+	 * @param durationNanos the elapsed time of the request in nanoseconds
+	 * @param requestBytes the number of bytes in the request body
+	 * @param responseBytes the number of bytes read from the response body
+	 */
+	void requestCompleted(HttpRequest request, int statusCode, long durationNanos,
+			long requestBytes, long responseBytes);
+}
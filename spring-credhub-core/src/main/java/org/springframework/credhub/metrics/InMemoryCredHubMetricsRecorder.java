@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.metrics;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpRequest;
+
+/**
+ * A {@link CredHubMetricsRecorder} that keeps measurements in memory. Operation and
+ * request durations are recorded in nanoseconds in {@link LatencyHistogram}s, from
+ * which percentiles can be read.
+ *
+ * This recorder can be used directly, or periodically read to publish measurements
+ * to a metrics system that does not support histograms.
+ *
+ * @author Scott Frederick
+ */
+public class InMemoryCredHubMetricsRecorder implements CredHubMetricsRecorder {
+	private final ConcurrentMap<String, LatencyHistogram> operationTimers =
+			new ConcurrentHashMap<String, LatencyHistogram>();
+	private final ConcurrentMap<String, AtomicLong> operationErrors =
+			new ConcurrentHashMap<String, AtomicLong>();
+	private final ConcurrentMap<String, AtomicLong> operationRetries =
+			new ConcurrentHashMap<String, AtomicLong>();
+	private final ConcurrentMap<String, AtomicLong> circuitBreakerTransitions =
+			new ConcurrentHashMap<String, AtomicLong>();
+	private final ConcurrentMap<Integer, AtomicLong> statusCodes =
+			new ConcurrentHashMap<Integer, AtomicLong>();
+
+	private final LatencyHistogram requestTimer = new LatencyHistogram();
+	private final AtomicLong requestBytes = new AtomicLong();
+	private final AtomicLong responseBytes = new AtomicLong();
+	private final AtomicInteger inFlightRequests = new AtomicInteger();
+	private volatile String circuitBreakerState;
+
+	@Override
+	public void operationCompleted(String operation, long durationNanos, boolean successful) {
+		LatencyHistogram timer = operationTimers.get(operation);
+		if (timer == null) {
+			LatencyHistogram newTimer = new LatencyHistogram();
+			timer = operationTimers.putIfAbsent(operation, newTimer);
+			if (timer == null) {
+				timer = newTimer;
+			}
+		}
+		timer.record(durationNanos);
+
+		if (!successful) {
+			increment(operationErrors, operation);
+		}
+	}
+
+	@Override
+	public void operationRetried(String operation, int attempt) {
+		increment(operationRetries, operation);
+	}
+
+	@Override
+	public void circuitBreakerStateChanged(String fromState, String toState) {
+		circuitBreakerState = toState;
+		increment(circuitBreakerTransitions, toState);
+	}
+
+	@Override
+	public void requestStarted(HttpRequest request) {
+		inFlightRequests.incrementAndGet();
+	}
+
+	@Override
+	public void requestCompleted(HttpRequest request, int statusCode, long durationNanos,
+			long requestBytes, long responseBytes) {
+		inFlightRequests.decrementAndGet();
+
+		requestTimer.record(durationNanos);
+		increment(statusCodes, statusCode);
+		this.requestBytes.addAndGet(requestBytes);
+		this.responseBytes.addAndGet(responseBytes);
+	}
+
+	/**
+	 * Get the names of the operations that have been recorded.
+	 *
+	 * @return the operation names
+	 */
+	public Set<String> getOperations() {
+		return Collections.unmodifiableSet(operationTimers.keySet());
+	}
+
+	/**
+	 * Get the durations of an operation, in nanoseconds.
+	 *
+	 * @param operation the name of the operation
+	 * @return the operation durations, or {@literal null} if the operation has not been
+	 * recorded
+	 */
+	public LatencyHistogram getOperationTimer(String operation) {
+		return operationTimers.get(operation);
+	}
+
+	/**
+	 * Get the number of times an operation completed with an error.
+	 *
+	 * @param operation the name of the operation
+	 * @return the number of errors
+	 */
+	public long getOperationErrorCount(String operation) {
+		return count(operationErrors, operation);
+	}
+
+	/**
+	 * Get the number of times an operation was retried after a transient error.
+	 *
+	 * @param operation the name of the operation
+	 * @return the number of retries
+	 */
+	public long getOperationRetryCount(String operation) {
+		return count(operationRetries, operation);
+	}
+
+	/**
+	 * Get the most recently recorded state of the circuit breaker.
+	 *
+	 * @return the name of the circuit breaker state, or {@literal null} if no state
+	 * change has been recorded
+	 */
+	public String getCircuitBreakerState() {
+		return circuitBreakerState;
+	}
+
+	/**
+	 * Get the number of times the circuit breaker changed to a state.
+	 *
+	 * @param state the name of the state, such as {@literal OPEN}
+	 * @return the number of transitions to the state
+	 */
+	public long getCircuitBreakerTransitionCount(String state) {
+		return count(circuitBreakerTransitions, state);
+	}
+
+	/**
+	 * Get the durations of all HTTP requests, in nanoseconds.
+	 *
+	 * @return the request durations
+	 */
+	public LatencyHistogram getRequestTimer() {
+		return requestTimer;
+	}
+
+	/**
+	 * Get the number of HTTP responses received with a status code.
+	 *
+	 * @param statusCode the HTTP status code, or {@link #NO_RESPONSE} for requests that
+	 * did not receive a response
+	 * @return the number of responses
+	 */
+	public long getStatusCodeCount(int statusCode) {
+		return count(statusCodes, statusCode);
+	}
+
+	/**
+	 * Get the total number of bytes sent in HTTP request bodies.
+	 *
+	 * @return the number of bytes
+	 */
+	public long getRequestBytes() {
+		return requestBytes.get();
+	}
+
+	/**
+	 * Get the total number of bytes read from HTTP response bodies.
+	 *
+	 * @return the number of bytes
+	 */
+	public long getResponseBytes() {
+		return responseBytes.get();
+	}
+
+	/**
+	 * Get the number of HTTP requests that have started but not completed.
+	 *
+	 * @return the number of requests in flight
+	 */
+	public int getInFlightRequests() {
+		return inFlightRequests.get();
+	}
+
+	private static <K> void increment(ConcurrentMap<K, AtomicLong> counters, K key) {
+		AtomicLong counter = counters.get(key);
+		if (counter == null) {
+			AtomicLong newCounter = new AtomicLong();
+			counter = counters.putIfAbsent(key, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		counter.incrementAndGet();
+	}
+
+	private static <K> long count(ConcurrentMap<K, AtomicLong> counters, K key) {
+		AtomicLong counter = counters.get(key);
+		return counter == null ? 0 : counter.get();
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * A thread-safe histogram of non-negative {@literal long} values that can report
+ * percentiles with bounded relative error.
+ *
+ * Values are counted in buckets whose width grows with the magnitude of the value,
+ * in the style of an HDR histogram. Values are exact up to {@literal 2^precision},
+ * and larger values are reported with a relative error of at most
+ * {@literal 2^(1-precision)}. The default precision of {@literal 5} bounds the error
+ * to about 6% using less than 8KB of memory.
+ *
+ * Recording a value does not lock or allocate. Reading statistics while values are
+ * being recorded may return results that do not include the most recent values.
+ *
+ * @author Scott Frederick
+ */
+public class LatencyHistogram {
+	private static final int DEFAULT_PRECISION = 5;
+
+	private final int precision;
+	private final int subBucketCount;
+	private final int halfSubBucketCount;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong totalValue = new AtomicLong();
+	private final AtomicLong maxValue = new AtomicLong();
+
+	/**
+	 * Create a histogram with the default precision.
+	 */
+	public LatencyHistogram() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Create a histogram with the provided precision.
+	 *
+	 * @param precision the number of significant binary digits kept for each value;
+	 * must be between {@literal 1} and {@literal 16}
+	 */
+	public LatencyHistogram(int precision) {
+		Assert.isTrue(precision >= 1 && precision <= 16, "precision must be between 1 and 16");
+
+		this.precision = precision;
+		this.subBucketCount = 1 << precision;
+		this.halfSubBucketCount = subBucketCount >> 1;
+		this.counts = new AtomicLongArray(subBucketCount + (Long.SIZE - precision) * halfSubBucketCount);
+	}
+
+	/**
+	 * Record a value. Negative values are recorded as {@literal 0}.
+	 *
+	 * @param value the value to record
+	 */
+	public void record(long value) {
+		long recorded = Math.max(value, 0);
+
+		counts.incrementAndGet(indexOf(recorded));
+		totalCount.incrementAndGet();
+		totalValue.addAndGet(recorded);
+
+		long max = maxValue.get();
+		while (recorded > max && !maxValue.compareAndSet(max, recorded)) {
+			max = maxValue.get();
+		}
+	}
+
+	/**
+	 * Get the number of values recorded.
+	 *
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return totalCount.get();
+	}
+
+	/**
+	 * Get the largest value recorded.
+	 *
+	 * @return the largest value, or {@literal 0} if no values have been recorded
+	 */
+	public long getMax() {
+		return maxValue.get();
+	}
+
+	/**
+	 * Get the arithmetic mean of the values recorded.
+	 *
+	 * @return the mean, or {@literal 0} if no values have been recorded
+	 */
+	public double getMean() {
+		long count = totalCount.get();
+		return count == 0 ? 0 : (double) totalValue.get() / count;
+	}
+
+	/**
+	 * Get the value at or below which the provided percentage of recorded values fall.
+	 * The result is the highest value that is equivalent to the recorded value within
+	 * the precision of the histogram, and is never greater than {@link #getMax()}.
+	 *
+	 * @param percentile the percentile, between {@literal 0} and {@literal 100}
+	 * @return the value at the percentile, or {@literal 0} if no values have been
+	 * recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		Assert.isTrue(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+
+		long count = totalCount.get();
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long cumulative = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			cumulative += counts.get(i);
+			if (cumulative >= rank) {
+				return Math.min(highestEquivalentValue(i), maxValue.get());
+			}
+		}
+		return maxValue.get();
+	}
+
+	private int indexOf(long value) {
+		if (value < subBucketCount) {
+			return (int) value;
+		}
+
+		int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - precision + 1;
+		int subBucket = (int) (value >>> shift);
+		return subBucketCount + (shift - 1) * halfSubBucketCount + (subBucket - halfSubBucketCount);
+	}
+
+	private long highestEquivalentValue(int index) {
+		if (index < subBucketCount) {
+			return index;
+		}
+
+		int offset = index - subBucketCount;
+		int shift = offset / halfSubBucketCount + 1;
+		long subBucket = offset % halfSubBucketCount + halfSubBucketCount;
+		long highest = ((subBucket + 1) << shift) - 1;
+		return highest < 0 ? Long.MAX_VALUE : highest;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.support;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * The result of retrieving many credentials from CredHub in a single bulk operation.
+ * Credentials that were retrieved successfully and credentials that could not be
+ * retrieved are reported separately, so that a failure to retrieve one credential does
+ * not prevent the others from being returned.
+ *
+ * @param <T> the credential implementation type
+ * @author Scott Frederick
+ */
+public class BulkCredentialDetails<T> {
+	private final Map<CredentialName, CredentialDetails<T>> credentials;
+	private final Map<CredentialName, Exception> failures;
+
+	/**
+	 * Create a new {@link BulkCredentialDetails}.
+	 *
+	 * @param credentials the retrieved credentials, keyed by name; must not be
+	 * {@literal null}
+	 * @param failures the errors encountered, keyed by the name of the credential that
+	 * could not be retrieved; must not be {@literal null}
+	 */
+	public BulkCredentialDetails(Map<CredentialName, CredentialDetails<T>> credentials,
+			Map<CredentialName, Exception> failures) {
+		Assert.notNull(credentials, "credentials must not be null");
+		Assert.notNull(failures, "failures must not be null");
+
+		this.credentials = Collections.unmodifiableMap(credentials);
+		this.failures = Collections.unmodifiableMap(failures);
+	}
+
+	/**
+	 * Get the credentials that were retrieved successfully.
+	 *
+	 * @return the retrieved credentials, keyed by name
+	 */
+	public Map<CredentialName, CredentialDetails<T>> getCredentials() {
+		return this.credentials;
+	}
+
+	/**
+	 * Get the errors encountered while retrieving credentials. Credentials that were
+	 * not retrieved before the bulk operation timed out are reported with a
+	 * {@link java.util.concurrent.TimeoutException}.
+	 *
+	 * @return the errors, keyed by the name of the credential that could not be
+	 * retrieved
+	 */
+	public Map<CredentialName, Exception> getFailures() {
+		return this.failures;
+	}
+
+	/**
+	 * Determine whether any credentials could not be retrieved.
+	 *
+	 * @return {@literal true} if any credentials could not be retrieved
+	 */
+	public boolean hasFailures() {
+		return !this.failures.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "BulkCredentialDetails{"
+				+ "credentials=" + credentials.keySet()
+				+ ", failures=" + failures
+				+ '}';
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * Options for retrieving many credentials from CredHub in a single bulk operation.
+ *
+ * @author Scott Frederick
+ */
+public class BulkRequestOptions {
+	static final int DEFAULT_CONCURRENCY = 8;
+	static final long DEFAULT_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+	/**
+	 * Maximum number of concurrent requests to CredHub;
+	 */
+	private final int concurrency;
+
+	/**
+	 * Time allowed for the entire bulk operation to complete;
+	 */
+	private final long timeout;
+
+	private BulkRequestOptions(int concurrency, long timeout) {
+		this.concurrency = concurrency;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Get the maximum number of requests to CredHub that will be in flight at the
+	 * same time.
+	 *
+	 * @return the maximum number of concurrent requests
+	 */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+	 * Get the time allowed for the entire bulk operation to complete in
+	 * {@link TimeUnit#MILLISECONDS}. Credentials not retrieved within this time are
+	 * reported as failures.
+	 *
+	 * @return the timeout
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for providing the values required
+	 * to construct a {@link BulkRequestOptions}.
+	 *
+	 * @return a builder
+	 */
+	public static BulkRequestOptionsBuilder builder() {
+		return new BulkRequestOptionsBuilder();
+	}
+
+	@Override
+	public String toString() {
+		return "BulkRequestOptions{"
+				+ "concurrency=" + concurrency
+				+ ", timeout=" + timeout
+				+ '}';
+	}
+
+	/**
+	 * A builder that provides a fluent API for constructing {@link BulkRequestOptions}
+	 * instances.
+	 */
+	public static class BulkRequestOptionsBuilder {
+		private int concurrency = DEFAULT_CONCURRENCY;
+		private long timeout = DEFAULT_TIMEOUT;
+
+		BulkRequestOptionsBuilder() {
+		}
+
+		/**
+		 * Set the maximum number of concurrent requests to CredHub.
+		 *
+		 * @param concurrency the maximum number of concurrent requests; must be greater
+		 * than {@literal 0}
+		 * @return the builder
+		 */
+		public BulkRequestOptionsBuilder concurrency(int concurrency) {
+			Assert.isTrue(concurrency > 0, "concurrency must be greater than 0");
+			this.concurrency = concurrency;
+			return this;
+		}
+
+		/**
+		 * Set the time allowed for the entire bulk operation to complete.
+		 *
+		 * @param timeout the timeout; must be greater than {@literal 0}
+		 * @param unit the {@link TimeUnit} of the timeout; must not be {@literal null}
+		 * @return the builder
+		 */
+		public BulkRequestOptionsBuilder timeout(long timeout, TimeUnit unit) {
+			Assert.isTrue(timeout > 0, "timeout must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.timeout = unit.toMillis(timeout);
+			return this;
+		}
+
+		/**
+		 * Construct a {@link BulkRequestOptions} with the provided values.
+		 *
+		 * @return a {@link BulkRequestOptions}
+		 */
+		public BulkRequestOptions build() {
+			return new BulkRequestOptions(concurrency, timeout);
+		}
+	}
+}
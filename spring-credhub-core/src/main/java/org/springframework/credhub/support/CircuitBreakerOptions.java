@@ -0,0 +1,314 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * Options for the circuit breaker that guards calls to CredHub. The outcomes of the
+ * most recent calls are kept in a sliding window. When enough calls have been recorded
+ * and the percentage of failed calls or of slow calls reaches its threshold, the circuit
+ * breaker opens and calls fail immediately. After a wait, a few trial calls are allowed;
+ * if they all succeed quickly the circuit breaker closes, otherwise it opens again.
+ *
+ * Server errors and I/O errors are counted as failures. Client errors such as
+ * {@literal 404 NOT_FOUND} are not.
+ *
+ * @author Scott Frederick
+ */
+public class CircuitBreakerOptions {
+	static final float DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+	static final float DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100;
+	static final long DEFAULT_SLOW_CALL_DURATION_THRESHOLD = TimeUnit.SECONDS.toMillis(5);
+	static final int DEFAULT_SLIDING_WINDOW_SIZE = 100;
+	static final int DEFAULT_MINIMUM_NUMBER_OF_CALLS = 20;
+	static final long DEFAULT_WAIT_DURATION_IN_OPEN_STATE = TimeUnit.SECONDS.toMillis(30);
+	static final int DEFAULT_PERMITTED_CALLS_IN_HALF_OPEN_STATE = 3;
+
+	/**
+	 * Percentage of failed calls that opens the circuit breaker;
+	 */
+	private final float failureRateThreshold;
+
+	/**
+	 * Percentage of slow calls that opens the circuit breaker;
+	 */
+	private final float slowCallRateThreshold;
+
+	/**
+	 * Duration above which a call is slow;
+	 */
+	private final long slowCallDurationThreshold;
+
+	/**
+	 * Number of recent calls whose outcomes are recorded;
+	 */
+	private final int slidingWindowSize;
+
+	/**
+	 * Number of calls recorded before the failure and slow call rates are evaluated;
+	 */
+	private final int minimumNumberOfCalls;
+
+	/**
+	 * Time the circuit breaker stays open before allowing trial calls;
+	 */
+	private final long waitDurationInOpenState;
+
+	/**
+	 * Number of trial calls allowed while half open;
+	 */
+	private final int permittedCallsInHalfOpenState;
+
+	private CircuitBreakerOptions(float failureRateThreshold, float slowCallRateThreshold,
+			long slowCallDurationThreshold, int slidingWindowSize, int minimumNumberOfCalls,
+			long waitDurationInOpenState, int permittedCallsInHalfOpenState) {
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.slowCallDurationThreshold = slowCallDurationThreshold;
+		this.slidingWindowSize = slidingWindowSize;
+		this.minimumNumberOfCalls = minimumNumberOfCalls;
+		this.waitDurationInOpenState = waitDurationInOpenState;
+		this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+	}
+
+	/**
+	 * Get the percentage of failed calls in the sliding window at which the circuit
+	 * breaker opens.
+	 *
+	 * @return the failure rate threshold
+	 */
+	public float getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+
+	/**
+	 * Get the percentage of slow calls in the sliding window at which the circuit
+	 * breaker opens.
+	 *
+	 * @return the slow call rate threshold
+	 */
+	public float getSlowCallRateThreshold() {
+		return slowCallRateThreshold;
+	}
+
+	/**
+	 * Get the duration in {@link TimeUnit#MILLISECONDS} above which a call is counted as
+	 * slow.
+	 *
+	 * @return the slow call duration threshold
+	 */
+	public long getSlowCallDurationThreshold() {
+		return slowCallDurationThreshold;
+	}
+
+	/**
+	 * Get the number of most recent calls whose outcomes are recorded.
+	 *
+	 * @return the sliding window size
+	 */
+	public int getSlidingWindowSize() {
+		return slidingWindowSize;
+	}
+
+	/**
+	 * Get the number of calls that must be recorded before the failure and slow call
+	 * rates are evaluated.
+	 *
+	 * @return the minimum number of calls
+	 */
+	public int getMinimumNumberOfCalls() {
+		return minimumNumberOfCalls;
+	}
+
+	/**
+	 * Get the time in {@link TimeUnit#MILLISECONDS} that the circuit breaker stays open
+	 * before trial calls are allowed.
+	 *
+	 * @return the wait duration in the open state
+	 */
+	public long getWaitDurationInOpenState() {
+		return waitDurationInOpenState;
+	}
+
+	/**
+	 * Get the number of trial calls allowed while the circuit breaker is half open.
+	 *
+	 * @return the number of permitted calls in the half open state
+	 */
+	public int getPermittedCallsInHalfOpenState() {
+		return permittedCallsInHalfOpenState;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for providing the values required
+	 * to construct a {@link CircuitBreakerOptions}.
+	 *
+	 * @return a builder
+	 */
+	public static CircuitBreakerOptionsBuilder builder() {
+		return new CircuitBreakerOptionsBuilder();
+	}
+
+	@Override
+	public String toString() {
+		return "CircuitBreakerOptions{"
+				+ "failureRateThreshold=" + failureRateThreshold
+				+ ", slowCallRateThreshold=" + slowCallRateThreshold
+				+ ", slowCallDurationThreshold=" + slowCallDurationThreshold
+				+ ", slidingWindowSize=" + slidingWindowSize
+				+ ", minimumNumberOfCalls=" + minimumNumberOfCalls
+				+ ", waitDurationInOpenState=" + waitDurationInOpenState
+				+ ", permittedCallsInHalfOpenState=" + permittedCallsInHalfOpenState
+				+ '}';
+	}
+
+	/**
+	 * A builder that provides a fluent API for constructing {@link CircuitBreakerOptions}
+	 * instances.
+	 */
+	public static class CircuitBreakerOptionsBuilder {
+		private float failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+		private float slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+		private long slowCallDurationThreshold = DEFAULT_SLOW_CALL_DURATION_THRESHOLD;
+		private int slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+		private int minimumNumberOfCalls = DEFAULT_MINIMUM_NUMBER_OF_CALLS;
+		private long waitDurationInOpenState = DEFAULT_WAIT_DURATION_IN_OPEN_STATE;
+		private int permittedCallsInHalfOpenState = DEFAULT_PERMITTED_CALLS_IN_HALF_OPEN_STATE;
+
+		CircuitBreakerOptionsBuilder() {
+		}
+
+		/**
+		 * Set the percentage of failed calls at which the circuit breaker opens.
+		 *
+		 * @param failureRateThreshold the failure rate threshold; must be greater than
+		 * {@literal 0} and not greater than {@literal 100}
+		 * @return the builder
+		 */
+		public CircuitBreakerOptionsBuilder failureRateThreshold(float failureRateThreshold) {
+			Assert.isTrue(failureRateThreshold > 0 && failureRateThreshold <= 100,
+					"failureRateThreshold must be greater than 0 and not greater than 100");
+			this.failureRateThreshold = failureRateThreshold;
+			return this;
+		}
+
+		/**
+		 * Set the percentage of slow calls at which the circuit breaker opens.
+		 *
+		 * @param slowCallRateThreshold the slow call rate threshold; must be greater than
+		 * {@literal 0} and not greater than {@literal 100}
+		 * @return the builder
+		 */
+		public CircuitBreakerOptionsBuilder slowCallRateThreshold(float slowCallRateThreshold) {
+			Assert.isTrue(slowCallRateThreshold > 0 && slowCallRateThreshold <= 100,
+					"slowCallRateThreshold must be greater than 0 and not greater than 100");
+			this.slowCallRateThreshold = slowCallRateThreshold;
+			return this;
+		}
+
+		/**
+		 * Set the duration above which a call is counted as slow.
+		 *
+		 * @param slowCallDurationThreshold the slow call duration; must be greater than
+		 * {@literal 0}
+		 * @param unit the {@link TimeUnit} of the duration; must not be {@literal null}
+		 * @return the builder
+		 */
+		public CircuitBreakerOptionsBuilder slowCallDurationThreshold(long slowCallDurationThreshold,
+				TimeUnit unit) {
+			Assert.isTrue(slowCallDurationThreshold > 0, "slowCallDurationThreshold must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.slowCallDurationThreshold = unit.toMillis(slowCallDurationThreshold);
+			return this;
+		}
+
+		/**
+		 * Set the number of most recent calls whose outcomes are recorded.
+		 *
+		 * @param slidingWindowSize the sliding window size; must be greater than
+		 * {@literal 0}
+		 * @return the builder
+		 */
+		public CircuitBreakerOptionsBuilder slidingWindowSize(int slidingWindowSize) {
+			Assert.isTrue(slidingWindowSize > 0, "slidingWindowSize must be greater than 0");
+			this.slidingWindowSize = slidingWindowSize;
+			return this;
+		}
+
+		/**
+		 * Set the number of calls that must be recorded before the failure and slow call
+		 * rates are evaluated.
+		 *
+		 * @param minimumNumberOfCalls the minimum number of calls; must be greater than
+		 * {@literal 0}
+		 * @return the builder
+		 */
+		public CircuitBreakerOptionsBuilder minimumNumberOfCalls(int minimumNumberOfCalls) {
+			Assert.isTrue(minimumNumberOfCalls > 0, "minimumNumberOfCalls must be greater than 0");
+			this.minimumNumberOfCalls = minimumNumberOfCalls;
+			return this;
+		}
+
+		/**
+		 * Set the time that the circuit breaker stays open before trial calls are
+		 * allowed.
+		 *
+		 * @param waitDurationInOpenState the wait duration; must be greater than
+		 * {@literal 0}
+		 * @param unit the {@link TimeUnit} of the duration; must not be {@literal null}
+		 * @return the builder
+		 */
+		public CircuitBreakerOptionsBuilder waitDurationInOpenState(long waitDurationInOpenState,
+				TimeUnit unit) {
+			Assert.isTrue(waitDurationInOpenState > 0, "waitDurationInOpenState must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.waitDurationInOpenState = unit.toMillis(waitDurationInOpenState);
+			return this;
+		}
+
+		/**
+		 * Set the number of trial calls allowed while the circuit breaker is half open.
+		 *
+		 * @param permittedCallsInHalfOpenState the number of trial calls; must be greater
+		 * than {@literal 0}
+		 * @return the builder
+		 */
+		public CircuitBreakerOptionsBuilder permittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+			Assert.isTrue(permittedCallsInHalfOpenState > 0,
+					"permittedCallsInHalfOpenState must be greater than 0");
+			this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+			return this;
+		}
+
+		/**
+		 * Construct a {@link CircuitBreakerOptions} with the provided values.
+		 *
+		 * @return a {@link CircuitBreakerOptions}
+		 */
+		public CircuitBreakerOptions build() {
+			Assert.isTrue(minimumNumberOfCalls <= slidingWindowSize,
+					"minimumNumberOfCalls must not be greater than slidingWindowSize");
+			return new CircuitBreakerOptions(failureRateThreshold, slowCallRateThreshold,
+					slowCallDurationThreshold, slidingWindowSize, minimumNumberOfCalls,
+					waitDurationInOpenState, permittedCallsInHalfOpenState);
+		}
+	}
+}
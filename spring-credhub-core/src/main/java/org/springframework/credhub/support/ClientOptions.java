@@ -18,9 +18,14 @@ package org.springframework.credhub.support;
 
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.util.Assert;
+
 /**
  * Client options for CredHub connectivity.
  *
+ * Connection pool settings are applied to HTTP client libraries that pool connections.
+ * A setting that is not explicitly set leaves the client library default in place.
+ *
  * @author Mark Paluch
  * @author Scott Frederick
  */
@@ -36,12 +41,61 @@ public class ClientOptions {
 	 */
 	private final Integer readTimeout;
 
+	/**
+	 * Maximum number of pooled connections;
+	 */
+	private final Integer maxConnectionsTotal;
+
+	/**
+	 * Maximum number of pooled connections to a single host;
+	 */
+	private final Integer maxConnectionsPerRoute;
+
+	/**
+	 * Time after which idle connections are evicted from the pool;
+	 */
+	private final Long idleConnectionEvictionInterval;
+
+	/**
+	 * Maximum time a pooled connection is kept;
+	 */
+	private final Long connectionTimeToLive;
+
+	/**
+	 * Time an idle connection is kept alive for re-use;
+	 */
+	private final Long keepAliveDuration;
+
+	/**
+	 * Whether HTTP/2 is preferred;
+	 */
+	private final boolean http2;
+
+	/**
+	 * Number of connections opened at startup;
+	 */
+	private final Integer prewarmConnections;
+
+	/**
+	 * Maximum number of cached TLS sessions;
+	 */
+	private final Integer sslSessionCacheSize;
+
+	/**
+	 * Time a cached TLS session can be resumed;
+	 */
+	private final Long sslSessionTimeout;
+
+	/**
+	 * Whether blocking HTTP exchanges run on virtual threads;
+	 */
+	private final boolean virtualThreads;
+
 	/**
 	 * Create new {@link ClientOptions} with default timeouts.
 	 */
 	public ClientOptions() {
-		this.connectionTimeout = null;
-		this.readTimeout = null;
+		this(null, null, null, null, null, null, null, false, null, null, null, false);
 	}
 
 	/**
@@ -53,8 +107,26 @@ public class ClientOptions {
 	 * {@literal 0}.
 	 */
 	public ClientOptions(int connectionTimeout, int readTimeout) {
+		this(connectionTimeout, readTimeout, null, null, null, null, null, false, null, null, null, false);
+	}
+
+	private ClientOptions(Integer connectionTimeout, Integer readTimeout,
+			Integer maxConnectionsTotal, Integer maxConnectionsPerRoute,
+			Long idleConnectionEvictionInterval, Long connectionTimeToLive, Long keepAliveDuration,
+			boolean http2, Integer prewarmConnections, Integer sslSessionCacheSize,
+			Long sslSessionTimeout, boolean virtualThreads) {
 		this.connectionTimeout = connectionTimeout;
 		this.readTimeout = readTimeout;
+		this.maxConnectionsTotal = maxConnectionsTotal;
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+		this.idleConnectionEvictionInterval = idleConnectionEvictionInterval;
+		this.connectionTimeToLive = connectionTimeToLive;
+		this.keepAliveDuration = keepAliveDuration;
+		this.http2 = http2;
+		this.prewarmConnections = prewarmConnections;
+		this.sslSessionCacheSize = sslSessionCacheSize;
+		this.sslSessionTimeout = sslSessionTimeout;
+		this.virtualThreads = virtualThreads;
 	}
 
 	/**
@@ -75,4 +147,328 @@ public class ClientOptions {
 		return readTimeout;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Get the maximum number of connections held in the connection pool.
+	 *
+	 * @return the maximum number of connections; can be {@literal null if not explicitly set}
+	 */
+	public Integer getMaxConnectionsTotal() {
+		return maxConnectionsTotal;
+	}
+
+	/**
+	 * Get the maximum number of connections to a single host held in the connection pool.
+	 *
+	 * @return the maximum number of connections per host; can be
+	 * {@literal null if not explicitly set}
+	 */
+	public Integer getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	/**
+	 * Get the time in {@link TimeUnit#MILLISECONDS} after which idle connections are
+	 * evicted from the connection pool.
+	 *
+	 * @return the idle connection eviction interval; can be
+	 * {@literal null if not explicitly set}
+	 */
+	public Long getIdleConnectionEvictionInterval() {
+		return idleConnectionEvictionInterval;
+	}
+
+	/**
+	 * Get the maximum time in {@link TimeUnit#MILLISECONDS} that a pooled connection is
+	 * kept, regardless of activity.
+	 *
+	 * @return the connection time to live; can be {@literal null if not explicitly set}
+	 */
+	public Long getConnectionTimeToLive() {
+		return connectionTimeToLive;
+	}
+
+	/**
+	 * Get the time in {@link TimeUnit#MILLISECONDS} that an idle connection is kept
+	 * alive for re-use, when the server does not specify a shorter time.
+	 *
+	 * @return the keep-alive duration; can be {@literal null if not explicitly set}
+	 */
+	public Long getKeepAliveDuration() {
+		return keepAliveDuration;
+	}
+
+	/**
+	 * Get whether HTTP/2 is preferred. When HTTP/2 is preferred and OkHttp3 is
+	 * available, concurrent requests to CredHub are multiplexed over a shared
+	 * connection. HTTP/2 is negotiated with ALPN over TLS; requests fall back to
+	 * HTTP/1.1 when the server or the JVM does not support it. Concurrent requests are
+	 * then limited by the total connection limit rather than the per-route limit.
+	 *
+	 * @return {@literal true} if HTTP/2 is preferred
+	 */
+	public boolean isHttp2() {
+		return http2;
+	}
+
+	/**
+	 * Get the number of connections to CredHub that are opened when the client is
+	 * initialized, so that the first requests do not pay for connecting and for a full
+	 * TLS handshake.
+	 *
+	 * @return the number of connections opened at startup; can be
+	 * {@literal null if not explicitly set}
+	 */
+	public Integer getPrewarmConnections() {
+		return prewarmConnections;
+	}
+
+	/**
+	 * Get the maximum number of TLS sessions cached for resumption. The setting is
+	 * applied to the client session cache of the JVM default
+	 * {@link javax.net.ssl.SSLContext}, so it affects every TLS client in the JVM that
+	 * uses the default context.
+	 *
+	 * @return the maximum number of cached TLS sessions; can be
+	 * {@literal null if not explicitly set}
+	 */
+	public Integer getSslSessionCacheSize() {
+		return sslSessionCacheSize;
+	}
+
+	/**
+	 * Get the time in {@link TimeUnit#MILLISECONDS} that a cached TLS session can be
+	 * resumed, so that new connections skip the full TLS handshake. The setting is
+	 * applied to the client session cache of the JVM default
+	 * {@link javax.net.ssl.SSLContext}, so it affects every TLS client in the JVM that
+	 * uses the default context.
+	 *
+	 * @return the TLS session timeout; can be {@literal null if not explicitly set}
+	 */
+	public Long getSslSessionTimeout() {
+		return sslSessionTimeout;
+	}
+
+	/**
+	 * Get whether blocking HTTP exchanges run on virtual threads instead of platform
+	 * threads. Virtual threads require Java 21 or later.
+	 *
+	 * @return {@literal true} if virtual threads are used
+	 */
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for providing the values required
+	 * to construct a {@link ClientOptions}.
+	 *
+	 * @return a builder
+	 */
+	public static ClientOptionsBuilder builder() {
+		return new ClientOptionsBuilder();
+	}
+
+	/**
+	 * A builder that provides a fluent API for constructing {@link ClientOptions}
+	 * instances.
+	 */
+	public static class ClientOptionsBuilder {
+		private Integer connectionTimeout;
+		private Integer readTimeout;
+		private Integer maxConnectionsTotal;
+		private Integer maxConnectionsPerRoute;
+		private Long idleConnectionEvictionInterval;
+		private Long connectionTimeToLive;
+		private Long keepAliveDuration;
+		private boolean http2;
+		private Integer prewarmConnections;
+		private Integer sslSessionCacheSize;
+		private Long sslSessionTimeout;
+		private boolean virtualThreads;
+
+		ClientOptionsBuilder() {
+		}
+
+		/**
+		 * Set the connection timeout.
+		 *
+		 * @param connectionTimeout connection timeout in {@link TimeUnit#MILLISECONDS};
+		 * must be greater than {@literal 0}
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder connectionTimeout(int connectionTimeout) {
+			Assert.isTrue(connectionTimeout > 0, "connectionTimeout must be greater than 0");
+			this.connectionTimeout = connectionTimeout;
+			return this;
+		}
+
+		/**
+		 * Set the read timeout.
+		 *
+		 * @param readTimeout read timeout in {@link TimeUnit#MILLISECONDS}; must be
+		 * greater than {@literal 0}
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder readTimeout(int readTimeout) {
+			Assert.isTrue(readTimeout > 0, "readTimeout must be greater than 0");
+			this.readTimeout = readTimeout;
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of connections held in the connection pool.
+		 *
+		 * @param maxConnectionsTotal the maximum number of connections; must be greater
+		 * than {@literal 0}
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder maxConnectionsTotal(int maxConnectionsTotal) {
+			Assert.isTrue(maxConnectionsTotal > 0, "maxConnectionsTotal must be greater than 0");
+			this.maxConnectionsTotal = maxConnectionsTotal;
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of connections to a single host held in the
+		 * connection pool.
+		 *
+		 * @param maxConnectionsPerRoute the maximum number of connections per host; must
+		 * be greater than {@literal 0}
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+			Assert.isTrue(maxConnectionsPerRoute > 0, "maxConnectionsPerRoute must be greater than 0");
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			return this;
+		}
+
+		/**
+		 * Set the time after which idle connections are evicted from the connection pool.
+		 *
+		 * @param interval the idle connection eviction interval; must be greater than
+		 * {@literal 0}
+		 * @param unit the {@link TimeUnit} of the interval; must not be {@literal null}
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder idleConnectionEvictionInterval(long interval, TimeUnit unit) {
+			Assert.isTrue(interval > 0, "idleConnectionEvictionInterval must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.idleConnectionEvictionInterval = unit.toMillis(interval);
+			return this;
+		}
+
+		/**
+		 * Set the maximum time that a pooled connection is kept, regardless of activity.
+		 *
+		 * @param timeToLive the connection time to live; must be greater than {@literal 0}
+		 * @param unit the {@link TimeUnit} of the time to live; must not be {@literal null}
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder connectionTimeToLive(long timeToLive, TimeUnit unit) {
+			Assert.isTrue(timeToLive > 0, "connectionTimeToLive must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.connectionTimeToLive = unit.toMillis(timeToLive);
+			return this;
+		}
+
+		/**
+		 * Set the time that an idle connection is kept alive for re-use.
+		 *
+		 * @param keepAlive the keep-alive duration; must be greater than {@literal 0}
+		 * @param unit the {@link TimeUnit} of the keep-alive duration; must not be
+		 * {@literal null}
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder keepAliveDuration(long keepAlive, TimeUnit unit) {
+			Assert.isTrue(keepAlive > 0, "keepAliveDuration must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.keepAliveDuration = unit.toMillis(keepAlive);
+			return this;
+		}
+
+		/**
+		 * Set whether HTTP/2 is preferred. HTTP/2 requires OkHttp3; with other client
+		 * libraries requests use HTTP/1.1.
+		 *
+		 * @param http2 {@literal true} to prefer HTTP/2
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder http2(boolean http2) {
+			this.http2 = http2;
+			return this;
+		}
+
+		/**
+		 * Set the number of connections to CredHub that are opened when the client is
+		 * initialized.
+		 *
+		 * @param prewarmConnections the number of connections; must be greater than
+		 * {@literal 0} and not greater than {@link #maxConnectionsPerRoute(int)} or
+		 * {@link #maxConnectionsTotal(int)} when those are set
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder prewarmConnections(int prewarmConnections) {
+			Assert.isTrue(prewarmConnections > 0, "prewarmConnections must be greater than 0");
+			this.prewarmConnections = prewarmConnections;
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of TLS sessions cached for resumption.
+		 *
+		 * @param sslSessionCacheSize the maximum number of cached TLS sessions; must be
+		 * greater than {@literal 0}
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder sslSessionCacheSize(int sslSessionCacheSize) {
+			Assert.isTrue(sslSessionCacheSize > 0, "sslSessionCacheSize must be greater than 0");
+			this.sslSessionCacheSize = sslSessionCacheSize;
+			return this;
+		}
+
+		/**
+		 * Set the time that a cached TLS session can be resumed.
+		 *
+		 * @param timeout the TLS session timeout; must be at least one second
+		 * @param unit the {@link TimeUnit} of the timeout; must not be {@literal null}
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder sslSessionTimeout(long timeout, TimeUnit unit) {
+			Assert.notNull(unit, "unit must not be null");
+			Assert.isTrue(unit.toSeconds(timeout) > 0, "sslSessionTimeout must be at least one second");
+			this.sslSessionTimeout = unit.toMillis(timeout);
+			return this;
+		}
+
+		/**
+		 * Set whether blocking HTTP exchanges run on virtual threads. Virtual threads
+		 * require Java 21 or later; with earlier versions platform threads are used.
+		 *
+		 * @param virtualThreads {@literal true} to use virtual threads
+		 * @return the builder
+		 */
+		public ClientOptionsBuilder virtualThreads(boolean virtualThreads) {
+			this.virtualThreads = virtualThreads;
+			return this;
+		}
+
+		/**
+		 * Construct a {@link ClientOptions} with the provided values.
+		 *
+		 * @return a {@link ClientOptions}
+		 */
+		public ClientOptions build() {
+			if (prewarmConnections != null) {
+				Assert.isTrue(maxConnectionsPerRoute == null || prewarmConnections <= maxConnectionsPerRoute,
+						"prewarmConnections must not be greater than maxConnectionsPerRoute");
+				Assert.isTrue(maxConnectionsTotal == null || prewarmConnections <= maxConnectionsTotal,
+						"prewarmConnections must not be greater than maxConnectionsTotal");
+			}
+
+			return new ClientOptions(connectionTimeout, readTimeout, maxConnectionsTotal,
+					maxConnectionsPerRoute, idleConnectionEvictionInterval, connectionTimeToLive,
+					keepAliveDuration, http2, prewarmConnections, sslSessionCacheSize,
+					sslSessionTimeout, virtualThreads);
+		}
+	}
+}
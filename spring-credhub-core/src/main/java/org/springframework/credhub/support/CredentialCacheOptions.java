@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * Options for caching credentials retrieved from CredHub on the client.
+ *
+ * @author Scott Frederick
+ */
+public class CredentialCacheOptions {
+	static final int DEFAULT_MAXIMUM_SIZE = 1000;
+	static final long DEFAULT_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(1);
+	static final long DEFAULT_STALE_TIME_TO_LIVE = 0;
+	static final int DEFAULT_NOT_FOUND_MAXIMUM_SIZE = 100;
+	static final long DEFAULT_NOT_FOUND_TIME_TO_LIVE = 0;
+
+	/**
+	 * Maximum number of cached credentials;
+	 */
+	private final int maximumSize;
+
+	/**
+	 * Time to live of a cached credential;
+	 */
+	private final long timeToLive;
+
+	/**
+	 * Time an expired credential is served while it is refreshed;
+	 */
+	private final long staleTimeToLive;
+
+	/**
+	 * Maximum number of cached credential names that were not found;
+	 */
+	private final int notFoundMaximumSize;
+
+	/**
+	 * Time to live of a cached credential name that was not found;
+	 */
+	private final long notFoundTimeToLive;
+
+	private CredentialCacheOptions(int maximumSize, long timeToLive, long staleTimeToLive,
+			int notFoundMaximumSize, long notFoundTimeToLive) {
+		this.maximumSize = maximumSize;
+		this.timeToLive = timeToLive;
+		this.staleTimeToLive = staleTimeToLive;
+		this.notFoundMaximumSize = notFoundMaximumSize;
+		this.notFoundTimeToLive = notFoundTimeToLive;
+	}
+
+	/**
+	 * Get the maximum number of credentials held in the cache. When the cache is full
+	 * the least recently used credential is evicted.
+	 *
+	 * @return the maximum number of cached credentials
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Get the time to live of a cached credential in {@link TimeUnit#MILLISECONDS}.
+	 *
+	 * @return the time to live
+	 */
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	/**
+	 * Get the time in {@link TimeUnit#MILLISECONDS} after a cached credential expires
+	 * during which the expired credential is still returned while it is refreshed in the
+	 * background. Once this time has passed, callers wait for the credential to be
+	 * retrieved from CredHub. A value of {@literal 0} disables background refresh.
+	 *
+	 * @return the stale time to live
+	 */
+	public long getStaleTimeToLive() {
+		return staleTimeToLive;
+	}
+
+	/**
+	 * Get the maximum number of credential names that CredHub reported as not found
+	 * held in the cache. When the cache is full the least recently used name is evicted.
+	 *
+	 * @return the maximum number of cached names that were not found
+	 */
+	public int getNotFoundMaximumSize() {
+		return notFoundMaximumSize;
+	}
+
+	/**
+	 * Get the time in {@link TimeUnit#MILLISECONDS} for which a credential name that
+	 * CredHub reported as not found is remembered, so that retrieving it again fails
+	 * without calling CredHub. A value of {@literal 0} disables caching of names that
+	 * were not found.
+	 *
+	 * @return the time to live of a name that was not found
+	 */
+	public long getNotFoundTimeToLive() {
+		return notFoundTimeToLive;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for providing the values required
+	 * to construct a {@link CredentialCacheOptions}.
+	 *
+	 * @return a builder
+	 */
+	public static CredentialCacheOptionsBuilder builder() {
+		return new CredentialCacheOptionsBuilder();
+	}
+
+	@Override
+	public String toString() {
+		return "CredentialCacheOptions{"
+				+ "maximumSize=" + maximumSize
+				+ ", timeToLive=" + timeToLive
+				+ ", staleTimeToLive=" + staleTimeToLive
+				+ ", notFoundMaximumSize=" + notFoundMaximumSize
+				+ ", notFoundTimeToLive=" + notFoundTimeToLive
+				+ '}';
+	}
+
+	/**
+	 * A builder that provides a fluent API for constructing {@link CredentialCacheOptions}
+	 * instances.
+	 */
+	public static class CredentialCacheOptionsBuilder {
+		private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+		private long timeToLive = DEFAULT_TIME_TO_LIVE;
+		private long staleTimeToLive = DEFAULT_STALE_TIME_TO_LIVE;
+		private int notFoundMaximumSize = DEFAULT_NOT_FOUND_MAXIMUM_SIZE;
+		private long notFoundTimeToLive = DEFAULT_NOT_FOUND_TIME_TO_LIVE;
+
+		CredentialCacheOptionsBuilder() {
+		}
+
+		/**
+		 * Set the maximum number of credentials held in the cache.
+		 *
+		 * @param maximumSize the maximum number of cached credentials; must be greater
+		 * than {@literal 0}
+		 * @return the builder
+		 */
+		public CredentialCacheOptionsBuilder maximumSize(int maximumSize) {
+			Assert.isTrue(maximumSize > 0, "maximumSize must be greater than 0");
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * Set the time to live of a cached credential.
+		 *
+		 * @param timeToLive the time to live; must be greater than {@literal 0}
+		 * @param unit the {@link TimeUnit} of the time to live; must not be {@literal null}
+		 * @return the builder
+		 */
+		public CredentialCacheOptionsBuilder timeToLive(long timeToLive, TimeUnit unit) {
+			Assert.isTrue(timeToLive > 0, "timeToLive must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.timeToLive = unit.toMillis(timeToLive);
+			return this;
+		}
+
+		/**
+		 * Set the time after a cached credential expires during which the expired
+		 * credential is still returned while a single background request refreshes it.
+		 * Once this time has passed, callers wait for the credential to be retrieved.
+		 *
+		 * @param staleTimeToLive the stale time to live; must not be negative
+		 * @param unit the {@link TimeUnit} of the stale time to live; must not be
+		 * {@literal null}
+		 * @return the builder
+		 */
+		public CredentialCacheOptionsBuilder staleTimeToLive(long staleTimeToLive, TimeUnit unit) {
+			Assert.isTrue(staleTimeToLive >= 0, "staleTimeToLive must not be negative");
+			Assert.notNull(unit, "unit must not be null");
+			this.staleTimeToLive = unit.toMillis(staleTimeToLive);
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of credential names that were not found held in the
+		 * cache.
+		 *
+		 * @param notFoundMaximumSize the maximum number of cached names that were not
+		 * found; must be greater than {@literal 0}
+		 * @return the builder
+		 */
+		public CredentialCacheOptionsBuilder notFoundMaximumSize(int notFoundMaximumSize) {
+			Assert.isTrue(notFoundMaximumSize > 0, "notFoundMaximumSize must be greater than 0");
+			this.notFoundMaximumSize = notFoundMaximumSize;
+			return this;
+		}
+
+		/**
+		 * Set the time for which a credential name that CredHub reported as not found is
+		 * remembered. Writing, generating, or deleting the credential through the caching
+		 * client removes the name from the cache.
+		 *
+		 * @param notFoundTimeToLive the time to live; must not be negative
+		 * @param unit the {@link TimeUnit} of the time to live; must not be {@literal null}
+		 * @return the builder
+		 */
+		public CredentialCacheOptionsBuilder notFoundTimeToLive(long notFoundTimeToLive, TimeUnit unit) {
+			Assert.isTrue(notFoundTimeToLive >= 0, "notFoundTimeToLive must not be negative");
+			Assert.notNull(unit, "unit must not be null");
+			this.notFoundTimeToLive = unit.toMillis(notFoundTimeToLive);
+			return this;
+		}
+
+		/**
+		 * Construct a {@link CredentialCacheOptions} with the provided values.
+		 *
+		 * @return a {@link CredentialCacheOptions}
+		 */
+		public CredentialCacheOptions build() {
+			return new CredentialCacheOptions(maximumSize, timeToLive, staleTimeToLive,
+					notFoundMaximumSize, notFoundTimeToLive);
+		}
+	}
+}
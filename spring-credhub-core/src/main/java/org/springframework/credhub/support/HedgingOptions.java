@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * Options for hedging requests that read from CredHub. If a response to a read has not
+ * been received within the hedging delay, an identical request is sent and the first
+ * response received is used. Setting the delay near a high percentile of the observed
+ * latency, such as the 95th, limits the effect of a slow CredHub instance on the
+ * slowest requests.
+ *
+ * The number of hedged requests is limited to a fraction of all reads, so that hedging
+ * cannot multiply the load on CredHub while it is degraded.
+ *
+ * @author Scott Frederick
+ */
+public class HedgingOptions {
+	static final long DEFAULT_DELAY = 100;
+	static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+
+	/**
+	 * Time to wait for a response before sending a hedged request;
+	 */
+	private final long delay;
+
+	/**
+	 * Maximum number of hedged requests as a fraction of all reads;
+	 */
+	private final double maxHedgeRatio;
+
+	private HedgingOptions(long delay, double maxHedgeRatio) {
+		this.delay = delay;
+		this.maxHedgeRatio = maxHedgeRatio;
+	}
+
+	/**
+	 * Get the time to wait for a response in {@link TimeUnit#MILLISECONDS} before
+	 * sending a hedged request.
+	 *
+	 * @return the hedging delay
+	 */
+	public long getDelay() {
+		return delay;
+	}
+
+	/**
+	 * Get the maximum number of hedged requests, as a fraction of all reads.
+	 *
+	 * @return the maximum hedge ratio
+	 */
+	public double getMaxHedgeRatio() {
+		return maxHedgeRatio;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for providing the values required
+	 * to construct a {@link HedgingOptions}.
+	 *
+	 * @return a builder
+	 */
+	public static HedgingOptionsBuilder builder() {
+		return new HedgingOptionsBuilder();
+	}
+
+	@Override
+	public String toString() {
+		return "HedgingOptions{"
+				+ "delay=" + delay
+				+ ", maxHedgeRatio=" + maxHedgeRatio
+				+ '}';
+	}
+
+	/**
+	 * A builder that provides a fluent API for constructing {@link HedgingOptions}
+	 * instances.
+	 */
+	public static class HedgingOptionsBuilder {
+		private long delay = DEFAULT_DELAY;
+		private double maxHedgeRatio = DEFAULT_MAX_HEDGE_RATIO;
+
+		HedgingOptionsBuilder() {
+		}
+
+		/**
+		 * Set the time to wait for a response before sending a hedged request.
+		 *
+		 * @param delay the hedging delay; must be greater than {@literal 0}
+		 * @param unit the {@link TimeUnit} of the delay; must not be {@literal null}
+		 * @return the builder
+		 */
+		public HedgingOptionsBuilder delay(long delay, TimeUnit unit) {
+			Assert.isTrue(delay > 0, "delay must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.delay = unit.toMillis(delay);
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of hedged requests, as a fraction of all reads.
+		 *
+		 * @param maxHedgeRatio the maximum hedge ratio; must be greater than
+		 * {@literal 0} and not greater than {@literal 1}
+		 * @return the builder
+		 */
+		public HedgingOptionsBuilder maxHedgeRatio(double maxHedgeRatio) {
+			Assert.isTrue(maxHedgeRatio > 0 && maxHedgeRatio <= 1,
+					"maxHedgeRatio must be greater than 0 and not greater than 1");
+			this.maxHedgeRatio = maxHedgeRatio;
+			return this;
+		}
+
+		/**
+		 * Construct a {@link HedgingOptions} with the provided values.
+		 *
+		 * @return a {@link HedgingOptions}
+		 */
+		public HedgingOptions build() {
+			return new HedgingOptions(delay, maxHedgeRatio);
+		}
+	}
+}
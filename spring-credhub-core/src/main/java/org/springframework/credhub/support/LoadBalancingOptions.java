@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * Options for balancing requests across several CredHub servers. A server that fails
+ * several requests in a row is ejected and receives no requests until the ejection
+ * duration has passed, after which it is admitted again. If every server is ejected,
+ * requests are sent to the server that is due to be admitted first.
+ *
+ * Server errors and I/O errors are counted as failures. Client errors such as
+ * {@literal 404 NOT_FOUND} are not.
+ *
+ * @author Scott Frederick
+ */
+public class LoadBalancingOptions {
+	static final LoadBalancingStrategy DEFAULT_STRATEGY = LoadBalancingStrategy.ROUND_ROBIN;
+	static final int DEFAULT_CONSECUTIVE_FAILURES = 3;
+	static final long DEFAULT_EJECTION_DURATION = TimeUnit.SECONDS.toMillis(30);
+	static final double DEFAULT_LATENCY_DECAY = 0.3;
+
+	/**
+	 * Strategy for choosing a server;
+	 */
+	private final LoadBalancingStrategy strategy;
+
+	/**
+	 * Number of consecutive failures that ejects a server;
+	 */
+	private final int consecutiveFailures;
+
+	/**
+	 * Time an ejected server receives no requests;
+	 */
+	private final long ejectionDuration;
+
+	/**
+	 * Weight of the latest response time in the latency average;
+	 */
+	private final double latencyDecay;
+
+	private LoadBalancingOptions(LoadBalancingStrategy strategy, int consecutiveFailures,
+			long ejectionDuration, double latencyDecay) {
+		this.strategy = strategy;
+		this.consecutiveFailures = consecutiveFailures;
+		this.ejectionDuration = ejectionDuration;
+		this.latencyDecay = latencyDecay;
+	}
+
+	/**
+	 * Get the strategy used to choose the server that receives a request.
+	 *
+	 * @return the load balancing strategy
+	 */
+	public LoadBalancingStrategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Get the number of consecutive failed requests after which a server is ejected.
+	 *
+	 * @return the number of consecutive failures
+	 */
+	public int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	/**
+	 * Get the time in {@link TimeUnit#MILLISECONDS} that an ejected server receives no
+	 * requests before it is admitted again.
+	 *
+	 * @return the ejection duration
+	 */
+	public long getEjectionDuration() {
+		return ejectionDuration;
+	}
+
+	/**
+	 * Get the weight given to the latest response time of a server when updating its
+	 * average response time. Used by {@link LoadBalancingStrategy#LATENCY_WEIGHTED}.
+	 *
+	 * @return the latency decay
+	 */
+	public double getLatencyDecay() {
+		return latencyDecay;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for providing the values required
+	 * to construct a {@link LoadBalancingOptions}.
+	 *
+	 * @return a builder
+	 */
+	public static LoadBalancingOptionsBuilder builder() {
+		return new LoadBalancingOptionsBuilder();
+	}
+
+	@Override
+	public String toString() {
+		return "LoadBalancingOptions{"
+				+ "strategy=" + strategy
+				+ ", consecutiveFailures=" + consecutiveFailures
+				+ ", ejectionDuration=" + ejectionDuration
+				+ ", latencyDecay=" + latencyDecay
+				+ '}';
+	}
+
+	/**
+	 * A builder that provides a fluent API for constructing {@link LoadBalancingOptions}
+	 * instances.
+	 */
+	public static class LoadBalancingOptionsBuilder {
+		private LoadBalancingStrategy strategy = DEFAULT_STRATEGY;
+		private int consecutiveFailures = DEFAULT_CONSECUTIVE_FAILURES;
+		private long ejectionDuration = DEFAULT_EJECTION_DURATION;
+		private double latencyDecay = DEFAULT_LATENCY_DECAY;
+
+		LoadBalancingOptionsBuilder() {
+		}
+
+		/**
+		 * Set the strategy used to choose the server that receives a request.
+		 *
+		 * @param strategy the load balancing strategy; must not be {@literal null}
+		 * @return the builder
+		 */
+		public LoadBalancingOptionsBuilder strategy(LoadBalancingStrategy strategy) {
+			Assert.notNull(strategy, "strategy must not be null");
+			this.strategy = strategy;
+			return this;
+		}
+
+		/**
+		 * Set the number of consecutive failed requests after which a server is ejected.
+		 *
+		 * @param consecutiveFailures the number of consecutive failures; must be greater
+		 * than {@literal 0}
+		 * @return the builder
+		 */
+		public LoadBalancingOptionsBuilder consecutiveFailures(int consecutiveFailures) {
+			Assert.isTrue(consecutiveFailures > 0, "consecutiveFailures must be greater than 0");
+			this.consecutiveFailures = consecutiveFailures;
+			return this;
+		}
+
+		/**
+		 * Set the time that an ejected server receives no requests.
+		 *
+		 * @param ejectionDuration the ejection duration; must be greater than {@literal 0}
+		 * @param unit the {@link TimeUnit} of the duration; must not be {@literal null}
+		 * @return the builder
+		 */
+		public LoadBalancingOptionsBuilder ejectionDuration(long ejectionDuration, TimeUnit unit) {
+			Assert.isTrue(ejectionDuration > 0, "ejectionDuration must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.ejectionDuration = unit.toMillis(ejectionDuration);
+			return this;
+		}
+
+		/**
+		 * Set the weight given to the latest response time of a server when updating its
+		 * average response time. Higher values react faster to changes in latency.
+		 *
+		 * @param latencyDecay the latency decay; must be greater than {@literal 0} and not
+		 * greater than {@literal 1}
+		 * @return the builder
+		 */
+		public LoadBalancingOptionsBuilder latencyDecay(double latencyDecay) {
+			Assert.isTrue(latencyDecay > 0 && latencyDecay <= 1,
+					"latencyDecay must be greater than 0 and not greater than 1");
+			this.latencyDecay = latencyDecay;
+			return this;
+		}
+
+		/**
+		 * Construct a {@link LoadBalancingOptions} with the provided values.
+		 *
+		 * @return a {@link LoadBalancingOptions}
+		 */
+		public LoadBalancingOptions build() {
+			return new LoadBalancingOptions(strategy, consecutiveFailures, ejectionDuration,
+					latencyDecay);
+		}
+	}
+}
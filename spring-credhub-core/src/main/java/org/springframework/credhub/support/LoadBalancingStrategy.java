@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.support;
+
+/**
+ * Strategies for choosing the CredHub server that receives a request when several
+ * CredHub servers are configured.
+ *
+ * @author Scott Frederick
+ * @see LoadBalancingOptions
+ */
+public enum LoadBalancingStrategy {
+	/**
+	 * Send requests to each server in turn.
+	 */
+	ROUND_ROBIN,
+
+	/**
+	 * Send each request to the server with the fewest requests in progress.
+	 */
+	LEAST_OUTSTANDING_REQUESTS,
+
+	/**
+	 * Send each request to the server with the lowest expected latency, based on an
+	 * exponentially weighted moving average of its response times and the number of
+	 * requests in progress.
+	 */
+	LATENCY_WEIGHTED
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+
+/**
+ * Options for retrying idempotent requests to CredHub that fail with a transient error,
+ * such as while CredHub is being redeployed.
+ *
+ * The delay before each retry grows exponentially from the initial backoff up to the
+ * maximum backoff, and is reduced by a random amount of up to the jitter fraction so
+ * that many clients do not retry at the same time. No retry is made once the time
+ * budget for the operation would be exceeded.
+ *
+ * @author Scott Frederick
+ */
+public class RetryOptions {
+	static final int DEFAULT_MAX_ATTEMPTS = 3;
+	static final long DEFAULT_INITIAL_BACKOFF = 100;
+	static final long DEFAULT_MAX_BACKOFF = TimeUnit.SECONDS.toMillis(2);
+	static final double DEFAULT_MULTIPLIER = 2.0;
+	static final double DEFAULT_JITTER = 0.5;
+	static final long DEFAULT_TIME_BUDGET = TimeUnit.SECONDS.toMillis(10);
+	static final Set<HttpStatus> DEFAULT_RETRY_ON = Collections.unmodifiableSet(EnumSet.of(
+			HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT));
+
+	/**
+	 * Maximum number of attempts, including the first;
+	 */
+	private final int maxAttempts;
+
+	/**
+	 * Delay before the first retry;
+	 */
+	private final long initialBackoff;
+
+	/**
+	 * Maximum delay before a retry;
+	 */
+	private final long maxBackoff;
+
+	/**
+	 * Factor applied to the delay after each retry;
+	 */
+	private final double multiplier;
+
+	/**
+	 * Fraction of the delay that is randomized;
+	 */
+	private final double jitter;
+
+	/**
+	 * Time allowed for all attempts of an operation;
+	 */
+	private final long timeBudget;
+
+	/**
+	 * HTTP status codes that are retried;
+	 */
+	private final Set<HttpStatus> retryOn;
+
+	/**
+	 * Whether I/O errors such as connection resets are retried;
+	 */
+	private final boolean retryOnIoErrors;
+
+	private RetryOptions(int maxAttempts, long initialBackoff, long maxBackoff, double multiplier,
+			double jitter, long timeBudget, Set<HttpStatus> retryOn, boolean retryOnIoErrors) {
+		this.maxAttempts = maxAttempts;
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+		this.timeBudget = timeBudget;
+		this.retryOn = retryOn;
+		this.retryOnIoErrors = retryOnIoErrors;
+	}
+
+	/**
+	 * Get the maximum number of attempts of an operation, including the first attempt.
+	 *
+	 * @return the maximum number of attempts
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Get the delay before the first retry in {@link TimeUnit#MILLISECONDS}.
+	 *
+	 * @return the initial backoff
+	 */
+	public long getInitialBackoff() {
+		return initialBackoff;
+	}
+
+	/**
+	 * Get the maximum delay before a retry in {@link TimeUnit#MILLISECONDS}.
+	 *
+	 * @return the maximum backoff
+	 */
+	public long getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	/**
+	 * Get the factor by which the delay grows after each retry.
+	 *
+	 * @return the backoff multiplier
+	 */
+	public double getMultiplier() {
+		return multiplier;
+	}
+
+	/**
+	 * Get the fraction of each delay, between {@literal 0} and {@literal 1}, that is
+	 * randomly removed.
+	 *
+	 * @return the jitter
+	 */
+	public double getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * Get the time allowed for all attempts of an operation in
+	 * {@link TimeUnit#MILLISECONDS}, including the delays between attempts.
+	 *
+	 * @return the time budget
+	 */
+	public long getTimeBudget() {
+		return timeBudget;
+	}
+
+	/**
+	 * Get the HTTP status codes returned by CredHub that cause a request to be retried.
+	 *
+	 * @return the retryable status codes
+	 */
+	public Set<HttpStatus> getRetryOn() {
+		return retryOn;
+	}
+
+	/**
+	 * Get whether requests that fail with an I/O error, such as a connection reset or
+	 * timeout, are retried.
+	 *
+	 * @return {@literal true} if I/O errors are retried
+	 */
+	public boolean isRetryOnIoErrors() {
+		return retryOnIoErrors;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for providing the values required
+	 * to construct a {@link RetryOptions}.
+	 *
+	 * @return a builder
+	 */
+	public static RetryOptionsBuilder builder() {
+		return new RetryOptionsBuilder();
+	}
+
+	@Override
+	public String toString() {
+		return "RetryOptions{"
+				+ "maxAttempts=" + maxAttempts
+				+ ", initialBackoff=" + initialBackoff
+				+ ", maxBackoff=" + maxBackoff
+				+ ", multiplier=" + multiplier
+				+ ", jitter=" + jitter
+				+ ", timeBudget=" + timeBudget
+				+ ", retryOn=" + retryOn
+				+ ", retryOnIoErrors=" + retryOnIoErrors
+				+ '}';
+	}
+
+	/**
+	 * A builder that provides a fluent API for constructing {@link RetryOptions}
+	 * instances.
+	 */
+	public static class RetryOptionsBuilder {
+		private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+		private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+		private long maxBackoff = DEFAULT_MAX_BACKOFF;
+		private double multiplier = DEFAULT_MULTIPLIER;
+		private double jitter = DEFAULT_JITTER;
+		private long timeBudget = DEFAULT_TIME_BUDGET;
+		private Set<HttpStatus> retryOn = DEFAULT_RETRY_ON;
+		private boolean retryOnIoErrors = true;
+
+		RetryOptionsBuilder() {
+		}
+
+		/**
+		 * Set the maximum number of attempts of an operation, including the first.
+		 *
+		 * @param maxAttempts the maximum number of attempts; must be greater than
+		 * {@literal 0}
+		 * @return the builder
+		 */
+		public RetryOptionsBuilder maxAttempts(int maxAttempts) {
+			Assert.isTrue(maxAttempts > 0, "maxAttempts must be greater than 0");
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * Set the delay before the first retry.
+		 *
+		 * @param initialBackoff the initial backoff; must not be negative
+		 * @param unit the {@link TimeUnit} of the backoff; must not be {@literal null}
+		 * @return the builder
+		 */
+		public RetryOptionsBuilder initialBackoff(long initialBackoff, TimeUnit unit) {
+			Assert.isTrue(initialBackoff >= 0, "initialBackoff must not be negative");
+			Assert.notNull(unit, "unit must not be null");
+			this.initialBackoff = unit.toMillis(initialBackoff);
+			return this;
+		}
+
+		/**
+		 * Set the maximum delay before a retry.
+		 *
+		 * @param maxBackoff the maximum backoff; must not be negative
+		 * @param unit the {@link TimeUnit} of the backoff; must not be {@literal null}
+		 * @return the builder
+		 */
+		public RetryOptionsBuilder maxBackoff(long maxBackoff, TimeUnit unit) {
+			Assert.isTrue(maxBackoff >= 0, "maxBackoff must not be negative");
+			Assert.notNull(unit, "unit must not be null");
+			this.maxBackoff = unit.toMillis(maxBackoff);
+			return this;
+		}
+
+		/**
+		 * Set the factor by which the delay grows after each retry.
+		 *
+		 * @param multiplier the backoff multiplier; must be at least {@literal 1}
+		 * @return the builder
+		 */
+		public RetryOptionsBuilder multiplier(double multiplier) {
+			Assert.isTrue(multiplier >= 1, "multiplier must be at least 1");
+			this.multiplier = multiplier;
+			return this;
+		}
+
+		/**
+		 * Set the fraction of each delay that is randomly removed.
+		 *
+		 * @param jitter the jitter; must be between {@literal 0} and {@literal 1}
+		 * @return the builder
+		 */
+		public RetryOptionsBuilder jitter(double jitter) {
+			Assert.isTrue(jitter >= 0 && jitter <= 1, "jitter must be between 0 and 1");
+			this.jitter = jitter;
+			return this;
+		}
+
+		/**
+		 * Set the time allowed for all attempts of an operation.
+		 *
+		 * @param timeBudget the time budget; must be greater than {@literal 0}
+		 * @param unit the {@link TimeUnit} of the time budget; must not be {@literal null}
+		 * @return the builder
+		 */
+		public RetryOptionsBuilder timeBudget(long timeBudget, TimeUnit unit) {
+			Assert.isTrue(timeBudget > 0, "timeBudget must be greater than 0");
+			Assert.notNull(unit, "unit must not be null");
+			this.timeBudget = unit.toMillis(timeBudget);
+			return this;
+		}
+
+		/**
+		 * Set the HTTP status codes returned by CredHub that cause a request to be
+		 * retried.
+		 *
+		 * @param statusCodes the retryable status codes; must not be {@literal null}
+		 * @return the builder
+		 */
+		public RetryOptionsBuilder retryOn(HttpStatus... statusCodes) {
+			Assert.notNull(statusCodes, "statusCodes must not be null");
+			this.retryOn = statusCodes.length == 0 ? Collections.<HttpStatus>emptySet()
+					: Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(statusCodes)));
+			return this;
+		}
+
+		/**
+		 * Set whether requests that fail with an I/O error are retried.
+		 *
+		 * @param retryOnIoErrors {@literal true} to retry I/O errors
+		 * @return the builder
+		 */
+		public RetryOptionsBuilder retryOnIoErrors(boolean retryOnIoErrors) {
+			this.retryOnIoErrors = retryOnIoErrors;
+			return this;
+		}
+
+		/**
+		 * Construct a {@link RetryOptions} with the provided values.
+		 *
+		 * @return a {@link RetryOptions}
+		 */
+		public RetryOptions build() {
+			Assert.isTrue(maxBackoff >= initialBackoff, "maxBackoff must not be less than initialBackoff");
+			return new RetryOptions(maxAttempts, initialBackoff, maxBackoff, multiplier, jitter,
+					timeBudget, retryOn, retryOnIoErrors);
+		}
+	}
+}
@@ -61,6 +61,9 @@ import java.util.Map;
  * to a {@literal Map}.
  */
 public class ServicesData extends HashMap<String, List<Map<String, Object>>> {
+	private static final String CREDENTIALS_KEY = "credentials";
+	private static final String CREDHUB_REF_KEY = "credhub-ref";
+
 	public ServicesData() {
 	}
 
@@ -72,4 +75,81 @@ public class ServicesData extends HashMap<String, List<Map<String, Object>>> {
 	public ServicesData(HashMap<String, List<Map<String, Object>>> data) {
 		super(data);
 	}
+
+	/**
+	 * Determine whether any bound service has a {@literal credentials} block containing a
+	 * reference to a CredHub credential, of the form
+	 * <pre>
+	 * {@code
+	 * "credentials": {
+	 *   "credhub-ref": "((/c/service-broker/service-instance/binding/credentials-json))"
+	 * }
+	 * }
+	 * </pre>
+	 *
+	 * The scan stops at the first reference found, and does not look inside
+	 * {@literal credentials} blocks beyond the {@literal credhub-ref} key.
+	 *
+	 * @return {@literal true} if the service data contains at least one CredHub reference
+	 */
+	public boolean containsCredHubReferences() {
+		return containsCredHubReferences(this);
+	}
+
+	/**
+	 * Determine whether any bound service in the provided service data has a
+	 * {@literal credentials} block containing a reference to a CredHub credential. This
+	 * allows service data parsed by another library to be checked without first copying
+	 * it into a {@link ServicesData}.
+	 *
+	 * @param data service data parsed from {@literal VCAP_SERVICES}
+	 * @return {@literal true} if the service data contains at least one CredHub reference
+	 * @see #containsCredHubReferences()
+	 */
+	public static boolean containsCredHubReferences(Map<String, ? extends List<Map<String, Object>>> data) {
+		if (data == null) {
+			return false;
+		}
+		for (List<Map<String, Object>> services : data.values()) {
+			if (services == null) {
+				continue;
+			}
+			for (Map<String, Object> service : services) {
+				if (getCredHubReference(service) != null) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the name of the CredHub credential referenced by the {@literal credentials}
+	 * block of a bound service, if there is one.
+	 *
+	 * @param service a bound service from the service data
+	 * @return the referenced credential name, without the enclosing parentheses, or
+	 * {@literal null} if the service does not contain a CredHub reference
+	 */
+	public static String getCredHubReference(Map<String, Object> service) {
+		if (service == null) {
+			return null;
+		}
+
+		Object credentials = service.get(CREDENTIALS_KEY);
+		if (!(credentials instanceof Map)) {
+			return null;
+		}
+
+		Object reference = ((Map<?, ?>) credentials).get(CREDHUB_REF_KEY);
+		if (!(reference instanceof String)) {
+			return null;
+		}
+
+		String value = ((String) reference).trim();
+		if (value.startsWith("((") && value.endsWith("))")) {
+			value = value.substring(2, value.length() - 2).trim();
+		}
+		return value.isEmpty() ? null : value;
+	}
 }
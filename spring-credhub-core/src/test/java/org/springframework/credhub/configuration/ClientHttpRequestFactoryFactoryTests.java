@@ -16,23 +16,46 @@
 
 package org.springframework.credhub.configuration;
 
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+import io.netty.channel.EventLoopGroup;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.apache.http.client.HttpClient;
+import org.apache.http.config.Lookup;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.junit.Test;
 
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.HttpComponents;
+import org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.Netty;
+import org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.OkHttp3;
+import org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.SharedConnectionManager;
+import org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.SharedConnectionManagerLifecycle;
 import org.springframework.credhub.support.ClientOptions;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.Netty4ClientHttpRequestFactory;
 import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
 import org.springframework.http.client.OkHttpClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.HttpComponents.usingHttpComponents;
 import static org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.HttpURLConnection.usingJdk;
+import static org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.HttpURLConnection.usingJdkAsync;
 import static org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.Netty.usingNetty;
 import static org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.OkHttp.usingOkHttp;
 import static org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.OkHttp3.usingOkHttp3;
@@ -45,6 +68,36 @@ public class ClientHttpRequestFactoryFactoryTests {
 		assertThat(factory, instanceOf(SimpleClientHttpRequestFactory.class));
 	}
 
+	@Test
+	public void jdkAsyncClientCreated() throws Exception {
+		AsyncClientHttpRequestFactory factory = usingJdkAsync(new ClientOptions());
+
+		assertThat(factory, instanceOf(SimpleClientHttpRequestFactory.class));
+	}
+
+	@Test
+	public void jdkAsyncClientCreatedWithVirtualThreads() throws Exception {
+		ClientOptions options = ClientOptions.builder().virtualThreads(true).build();
+
+		AsyncClientHttpRequestFactory factory = usingJdkAsync(options);
+
+		SimpleAsyncTaskExecutor taskExecutor =
+				(SimpleAsyncTaskExecutor) ReflectionTestUtils.getField(factory, "taskExecutor");
+
+		assertThat(taskExecutor.isThrottleActive(), equalTo(false));
+		assertThat(taskExecutor.getThreadFactory() != null,
+				equalTo(TaskExecutorFactory.isVirtualThreadsSupported()));
+	}
+
+	@Test
+	public void asyncClientPrefersNetty() throws Exception {
+		AsyncClientHttpRequestFactory factory = ClientHttpRequestFactoryFactory.createAsync(new ClientOptions());
+
+		assertThat(factory, instanceOf(Netty4ClientHttpRequestFactory.class));
+
+		((DisposableBean) factory).destroy();
+	}
+
 	@Test
 	public void httpComponentsClientCreated() throws Exception {
 		ClientHttpRequestFactory factory = usingHttpComponents(new ClientOptions());
@@ -76,6 +129,137 @@ public class ClientHttpRequestFactoryFactoryTests {
 		((DisposableBean) factory).destroy();
 	}
 
+	@Test
+	public void httpComponentsClientCreatedWithConnectionPoolOptions() throws Exception {
+		ClientHttpRequestFactory factory = usingHttpComponents(connectionPoolOptions());
+
+		assertThat(factory, instanceOf(HttpComponentsClientHttpRequestFactory.class));
+
+		((DisposableBean) factory).destroy();
+	}
+
+	@Test
+	public void okHttpClientCreatedWithConnectionPoolOptions() throws Exception {
+		OkHttpClientHttpRequestFactory factory = usingOkHttp(connectionPoolOptions());
+
+		com.squareup.okhttp.OkHttpClient client =
+				(com.squareup.okhttp.OkHttpClient) ReflectionTestUtils.getField(factory, "client");
+
+		assertThat(client.getDispatcher().getMaxRequests(), equalTo(50));
+		assertThat(client.getDispatcher().getMaxRequestsPerHost(), equalTo(20));
+
+		factory.destroy();
+	}
+
+	@Test
+	public void okHttp3ClientCreatedWithConnectionPoolOptions() throws Exception {
+		OkHttp3ClientHttpRequestFactory factory = usingOkHttp3(connectionPoolOptions());
+
+		OkHttpClient client = (OkHttpClient) ReflectionTestUtils.getField(factory, "client");
+
+		assertThat(client.dispatcher().getMaxRequests(), equalTo(50));
+		assertThat(client.dispatcher().getMaxRequestsPerHost(), equalTo(20));
+
+		factory.destroy();
+	}
+
+	@Test
+	public void http2PrefersOkHttp3() throws Exception {
+		ClientOptions options = ClientOptions.builder().http2(true).build();
+
+		ClientHttpRequestFactory factory = ClientHttpRequestFactoryFactory.create(options);
+
+		assertThat(factory, instanceOf(OkHttp3ClientHttpRequestFactory.class));
+
+		OkHttpClient client = (OkHttpClient) ReflectionTestUtils.getField(factory, "client");
+
+		assertThat(client.protocols(), contains(Protocol.HTTP_2, Protocol.HTTP_1_1));
+
+		((DisposableBean) factory).destroy();
+	}
+
+	@Test
+	public void http2RequestsPerHostLimitedByMaxRequests() throws Exception {
+		ClientOptions options = ClientOptions.builder()
+				.http2(true)
+				.maxConnectionsTotal(50)
+				.maxConnectionsPerRoute(20)
+				.build();
+
+		ClientHttpRequestFactory factory = ClientHttpRequestFactoryFactory.create(options);
+
+		OkHttpClient client = (OkHttpClient) ReflectionTestUtils.getField(factory, "client");
+
+		assertThat(client.dispatcher().getMaxRequests(), equalTo(50));
+		assertThat(client.dispatcher().getMaxRequestsPerHost(), equalTo(50));
+
+		((DisposableBean) factory).destroy();
+	}
+
+	@Test
+	public void http2AsyncClientPrefersOkHttp3() throws Exception {
+		ClientOptions options = ClientOptions.builder().http2(true).build();
+
+		AsyncClientHttpRequestFactory factory = ClientHttpRequestFactoryFactory.createAsync(options);
+
+		assertThat(factory, instanceOf(OkHttp3ClientHttpRequestFactory.class));
+
+		((DisposableBean) factory).destroy();
+	}
+
+	@Test
+	public void sslSessionCacheConfigured() throws Exception {
+		SSLContext defaultContext = SSLContext.getDefault();
+		SSLSessionContext sessionContext = defaultContext.getClientSessionContext();
+		int defaultCacheSize = sessionContext.getSessionCacheSize();
+		int defaultTimeout = sessionContext.getSessionTimeout();
+
+		ClientOptions options = ClientOptions.builder()
+				.sslSessionCacheSize(500)
+				.sslSessionTimeout(2, TimeUnit.HOURS)
+				.build();
+
+		try {
+			SSLContext sslContext = ClientHttpRequestFactoryFactory.getSslContext(options);
+
+			assertThat(sslContext, sameInstance(defaultContext));
+			assertThat(sessionContext.getSessionCacheSize(), equalTo(500));
+			assertThat(sessionContext.getSessionTimeout(), equalTo(7200));
+		}
+		finally {
+			sessionContext.setSessionCacheSize(defaultCacheSize);
+			sessionContext.setSessionTimeout(defaultTimeout);
+		}
+	}
+
+	@Test
+	public void defaultSslContextUsedWithoutSessionCacheOptions() throws Exception {
+		assertThat(ClientHttpRequestFactoryFactory.getSslContext(new ClientOptions()),
+				sameInstance(SSLContext.getDefault()));
+	}
+
+	@Test
+	public void customDefaultSslContextUsedWithSessionCacheOptions() throws Exception {
+		SSLContext originalDefault = SSLContext.getDefault();
+		SSLContext customContext = SSLContext.getInstance("TLS");
+		customContext.init(null, null, null);
+
+		ClientOptions options = ClientOptions.builder()
+				.sslSessionCacheSize(250)
+				.build();
+
+		SSLContext.setDefault(customContext);
+		try {
+			SSLContext sslContext = ClientHttpRequestFactoryFactory.getSslContext(options);
+
+			assertThat(sslContext, sameInstance(customContext));
+			assertThat(customContext.getClientSessionContext().getSessionCacheSize(), equalTo(250));
+		}
+		finally {
+			SSLContext.setDefault(originalDefault);
+		}
+	}
+
 	@Test
 	public void nettyClientCreated() throws Exception {
 		ClientHttpRequestFactory factory = usingNetty(new ClientOptions());
@@ -84,4 +268,110 @@ public class ClientHttpRequestFactoryFactoryTests {
 
 		((DisposableBean) factory).destroy();
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void okHttp3ClientsShareResources() throws Exception {
+		SharedClientHttpResources resources = new SharedClientHttpResources(connectionPoolOptions());
+
+		OkHttp3ClientHttpRequestFactory first = usingOkHttp3(new ClientOptions(), resources);
+		OkHttp3ClientHttpRequestFactory second = usingOkHttp3(new ClientOptions(), resources);
+
+		OkHttpClient firstClient = (OkHttpClient) ReflectionTestUtils.getField(first, "client");
+		OkHttpClient secondClient = (OkHttpClient) ReflectionTestUtils.getField(second, "client");
+
+		assertThat(firstClient.dispatcher(), sameInstance(secondClient.dispatcher()));
+		assertThat(firstClient.connectionPool(), sameInstance(secondClient.connectionPool()));
+		assertThat(firstClient.dispatcher().getMaxRequests(), equalTo(50));
+		assertThat(resources.getReferenceCount(OkHttp3.SHARED_CLIENT), equalTo(2));
+
+		first.destroy();
+
+		assertThat(resources.getReferenceCount(OkHttp3.SHARED_CLIENT), equalTo(1));
+		assertThat(secondClient.dispatcher().executorService().isShutdown(), equalTo(false));
+
+		second.destroy();
+
+		assertThat(resources.getReferenceCount(OkHttp3.SHARED_CLIENT), equalTo(0));
+		assertThat(secondClient.dispatcher().executorService().isShutdown(), equalTo(true));
+	}
+
+	@Test
+	public void nettyClientsShareEventLoopGroup() throws Exception {
+		SharedClientHttpResources resources = new SharedClientHttpResources();
+
+		Netty4ClientHttpRequestFactory first = usingNetty(new ClientOptions(), resources);
+		Netty4ClientHttpRequestFactory second = usingNetty(new ClientOptions(), resources);
+
+		EventLoopGroup eventLoopGroup = (EventLoopGroup) ReflectionTestUtils.getField(first, "eventLoopGroup");
+
+		assertThat(ReflectionTestUtils.getField(second, "eventLoopGroup"), sameInstance((Object) eventLoopGroup));
+
+		first.destroy();
+
+		assertThat(eventLoopGroup.isShuttingDown(), equalTo(false));
+
+		second.destroy();
+
+		assertThat(eventLoopGroup.isShuttingDown(), equalTo(true));
+		assertThat(resources.getReferenceCount(Netty.SHARED_EVENT_LOOP_GROUP), equalTo(0));
+	}
+
+	@Test
+	public void httpComponentsClientsShareConnectionManager() throws Exception {
+		SharedClientHttpResources resources = new SharedClientHttpResources(connectionPoolOptions());
+
+		HttpComponentsClientHttpRequestFactory first =
+				(HttpComponentsClientHttpRequestFactory) usingHttpComponents(new ClientOptions(), resources);
+		HttpComponentsClientHttpRequestFactory second =
+				(HttpComponentsClientHttpRequestFactory) usingHttpComponents(new ClientOptions(), resources);
+
+		Object connectionManager = ReflectionTestUtils.getField(first.getHttpClient(), "connManager");
+
+		assertThat(connectionManager, instanceOf(PoolingHttpClientConnectionManager.class));
+		assertThat(ReflectionTestUtils.getField(second.getHttpClient(), "connManager"),
+				sameInstance(connectionManager));
+		assertThat(((PoolingHttpClientConnectionManager) connectionManager).getMaxTotal(), equalTo(50));
+
+		first.destroy();
+		assertThat(resources.getReferenceCount(HttpComponents.SHARED_CONNECTION_MANAGER), equalTo(1));
+
+		second.destroy();
+		assertThat(resources.getReferenceCount(HttpComponents.SHARED_CONNECTION_MANAGER), equalTo(0));
+	}
+
+	@Test
+	public void sharedConnectionManagerUsesSystemTlsProperties() throws Exception {
+		String protocols = System.getProperty("https.protocols");
+		System.setProperty("https.protocols", "TLSv1.2");
+
+		SharedConnectionManagerLifecycle lifecycle = new SharedConnectionManagerLifecycle();
+		SharedConnectionManager connectionManager = lifecycle.create(new ClientOptions());
+		try {
+			Object operator = ReflectionTestUtils.getField(
+					ReflectionTestUtils.getField(connectionManager, "manager"), "connectionOperator");
+			Lookup<?> registry = (Lookup<?>) ReflectionTestUtils.getField(operator, "socketFactoryRegistry");
+
+			assertThat((String[]) ReflectionTestUtils.getField(registry.lookup("https"), "supportedProtocols"),
+					arrayContaining("TLSv1.2"));
+		}
+		finally {
+			lifecycle.shutdown(connectionManager);
+			if (protocols == null) {
+				System.clearProperty("https.protocols");
+			}
+			else {
+				System.setProperty("https.protocols", protocols);
+			}
+		}
+	}
+
+	private ClientOptions connectionPoolOptions() {
+		return ClientOptions.builder()
+				.maxConnectionsTotal(50)
+				.maxConnectionsPerRoute(20)
+				.idleConnectionEvictionInterval(30, TimeUnit.SECONDS)
+				.connectionTimeToLive(5, TimeUnit.MINUTES)
+				.keepAliveDuration(1, TimeUnit.MINUTES)
+				.build();
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.configuration;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.credhub.support.ClientOptions;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ConnectionPrewarmerUnitTests {
+	private static final String API_URI_BASE = "https://credhub:8844";
+
+	private final List<String> events = new ArrayList<String>();
+
+	@Test
+	public void connectionsAreOpenedBeforeResponsesAreRead() {
+		ConnectionPrewarmer prewarmer = new ConnectionPrewarmer(new StubClientHttpRequestFactory(3), API_URI_BASE);
+
+		assertThat(prewarmer.prewarm(3), equalTo(3));
+
+		assertThat(events, contains("execute " + API_URI_BASE + "/info", "execute " + API_URI_BASE + "/info",
+				"execute " + API_URI_BASE + "/info", "read", "close", "read", "close", "read", "close"));
+	}
+
+	@Test
+	public void failureIsTolerated() {
+		ConnectionPrewarmer prewarmer = new ConnectionPrewarmer(new StubClientHttpRequestFactory(1), API_URI_BASE);
+
+		assertThat(prewarmer.prewarm(3), equalTo(1));
+
+		assertThat(events, contains("execute " + API_URI_BASE + "/info", "read", "close"));
+	}
+
+	@Test
+	public void maxConnectionsLimitedByPool() {
+		assertThat(ConnectionPrewarmer.getMaxConnections(new ClientOptions()),
+				equalTo(ConnectionPrewarmer.DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+		assertThat(ConnectionPrewarmer.getMaxConnections(ClientOptions.builder()
+				.maxConnectionsPerRoute(20)
+				.build()), equalTo(20));
+		assertThat(ConnectionPrewarmer.getMaxConnections(ClientOptions.builder()
+				.maxConnectionsPerRoute(20)
+				.maxConnectionsTotal(10)
+				.build()), equalTo(10));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void prewarmConnectionsAbovePoolLimitRejected() {
+		ClientOptions.builder()
+				.maxConnectionsPerRoute(5)
+				.prewarmConnections(6)
+				.build();
+	}
+
+	private class StubClientHttpRequestFactory implements ClientHttpRequestFactory {
+		private int remainingConnections;
+
+		StubClientHttpRequestFactory(int maxConnections) {
+			this.remainingConnections = maxConnections;
+		}
+
+		@Override
+		public ClientHttpRequest createRequest(final URI uri, HttpMethod httpMethod) {
+			return new MockClientHttpRequest(httpMethod, uri) {
+				@Override
+				protected ClientHttpResponse executeInternal() throws IOException {
+					if (remainingConnections-- == 0) {
+						throw new IOException("Connection refused");
+					}
+					events.add("execute " + uri);
+					return new MockClientHttpResponse(new byte[0], HttpStatus.OK) {
+						@Override
+						public InputStream getBody() {
+							events.add("read");
+							return new ByteArrayInputStream("{}".getBytes());
+						}
+
+						@Override
+						public void close() {
+							events.add("close");
+						}
+					};
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.configuration;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.pool.AbstractConnPool;
+import org.junit.Test;
+
+import org.springframework.credhub.configuration.ClientHttpRequestFactoryFactory.HttpComponents;
+import org.springframework.credhub.configuration.CredHubConfiguration.ClientFactoryWrapper;
+import org.springframework.credhub.core.CredHubProperties;
+import org.springframework.credhub.core.CredHubTemplate;
+import org.springframework.credhub.support.ClientOptions;
+import org.springframework.credhub.support.HedgingOptions;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class CredHubConfigurationUnitTests {
+	@Test
+	public void templatesShareClientHttpResources() throws Exception {
+		SharedClientHttpResources resources = new SharedClientHttpResources();
+
+		ClientFactoryWrapper first = new SharedResourcesConfiguration(resources).clientHttpRequestFactoryWrapper();
+		ClientFactoryWrapper second = new SharedResourcesConfiguration(resources).clientHttpRequestFactoryWrapper();
+
+		Object connectionManager = getConnectionManager(first);
+		AbstractConnPool<?, ?, ?> pool = (AbstractConnPool<?, ?, ?>) ReflectionTestUtils.getField(connectionManager, "pool");
+
+		assertThat(getConnectionManager(second), sameInstance(connectionManager));
+		assertThat(resources.getReferenceCount(HttpComponents.SHARED_CONNECTION_MANAGER), equalTo(2));
+
+		first.destroy();
+
+		assertThat(resources.getReferenceCount(HttpComponents.SHARED_CONNECTION_MANAGER), equalTo(1));
+		assertThat(pool.isShutdown(), equalTo(false));
+
+		second.destroy();
+
+		assertThat(resources.getReferenceCount(HttpComponents.SHARED_CONNECTION_MANAGER), equalTo(0));
+		assertThat(pool.isShutdown(), equalTo(true));
+	}
+
+	@Test
+	public void virtualThreadExecutorsInstalledOnlyWhenSupported() throws Exception {
+		CredHubConfiguration configuration = new CredHubConfiguration() {
+			@Override
+			public CredHubProperties credHubProperties() {
+				CredHubProperties properties = new CredHubProperties();
+				ReflectionTestUtils.setField(properties, "apiUriBase", "https://credhub.example.com");
+				return properties;
+			}
+
+			@Override
+			protected ClientOptions clientOptions() {
+				return ClientOptions.builder().virtualThreads(true).build();
+			}
+
+			@Override
+			protected HedgingOptions hedgingOptions() {
+				return HedgingOptions.builder().delay(50, TimeUnit.MILLISECONDS).build();
+			}
+		};
+
+		CredHubTemplate credHubTemplate = configuration.credHubTemplate();
+		Object hedgingExecutor = ReflectionTestUtils.getField(credHubTemplate, "hedgingExecutor");
+
+		if (TaskExecutorFactory.isVirtualThreadsSupported()) {
+			assertThat(hedgingExecutor, not(instanceOf(ThreadPoolExecutor.class)));
+		}
+		else {
+			assertThat(hedgingExecutor, instanceOf(ThreadPoolExecutor.class));
+			assertThat(((ThreadPoolExecutor) hedgingExecutor).getMaximumPoolSize(),
+					equalTo(CredHubTemplate.HEDGING_EXECUTOR_MAX_THREADS));
+		}
+
+		configuration.clientHttpRequestFactoryWrapper().destroy();
+	}
+
+	private Object getConnectionManager(ClientFactoryWrapper wrapper) {
+		HttpComponentsClientHttpRequestFactory factory =
+				(HttpComponentsClientHttpRequestFactory) wrapper.getClientHttpRequestFactory();
+		return ReflectionTestUtils.getField(factory.getHttpClient(), "connManager");
+	}
+
+	private static class SharedResourcesConfiguration extends CredHubConfiguration {
+		private final SharedClientHttpResources resources;
+
+		SharedResourcesConfiguration(SharedClientHttpResources resources) {
+			this.resources = resources;
+		}
+
+		@Override
+		protected SharedClientHttpResources sharedClientHttpResources() {
+			return resources;
+		}
+	}
+}
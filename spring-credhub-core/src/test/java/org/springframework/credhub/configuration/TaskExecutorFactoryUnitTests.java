@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.configuration;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TaskExecutorFactoryUnitTests {
+	@Test
+	public void platformThreadsCreated() throws Exception {
+		SimpleAsyncTaskExecutor executor = TaskExecutorFactory.create("credhub-test-", false);
+
+		Thread thread = runOn(executor);
+
+		assertThat(thread.getName(), startsWith("credhub-test-"));
+		assertThat(thread.isDaemon(), equalTo(true));
+		assertThat(isVirtual(thread), equalTo(false));
+	}
+
+	@Test
+	public void virtualThreadsCreatedWhenSupported() throws Exception {
+		SimpleAsyncTaskExecutor executor = TaskExecutorFactory.create("credhub-test-", true);
+
+		Thread thread = runOn(executor);
+
+		assertThat(thread.getName(), startsWith("credhub-test-"));
+		assertThat(thread.isDaemon(), equalTo(true));
+		assertThat(isVirtual(thread), equalTo(TaskExecutorFactory.isVirtualThreadsSupported()));
+		assertThat(executor.isThrottleActive(), equalTo(false));
+	}
+
+	@Test
+	public void boundedExecutorRejectsTasksAboveLimit() throws Exception {
+		TaskExecutor executor = TaskExecutorFactory.createBounded("credhub-test-", true, 1);
+
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch completed = new CountDownLatch(1);
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				completed.countDown();
+			}
+		});
+
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+				}
+			});
+			fail("Exception should have been thrown");
+		}
+		catch (TaskRejectedException e) {
+			// expected
+		}
+
+		release.countDown();
+		assertThat(completed.await(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(executeWhenPermitted(executor), equalTo(true));
+	}
+
+	private boolean executeWhenPermitted(TaskExecutor executor) throws InterruptedException {
+		final CountDownLatch completed = new CountDownLatch(1);
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				completed.countDown();
+			}
+		};
+
+		// the permit is released just after the previous task completes
+		for (int i = 0; i < 50; i++) {
+			try {
+				executor.execute(task);
+				return completed.await(5, TimeUnit.SECONDS);
+			}
+			catch (TaskRejectedException e) {
+				Thread.sleep(10);
+			}
+		}
+		return false;
+	}
+
+	private Thread runOn(SimpleAsyncTaskExecutor executor) throws InterruptedException {
+		final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+		final CountDownLatch completed = new CountDownLatch(1);
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				thread.set(Thread.currentThread());
+				completed.countDown();
+			}
+		});
+
+		assertThat(completed.await(5, TimeUnit.SECONDS), equalTo(true));
+		return thread.get();
+	}
+
+	private boolean isVirtual(Thread thread) {
+		if (!ClassUtils.hasMethod(Thread.class, "isVirtual")) {
+			return false;
+		}
+		return (Boolean) ReflectionUtils.invokeMethod(ClassUtils.getMethod(Thread.class, "isVirtual"), thread);
+	}
+}
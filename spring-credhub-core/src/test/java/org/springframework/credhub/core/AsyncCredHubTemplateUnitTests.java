@@ -0,0 +1,282 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialSummary;
+import org.springframework.credhub.support.CredentialSummaryData;
+import org.springframework.credhub.support.CredentialType;
+import org.springframework.credhub.support.SimpleCredentialName;
+import org.springframework.credhub.support.password.PasswordCredential;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.client.AsyncRequestCallback;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResponseExtractor;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.credhub.core.CredHubTemplate.NAME_URL_QUERY;
+import static org.springframework.credhub.core.CredHubTemplate.NAME_URL_QUERY_CURRENT;
+import static org.springframework.credhub.core.CredHubTemplate.PATH_URL_QUERY;
+import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.OK;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"unchecked", "deprecation"})
+public class AsyncCredHubTemplateUnitTests {
+	private static final SimpleCredentialName NAME = new SimpleCredentialName("example", "credential");
+
+	@Mock
+	private AsyncRestTemplate asyncRestTemplate;
+
+	private AsyncCredHubTemplate asyncCredHubTemplate;
+
+	@Before
+	public void setUp() {
+		asyncCredHubTemplate = new AsyncCredHubTemplate(asyncRestTemplate);
+	}
+
+	@Test
+	public void getByName() throws Exception {
+		CredentialDetails<PasswordCredential> details = new CredentialDetails<PasswordCredential>("1111",
+				NAME, CredentialType.PASSWORD, new PasswordCredential("secret"));
+
+		SettableListenableFuture<ResponseEntity<CredentialDetails<PasswordCredential>>> response =
+				new SettableListenableFuture<ResponseEntity<CredentialDetails<PasswordCredential>>>();
+
+		when(asyncRestTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenReturn((ListenableFuture) response);
+
+		ListenableFuture<CredentialDetails<PasswordCredential>> result =
+				asyncCredHubTemplate.getByName(NAME, PasswordCredential.class);
+
+		assertThat(result.isDone(), equalTo(false));
+
+		response.set(new ResponseEntity<CredentialDetails<PasswordCredential>>(details, OK));
+
+		assertThat(result.get(), equalTo(details));
+	}
+
+	@Test
+	public void getByNameWithErrorResponse() throws Exception {
+		SettableListenableFuture<ResponseEntity<CredentialDetails<PasswordCredential>>> response =
+				new SettableListenableFuture<ResponseEntity<CredentialDetails<PasswordCredential>>>();
+		response.setException(new HttpClientErrorException(NOT_FOUND));
+
+		when(asyncRestTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenReturn((ListenableFuture) response);
+
+		try {
+			asyncCredHubTemplate.getByName(NAME, PasswordCredential.class).get();
+			fail("Exception should have been thrown");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause(), instanceOf(CredHubException.class));
+			assertThat(e.getCause().getMessage(), containsString(NOT_FOUND.toString()));
+		}
+	}
+
+	@Test
+	public void cancellingGetByNameCancelsRequest() throws Exception {
+		SettableListenableFuture<ResponseEntity<CredentialDetails<PasswordCredential>>> response =
+				new SettableListenableFuture<ResponseEntity<CredentialDetails<PasswordCredential>>>();
+
+		when(asyncRestTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenReturn((ListenableFuture) response);
+
+		ListenableFuture<CredentialDetails<PasswordCredential>> result =
+				asyncCredHubTemplate.getByName(NAME, PasswordCredential.class);
+
+		assertThat(result.cancel(true), equalTo(true));
+		assertThat(result.isCancelled(), equalTo(true));
+		assertThat(response.isCancelled(), equalTo(true));
+	}
+
+	@Test
+	public void findByPath() throws Exception {
+		CredentialSummaryData summaryData = new CredentialSummaryData(new CredentialSummary(NAME));
+
+		SettableListenableFuture<ResponseEntity<CredentialSummaryData>> response =
+				new SettableListenableFuture<ResponseEntity<CredentialSummaryData>>();
+		response.set(new ResponseEntity<CredentialSummaryData>(summaryData, OK));
+
+		when(asyncRestTemplate.getForEntity(PATH_URL_QUERY, CredentialSummaryData.class, "/example"))
+				.thenReturn(response);
+
+		List<CredentialSummary> result = asyncCredHubTemplate.findByPath("/example").get();
+
+		assertThat(result, equalTo(summaryData.getCredentials()));
+	}
+
+	@Test
+	public void findByPathWithUnexpectedStatus() throws Exception {
+		SettableListenableFuture<ResponseEntity<CredentialSummaryData>> response =
+				new SettableListenableFuture<ResponseEntity<CredentialSummaryData>>();
+		response.set(new ResponseEntity<CredentialSummaryData>(HttpStatus.UNAUTHORIZED));
+
+		when(asyncRestTemplate.getForEntity(PATH_URL_QUERY, CredentialSummaryData.class, "/example"))
+				.thenReturn(response);
+
+		try {
+			asyncCredHubTemplate.findByPath("/example").get();
+			fail("Exception should have been thrown");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause(), instanceOf(CredHubException.class));
+			assertThat(e.getCause().getMessage(), containsString(HttpStatus.UNAUTHORIZED.toString()));
+		}
+	}
+
+	@Test
+	public void findByPathWithCallbackHandler() throws Exception {
+		String body = "{\"credentials\":["
+				+ "{\"name\":\"/example/one\",\"version_created_at\":\"2017-05-01T00:00:00Z\"},"
+				+ "{\"name\":\"/example/two\",\"version_created_at\":\"2017-05-01T00:00:00Z\"}"
+				+ "],\"other\":{\"ignored\":[1,2]}}";
+
+		SettableListenableFuture<Void> response = new SettableListenableFuture<Void>();
+		ArgumentCaptor<ResponseExtractor> extractor = ArgumentCaptor.forClass(ResponseExtractor.class);
+
+		when(asyncRestTemplate.execute(eq(PATH_URL_QUERY), eq(GET), isNull(AsyncRequestCallback.class), extractor.capture(),
+				eq("/example"))).thenReturn(response);
+
+		final List<String> names = new ArrayList<String>();
+		ListenableFuture<Void> result = asyncCredHubTemplate.findByPath("/example",
+				new CredentialCallbackHandler<CredentialSummary>() {
+					@Override
+					public void processCredential(CredentialSummary credential) {
+						names.add(credential.getName().getName());
+					}
+				});
+
+		extractor.getValue().extractData(new MockClientHttpResponse(body.getBytes("UTF-8"), OK));
+		response.set(null);
+
+		assertThat(result.get(), nullValue());
+		assertThat(names, contains("/example/one", "/example/two"));
+	}
+
+	@Test
+	public void getByNameWithHistoryWithCallbackHandler() throws Exception {
+		String body = "{\"data\":["
+				+ "{\"id\":\"2222\",\"name\":\"/example/credential\",\"type\":\"password\",\"value\":\"new\"},"
+				+ "{\"id\":\"1111\",\"name\":\"/example/credential\",\"type\":\"password\",\"value\":\"old\"}"
+				+ "]}";
+
+		SettableListenableFuture<Void> response = new SettableListenableFuture<Void>();
+		ArgumentCaptor<ResponseExtractor> extractor = ArgumentCaptor.forClass(ResponseExtractor.class);
+
+		when(asyncRestTemplate.execute(eq(NAME_URL_QUERY), eq(GET), isNull(AsyncRequestCallback.class), extractor.capture(),
+				eq(NAME.getName()))).thenReturn(response);
+
+		final List<String> ids = new ArrayList<String>();
+		asyncCredHubTemplate.getByNameWithHistory(NAME, PasswordCredential.class,
+				new CredentialCallbackHandler<CredentialDetails<PasswordCredential>>() {
+					@Override
+					public void processCredential(CredentialDetails<PasswordCredential> credential) {
+						ids.add(credential.getId());
+					}
+				});
+
+		extractor.getValue().extractData(new MockClientHttpResponse(body.getBytes("UTF-8"), OK));
+
+		assertThat(ids, contains("2222", "1111"));
+	}
+
+	@Test
+	public void cancellingFindByPathWithCallbackHandlerCancelsRequest() throws Exception {
+		SettableListenableFuture<Void> response = new SettableListenableFuture<Void>();
+
+		when(asyncRestTemplate.execute(eq(PATH_URL_QUERY), eq(GET), isNull(AsyncRequestCallback.class), isA(ResponseExtractor.class),
+				eq("/example"))).thenReturn(response);
+
+		ListenableFuture<Void> result = asyncCredHubTemplate.findByPath("/example",
+				new CredentialCallbackHandler<CredentialSummary>() {
+					@Override
+					public void processCredential(CredentialSummary credential) {
+					}
+				});
+
+		assertThat(result.cancel(false), equalTo(true));
+		assertThat(response.isCancelled(), equalTo(true));
+	}
+
+	@Test
+	public void findByPathWithCallbackHandlerAndErrorResponse() throws Exception {
+		SettableListenableFuture<Void> response = new SettableListenableFuture<Void>();
+		response.setException(new HttpClientErrorException(NOT_FOUND));
+
+		when(asyncRestTemplate.execute(eq(PATH_URL_QUERY), eq(GET), isNull(AsyncRequestCallback.class), isA(ResponseExtractor.class),
+				eq("/example"))).thenReturn(response);
+
+		try {
+			asyncCredHubTemplate.findByPath("/example", new CredentialCallbackHandler<CredentialSummary>() {
+				@Override
+				public void processCredential(CredentialSummary credential) {
+					fail("No credentials should have been processed");
+				}
+			}).get();
+			fail("Exception should have been thrown");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause(), instanceOf(CredHubException.class));
+		}
+	}
+
+	@Test
+	public void deleteByName() throws Exception {
+		SettableListenableFuture<ResponseEntity<Void>> response = new SettableListenableFuture<ResponseEntity<Void>>();
+		response.set(new ResponseEntity<Void>(HttpStatus.NO_CONTENT));
+
+		when(asyncRestTemplate.exchange(NAME_URL_QUERY, DELETE, null, Void.class, NAME.getName()))
+				.thenReturn(response);
+
+		assertThat(asyncCredHubTemplate.deleteByName(NAME).get(), nullValue());
+	}
+}
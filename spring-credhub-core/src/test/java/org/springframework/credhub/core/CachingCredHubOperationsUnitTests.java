@@ -0,0 +1,458 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.CredentialCacheOptions;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialName;
+import org.springframework.credhub.support.CredentialType;
+import org.springframework.credhub.support.SimpleCredentialName;
+import org.springframework.credhub.support.password.PasswordCredential;
+import org.springframework.credhub.support.value.ValueCredential;
+import org.springframework.credhub.support.value.ValueCredentialRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingCredHubOperationsUnitTests {
+	private static final SimpleCredentialName NAME = new SimpleCredentialName("example", "credential");
+	private static final SimpleCredentialName OTHER_NAME = new SimpleCredentialName("example", "other");
+	private static final String CREDENTIAL_ID = "1111-1111-1111-1111";
+
+	@Mock
+	private CredHubOperations delegate;
+
+	private CredentialDetails<PasswordCredential> details;
+
+	private CachingCredHubOperations operations;
+
+	@Before
+	public void setUp() {
+		details = new CredentialDetails<PasswordCredential>(CREDENTIAL_ID, NAME,
+				CredentialType.PASSWORD, new PasswordCredential("secret"));
+
+		operations = new CachingCredHubOperations(delegate);
+	}
+
+	private List<Runnable> staleWhileRevalidate() {
+		operations = new CachingCredHubOperations(delegate, CredentialCacheOptions.builder()
+				.timeToLive(10, TimeUnit.MILLISECONDS)
+				.staleTimeToLive(1, TimeUnit.MINUTES)
+				.build());
+
+		final List<Runnable> refreshes = new ArrayList<Runnable>();
+		operations.setRefreshExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				refreshes.add(command);
+			}
+		});
+		return refreshes;
+	}
+
+	@Test
+	public void getByNameIsCached() {
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details);
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(details));
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(details));
+
+		verify(delegate, times(1)).getByName(NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void getByNameRacingWithWriteIsNotCached() {
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+				// a write of the credential completes while the read is in flight
+				operations.invalidate(NAME);
+				return details;
+			}
+		});
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(details));
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(details));
+
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void getByIdIsCached() {
+		when(delegate.getById(CREDENTIAL_ID, PasswordCredential.class)).thenReturn(details);
+
+		assertThat(operations.getById(CREDENTIAL_ID, PasswordCredential.class), sameInstance(details));
+		assertThat(operations.getById(CREDENTIAL_ID, PasswordCredential.class), sameInstance(details));
+
+		verify(delegate, times(1)).getById(CREDENTIAL_ID, PasswordCredential.class);
+	}
+
+	@Test
+	public void getByNamesOnlyRetrievesUncachedCredentials() {
+		CredentialDetails<PasswordCredential> otherDetails = new CredentialDetails<PasswordCredential>(
+				"2222-2222-2222-2222", OTHER_NAME, CredentialType.PASSWORD, new PasswordCredential("other"));
+
+		Map<CredentialName, CredentialDetails<PasswordCredential>> retrieved =
+				new LinkedHashMap<CredentialName, CredentialDetails<PasswordCredential>>();
+		retrieved.put(OTHER_NAME, otherDetails);
+
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details);
+		when(delegate.getByNames(Collections.singletonList(OTHER_NAME), PasswordCredential.class))
+				.thenReturn(new BulkCredentialDetails<PasswordCredential>(retrieved,
+						Collections.<CredentialName, Exception>emptyMap()));
+
+		operations.getByName(NAME, PasswordCredential.class);
+
+		BulkCredentialDetails<PasswordCredential> result =
+				operations.getByNames(Arrays.asList(NAME, OTHER_NAME), PasswordCredential.class);
+
+		assertThat(result.getCredentials().get(NAME), sameInstance(details));
+		assertThat(result.getCredentials().get(OTHER_NAME), sameInstance(otherDetails));
+		assertThat(operations.getByName(OTHER_NAME, PasswordCredential.class), sameInstance(otherDetails));
+
+		verify(delegate, times(1)).getByNames(Collections.singletonList(OTHER_NAME), PasswordCredential.class);
+		verify(delegate, times(0)).getByName(OTHER_NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void expiredEntriesAreReloaded() throws Exception {
+		operations = new CachingCredHubOperations(delegate, CredentialCacheOptions.builder()
+				.timeToLive(10, TimeUnit.MILLISECONDS)
+				.build());
+
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details);
+
+		operations.getByName(NAME, PasswordCredential.class);
+		Thread.sleep(20);
+		operations.getByName(NAME, PasswordCredential.class);
+
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void staleEntryIsServedWhileRefreshing() throws Exception {
+		List<Runnable> refreshes = staleWhileRevalidate();
+
+		CredentialDetails<PasswordCredential> newDetails = new CredentialDetails<PasswordCredential>(
+				"2222-2222-2222-2222", NAME, CredentialType.PASSWORD, new PasswordCredential("new-secret"));
+
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details, newDetails);
+
+		operations.getByName(NAME, PasswordCredential.class);
+		Thread.sleep(20);
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(details));
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(details));
+		assertThat(refreshes.size(), equalTo(1));
+
+		refreshes.get(0).run();
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(newDetails));
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void refreshWithSameVersionKeepsCachedEntry() throws Exception {
+		List<Runnable> refreshes = staleWhileRevalidate();
+
+		CredentialDetails<PasswordCredential> sameVersion = new CredentialDetails<PasswordCredential>(
+				CREDENTIAL_ID, NAME, CredentialType.PASSWORD, new PasswordCredential("secret"));
+		ReflectionTestUtils.setField(sameVersion, "versionCreatedAt", details.getVersionCreatedAt());
+
+		when(delegate.getById(CREDENTIAL_ID, PasswordCredential.class)).thenReturn(details, sameVersion);
+
+		operations.getById(CREDENTIAL_ID, PasswordCredential.class);
+		Thread.sleep(20);
+		operations.getById(CREDENTIAL_ID, PasswordCredential.class);
+		refreshes.get(0).run();
+
+		assertThat(operations.getById(CREDENTIAL_ID, PasswordCredential.class), sameInstance(details));
+		assertThat(refreshes.size(), equalTo(1));
+	}
+
+	@Test
+	public void failedRefreshIsRetried() throws Exception {
+		List<Runnable> refreshes = staleWhileRevalidate();
+
+		when(delegate.getByName(NAME, PasswordCredential.class))
+				.thenReturn(details)
+				.thenThrow(new CredHubException(HttpStatus.SERVICE_UNAVAILABLE));
+
+		operations.getByName(NAME, PasswordCredential.class);
+		Thread.sleep(20);
+		operations.getByName(NAME, PasswordCredential.class);
+		refreshes.get(0).run();
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(details));
+		assertThat(refreshes.size(), equalTo(2));
+	}
+
+	@Test
+	public void refreshIsDiscardedAfterInvalidation() throws Exception {
+		List<Runnable> refreshes = staleWhileRevalidate();
+
+		CredentialDetails<PasswordCredential> newDetails = new CredentialDetails<PasswordCredential>(
+				"2222-2222-2222-2222", NAME, CredentialType.PASSWORD, new PasswordCredential("new-secret"));
+
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details, details, newDetails);
+
+		operations.getByName(NAME, PasswordCredential.class);
+		Thread.sleep(20);
+		operations.getByName(NAME, PasswordCredential.class);
+		operations.invalidate(NAME);
+		refreshes.get(0).run();
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(newDetails));
+	}
+
+	@Test
+	public void staleEntriesAreRefreshedInBulk() throws Exception {
+		List<Runnable> refreshes = staleWhileRevalidate();
+
+		CredentialDetails<PasswordCredential> newDetails = new CredentialDetails<PasswordCredential>(
+				"2222-2222-2222-2222", NAME, CredentialType.PASSWORD, new PasswordCredential("new-secret"));
+
+		Map<CredentialName, CredentialDetails<PasswordCredential>> retrieved =
+				new LinkedHashMap<CredentialName, CredentialDetails<PasswordCredential>>();
+		retrieved.put(NAME, newDetails);
+
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details);
+		when(delegate.getByNames(Collections.singleton(NAME), PasswordCredential.class))
+				.thenReturn(new BulkCredentialDetails<PasswordCredential>(retrieved,
+						Collections.<CredentialName, Exception>emptyMap()));
+
+		operations.getByName(NAME, PasswordCredential.class);
+		Thread.sleep(20);
+
+		BulkCredentialDetails<PasswordCredential> result =
+				operations.getByNames(Collections.singletonList(NAME), PasswordCredential.class);
+		assertThat(result.getCredentials().get(NAME), sameInstance(details));
+
+		refreshes.get(0).run();
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(newDetails));
+	}
+
+	@Test
+	public void notFoundIsCached() {
+		operations = new CachingCredHubOperations(delegate, CredentialCacheOptions.builder()
+				.notFoundTimeToLive(1, TimeUnit.MINUTES)
+				.build());
+
+		when(delegate.getByName(NAME, PasswordCredential.class))
+				.thenThrow(new CredHubException(HttpStatus.NOT_FOUND));
+
+		assertNotFound(NAME);
+		assertNotFound(NAME);
+
+		BulkCredentialDetails<PasswordCredential> result =
+				operations.getByNames(Collections.singletonList(NAME), PasswordCredential.class);
+		assertThat(((CredHubException) result.getFailures().get(NAME)).getStatusCode(),
+				equalTo(HttpStatus.NOT_FOUND));
+
+		verify(delegate, times(1)).getByName(NAME, PasswordCredential.class);
+		verify(delegate, times(0)).getByNames(Collections.singletonList(NAME), PasswordCredential.class);
+	}
+
+	@Test
+	public void notFoundIsNotCachedByDefault() {
+		when(delegate.getByName(NAME, PasswordCredential.class))
+				.thenThrow(new CredHubException(HttpStatus.NOT_FOUND));
+
+		assertNotFound(NAME);
+		assertNotFound(NAME);
+
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void otherErrorsAreNotCached() {
+		operations = new CachingCredHubOperations(delegate, CredentialCacheOptions.builder()
+				.notFoundTimeToLive(1, TimeUnit.MINUTES)
+				.build());
+
+		when(delegate.getByName(NAME, PasswordCredential.class))
+				.thenThrow(new CredHubException(HttpStatus.UNAUTHORIZED))
+				.thenReturn(details);
+
+		try {
+			operations.getByName(NAME, PasswordCredential.class);
+			fail("Exception should have been thrown");
+		}
+		catch (CredHubException e) {
+			assertThat(e.getStatusCode(), equalTo(HttpStatus.UNAUTHORIZED));
+		}
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(details));
+	}
+
+	@Test
+	public void notFoundFromBulkRequestIsCached() {
+		operations = new CachingCredHubOperations(delegate, CredentialCacheOptions.builder()
+				.notFoundTimeToLive(1, TimeUnit.MINUTES)
+				.build());
+
+		Map<CredentialName, Exception> failures = new LinkedHashMap<CredentialName, Exception>();
+		failures.put(NAME, new CredHubException(HttpStatus.NOT_FOUND));
+
+		when(delegate.getByNames(Collections.singletonList(NAME), PasswordCredential.class))
+				.thenReturn(new BulkCredentialDetails<PasswordCredential>(
+						Collections.<CredentialName, CredentialDetails<PasswordCredential>>emptyMap(), failures));
+
+		operations.getByNames(Collections.singletonList(NAME), PasswordCredential.class);
+		assertNotFound(NAME);
+
+		verify(delegate, times(1)).getByNames(Collections.singletonList(NAME), PasswordCredential.class);
+	}
+
+	@Test
+	public void writeInvalidatesNotFound() {
+		operations = new CachingCredHubOperations(delegate, CredentialCacheOptions.builder()
+				.notFoundTimeToLive(1, TimeUnit.MINUTES)
+				.build());
+
+		ValueCredentialRequest request = ValueCredentialRequest.builder()
+				.name(NAME)
+				.value(new ValueCredential("new-value"))
+				.build();
+
+		when(delegate.getByName(NAME, PasswordCredential.class))
+				.thenThrow(new CredHubException(HttpStatus.NOT_FOUND))
+				.thenReturn(details);
+
+		assertNotFound(NAME);
+
+		operations.write(request);
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), sameInstance(details));
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+	}
+
+	private void assertNotFound(CredentialName name) {
+		try {
+			operations.getByName(name, PasswordCredential.class);
+			fail("Exception should have been thrown");
+		}
+		catch (CredHubException e) {
+			assertThat(e.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+		}
+	}
+
+	@Test
+	public void leastRecentlyUsedEntryIsEvicted() {
+		operations = new CachingCredHubOperations(delegate, CredentialCacheOptions.builder()
+				.maximumSize(1)
+				.build());
+
+		CredentialDetails<PasswordCredential> otherDetails = new CredentialDetails<PasswordCredential>(
+				"2222-2222-2222-2222", OTHER_NAME, CredentialType.PASSWORD, new PasswordCredential("other"));
+
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details);
+		when(delegate.getByName(OTHER_NAME, PasswordCredential.class)).thenReturn(otherDetails);
+
+		operations.getByName(NAME, PasswordCredential.class);
+		operations.getByName(OTHER_NAME, PasswordCredential.class);
+		operations.getByName(OTHER_NAME, PasswordCredential.class);
+		operations.getByName(NAME, PasswordCredential.class);
+
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+		verify(delegate, times(1)).getByName(OTHER_NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void writeInvalidatesCachedEntries() {
+		ValueCredentialRequest request = ValueCredentialRequest.builder()
+				.name(NAME)
+				.value(new ValueCredential("new-value"))
+				.build();
+
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details);
+		when(delegate.getById(CREDENTIAL_ID, PasswordCredential.class)).thenReturn(details);
+
+		operations.getByName(NAME, PasswordCredential.class);
+		operations.getById(CREDENTIAL_ID, PasswordCredential.class);
+
+		operations.write(request);
+
+		operations.getByName(NAME, PasswordCredential.class);
+		operations.getById(CREDENTIAL_ID, PasswordCredential.class);
+
+		verify(delegate).write(request);
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+		verify(delegate, times(2)).getById(CREDENTIAL_ID, PasswordCredential.class);
+	}
+
+	@Test
+	public void deleteInvalidatesCachedEntries() {
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details);
+
+		operations.getByName(NAME, PasswordCredential.class);
+		operations.deleteByName(NAME);
+		operations.getByName(NAME, PasswordCredential.class);
+
+		verify(delegate).deleteByName(NAME);
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void otherOperationsAreDelegated() {
+		operations.findByPath("/example");
+		operations.findByName(NAME);
+		operations.getPermissions(NAME);
+
+		verify(delegate).findByPath("/example");
+		verify(delegate).findByName(NAME);
+		verify(delegate).getPermissions(NAME);
+	}
+
+	@Test
+	public void invalidateRemovesCachedEntries() {
+		when(delegate.getByName(NAME, PasswordCredential.class)).thenReturn(details);
+
+		assertThat(operations.getByName(NAME, PasswordCredential.class), equalTo(details));
+		operations.invalidate(NAME);
+		operations.getByName(NAME, PasswordCredential.class);
+
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialSummary;
+import org.springframework.credhub.support.CredentialType;
+import org.springframework.credhub.support.SimpleCredentialName;
+import org.springframework.credhub.support.password.PasswordCredential;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CoalescingCredHubOperationsUnitTests {
+	private static final SimpleCredentialName NAME = new SimpleCredentialName("example", "credential");
+	private static final int THREADS = 4;
+
+	@Mock
+	private CredHubOperations delegate;
+
+	private CredentialDetails<PasswordCredential> details;
+
+	private CoalescingCredHubOperations operations;
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		details = new CredentialDetails<PasswordCredential>("1111", NAME,
+				CredentialType.PASSWORD, new PasswordCredential("secret"));
+
+		operations = new CoalescingCredHubOperations(delegate);
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void concurrentGetByNameSharesOneRequest() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+
+		when(delegate.getByName(NAME, PasswordCredential.class))
+				.thenAnswer(new Answer<CredentialDetails<PasswordCredential>>() {
+					@Override
+					public CredentialDetails<PasswordCredential> answer(InvocationOnMock invocation) throws Throwable {
+						release.await(5, TimeUnit.SECONDS);
+						return details;
+					}
+				});
+
+		List<Future<CredentialDetails<PasswordCredential>>> results = submitGetByName(THREADS);
+
+		Thread.sleep(100);
+		release.countDown();
+
+		for (Future<CredentialDetails<PasswordCredential>> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS), sameInstance(details));
+		}
+
+		verify(delegate, times(1)).getByName(NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void concurrentGetByNameSharesFailure() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+
+		when(delegate.getByName(NAME, PasswordCredential.class))
+				.thenAnswer(new Answer<CredentialDetails<PasswordCredential>>() {
+					@Override
+					public CredentialDetails<PasswordCredential> answer(InvocationOnMock invocation) throws Throwable {
+						release.await(5, TimeUnit.SECONDS);
+						throw new IllegalStateException("failed");
+					}
+				});
+
+		List<Future<CredentialDetails<PasswordCredential>>> results = submitGetByName(THREADS);
+
+		Thread.sleep(100);
+		release.countDown();
+
+		for (Future<CredentialDetails<PasswordCredential>> result : results) {
+			try {
+				result.get(5, TimeUnit.SECONDS);
+				fail("Exception should have been thrown");
+			}
+			catch (ExecutionException e) {
+				assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+			}
+		}
+
+		verify(delegate, times(1)).getByName(NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void sequentialRequestsAreNotCoalesced() {
+		when(delegate.findByPath("/example")).thenReturn(new ArrayList<CredentialSummary>());
+
+		operations.findByPath("/example");
+		operations.findByPath("/example");
+
+		verify(delegate, times(2)).findByPath("/example");
+	}
+
+	@Test
+	public void getByNameAfterDeleteSendsNewRequest() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+
+		when(delegate.getByName(NAME, PasswordCredential.class))
+				.thenAnswer(new Answer<CredentialDetails<PasswordCredential>>() {
+					@Override
+					public CredentialDetails<PasswordCredential> answer(InvocationOnMock invocation) throws Throwable {
+						release.await(5, TimeUnit.SECONDS);
+						return details;
+					}
+				});
+
+		List<Future<CredentialDetails<PasswordCredential>>> results = submitGetByName(1);
+		Thread.sleep(100);
+
+		operations.deleteByName(NAME);
+
+		results.addAll(submitGetByName(1));
+		Thread.sleep(100);
+		release.countDown();
+
+		for (Future<CredentialDetails<PasswordCredential>> result : results) {
+			result.get(5, TimeUnit.SECONDS);
+		}
+
+		verify(delegate).deleteByName(NAME);
+		verify(delegate, times(2)).getByName(NAME, PasswordCredential.class);
+	}
+
+	@Test
+	public void concurrentFindByPathReturnsCopyToEachCaller() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<CredentialSummary> summaries = new ArrayList<CredentialSummary>();
+		summaries.add(new CredentialSummary(NAME));
+
+		when(delegate.findByPath("/example"))
+				.thenAnswer(new Answer<List<CredentialSummary>>() {
+					@Override
+					public List<CredentialSummary> answer(InvocationOnMock invocation) throws Throwable {
+						release.await(5, TimeUnit.SECONDS);
+						return summaries;
+					}
+				});
+
+		List<Future<List<CredentialSummary>>> results = new ArrayList<Future<List<CredentialSummary>>>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(new Callable<List<CredentialSummary>>() {
+				@Override
+				public List<CredentialSummary> call() {
+					return operations.findByPath("/example");
+				}
+			}));
+		}
+
+		Thread.sleep(100);
+		release.countDown();
+
+		List<List<CredentialSummary>> lists = new ArrayList<List<CredentialSummary>>();
+		for (Future<List<CredentialSummary>> result : results) {
+			List<CredentialSummary> list = result.get(5, TimeUnit.SECONDS);
+			assertThat(list, equalTo(summaries));
+			for (List<CredentialSummary> other : lists) {
+				assertThat(list, not(sameInstance(other)));
+			}
+			lists.add(list);
+		}
+
+		verify(delegate, times(1)).findByPath("/example");
+	}
+
+	private List<Future<CredentialDetails<PasswordCredential>>> submitGetByName(int count) {
+		List<Future<CredentialDetails<PasswordCredential>>> results =
+				new ArrayList<Future<CredentialDetails<PasswordCredential>>>();
+		for (int i = 0; i < count; i++) {
+			results.add(executor.submit(new Callable<CredentialDetails<PasswordCredential>>() {
+				@Override
+				public CredentialDetails<PasswordCredential> call() {
+					return operations.getByName(NAME, PasswordCredential.class);
+				}
+			}));
+		}
+		return results;
+	}
+}
@@ -23,7 +23,9 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.AbstractUriTemplateHandler;
 
@@ -38,6 +40,9 @@ public class CredHubClientUnitTests {
 	@Mock
 	private ClientHttpRequestFactory clientHttpRequestFactory;
 
+	@Mock
+	private AsyncClientHttpRequestFactory asyncClientHttpRequestFactory;
+
 	@Test
 	public void restTemplateIsCreated() throws Exception {
 		RestTemplate restTemplate = CredHubClient.createRestTemplate(CREDHUB_URI,
@@ -50,4 +55,18 @@ public class CredHubClientUnitTests {
 				.getUriTemplateHandler();
 		assertThat(uriTemplateHandler.getBaseUrl(), equalTo(CREDHUB_URI));
 	}
+
+	@Test
+	public void asyncRestTemplateIsCreated() throws Exception {
+		AsyncRestTemplate asyncRestTemplate = CredHubClient.createAsyncRestTemplate(CREDHUB_URI,
+				asyncClientHttpRequestFactory);
+
+		assertThat(asyncRestTemplate.getUriTemplateHandler(),
+				instanceOf(AbstractUriTemplateHandler.class));
+
+		AbstractUriTemplateHandler uriTemplateHandler = (AbstractUriTemplateHandler) asyncRestTemplate
+				.getUriTemplateHandler();
+		assertThat(uriTemplateHandler.getBaseUrl(), equalTo(CREDHUB_URI));
+		assertThat(asyncRestTemplate.getInterceptors().size(), equalTo(1));
+	}
 }
\ No newline at end of file
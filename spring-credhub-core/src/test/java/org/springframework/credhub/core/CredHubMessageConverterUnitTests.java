@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.credhub.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialDetailsData;
+import org.springframework.credhub.support.CredentialType;
+import org.springframework.credhub.support.SimpleCredentialName;
+import org.springframework.credhub.support.password.PasswordCredential;
+import org.springframework.credhub.support.utils.JsonUtils;
+import org.springframework.credhub.support.value.ValueCredential;
+import org.springframework.credhub.support.value.ValueCredentialRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.valid4j.matchers.jsonpath.JsonPathMatchers.hasJsonPath;
+
+public class CredHubMessageConverterUnitTests {
+	private CredHubMessageConverter converter;
+
+	@Before
+	public void setUp() {
+		converter = new CredHubMessageConverter(JsonUtils.buildObjectMapper());
+	}
+
+	@Test
+	public void readCredentialDetails() throws Exception {
+		String json = "{\"id\":\"1111\",\"name\":\"/example/credential\",\"type\":\"password\",\"value\":\"secret\"}";
+
+		assertThat(converter.canRead(CredHubTemplate.CREDENTIAL_DETAILS_TYPE.getType(), null,
+				MediaType.APPLICATION_JSON), equalTo(true));
+
+		CredentialDetails<?> details = (CredentialDetails<?>) converter.read(
+				CredHubTemplate.CREDENTIAL_DETAILS_TYPE.getType(), null,
+				new MockHttpInputMessage(json.getBytes("UTF-8")));
+
+		assertThat(details.getId(), equalTo("1111"));
+		assertThat(details.getCredentialType(), equalTo(CredentialType.PASSWORD));
+		assertThat(details.getValue(), instanceOf(PasswordCredential.class));
+		assertThat(((PasswordCredential) details.getValue()).getPassword(), equalTo("secret"));
+	}
+
+	@Test
+	public void readCredentialDetailsData() throws Exception {
+		String json = "{\"data\":[{\"id\":\"1111\",\"name\":\"/example/credential\",\"type\":\"value\",\"value\":\"v\"}]}";
+
+		CredentialDetailsData<?> data = (CredentialDetailsData<?>) converter.read(
+				CredHubTemplate.CREDENTIAL_DETAILS_DATA_TYPE.getType(), null,
+				new MockHttpInputMessage(json.getBytes("UTF-8")));
+
+		assertThat(data.getData().size(), equalTo(1));
+		assertThat(data.getData().get(0).getValue(), instanceOf(ValueCredential.class));
+	}
+
+	@Test
+	public void writeCredentialRequest() throws Exception {
+		ValueCredentialRequest request = ValueCredentialRequest.builder()
+				.name(new SimpleCredentialName("example", "credential"))
+				.value(new ValueCredential("secret"))
+				.build();
+
+		assertThat(converter.canWrite(ValueCredentialRequest.class, MediaType.APPLICATION_JSON), equalTo(true));
+
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		converter.write(request, MediaType.APPLICATION_JSON, outputMessage);
+
+		String json = outputMessage.getBodyAsString();
+		assertThat(json, hasJsonPath("$.name", equalTo("/example/credential")));
+		assertThat(json, hasJsonPath("$.type", equalTo("value")));
+		assertThat(json, hasJsonPath("$.value", equalTo("secret")));
+	}
+
+	@Test
+	public void writeWithJsonPrefix() throws Exception {
+		converter.setPrefixJson(true);
+
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		converter.write(new ValueCredential("secret"), MediaType.APPLICATION_JSON, outputMessage);
+
+		assertThat(outputMessage.getBodyAsString(), startsWith(")]}', "));
+	}
+
+	@Test
+	public void writeMappingJacksonValue() throws Exception {
+		MappingJacksonValue value = new MappingJacksonValue(new ValueCredential("secret"));
+		value.setJsonpFunction("callback");
+
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		converter.write(value, MediaType.APPLICATION_JSON, outputMessage);
+
+		assertThat(outputMessage.getBodyAsString(), containsString("callback("));
+		assertThat(outputMessage.getBodyAsString(), containsString("secret"));
+	}
+}
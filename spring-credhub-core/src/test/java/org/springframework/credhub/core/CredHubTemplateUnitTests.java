@@ -17,12 +17,38 @@
 package org.springframework.credhub.core;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.credhub.metrics.InMemoryCredHubMetricsRecorder;
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.BulkRequestOptions;
+import org.springframework.credhub.support.CircuitBreakerOptions;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialType;
+import org.springframework.credhub.support.HedgingOptions;
+import org.springframework.credhub.support.RetryOptions;
+import org.springframework.credhub.support.SimpleCredentialName;
+import org.springframework.credhub.support.password.PasswordCredential;
+import org.springframework.credhub.support.value.ValueCredential;
+import org.springframework.credhub.support.value.ValueCredentialRequest;
 
 import org.springframework.credhub.support.permissions.Actor;
 import org.springframework.credhub.support.permissions.ActorType;
@@ -34,22 +60,42 @@ import org.springframework.credhub.support.ServiceInstanceCredentialName;
 import org.springframework.credhub.support.ServicesData;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.credhub.core.CredHubTemplate.BASE_URL_PATH;
 import static org.springframework.credhub.core.CredHubTemplate.INTERPOLATE_URL_PATH;
 import static org.springframework.credhub.core.CredHubTemplate.NAME_URL_QUERY;
+import static org.springframework.credhub.core.CredHubTemplate.NAME_URL_QUERY_CURRENT;
 import static org.springframework.credhub.core.CredHubTemplate.PERMISSIONS_ACTOR_URL_QUERY;
 import static org.springframework.credhub.core.CredHubTemplate.PERMISSIONS_URL_PATH;
 import static org.springframework.credhub.core.CredHubTemplate.PERMISSIONS_URL_QUERY;
+import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.HttpMethod.PUT;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 
 @RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"unchecked", "deprecation"})
 public class CredHubTemplateUnitTests extends CredHubTemplateUnitTestsBase {
+	private static final SimpleCredentialName OTHER_NAME = new SimpleCredentialName("example", "other");
 	@Test
 	public void deleteByName() {
 		credHubTemplate.deleteByName(NAME);
@@ -141,6 +187,503 @@ public class CredHubTemplateUnitTests extends CredHubTemplateUnitTestsBase {
 		assertThat(response, equalTo(expectedResponse));
 	}
 
+	@Test
+	public void getByNamesReportsFailuresSeparately() {
+		CredentialDetails<PasswordCredential> details = new CredentialDetails<PasswordCredential>("1111",
+				NAME, CredentialType.PASSWORD, new PasswordCredential("secret"));
+
+		when(restTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenReturn(new ResponseEntity<CredentialDetails<PasswordCredential>>(details, OK));
+		doThrow(new HttpClientErrorException(NOT_FOUND))
+				.when(restTemplate).exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+						isA(ParameterizedTypeReference.class), eq(OTHER_NAME.getName()));
+
+		credHubTemplate.setBulkRequestExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+		});
+
+		BulkCredentialDetails<PasswordCredential> response =
+				credHubTemplate.getByNames(Arrays.asList(NAME, OTHER_NAME), PasswordCredential.class);
+
+		assertThat(response.getCredentials().keySet(), contains((Object) NAME));
+		assertThat(response.getCredentials().get(NAME), equalTo(details));
+		assertThat(response.getFailures().keySet(), contains((Object) OTHER_NAME));
+		assertThat(response.getFailures().get(OTHER_NAME), instanceOf(CredHubException.class));
+	}
+
+	@Test
+	public void getByNamesReportsFailuresWhenExecutorRejectsWorkers() {
+		credHubTemplate.setBulkRequestExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException("saturated");
+			}
+		});
+
+		BulkCredentialDetails<PasswordCredential> response =
+				credHubTemplate.getByNames(Arrays.asList(NAME, OTHER_NAME), PasswordCredential.class);
+
+		assertThat(response.getCredentials().isEmpty(), equalTo(true));
+		assertThat(response.getFailures().keySet(), contains((Object) NAME, OTHER_NAME));
+		assertThat(response.getFailures().get(NAME), instanceOf(RejectedExecutionException.class));
+		assertThat(response.getFailures().get(OTHER_NAME), instanceOf(RejectedExecutionException.class));
+	}
+
+	@Test
+	public void getByNamesRetrievesAllCredentialsWhenSomeWorkersRejected() {
+		CredentialDetails<PasswordCredential> details = new CredentialDetails<PasswordCredential>("1111",
+				NAME, CredentialType.PASSWORD, new PasswordCredential("secret"));
+
+		when(restTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), isA(String.class)))
+				.thenReturn(new ResponseEntity<CredentialDetails<PasswordCredential>>(details, OK));
+
+		credHubTemplate.setBulkRequestOptions(BulkRequestOptions.builder()
+				.concurrency(2)
+				.build());
+		final AtomicInteger submitted = new AtomicInteger();
+		credHubTemplate.setBulkRequestExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				if (submitted.getAndIncrement() > 0) {
+					throw new RejectedExecutionException("saturated");
+				}
+				command.run();
+			}
+		});
+
+		BulkCredentialDetails<PasswordCredential> response =
+				credHubTemplate.getByNames(Arrays.asList(NAME, OTHER_NAME), PasswordCredential.class);
+
+		assertThat(response.getCredentials().keySet(), contains((Object) NAME, OTHER_NAME));
+		assertThat(response.getFailures().isEmpty(), equalTo(true));
+		assertThat(submitted.get(), equalTo(2));
+	}
+
+	@Test
+	public void getByNamesReportsCredentialsNotRetrievedWithinTimeout() {
+		when(restTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenAnswer(new Answer<Object>() {
+					@Override
+					public Object answer(InvocationOnMock invocation) throws Throwable {
+						Thread.sleep(200);
+						return new ResponseEntity<CredentialDetails<PasswordCredential>>(OK);
+					}
+				});
+
+		credHubTemplate.setBulkRequestOptions(BulkRequestOptions.builder()
+				.concurrency(1)
+				.timeout(50, TimeUnit.MILLISECONDS)
+				.build());
+
+		BulkCredentialDetails<PasswordCredential> response =
+				credHubTemplate.getByNames(Arrays.asList(NAME, OTHER_NAME), PasswordCredential.class);
+
+		assertThat(response.getCredentials().isEmpty(), equalTo(true));
+		assertThat(response.getFailures().keySet(), contains((Object) NAME, OTHER_NAME));
+		assertThat(response.getFailures().get(OTHER_NAME), instanceOf(TimeoutException.class));
+	}
+
+	@Test
+	public void operationMetricsRecorded() {
+		InMemoryCredHubMetricsRecorder recorder = new InMemoryCredHubMetricsRecorder();
+		credHubTemplate.setMetricsRecorder(recorder);
+
+		credHubTemplate.deleteByName(NAME);
+
+		assertThat(recorder.getOperations(), contains("deleteByName"));
+		assertThat(recorder.getOperationTimer("deleteByName").getCount(), equalTo(1L));
+		assertThat(recorder.getOperationErrorCount("deleteByName"), equalTo(0L));
+	}
+
+	@Test
+	public void operationMetricsRecordedWithError() {
+		InMemoryCredHubMetricsRecorder recorder = new InMemoryCredHubMetricsRecorder();
+		credHubTemplate.setMetricsRecorder(recorder);
+
+		doThrow(new HttpClientErrorException(NOT_FOUND))
+				.when(restTemplate).delete(NAME_URL_QUERY, NAME.getName());
+
+		try {
+			credHubTemplate.deleteByName(NAME);
+			fail("Exception should have been thrown");
+		}
+		catch (CredHubException e) {
+			assertThat(recorder.getOperationTimer("deleteByName").getCount(), equalTo(1L));
+			assertThat(recorder.getOperationErrorCount("deleteByName"), equalTo(1L));
+		}
+	}
+
+	@Test
+	public void idempotentOperationRetriedOnTransientError() {
+		InMemoryCredHubMetricsRecorder recorder = new InMemoryCredHubMetricsRecorder();
+		credHubTemplate.setMetricsRecorder(recorder);
+		credHubTemplate.setRetryOptions(fastRetryOptions());
+
+		doThrow(new HttpServerErrorException(SERVICE_UNAVAILABLE))
+				.doNothing()
+				.when(restTemplate).delete(NAME_URL_QUERY, NAME.getName());
+
+		credHubTemplate.deleteByName(NAME);
+
+		verify(restTemplate, times(2)).delete(NAME_URL_QUERY, NAME.getName());
+		assertThat(recorder.getOperationRetryCount("deleteByName"), equalTo(1L));
+		assertThat(recorder.getOperationTimer("deleteByName").getCount(), equalTo(1L));
+		assertThat(recorder.getOperationErrorCount("deleteByName"), equalTo(0L));
+	}
+
+	@Test
+	public void idempotentOperationRetriedUntilMaxAttempts() {
+		credHubTemplate.setRetryOptions(fastRetryOptions());
+
+		doThrow(new ResourceAccessException("Connection reset"))
+				.when(restTemplate).delete(NAME_URL_QUERY, NAME.getName());
+
+		try {
+			credHubTemplate.deleteByName(NAME);
+			fail("Exception should have been thrown");
+		}
+		catch (ResourceAccessException e) {
+			verify(restTemplate, times(3)).delete(NAME_URL_QUERY, NAME.getName());
+		}
+	}
+
+	@Test
+	public void idempotentOperationNotRetriedOnPermanentError() {
+		credHubTemplate.setRetryOptions(fastRetryOptions());
+
+		doThrow(new HttpClientErrorException(NOT_FOUND))
+				.when(restTemplate).delete(NAME_URL_QUERY, NAME.getName());
+
+		try {
+			credHubTemplate.deleteByName(NAME);
+			fail("Exception should have been thrown");
+		}
+		catch (CredHubException e) {
+			assertThat(e.getStatusCode(), equalTo(NOT_FOUND));
+			verify(restTemplate, times(1)).delete(NAME_URL_QUERY, NAME.getName());
+		}
+	}
+
+	@Test
+	public void nonIdempotentOperationNotRetried() {
+		credHubTemplate.setRetryOptions(fastRetryOptions());
+
+		ValueCredentialRequest request = ValueCredentialRequest.builder()
+				.name(NAME)
+				.value(new ValueCredential("value"))
+				.build();
+
+		when(restTemplate.exchange(eq(BASE_URL_PATH), eq(PUT), isA(HttpEntity.class),
+				isA(ParameterizedTypeReference.class)))
+				.thenThrow(new HttpServerErrorException(SERVICE_UNAVAILABLE));
+
+		try {
+			credHubTemplate.write(request);
+			fail("Exception should have been thrown");
+		}
+		catch (CredHubException e) {
+			verify(restTemplate, times(1)).exchange(eq(BASE_URL_PATH), eq(PUT), isA(HttpEntity.class),
+					isA(ParameterizedTypeReference.class));
+		}
+	}
+
+	@Test
+	public void slowReadIsHedged() {
+		final CredentialDetails<PasswordCredential> slow = new CredentialDetails<PasswordCredential>("1111",
+				NAME, CredentialType.PASSWORD, new PasswordCredential("slow"));
+		final CredentialDetails<PasswordCredential> fast = new CredentialDetails<PasswordCredential>("1111",
+				NAME, CredentialType.PASSWORD, new PasswordCredential("fast"));
+		final AtomicInteger calls = new AtomicInteger();
+
+		when(restTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenAnswer(new Answer<Object>() {
+					@Override
+					public Object answer(InvocationOnMock invocation) throws Throwable {
+						if (calls.incrementAndGet() == 1) {
+							Thread.sleep(2000);
+							return new ResponseEntity<CredentialDetails<PasswordCredential>>(slow, OK);
+						}
+						return new ResponseEntity<CredentialDetails<PasswordCredential>>(fast, OK);
+					}
+				});
+
+		credHubTemplate.setHedgingOptions(HedgingOptions.builder()
+				.delay(20, TimeUnit.MILLISECONDS)
+				.build());
+
+		assertThat(credHubTemplate.getByName(NAME, PasswordCredential.class), equalTo(fast));
+		assertThat(calls.get(), equalTo(2));
+	}
+
+	@Test
+	public void fastReadIsNotHedged() {
+		CredentialDetails<PasswordCredential> details = new CredentialDetails<PasswordCredential>("1111",
+				NAME, CredentialType.PASSWORD, new PasswordCredential("secret"));
+
+		when(restTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenReturn(new ResponseEntity<CredentialDetails<PasswordCredential>>(details, OK));
+
+		credHubTemplate.setHedgingOptions(HedgingOptions.builder()
+				.delay(1, TimeUnit.SECONDS)
+				.build());
+
+		assertThat(credHubTemplate.getByName(NAME, PasswordCredential.class), equalTo(details));
+		verify(restTemplate, times(1)).exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName()));
+	}
+
+	@Test
+	public void hedgingIsLimitedByBudget() {
+		final CredentialDetails<PasswordCredential> details = new CredentialDetails<PasswordCredential>("1111",
+				NAME, CredentialType.PASSWORD, new PasswordCredential("secret"));
+		final AtomicInteger calls = new AtomicInteger();
+
+		when(restTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenAnswer(new Answer<Object>() {
+					@Override
+					public Object answer(InvocationOnMock invocation) throws Throwable {
+						calls.incrementAndGet();
+						Thread.sleep(50);
+						return new ResponseEntity<CredentialDetails<PasswordCredential>>(details, OK);
+					}
+				});
+
+		credHubTemplate.setHedgingOptions(HedgingOptions.builder()
+				.delay(1, TimeUnit.MILLISECONDS)
+				.maxHedgeRatio(0.05)
+				.build());
+
+		for (int i = 0; i < 15; i++) {
+			credHubTemplate.getByName(NAME, PasswordCredential.class);
+		}
+
+		// the initial burst of 10 hedges is not replenished by 15 reads at a 5% ratio
+		assertThat(calls.get(), equalTo(25));
+	}
+
+	@Test
+	public void slowHedgedReadIsAborted() throws Exception {
+		final CredentialDetails<PasswordCredential> fast = new CredentialDetails<PasswordCredential>("1111",
+				NAME, CredentialType.PASSWORD, new PasswordCredential("fast"));
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch aborted = new CountDownLatch(1);
+
+		when(restTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenAnswer(new Answer<Object>() {
+					@Override
+					public Object answer(InvocationOnMock invocation) throws Throwable {
+						if (calls.incrementAndGet() == 1) {
+							HedgedAttempt.onAbort(new Runnable() {
+								@Override
+								public void run() {
+									aborted.countDown();
+								}
+							});
+							aborted.await(5, TimeUnit.SECONDS);
+							throw new ResourceAccessException("aborted");
+						}
+						return new ResponseEntity<CredentialDetails<PasswordCredential>>(fast, OK);
+					}
+				});
+
+		credHubTemplate.setHedgingOptions(HedgingOptions.builder()
+				.delay(20, TimeUnit.MILLISECONDS)
+				.build());
+
+		assertThat(credHubTemplate.getByName(NAME, PasswordCredential.class), equalTo(fast));
+		assertThat(aborted.await(1, TimeUnit.SECONDS), equalTo(true));
+	}
+
+	@Test
+	public void defaultHedgingExecutorIsBounded() {
+		ThreadPoolExecutor executor = CredHubTemplate.createHedgingExecutor();
+		try {
+			assertThat(executor.getMaximumPoolSize(), equalTo(CredHubTemplate.HEDGING_EXECUTOR_MAX_THREADS));
+			assertThat(executor.getQueue(), instanceOf(SynchronousQueue.class));
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void circuitBreakerOpensOnFailures() {
+		credHubTemplate.setCircuitBreakerOptions(circuitBreakerOptions(1, TimeUnit.HOURS));
+
+		doThrow(new HttpServerErrorException(SERVICE_UNAVAILABLE))
+				.when(restTemplate).delete(NAME_URL_QUERY, NAME.getName());
+
+		for (int i = 0; i < 4; i++) {
+			try {
+				credHubTemplate.deleteByName(NAME);
+				fail("Exception should have been thrown");
+			}
+			catch (CredHubException e) {
+				assertThat(e, not(instanceOf(CredHubCircuitOpenException.class)));
+			}
+		}
+
+		assertThat(credHubTemplate.getCircuitBreakerState(), equalTo(CircuitBreakerState.OPEN));
+
+		try {
+			credHubTemplate.deleteByName(NAME);
+			fail("Exception should have been thrown");
+		}
+		catch (CredHubCircuitOpenException e) {
+			assertThat(e.getStatusCode(), equalTo(SERVICE_UNAVAILABLE));
+			verify(restTemplate, times(4)).delete(NAME_URL_QUERY, NAME.getName());
+		}
+	}
+
+	@Test
+	public void circuitBreakerIgnoresClientErrors() {
+		credHubTemplate.setCircuitBreakerOptions(circuitBreakerOptions(1, TimeUnit.HOURS));
+
+		doThrow(new HttpClientErrorException(NOT_FOUND))
+				.when(restTemplate).delete(NAME_URL_QUERY, NAME.getName());
+
+		for (int i = 0; i < 8; i++) {
+			try {
+				credHubTemplate.deleteByName(NAME);
+				fail("Exception should have been thrown");
+			}
+			catch (CredHubException e) {
+				assertThat(e.getStatusCode(), equalTo(NOT_FOUND));
+			}
+		}
+
+		assertThat(credHubTemplate.getCircuitBreakerState(), equalTo(CircuitBreakerState.CLOSED));
+	}
+
+	@Test
+	public void circuitBreakerClosesAfterSuccessfulTrialCalls() throws Exception {
+		InMemoryCredHubMetricsRecorder recorder = new InMemoryCredHubMetricsRecorder();
+		credHubTemplate.setMetricsRecorder(recorder);
+		credHubTemplate.setCircuitBreakerOptions(circuitBreakerOptions(10, TimeUnit.MILLISECONDS));
+
+		final List<CircuitBreakerState> transitions = new ArrayList<CircuitBreakerState>();
+		credHubTemplate.addCircuitBreakerListener(new CircuitBreakerListener() {
+			@Override
+			public void stateChanged(CircuitBreakerState fromState, CircuitBreakerState toState) {
+				transitions.add(toState);
+			}
+		});
+
+		doThrow(new ResourceAccessException("Connection refused"))
+				.doThrow(new ResourceAccessException("Connection refused"))
+				.doThrow(new ResourceAccessException("Connection refused"))
+				.doThrow(new ResourceAccessException("Connection refused"))
+				.doNothing()
+				.when(restTemplate).delete(NAME_URL_QUERY, NAME.getName());
+
+		for (int i = 0; i < 4; i++) {
+			try {
+				credHubTemplate.deleteByName(NAME);
+				fail("Exception should have been thrown");
+			}
+			catch (ResourceAccessException e) {
+			}
+		}
+
+		Thread.sleep(20);
+
+		credHubTemplate.deleteByName(NAME);
+		credHubTemplate.deleteByName(NAME);
+
+		assertThat(credHubTemplate.getCircuitBreakerState(), equalTo(CircuitBreakerState.CLOSED));
+		assertThat(transitions, contains(CircuitBreakerState.OPEN, CircuitBreakerState.HALF_OPEN,
+				CircuitBreakerState.CLOSED));
+		assertThat(recorder.getCircuitBreakerState(), equalTo("CLOSED"));
+		assertThat(recorder.getCircuitBreakerTransitionCount("OPEN"), equalTo(1L));
+	}
+
+	@Test
+	public void abortedHedgedReadReleasesHalfOpenPermit() throws Exception {
+		final CredentialDetails<PasswordCredential> fast = new CredentialDetails<PasswordCredential>("1111",
+				NAME, CredentialType.PASSWORD, new PasswordCredential("fast"));
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch aborted = new CountDownLatch(1);
+
+		credHubTemplate.setCircuitBreakerOptions(circuitBreakerOptions(200, TimeUnit.MILLISECONDS));
+		credHubTemplate.setHedgingOptions(HedgingOptions.builder()
+				.delay(20, TimeUnit.MILLISECONDS)
+				.build());
+
+		doThrow(new ResourceAccessException("Connection refused"))
+				.doThrow(new ResourceAccessException("Connection refused"))
+				.doThrow(new ResourceAccessException("Connection refused"))
+				.doThrow(new ResourceAccessException("Connection refused"))
+				.doNothing()
+				.when(restTemplate).delete(NAME_URL_QUERY, NAME.getName());
+		when(restTemplate.exchange(eq(NAME_URL_QUERY_CURRENT), eq(GET), isNull(HttpEntity.class),
+				isA(ParameterizedTypeReference.class), eq(NAME.getName())))
+				.thenAnswer(new Answer<Object>() {
+					@Override
+					public Object answer(InvocationOnMock invocation) throws Throwable {
+						if (calls.incrementAndGet() == 1) {
+							HedgedAttempt.onAbort(new Runnable() {
+								@Override
+								public void run() {
+									aborted.countDown();
+								}
+							});
+							aborted.await(5, TimeUnit.SECONDS);
+							throw new ResourceAccessException("aborted");
+						}
+						return new ResponseEntity<CredentialDetails<PasswordCredential>>(fast, OK);
+					}
+				});
+
+		for (int i = 0; i < 4; i++) {
+			try {
+				credHubTemplate.deleteByName(NAME);
+				fail("Exception should have been thrown");
+			}
+			catch (ResourceAccessException e) {
+			}
+		}
+
+		Thread.sleep(250);
+
+		assertThat(credHubTemplate.getByName(NAME, PasswordCredential.class), equalTo(fast));
+		assertThat(aborted.await(1, TimeUnit.SECONDS), equalTo(true));
+		Thread.sleep(50);
+
+		// only the winning attempt is recorded, and the aborted attempt's permit is given back
+		assertThat(credHubTemplate.getCircuitBreakerState(), equalTo(CircuitBreakerState.HALF_OPEN));
+
+		credHubTemplate.deleteByName(NAME);
+
+		assertThat(credHubTemplate.getCircuitBreakerState(), equalTo(CircuitBreakerState.CLOSED));
+	}
+
+	private CircuitBreakerOptions circuitBreakerOptions(long waitDurationInOpenState, TimeUnit unit) {
+		return CircuitBreakerOptions.builder()
+				.slidingWindowSize(4)
+				.minimumNumberOfCalls(4)
+				.waitDurationInOpenState(waitDurationInOpenState, unit)
+				.permittedCallsInHalfOpenState(2)
+				.build();
+	}
+
+	private RetryOptions fastRetryOptions() {
+		return RetryOptions.builder()
+				.maxAttempts(3)
+				.initialBackoff(1, TimeUnit.MILLISECONDS)
+				.maxBackoff(2, TimeUnit.MILLISECONDS)
+				.build();
+	}
+
 	private ServicesData buildVcapServices(String credHubReferenceName) throws IOException {
 		String vcapServices = "{" +
 				"  \"service-offering\": [" +
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.credhub.support.LoadBalancingOptions;
+import org.springframework.credhub.support.LoadBalancingStrategy;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+public class LoadBalancingClientHttpRequestFactoryUnitTests {
+	private static final List<String> API_URI_BASES = Arrays.asList(
+			"https://credhub-a:8844", "https://credhub-b:8844", "https://credhub-c:8844");
+
+	private static final URI REQUEST_URI = URI.create("https://credhub-a:8844/api/v1/data?name=%2Fexample");
+
+	private final StubClientHttpRequestFactory delegate = new StubClientHttpRequestFactory();
+
+	@Test
+	public void requestsAreSentToEachServerInTurn() throws Exception {
+		LoadBalancingClientHttpRequestFactory factory = createFactory(LoadBalancingOptions.builder().build());
+
+		for (int i = 0; i < 6; i++) {
+			execute(factory).close();
+		}
+
+		assertThat(delegate.hosts, contains("credhub-a", "credhub-b", "credhub-c",
+				"credhub-a", "credhub-b", "credhub-c"));
+		assertThat(delegate.uris.get(1), equalTo(URI.create("https://credhub-b:8844/api/v1/data?name=%2Fexample")));
+	}
+
+	@Test
+	public void requestsToOtherUrisAreNotBalanced() throws Exception {
+		LoadBalancingClientHttpRequestFactory factory = createFactory(LoadBalancingOptions.builder().build());
+
+		URI uri = URI.create("https://uaa:8443/oauth/token");
+		factory.createRequest(uri, HttpMethod.POST).execute().close();
+
+		assertThat(delegate.uris, contains(uri));
+	}
+
+	@Test
+	public void failingServerIsEjectedAndAdmittedAgain() throws Exception {
+		LoadBalancingClientHttpRequestFactory factory = createFactory(LoadBalancingOptions.builder()
+				.consecutiveFailures(2)
+				.ejectionDuration(50, TimeUnit.MILLISECONDS)
+				.build());
+		delegate.statuses.put("credhub-a", SERVICE_UNAVAILABLE);
+
+		for (int i = 0; i < 7; i++) {
+			execute(factory).close();
+		}
+
+		assertThat(delegate.hosts, contains("credhub-a", "credhub-b", "credhub-c",
+				"credhub-a", "credhub-b", "credhub-c", "credhub-b"));
+
+		Thread.sleep(100);
+		delegate.hosts.clear();
+
+		for (int i = 0; i < 6; i++) {
+			execute(factory).close();
+		}
+
+		// a server admitted again is ejected by its first failure
+		assertThat(delegate.hosts, contains("credhub-b", "credhub-c", "credhub-a",
+				"credhub-b", "credhub-c", "credhub-b"));
+	}
+
+	@Test
+	public void requestsAreSentToLeastLoadedServer() throws Exception {
+		LoadBalancingClientHttpRequestFactory factory = createFactory(LoadBalancingOptions.builder()
+				.strategy(LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS)
+				.build());
+
+		ClientHttpResponse first = execute(factory);
+		ClientHttpResponse second = execute(factory);
+		execute(factory).close();
+		first.close();
+		execute(factory).close();
+		execute(factory).close();
+		second.close();
+
+		assertThat(delegate.hosts, contains("credhub-a", "credhub-b", "credhub-c",
+				"credhub-a", "credhub-c"));
+	}
+
+	@Test
+	public void requestsAreSentToFastestServer() throws Exception {
+		LoadBalancingClientHttpRequestFactory factory = createFactory(LoadBalancingOptions.builder()
+				.strategy(LoadBalancingStrategy.LATENCY_WEIGHTED)
+				.build());
+		delegate.delays.put("credhub-a", 20L);
+		delegate.delays.put("credhub-c", 20L);
+
+		for (int i = 0; i < 6; i++) {
+			execute(factory).close();
+		}
+
+		assertThat(delegate.hosts, contains("credhub-a", "credhub-b", "credhub-c",
+				"credhub-b", "credhub-b", "credhub-b"));
+	}
+
+	@Test
+	public void allServersEjected() throws Exception {
+		LoadBalancingClientHttpRequestFactory factory = createFactory(LoadBalancingOptions.builder()
+				.consecutiveFailures(1)
+				.build());
+		delegate.statuses.put("credhub-a", SERVICE_UNAVAILABLE);
+		delegate.statuses.put("credhub-b", SERVICE_UNAVAILABLE);
+		delegate.statuses.put("credhub-c", SERVICE_UNAVAILABLE);
+
+		for (int i = 0; i < 4; i++) {
+			execute(factory).close();
+		}
+
+		assertThat(delegate.hosts, contains("credhub-a", "credhub-b", "credhub-c", "credhub-a"));
+	}
+
+	private LoadBalancingClientHttpRequestFactory createFactory(LoadBalancingOptions options) {
+		return new LoadBalancingClientHttpRequestFactory(API_URI_BASES, delegate, options);
+	}
+
+	private ClientHttpResponse execute(LoadBalancingClientHttpRequestFactory factory) throws IOException {
+		return factory.createRequest(REQUEST_URI, HttpMethod.GET).execute();
+	}
+
+	private static class StubClientHttpRequestFactory implements ClientHttpRequestFactory {
+		private final List<URI> uris = new ArrayList<URI>();
+		private final List<String> hosts = new ArrayList<String>();
+		private final Map<String, HttpStatus> statuses = new HashMap<String, HttpStatus>();
+		private final Map<String, Long> delays = new HashMap<String, Long>();
+
+		@Override
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+			final String host = uri.getHost();
+			uris.add(uri);
+			hosts.add(host);
+
+			MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri) {
+				@Override
+				protected ClientHttpResponse executeInternal() throws IOException {
+					if (delays.containsKey(host)) {
+						try {
+							Thread.sleep(delays.get(host));
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+					return super.executeInternal();
+				}
+			};
+			HttpStatus status = statuses.containsKey(host) ? statuses.get(host) : OK;
+			request.setResponse(new MockClientHttpResponse(new byte[0], status));
+			return request;
+		}
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import org.springframework.credhub.support.BulkCredentialDetails;
+import org.springframework.credhub.support.CredentialDetails;
+import org.springframework.credhub.support.CredentialName;
+import org.springframework.credhub.support.CredentialType;
+import org.springframework.credhub.support.ServicesData;
+import org.springframework.credhub.support.SimpleCredentialName;
+import org.springframework.credhub.support.json.JsonCredential;
+import org.springframework.http.HttpStatus;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("unchecked")
+public class ServicesDataInterpolatorUnitTests {
+	private static final SimpleCredentialName NAME =
+			new SimpleCredentialName("c", "service-broker", "service-offering", "credentials");
+	private static final String REFERENCE = "((/c/service-broker/service-offering/credentials))";
+
+	@Mock
+	private CredHubOperations credHubOperations;
+
+	private JsonCredential credential;
+
+	@Before
+	public void setUp() {
+		credential = new JsonCredential();
+		credential.put("username", "user");
+		credential.put("password", "secret");
+	}
+
+	@Test
+	public void interpolateDistinctReferences() {
+		ServicesData servicesData = buildServicesData(REFERENCE, REFERENCE, null);
+
+		when(credHubOperations.getByNames(any(Collection.class), eq(JsonCredential.class)))
+				.thenReturn(bulkDetails(credential));
+
+		ServicesData result = new ServicesDataInterpolator(credHubOperations).interpolate(servicesData);
+
+		ArgumentCaptor<Collection> names = ArgumentCaptor.forClass(Collection.class);
+		verify(credHubOperations).getByNames(names.capture(), eq(JsonCredential.class));
+		assertThat((Collection<Object>) names.getValue(), contains((Object) NAME));
+
+		assertThat(result, sameInstance(servicesData));
+		List<Map<String, Object>> services = result.get("service-offering");
+		assertThat(services.get(0).get("credentials"), equalTo((Object) credential));
+		assertThat(services.get(1).get("credentials"), equalTo((Object) credential));
+		assertThat(services.get(2).get("credentials"), equalTo((Object) Collections.singletonMap("uri", "https://example.com")));
+	}
+
+	@Test
+	public void interpolateWithoutReferences() {
+		ServicesData servicesData = buildServicesData((String) null);
+
+		ServicesData result = new ServicesDataInterpolator(credHubOperations).interpolate(servicesData);
+
+		assertThat(result, sameInstance(servicesData));
+		verifyZeroInteractions(credHubOperations);
+	}
+
+	@Test
+	public void interpolateWithFailure() {
+		ServicesData servicesData = buildServicesData(REFERENCE);
+
+		Map<CredentialName, Exception> failures = new HashMap<CredentialName, Exception>();
+		failures.put(NAME, new CredHubException(HttpStatus.NOT_FOUND));
+		when(credHubOperations.getByNames(any(Collection.class), eq(JsonCredential.class)))
+				.thenReturn(new BulkCredentialDetails<JsonCredential>(
+						new HashMap<CredentialName, CredentialDetails<JsonCredential>>(), failures));
+
+		try {
+			new ServicesDataInterpolator(credHubOperations).interpolate(servicesData);
+			fail("Exception should have been thrown");
+		}
+		catch (CredHubException e) {
+			Map<?, ?> credentials = (Map<?, ?>) servicesData.get("service-offering").get(0).get("credentials");
+			assertThat(credentials.get("credhub-ref"), equalTo((Object) REFERENCE));
+		}
+	}
+
+	@Test
+	public void repeatedInterpolationUsesCache() {
+		when(credHubOperations.getByNames(any(Collection.class), eq(JsonCredential.class)))
+				.thenReturn(bulkDetails(credential));
+
+		ServicesDataInterpolator interpolator =
+				new ServicesDataInterpolator(new CachingCredHubOperations(credHubOperations));
+
+		interpolator.interpolate(buildServicesData(REFERENCE));
+		ServicesData result = interpolator.interpolate(buildServicesData(REFERENCE));
+
+		verify(credHubOperations, times(1)).getByNames(any(Collection.class), eq(JsonCredential.class));
+		assertThat(result.get("service-offering").get(0).get("credentials"), equalTo((Object) credential));
+	}
+
+	private BulkCredentialDetails<JsonCredential> bulkDetails(JsonCredential value) {
+		Map<CredentialName, CredentialDetails<JsonCredential>> credentials =
+				new LinkedHashMap<CredentialName, CredentialDetails<JsonCredential>>();
+		credentials.put(NAME, new CredentialDetails<JsonCredential>("1111", NAME, CredentialType.JSON, value));
+		return new BulkCredentialDetails<JsonCredential>(credentials, new HashMap<CredentialName, Exception>());
+	}
+
+	private ServicesData buildServicesData(String... references) {
+		List<Map<String, Object>> services = new ArrayList<Map<String, Object>>();
+		for (String reference : references) {
+			Map<String, Object> credentials = new HashMap<String, Object>();
+			if (reference == null) {
+				credentials.put("uri", "https://example.com");
+			}
+			else {
+				credentials.put("credhub-ref", reference);
+			}
+
+			Map<String, Object> service = new HashMap<String, Object>();
+			service.put("credentials", credentials);
+			service.put("label", "service-offering");
+			services.add(service);
+		}
+
+		ServicesData servicesData = new ServicesData();
+		servicesData.put("service-offering", services);
+		return servicesData;
+	}
+}
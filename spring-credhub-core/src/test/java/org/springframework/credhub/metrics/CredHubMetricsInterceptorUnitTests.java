@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.metrics;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class CredHubMetricsInterceptorUnitTests {
+	private InMemoryCredHubMetricsRecorder recorder;
+	private RestTemplate restTemplate;
+	private MockRestServiceServer server;
+
+	@Before
+	public void setUp() {
+		recorder = new InMemoryCredHubMetricsRecorder();
+
+		restTemplate = new RestTemplate();
+		restTemplate.getInterceptors().add(new CredHubMetricsInterceptor(recorder));
+		server = MockRestServiceServer.bindTo(restTemplate).build();
+	}
+
+	@Test
+	public void successfulRequest() {
+		server.expect(requestTo("/api/v1/data"))
+				.andExpect(method(HttpMethod.PUT))
+				.andRespond(withSuccess("{\"id\":\"1111\"}", MediaType.APPLICATION_JSON));
+
+		restTemplate.put("/api/v1/data", "request");
+
+		server.verify();
+		assertThat(recorder.getRequestTimer().getCount(), equalTo(1L));
+		assertThat(recorder.getStatusCodeCount(200), equalTo(1L));
+		assertThat(recorder.getRequestBytes(), equalTo(7L));
+		assertThat(recorder.getInFlightRequests(), equalTo(0));
+	}
+
+	@Test
+	public void responseBodyBytesCounted() {
+		server.expect(requestTo("/api/v1/data?name=example"))
+				.andRespond(withSuccess("{\"id\":\"1111\"}", MediaType.APPLICATION_JSON));
+
+		String body = restTemplate.getForObject("/api/v1/data?name=example", String.class);
+
+		assertThat(recorder.getResponseBytes(), equalTo((long) body.length()));
+		assertThat(recorder.getRequestBytes(), equalTo(0L));
+	}
+
+	@Test
+	public void errorResponse() {
+		server.expect(requestTo("/api/v1/data?name=example"))
+				.andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+		try {
+			restTemplate.getForObject("/api/v1/data?name=example", String.class);
+			fail("Exception should have been thrown");
+		}
+		catch (HttpClientErrorException e) {
+			assertThat(recorder.getStatusCodeCount(404), equalTo(1L));
+			assertThat(recorder.getInFlightRequests(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void noResponse() {
+		server.expect(requestTo("/api/v1/data?name=example"))
+				.andRespond(new ResponseCreator() {
+					@Override
+					public ClientHttpResponse createResponse(ClientHttpRequest request) throws IOException {
+						throw new IOException("connection refused");
+					}
+				});
+
+		try {
+			restTemplate.getForObject("/api/v1/data?name=example", String.class);
+			fail("Exception should have been thrown");
+		}
+		catch (ResourceAccessException e) {
+			assertThat(recorder.getStatusCodeCount(CredHubMetricsRecorder.NO_RESPONSE), equalTo(1L));
+			assertThat(recorder.getInFlightRequests(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void operationsRecorded() {
+		recorder.operationCompleted("getByName", 1000, true);
+		recorder.operationCompleted("getByName", 3000, false);
+
+		assertThat(recorder.getOperations(), equalTo(Collections.singleton("getByName")));
+		assertThat(recorder.getOperationTimer("getByName").getCount(), equalTo(2L));
+		assertThat(recorder.getOperationTimer("getByName").getMax(), equalTo(3000L));
+		assertThat(recorder.getOperationErrorCount("getByName"), equalTo(1L));
+		assertThat(recorder.getOperationErrorCount("write"), equalTo(0L));
+	}
+}
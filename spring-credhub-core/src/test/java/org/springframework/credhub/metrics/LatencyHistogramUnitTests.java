@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class LatencyHistogramUnitTests {
+
+	@Test
+	public void emptyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		assertThat(histogram.getCount(), equalTo(0L));
+		assertThat(histogram.getMax(), equalTo(0L));
+		assertThat(histogram.getMean(), equalTo(0.0));
+		assertThat(histogram.getValueAtPercentile(99), equalTo(0L));
+	}
+
+	@Test
+	public void smallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 10; value++) {
+			histogram.record(value);
+		}
+
+		assertThat(histogram.getCount(), equalTo(10L));
+		assertThat(histogram.getMax(), equalTo(10L));
+		assertThat(histogram.getMean(), equalTo(5.5));
+		assertThat(histogram.getValueAtPercentile(0), equalTo(1L));
+		assertThat(histogram.getValueAtPercentile(50), equalTo(5L));
+		assertThat(histogram.getValueAtPercentile(90), equalTo(9L));
+		assertThat(histogram.getValueAtPercentile(100), equalTo(10L));
+	}
+
+	@Test
+	public void largeValuesAreWithinRelativeError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 100000; value++) {
+			histogram.record(value * 1000);
+		}
+
+		assertWithinError(histogram.getValueAtPercentile(50), 50000000L);
+		assertWithinError(histogram.getValueAtPercentile(99), 99000000L);
+		assertWithinError(histogram.getValueAtPercentile(99.9), 99900000L);
+		assertThat(histogram.getValueAtPercentile(100), equalTo(100000000L));
+	}
+
+	@Test
+	public void extremeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-1);
+		histogram.record(Long.MAX_VALUE);
+
+		assertThat(histogram.getValueAtPercentile(50), equalTo(0L));
+		assertThat(histogram.getValueAtPercentile(100), equalTo(Long.MAX_VALUE));
+	}
+
+	private void assertWithinError(long actual, long expected) {
+		assertThat(actual, greaterThanOrEqualTo(expected));
+		assertThat(actual, lessThanOrEqualTo(expected + expected / 16));
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.credhub.support;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ServicesDataUnitTests extends JsonParsingUnitTestsBase {
+
+	@Test
+	public void constructorCopies() {
+		HashMap<String, List<Map<String, Object>>> data = new HashMap<String, List<Map<String, Object>>>();
+		data.put("service-offering", Collections.singletonList(service()));
+
+		ServicesData servicesData = new ServicesData(data);
+		data.clear();
+
+		assertThat(servicesData.size(), equalTo(1));
+		assertThat(servicesData.equals(new ServicesData(data)), equalTo(false));
+	}
+
+	@Test
+	public void serializeAndDeserialize() throws Exception {
+		HashMap<String, List<Map<String, Object>>> data = new HashMap<String, List<Map<String, Object>>>();
+		data.put("service-offering", Collections.singletonList(service()));
+
+		String json = objectMapper.writeValueAsString(new ServicesData(data));
+		ServicesData servicesData = objectMapper.readValue(json, ServicesData.class);
+
+		assertThat(servicesData, equalTo((Map<String, List<Map<String, Object>>>) data));
+		assertThat(servicesData.get("service-offering").get(0).get("label"), equalTo((Object) "service-offering"));
+	}
+
+	@Test
+	public void containsCredHubReferences() {
+		HashMap<String, List<Map<String, Object>>> data = new HashMap<String, List<Map<String, Object>>>();
+		data.put("plain-offering", Collections.singletonList(plainService()));
+		assertThat(new ServicesData(data).containsCredHubReferences(), equalTo(false));
+
+		data.put("service-offering", Collections.singletonList(service()));
+		assertThat(new ServicesData(data).containsCredHubReferences(), equalTo(true));
+	}
+
+	@Test
+	public void containsCredHubReferencesInMap() {
+		Map<String, List<Map<String, Object>>> data = new HashMap<String, List<Map<String, Object>>>();
+		data.put("plain-offering", Collections.singletonList(plainService()));
+		assertThat(ServicesData.containsCredHubReferences(data), equalTo(false));
+
+		data.put("service-offering", Collections.singletonList(service()));
+		assertThat(ServicesData.containsCredHubReferences(data), equalTo(true));
+
+		assertThat(ServicesData.containsCredHubReferences(null), equalTo(false));
+	}
+
+	@Test
+	public void containsCredHubReferencesWithEmptyData() {
+		HashMap<String, List<Map<String, Object>>> data = new HashMap<String, List<Map<String, Object>>>();
+		data.put("null-offering", null);
+		data.put("empty-offering", Collections.<Map<String, Object>> emptyList());
+
+		assertThat(new ServicesData().containsCredHubReferences(), equalTo(false));
+		assertThat(new ServicesData(data).containsCredHubReferences(), equalTo(false));
+	}
+
+	@Test
+	public void getCredHubReference() {
+		assertThat(ServicesData.getCredHubReference(service()), equalTo("/c/credentials"));
+		assertThat(ServicesData.getCredHubReference(plainService()), nullValue());
+		assertThat(ServicesData.getCredHubReference(null), nullValue());
+
+		Map<String, Object> service = new HashMap<String, Object>();
+		service.put("credentials", Collections.singletonMap("credhub-ref", " /c/unwrapped "));
+		assertThat(ServicesData.getCredHubReference(service), equalTo("/c/unwrapped"));
+
+		service.put("credentials", Collections.singletonMap("credhub-ref", "(( ))"));
+		assertThat(ServicesData.getCredHubReference(service), nullValue());
+
+		service.put("credentials", "((/c/credentials))");
+		assertThat(ServicesData.getCredHubReference(service), nullValue());
+	}
+
+	private Map<String, Object> plainService() {
+		Map<String, Object> service = new HashMap<String, Object>();
+		service.put("label", "plain-offering");
+		service.put("credentials", Collections.singletonMap("uri", "https://example.com"));
+		return service;
+	}
+
+	private Map<String, Object> service() {
+		Map<String, Object> service = new HashMap<String, Object>();
+		service.put("label", "service-offering");
+		service.put("credentials", Collections.singletonMap("credhub-ref", "((/c/credentials))"));
+		return service;
+	}
+}